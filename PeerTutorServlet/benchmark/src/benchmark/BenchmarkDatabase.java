@@ -0,0 +1,241 @@
+/* File: BenchmarkDatabase.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: creates and scales the database the benchmarks run against
+ */
+package benchmark;
+
+import dataaccesslayer.DataSourceConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Builds a separate benchmark schema on the configured MySQL server from
+ * {@code peertutor-MySQL.sql} and the migrations, then scales it up with
+ * synthetic students and peer tutors. The application's DataSource is pointed
+ * at that schema through the "peertutor.db.url" system property, so the code
+ * under test runs unchanged.
+ * <p>
+ * Every JMH fork calls {@link #prepare(int)}; the schema is only rebuilt when
+ * it does not exist yet or was built for another scale.
+ * <p>
+ * System properties: {@code benchmark.db} (schema name, default
+ * peertutor_bench) and {@code benchmark.sql.dir} (directory holding
+ * peertutor-MySQL.sql and migrations/, default src/java).
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class BenchmarkDatabase {
+
+    /**
+     * Synthetic peer tutors get IDs from here on.
+     */
+    public static final int FIRST_TUTOR_ID = 1_000_000;
+
+    /**
+     * Synthetic students get IDs from here on.
+     */
+    public static final int FIRST_STUDENT_ID = 20_000_000;
+
+    /**
+     * Course codes of the seed data; synthetic rows use the same courses.
+     */
+    public static final String[] COURSES = {"CST8101", "CST8110", "CST8215", "CST8300", "ENL1813", "MAT8001"};
+
+    private static final String[] GRADES = {"A+", "A", "A-", "B+", "B", "B-", "C+", "C", "D", "F"};
+
+    private static final int BATCH_SIZE = 1000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Makes sure the benchmark schema exists at the given scale and points
+     * the application at it. Call before the first DataSource is created.
+     *
+     * @param tutors the number of synthetic peer tutors.
+     * @throws SQLException if the schema cannot be built.
+     * @throws IOException if the SQL scripts cannot be read.
+     */
+    public static synchronized void prepare(int tutors) throws SQLException, IOException {
+        String db = System.getProperty("benchmark.db", "peertutor_bench");
+        DataSourceConfig config = DataSourceConfig.load();
+        String serverUrl = config.getUrl().replaceFirst("/[^/?]*(\\?|$)", "/$1");
+        String benchUrl = config.getUrl().replaceFirst("/[^/?]*(\\?|$)", "/" + db + "$1");
+
+        try (Connection con = DriverManager.getConnection(serverUrl, config.getUsername(), config.getPassword())) {
+            if (scaleOf(con, db) != tutors) {
+                System.out.println("Building " + db + " with " + tutors + " synthetic peer tutors");
+                Path sqlDir = Paths.get(System.getProperty("benchmark.sql.dir", "src/java"));
+                runScript(con, sqlDir.resolve("peertutor-MySQL.sql"), db);
+                for (Path migration : migrations(sqlDir.resolve("migrations"))) {
+                    runScript(con, migration, db);
+                }
+                con.setCatalog(db);
+                scale(con, tutors);
+                try (Statement stmt = con.createStatement()) {
+                    stmt.executeUpdate("CREATE TABLE BenchmarkScale (Tutors INT NOT NULL)");
+                    stmt.executeUpdate("INSERT INTO BenchmarkScale VALUES (" + tutors + ")");
+                    stmt.execute("ANALYZE TABLE Student, PeerTutor, Grade, StudentCourse, PeerTutorCourse");
+                }
+            }
+        }
+        System.setProperty("peertutor.db.url", benchUrl);
+    }
+
+    private static int scaleOf(Connection con, String db) {
+        try (Statement stmt = con.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT Tutors FROM " + db + ".BenchmarkScale")) {
+            return rs.next() ? rs.getInt(1) : -1;
+        } catch (SQLException ex) {
+            return -1;
+        }
+    }
+
+    private static List<Path> migrations(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().matches("V\\d+__.*\\.sql"))
+                    .sorted((a, b) -> Integer.compare(version(a), version(b)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static int version(Path migration) {
+        String name = migration.getFileName().toString();
+        return Integer.parseInt(name.substring(1, name.indexOf("__")));
+    }
+
+    /**
+     * Runs a SQL script the way the mysql client would, honouring DELIMITER
+     * lines, with the peertutor schema name replaced by the benchmark one.
+     */
+    static void runScript(Connection con, Path script, String db) throws IOException, SQLException {
+        String delimiter = ";";
+        StringBuilder statement = new StringBuilder();
+        boolean inComment = false;
+        try (Statement stmt = con.createStatement()) {
+            for (String line : Files.readAllLines(script, StandardCharsets.UTF_8)) {
+                String trimmed = line.trim();
+                if (inComment || trimmed.startsWith("/*")) {
+                    inComment = !trimmed.endsWith("*/");
+                    continue;
+                }
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                if (trimmed.toUpperCase().startsWith("DELIMITER ")) {
+                    delimiter = trimmed.substring(10).trim();
+                    continue;
+                }
+                statement.append(line).append('\n');
+                if (trimmed.endsWith(delimiter)) {
+                    String sql = statement.substring(0, statement.lastIndexOf(delimiter)).trim();
+                    statement.setLength(0);
+                    stmt.execute(sql.replaceFirst("(?i)^(DROP DATABASE IF EXISTS|CREATE DATABASE|USE) peertutor$",
+                            "$1 " + db));
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds synthetic peer tutors, each with a matching student record that
+     * took two to four courses. Grades are skewed towards the middle, so
+     * roughly a quarter of the courses taken qualify the tutor, and those
+     * are assigned.
+     */
+    private static void scale(Connection con, int tutors) throws SQLException {
+        Random random = new Random(42);
+        con.setAutoCommit(false);
+        try (PreparedStatement student = con.prepareStatement("INSERT INTO Student VALUES (?, ?, ?, ?, ?)");
+                PreparedStatement tutor = con.prepareStatement("INSERT INTO PeerTutor VALUES (?, ?, ?, ?, ?, 'CURRENT', 1)");
+                PreparedStatement taken = con.prepareStatement("INSERT INTO StudentCourse VALUES (?, ?)");
+                PreparedStatement grade = con.prepareStatement("INSERT INTO Grade VALUES (?, ?, ?)");
+                PreparedStatement assigned = con.prepareStatement("INSERT INTO PeerTutorCourse VALUES (?, ?)")) {
+            for (int i = 0; i < tutors; i++) {
+                int studentID = FIRST_STUDENT_ID + i;
+                int tutorID = FIRST_TUTOR_ID + i;
+                String lastName = lastName(i);
+                String firstName = firstName(i);
+                String email = "t" + i + "@bench.example";
+                student.setInt(1, studentID);
+                student.setString(2, lastName);
+                student.setString(3, firstName);
+                student.setString(4, email);
+                student.setString(5, "613-555-0000");
+                student.addBatch();
+                tutor.setInt(1, tutorID);
+                tutor.setString(2, lastName);
+                tutor.setString(3, firstName);
+                tutor.setString(4, email);
+                tutor.setString(5, "613-555-0000");
+                tutor.addBatch();
+
+                int first = random.nextInt(COURSES.length);
+                int count = 2 + random.nextInt(3);
+                for (int c = 0; c < count; c++) {
+                    String course = COURSES[(first + c) % COURSES.length];
+                    String gradeCode = GRADES[Math.min(GRADES.length - 1,
+                            (int) Math.abs(random.nextGaussian() * 2.5 + 3.5))];
+                    taken.setInt(1, studentID);
+                    taken.setString(2, course);
+                    taken.addBatch();
+                    grade.setInt(1, studentID);
+                    grade.setString(2, course);
+                    grade.setString(3, gradeCode);
+                    grade.addBatch();
+                    if (gradeCode.startsWith("A")) {
+                        assigned.setInt(1, tutorID);
+                        assigned.setString(2, course);
+                        assigned.addBatch();
+                    }
+                }
+                if ((i + 1) % BATCH_SIZE == 0 || i == tutors - 1) {
+                    student.executeBatch();
+                    tutor.executeBatch();
+                    taken.executeBatch();
+                    grade.executeBatch();
+                    assigned.executeBatch();
+                    con.commit();
+                }
+            }
+        } finally {
+            con.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * The last name of synthetic tutor i. Names repeat across tutors the way
+     * real ones do; the first name makes each pair unique.
+     */
+    public static String lastName(int i) {
+        return "Last" + (i % 997);
+    }
+
+    /**
+     * The first name of synthetic tutor i.
+     */
+    public static String firstName(int i) {
+        return "First" + i;
+    }
+}
@@ -0,0 +1,121 @@
+/* File: EligibilityChainBenchmark.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: JMH benchmarks of the full eligibility and assignment chain
+ */
+package benchmark;
+
+import businesslayer.PeerTutorBusinessLogic;
+import businesslayer.PeerTutorUnitOfWork;
+import dataaccesslayer.DataSource;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import transferobject.AssignmentResult;
+import transferobject.EligibilityStatus;
+import transferobject.PeerTutor;
+
+/**
+ * Measures what one form submission costs the business layer: the
+ * eligibility check followed, when it passes, by the assignment, in one
+ * unit of work exactly as PeerTutorServlet calls them. For comparison, {@link #separateChecks()}
+ * runs the five individual validation calls the servlet used to make.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(4)
+public class EligibilityChainBenchmark {
+
+    /**
+     * Synthetic peer tutors in the benchmark schema.
+     */
+    @Param({"10000"})
+    public int tutors;
+
+    private PeerTutorBusinessLogic logic;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        BenchmarkDatabase.prepare(tutors);
+        logic = new PeerTutorBusinessLogic();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DataSource.shutdown();
+    }
+
+    private PeerTutor randomTutor() {
+        int i = ThreadLocalRandom.current().nextInt(tutors);
+        PeerTutor peerTutor = new PeerTutor();
+        peerTutor.setLastName(BenchmarkDatabase.lastName(i));
+        peerTutor.setFirstName(BenchmarkDatabase.firstName(i));
+        return peerTutor;
+    }
+
+    private static String randomCourse() {
+        return BenchmarkDatabase.COURSES[ThreadLocalRandom.current().nextInt(BenchmarkDatabase.COURSES.length)];
+    }
+
+    /**
+     * The servlet's chain. Synthetic tutors are assigned every course they
+     * qualify for, so an eligible pair does not occur and the data stays
+     * unchanged; the assignment path itself is covered by
+     * PeerTutorDAOBenchmark.
+     */
+    @Benchmark
+    public Object checkAndAssign() {
+        PeerTutor peerTutor = randomTutor();
+        String courseCode = randomCourse();
+        PeerTutorUnitOfWork work = logic.beginUnitOfWork(peerTutor);
+        EligibilityStatus status = work.checkEligibility(courseCode);
+        if (status == EligibilityStatus.ELIGIBLE) {
+            AssignmentResult result = work.assignCourse(courseCode);
+            if (result != AssignmentResult.ASSIGNED) {
+                return work.checkEligibility(courseCode);
+            }
+            return result;
+        }
+        return status;
+    }
+
+    /**
+     * The original one-call-per-rule chain, stopping at the first failure;
+     * each rule is now answered by ID after resolving the name.
+     */
+    @Benchmark
+    public boolean separateChecks() {
+        PeerTutor peerTutor = randomTutor();
+        String courseCode = randomCourse();
+        return logic.isPeerTutorRegistered(peerTutor)
+                && logic.isCourseValid(courseCode)
+                && logic.hasPeerTutorTakenCourse(peerTutor, courseCode)
+                && logic.getPeerTutorLetterGradeForCourse(peerTutor, courseCode)
+                && !logic.isCourseAlreadyAssignedToPeerTutor(peerTutor, courseCode);
+    }
+}
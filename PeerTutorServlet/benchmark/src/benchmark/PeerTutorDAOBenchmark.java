@@ -0,0 +1,170 @@
+/* File: PeerTutorDAOBenchmark.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: JMH benchmarks of every PeerTutorDAO operation
+ */
+package benchmark;
+
+import dataaccesslayer.DataSource;
+import dataaccesslayer.InMemoryPeerTutorDAO;
+import dataaccesslayer.PeerTutorDAO;
+import dataaccesslayer.PeerTutorDAOImpl;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import transferobject.AssignmentResult;
+import transferobject.CourseAssignment;
+import transferobject.PeerTutor;
+
+/**
+ * Measures each PeerTutorDAO method on its own, with no caching in front,
+ * against the database ("mysql") or against an in-memory snapshot of the
+ * benchmark schema ("memory"). Every operation reports throughput and
+ * a latency distribution (SampleTime mode prints p50 to p99.99), so a change
+ * in connection handling or in a query shows up as a shift in both.
+ * <p>
+ * Each invocation picks a random synthetic peer tutor, so the queries touch
+ * the whole table rather than one hot row. The assignment benchmark uses
+ * pairs that are already assigned, which leaves the data unchanged between
+ * iterations.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@Threads(4)
+public class PeerTutorDAOBenchmark {
+
+    /**
+     * Synthetic peer tutors in the benchmark schema.
+     */
+    @Param({"10000"})
+    public int tutors;
+
+    /**
+     * Pairs per call of the bulk eligibility query.
+     */
+    @Param({"100"})
+    public int bulkSize;
+
+    /**
+     * The DAO backend under test.
+     */
+    @Param({"mysql", "memory"})
+    public String backend;
+
+    private PeerTutorDAO dao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException, IOException {
+        BenchmarkDatabase.prepare(tutors);
+        dao = "memory".equals(backend) ? InMemoryPeerTutorDAO.fromDatabase(false) : new PeerTutorDAOImpl();
+        dao.isCourseValid(BenchmarkDatabase.COURSES[0]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DataSource.shutdown();
+    }
+
+    private PeerTutor randomTutor() {
+        int i = ThreadLocalRandom.current().nextInt(tutors);
+        PeerTutor peerTutor = new PeerTutor();
+        peerTutor.setLastName(BenchmarkDatabase.lastName(i));
+        peerTutor.setFirstName(BenchmarkDatabase.firstName(i));
+        peerTutor.setPeerTutorID(BenchmarkDatabase.FIRST_TUTOR_ID + i);
+        return peerTutor;
+    }
+
+    /* synthetic tutor i is synthetic student i */
+    private static int studentID(PeerTutor peerTutor) {
+        return peerTutor.getPeerTutorID() - BenchmarkDatabase.FIRST_TUTOR_ID + BenchmarkDatabase.FIRST_STUDENT_ID;
+    }
+
+    private static String randomCourse() {
+        return BenchmarkDatabase.COURSES[ThreadLocalRandom.current().nextInt(BenchmarkDatabase.COURSES.length)];
+    }
+
+    @Benchmark
+    public boolean isCourseValid() {
+        return dao.isCourseValid(randomCourse());
+    }
+
+    @Benchmark
+    public Object getEligibilityVerdictById() {
+        PeerTutor peerTutor = randomTutor();
+        return dao.getEligibilityVerdict(peerTutor.getPeerTutorID(), studentID(peerTutor), randomCourse());
+    }
+
+    /**
+     * Assigning a pair that is assigned already runs the whole transaction,
+     * insert attempt and follow-up read included, without changing the data.
+     */
+    @Benchmark
+    public AssignmentResult assignCourseToPeerTutorById() {
+        return dao.assignCourseToPeerTutor(randomTutor().getPeerTutorID(), randomCourse());
+    }
+
+    @Benchmark
+    public void getPeerTutorsForCourse(Blackhole blackhole) {
+        blackhole.consume(dao.getPeerTutorsForCourse(randomCourse(), Integer.MIN_VALUE, 50));
+    }
+
+    @Benchmark
+    public void getPeerTutorsForCourseDeepPage(Blackhole blackhole) {
+        int after = BenchmarkDatabase.FIRST_TUTOR_ID + ThreadLocalRandom.current().nextInt(tutors);
+        blackhole.consume(dao.getPeerTutorsForCourse(randomCourse(), after, 50));
+    }
+
+    @Benchmark
+    public String getRosterVersion() {
+        return dao.getRosterVersion(randomCourse());
+    }
+
+    @Benchmark
+    public void getSessionsForTutor(Blackhole blackhole) {
+        LocalDate today = LocalDate.now();
+        blackhole.consume(dao.getSessionsForTutor(randomTutor().getPeerTutorID(), today, today.plusDays(7), 100));
+    }
+
+    @Benchmark
+    public void getEligibilityVerdicts(Blackhole blackhole) {
+        List<CourseAssignment> requests = new ArrayList<>(bulkSize);
+        for (int i = 0; i < bulkSize; i++) {
+            PeerTutor peerTutor = randomTutor();
+            CourseAssignment request = new CourseAssignment(peerTutor.getLastName(), peerTutor.getFirstName(),
+                    randomCourse());
+            request.setPeerTutorID(peerTutor.getPeerTutorID());
+            request.setStudentID(studentID(peerTutor));
+            requests.add(request);
+        }
+        blackhole.consume(dao.getEligibilityVerdicts(requests));
+    }
+}
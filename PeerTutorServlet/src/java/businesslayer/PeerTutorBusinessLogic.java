@@ -5,32 +5,94 @@
  */
 package businesslayer;
 
+import dataaccesslayer.AvailabilityIndex;
+import dataaccesslayer.IdentityResolver;
 import dataaccesslayer.PeerTutorDAO;
-import dataaccesslayer.PeerTutorDAOImpl;
+import dataaccesslayer.PeerTutorDAOFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
+import transferobject.AssignmentResult;
+import transferobject.BookingResult;
+import transferobject.CourseAssignment;
+import transferobject.EligibilityStatus;
+import transferobject.EligibilityVerdict;
+import transferobject.EligibleTutor;
+import transferobject.FreeSlot;
 import transferobject.PeerTutor;
+import transferobject.TutorIdentity;
+import transferobject.TutoringSession;
 
 /**
  * This class represents the business logic layer for the Peer Tutor management
  * system. It interacts with the data access layer to perform various operations
- * related to peer tutors.
+ * related to peer tutors. It keeps no per-request state, so one instance is
+ * shared by every request; the web application builds it at startup.
  */
 public class PeerTutorBusinessLogic {
 
+    /**
+     * Shortest and longest tutoring session, in minutes.
+     */
+    public static final int MIN_SESSION_MINUTES = 15;
+    public static final int MAX_SESSION_MINUTES = 240;
+
+    /**
+     * How far ahead a session can be booked.
+     */
+    public static final int MAX_BOOKING_DAYS_AHEAD = 180;
+
     
 /**
      * Constructs a new PeerTutorBusinessLogic object, initializing the DAO
      * implementation.
      */
-    private PeerTutorDAO peerTutorDAO;
+    private final PeerTutorDAO peerTutorDAO;
+
+    /**
+     * Maps submitted names and emails to the IDs the DAO keys on.
+     */
+    private final IdentityResolver identityResolver;
+
+    /**
+     * Answers free-time queries without reading the sessions table.
+     */
+    private final AvailabilityIndex availabilityIndex;
 
     /**
      * Constructs a new PeerTutorBusinessLogic object, initializing the DAO
-     * implementation.
+     * implementation chosen by the dao.backend setting.
      */
     public PeerTutorBusinessLogic() {
-        peerTutorDAO = new PeerTutorDAOImpl();
+        this(PeerTutorDAOFactory.create());
+    }
+
+    /**
+     * Constructs a new PeerTutorBusinessLogic object over the given DAO, e.g.
+     * an in-memory one wrapped by {@link PeerTutorDAOFactory#decorate}.
+     *
+     * @param peerTutorDAO the DAO to work with.
+     */
+    public PeerTutorBusinessLogic(PeerTutorDAO peerTutorDAO) {
+        this.peerTutorDAO = peerTutorDAO;
+        identityResolver = new IdentityResolver(peerTutorDAO);
+        availabilityIndex = new AvailabilityIndex(peerTutorDAO);
+    }
+
+    /**
+     * Gets everything the first requests need ready ahead of them: the
+     * database connections and prepared statements (or the in-memory data),
+     * the identity index and the free-slot index.
+     */
+    public void warmUp() {
+        PeerTutorDAOFactory.warmUp();
+        identityResolver.warmUp();
+        availabilityIndex.warmUp();
     }
 
     /**
@@ -42,7 +104,7 @@ public class PeerTutorBusinessLogic {
      */
     public boolean isPeerTutorRegistered(PeerTutor peerTutor) {
 
-        return peerTutorDAO.isPeerTutorRegistered(peerTutor);
+        return !identityResolver.resolve(peerTutor).isEmpty();
     }
 
     /**
@@ -62,11 +124,13 @@ public class PeerTutorBusinessLogic {
      *
      * @param peerTutor  The peer tutor in question.
      * @param courseCode The code of the course to check.
-     * @return true if the peer tutor has taken the course, otherwise false.
+     * @return true if the peer tutor has taken the course, otherwise false;
+     * false too when the name does not resolve to one peer tutor.
      */
     public boolean hasPeerTutorTakenCourse(PeerTutor peerTutor, String courseCode) {
 
-        return peerTutorDAO.hasPeerTutorTakenCourse(peerTutor, courseCode);
+        EligibilityVerdict verdict = resolvedVerdict(peerTutor, courseCode);
+        return verdict != null && verdict.isCourseTaken();
     }
 
     /**
@@ -74,35 +138,202 @@ public class PeerTutorBusinessLogic {
      *
      * @param peerTutor  The peer tutor whose grade is requested.
      * @param courseCode The course code for which the grade is needed.
-     * @return A String representing the grade received, or null if no grade is found.
+     * @return true if the grade received is sufficient to tutor the course;
+     * false when there is none or the name does not resolve to one peer tutor.
      */
     public boolean getPeerTutorLetterGradeForCourse(PeerTutor peerTutor, String courseCode) {
-        String grade = peerTutorDAO.getPeerTutorLetterGradeForCourse(peerTutor, courseCode);
+        EligibilityVerdict verdict = resolvedVerdict(peerTutor, courseCode);
+        return verdict != null && isGradeSufficient(verdict.getGradeCode());
+    }
+
+    /**
+     * Checks every assignment rule for a peer tutor and course with a single
+     * call to the data access layer, and reports the first rule that fails.
+     * The rules are checked in the same order as the individual validation
+     * methods of this class. The peer tutor is resolved to its ID first; a
+     * name shared by several peer tutors needs the email to tell them
+     * apart. Once resolved, the ID is set on the peer tutor.
+     *
+     * @param peerTutor  The peer tutor to be checked.
+     * @param courseCode The code of the course to be assigned.
+     * @return ELIGIBLE if the course can be assigned, otherwise the status
+     * whose error message should be shown.
+     */
+    public EligibilityStatus checkEligibility(PeerTutor peerTutor, String courseCode) {
+        List<TutorIdentity> matches = identityResolver.resolve(peerTutor);
+        if (matches.size() != 1) {
+            return matches.isEmpty() ? EligibilityStatus.NOT_REGISTERED : EligibilityStatus.AMBIGUOUS_PEER_TUTOR;
+        }
+        TutorIdentity tutor = matches.get(0);
+        // later calls for the same request go straight to the ID
+        peerTutor.setPeerTutorID(tutor.getPeerTutorID());
+        return evaluate(peerTutorDAO.getEligibilityVerdict(tutor.getPeerTutorID(), tutor.getStudentID(), courseCode));
+    }
+
+    /**
+     * Begins the checks and the assignment of one request for a peer tutor.
+     * The peer tutor is resolved to its ID here, which is then set on it;
+     * its courses, grades and assignments are loaded once, when first
+     * needed, and every later step of the request is answered from them.
+     *
+     * @param peerTutor The peer tutor the request is about.
+     * @return the unit of work, to be used by the calling request only.
+     */
+    public PeerTutorUnitOfWork beginUnitOfWork(PeerTutor peerTutor) {
+
+        return new PeerTutorUnitOfWork(peerTutorDAO, peerTutor, identityResolver.resolve(peerTutor));
+    }
+
+    /**
+     * Applies the assignment rules to the facts gathered for one pair.
+     *
+     * @param verdict the facts from the data access layer.
+     * @return ELIGIBLE, or the first rule that fails.
+     */
+    static EligibilityStatus evaluate(EligibilityVerdict verdict) {
+        if (!verdict.isRegistered()) {
+            return EligibilityStatus.NOT_REGISTERED;
+        }
+        if (!verdict.isCourseValid()) {
+            return EligibilityStatus.INVALID_COURSE;
+        }
+        if (!verdict.isCourseTaken()) {
+            return EligibilityStatus.COURSE_NOT_TAKEN;
+        }
+        if (!isGradeSufficient(verdict.getGradeCode())) {
+            return EligibilityStatus.INSUFFICIENT_GRADE;
+        }
+        if (verdict.isAlreadyAssigned()) {
+            return EligibilityStatus.ALREADY_ASSIGNED;
+        }
+        return EligibilityStatus.ELIGIBLE;
+    }
+
+    /**
+     * Only an A-range grade qualifies a student to tutor a course.
+     *
+     * @param grade the letter grade, possibly null.
+     * @return true if the grade is A+, A or A-.
+     */
+    private static boolean isGradeSufficient(String grade) {
         return "A".equals(grade) || "A-".equals(grade) || "A+".equals(grade);
-        
     }
 /**
      * Determines if a course has already been assigned to a peer tutor.
      *
      * @param peerTutor  The peer tutor to be checked.
      * @param courseCode The course code to be verified against the peer tutor's assignments.
-     * @return true if the course is already assigned to the peer tutor, otherwise false.
+     * @return true if the course is already assigned to the peer tutor, otherwise false;
+     * false too when the name does not resolve to one peer tutor.
      */
     public boolean isCourseAlreadyAssignedToPeerTutor(PeerTutor peerTutor, String courseCode) {
 
-        return peerTutorDAO.isCourseAlreadyAssignedToPeerTutor(peerTutor, courseCode);
+        EligibilityVerdict verdict = resolvedVerdict(peerTutor, courseCode);
+        return verdict != null && verdict.isAlreadyAssigned();
     }
 
     /**
-     * Assigns a peer tutor to a course after validating all required conditions.
+     * Resolves the peer tutor to its ID, as {@link #checkEligibility} does,
+     * and gathers the facts of the pair by ID. Once resolved, the ID is set
+     * on the peer tutor.
+     *
+     * @param peerTutor  The peer tutor to be checked.
+     * @param courseCode The course code to be checked.
+     * @return the facts, or null when the name and email match no peer tutor
+     * or several.
+     */
+    private EligibilityVerdict resolvedVerdict(PeerTutor peerTutor, String courseCode) {
+        List<TutorIdentity> matches = identityResolver.resolve(peerTutor);
+        if (matches.size() != 1) {
+            return null;
+        }
+        TutorIdentity tutor = matches.get(0);
+        peerTutor.setPeerTutorID(tutor.getPeerTutorID());
+        return peerTutorDAO.getEligibilityVerdict(tutor.getPeerTutorID(), tutor.getStudentID(), courseCode);
+    }
+
+    /**
+     * Assigns a peer tutor to a course, checking the requirements and the
+     * existing assignment against the peer tutor's record first. A
+     * concurrent submission for the same course is reported rather than
+     * failing. A request that also needs the reason of a refusal should use
+     * {@link #beginUnitOfWork(PeerTutor)}, so both come from one load.
      *
      * @param peerTutor  The peer tutor to whom the course will be assigned.
      * @param courseCode The code of the course to be assigned.
+     * @return the outcome of the assignment; INELIGIBLE when the peer tutor
+     * is unknown or ambiguous.
      */
-    public void assignCourseToPeerTutor(PeerTutor peerTutor, String courseCode) {
+    public AssignmentResult assignCourseToPeerTutor(PeerTutor peerTutor, String courseCode) {
 
-        // All validations passed, proceed with the assignment
-        peerTutorDAO.assignCourseToPeerTutor(peerTutor, courseCode);
+        return beginUnitOfWork(peerTutor).assignCourse(courseCode);
+    }
+
+    /**
+     * Assigns many courses at once. All pairs are checked against the same
+     * rules as {@link #checkEligibility(PeerTutor, String)} with set-based
+     * queries, then the eligible ones are inserted in batches. Names are
+     * resolved to IDs in memory first, so the queries only do primary key
+     * lookups. A pair that repeats an earlier one in the same request is
+     * reported as already assigned.
+     *
+     * @param assignments the requested pairs; each one's result and, when
+     * refused, status are filled in.
+     * @return the same list, for convenience.
+     */
+    public List<CourseAssignment> assignCoursesToPeerTutors(List<CourseAssignment> assignments) {
+
+        List<CourseAssignment> resolved = new ArrayList<>(assignments.size());
+        for (CourseAssignment assignment : assignments) {
+            List<TutorIdentity> matches = identityResolver.resolve(assignment.getLastName(),
+                    assignment.getFirstName(), assignment.getEmail());
+            if (matches.size() == 1) {
+                assignment.setPeerTutorID(matches.get(0).getPeerTutorID());
+                assignment.setStudentID(matches.get(0).getStudentID());
+                resolved.add(assignment);
+            } else {
+                assignment.setStatus(matches.isEmpty()
+                        ? EligibilityStatus.NOT_REGISTERED : EligibilityStatus.AMBIGUOUS_PEER_TUTOR);
+                assignment.setResult(AssignmentResult.INELIGIBLE);
+            }
+        }
+        if (resolved.isEmpty()) {
+            return assignments;
+        }
+
+        List<EligibilityVerdict> verdicts = peerTutorDAO.getEligibilityVerdicts(resolved);
+        List<CourseAssignment> eligible = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < resolved.size(); i++) {
+            CourseAssignment assignment = resolved.get(i);
+            EligibilityVerdict verdict = verdicts.get(i);
+            if (verdict == null) {
+                assignment.setResult(AssignmentResult.ERROR);
+                continue;
+            }
+            EligibilityStatus status = evaluate(verdict);
+            if (status == EligibilityStatus.ELIGIBLE
+                    && !seen.add(verdict.getPeerTutorID() + "\u0000" + assignment.getCourseCode())) {
+                status = EligibilityStatus.ALREADY_ASSIGNED;
+            }
+            if (status == EligibilityStatus.ELIGIBLE) {
+                assignment.setPeerTutorID(verdict.getPeerTutorID());
+                eligible.add(assignment);
+            } else {
+                assignment.setStatus(status);
+                assignment.setResult(status == EligibilityStatus.ALREADY_ASSIGNED
+                        ? AssignmentResult.ALREADY_ASSIGNED : AssignmentResult.INELIGIBLE);
+            }
+        }
+        if (!eligible.isEmpty()) {
+            peerTutorDAO.assignCoursesToPeerTutors(eligible);
+            for (CourseAssignment assignment : eligible) {
+                if (assignment.getResult() == AssignmentResult.ALREADY_ASSIGNED) {
+                    assignment.setStatus(EligibilityStatus.ALREADY_ASSIGNED);
+                }
+            }
+        }
+        return assignments;
     }
 
       /**
@@ -115,4 +346,181 @@ public class PeerTutorBusinessLogic {
 
         return peerTutorDAO.getAllPeerTutorsForCourse(courseCode);
     }
+
+    /**
+     * Retrieves one page of the peer tutors assigned to a course.
+     *
+     * @param courseCode       The code of the course for which peer tutors are to be retrieved.
+     * @param afterPeerTutorID The last peer tutor ID of the previous page, or
+     *                         Integer.MIN_VALUE for the first page.
+     * @param limit            The page size.
+     * @return up to limit peer tutors, in ID order.
+     */
+    public List<PeerTutor> getPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit) {
+
+        return peerTutorDAO.getPeerTutorsForCourse(courseCode, afterPeerTutorID, limit);
+    }
+
+    /**
+     * Passes one page of the peer tutors assigned to a course to the handler
+     * as it is read, so large rosters never have to fit in memory.
+     *
+     * @param courseCode       The code of the course for which peer tutors are to be retrieved.
+     * @param afterPeerTutorID The last peer tutor ID of the previous page, or
+     *                         Integer.MIN_VALUE for the first page.
+     * @param limit            The page size.
+     * @param handler          Receives each peer tutor in ID order.
+     * @return the number of peer tutors passed to the handler.
+     */
+    public int streamPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit,
+            Consumer<PeerTutor> handler) {
+
+        return peerTutorDAO.streamPeerTutorsForCourse(courseCode, afterPeerTutorID, limit, handler);
+    }
+
+    /**
+     * Returns a fingerprint of the roster of a course that changes whenever
+     * a peer tutor is assigned to or removed from it.
+     *
+     * @param courseCode The code of the course.
+     * @return the fingerprint, or null if it could not be computed.
+     */
+    public String getRosterVersion(String courseCode) {
+
+        return peerTutorDAO.getRosterVersion(courseCode);
+    }
+
+    /**
+     * Lists the peer tutors who could tutor a course: registered, took it and
+     * got an A-range grade for it.
+     *
+     * @param courseCode The code of the course.
+     * @param limit      The most peer tutors to return.
+     * @return the eligible peer tutors, best grade first.
+     */
+    public List<PeerTutor> getEligiblePeerTutorsForCourse(String courseCode, int limit) {
+
+        return peerTutorDAO.getEligiblePeerTutorsForCourse(courseCode, limit);
+    }
+
+    /**
+     * Lists one page of the peer tutors who could tutor a course and are not
+     * assigned to it yet, ranked by grade and then by how many courses they
+     * already tutor, so the best-qualified, least busy tutors come first.
+     *
+     * @param courseCode The code of the course.
+     * @param after      The last tutor of the previous page, or null for the
+     *                   first page.
+     * @param limit      The page size.
+     * @return the next page of ranked tutors.
+     */
+    public List<EligibleTutor> getEligibleUnassignedTutors(String courseCode, EligibleTutor after, int limit) {
+
+        return peerTutorDAO.getEligibleUnassignedTutors(courseCode, after, limit);
+    }
+
+    /**
+     * Books a tutoring session. The session must start in the future, within
+     * the booking horizon, and last between the shortest and longest session
+     * length. The peer tutor must tutor the course and be free for the whole
+     * session; concurrent bookings for the same tutor are serialized by the
+     * data access layer.
+     *
+     * @param session The session to book, with date, time, duration, peer
+     *                tutor ID, course code, student ID and topic set.
+     * @return BOOKED, or why the session could not be booked.
+     */
+    public BookingResult bookSession(TutoringSession session) {
+
+        LocalDateTime start = session.getStart();
+        if (start == null || !start.isAfter(LocalDateTime.now())
+                || start.toLocalDate().isAfter(LocalDate.now().plusDays(MAX_BOOKING_DAYS_AHEAD))
+                || session.getDurationMinutes() < MIN_SESSION_MINUTES
+                || session.getDurationMinutes() > MAX_SESSION_MINUTES) {
+            return BookingResult.INVALID_TIME;
+        }
+        if (!peerTutorDAO.isCourseValid(session.getCourseCode())) {
+            return BookingResult.NOT_ASSIGNED;
+        }
+        if (session.getTopic() == null) {
+            session.setTopic("");
+        }
+        return peerTutorDAO.bookSession(session);
+    }
+
+    /**
+     * Cancels a booked tutoring session, freeing the peer tutor's time.
+     *
+     * @param session The session, identified by date, time, peer tutor ID,
+     *                course code and student ID.
+     * @return true if the session was booked and is now cancelled.
+     */
+    public boolean cancelSession(TutoringSession session) {
+
+        if (session.getDate() == null || session.getTime() == null) {
+            return false;
+        }
+        return peerTutorDAO.cancelSession(session);
+    }
+
+    /**
+     * Lists a peer tutor's sessions in a date range.
+     *
+     * @param peerTutorID The PeerTutorID.
+     * @param from        The first day.
+     * @param to          The day after the last.
+     * @param limit       The most sessions to return.
+     * @return the sessions in start order.
+     */
+    public List<TutoringSession> getSessionsForTutor(int peerTutorID, LocalDate from, LocalDate to, int limit) {
+
+        return peerTutorDAO.getSessionsForTutor(peerTutorID, from, to, limit);
+    }
+
+    /**
+     * Lists a course's sessions in a date range.
+     *
+     * @param courseCode The course code.
+     * @param from       The first day.
+     * @param to         The day after the last.
+     * @param limit      The most sessions to return.
+     * @return the sessions in start order.
+     */
+    public List<TutoringSession> getSessionsForCourse(String courseCode, LocalDate from, LocalDate to, int limit) {
+
+        return peerTutorDAO.getSessionsForCourse(courseCode, from, to, limit);
+    }
+
+    /**
+     * Lists a student's sessions in a date range.
+     *
+     * @param studentID The StudentID.
+     * @param from      The first day.
+     * @param to        The day after the last.
+     * @param limit     The most sessions to return.
+     * @return the sessions in start order.
+     */
+    public List<TutoringSession> getSessionsForStudent(int studentID, LocalDate from, LocalDate to, int limit) {
+
+        return peerTutorDAO.getSessionsForStudent(studentID, from, to, limit);
+    }
+
+    /**
+     * Finds the earliest times, from now on, at which a peer tutor of a
+     * course is free for a session, answered from the availability index.
+     * Only peer tutors the course is assigned to are considered, since only
+     * they can be booked for it.
+     *
+     * @param courseCode      The course code.
+     * @param until           No start at or after this time.
+     * @param durationMinutes The length of the session.
+     * @param count           The most free times to return.
+     * @return the free times in start order, or null if availability is
+     * unknown because the sessions could not be read.
+     */
+    public List<FreeSlot> getNextFreeSlots(String courseCode, LocalDateTime until, int durationMinutes, int count) {
+
+        return availabilityIndex.nextFreeSlots(courseCode, LocalDateTime.now(), until,
+                Math.max(MIN_SESSION_MINUTES, Math.min(MAX_SESSION_MINUTES, durationMinutes)), count);
+    }
 }
@@ -0,0 +1,153 @@
+/* File: PeerTutorUnitOfWork.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: one request's checks and assignment for a peer tutor
+ */
+package businesslayer;
+
+import dataaccesslayer.PeerTutorDAO;
+import java.util.List;
+
+import transferobject.AssignmentResult;
+import transferobject.EligibilityStatus;
+import transferobject.EligibilityVerdict;
+import transferobject.PeerTutor;
+import transferobject.TutorIdentity;
+import transferobject.TutorRecord;
+
+/**
+ * The checks and the assignment one request makes for one peer tutor. The
+ * peer tutor is resolved to its IDs when the unit of work begins, and its
+ * student record's courses and grades and its assignments are loaded once,
+ * on first use, with a single query. Every validation step and the final
+ * insert are then answered from that record, so no join is repeated within
+ * the request; an assignment made through the unit of work is added to it.
+ * <p>
+ * The record is as current as the moment it was loaded. The insert itself
+ * is decided by the primary key of PeerTutorCourse, so a concurrent
+ * submission for the same pair is still reported as already assigned.
+ * Instances belong to the request that began them and are not thread-safe.
+ */
+public final class PeerTutorUnitOfWork {
+
+    private final PeerTutorDAO peerTutorDAO;
+    private final List<TutorIdentity> matches;
+    private TutorRecord record;
+    private boolean loaded;
+
+    /**
+     * Begins a unit of work; see
+     * {@link PeerTutorBusinessLogic#beginUnitOfWork(PeerTutor)}.
+     */
+    PeerTutorUnitOfWork(PeerTutorDAO peerTutorDAO, PeerTutor peerTutor, List<TutorIdentity> matches) {
+        this.peerTutorDAO = peerTutorDAO;
+        this.matches = matches;
+        if (matches.size() == 1) {
+            peerTutor.setPeerTutorID(matches.get(0).getPeerTutorID());
+        }
+    }
+
+    /**
+     * Checks every assignment rule for a course and reports the first rule
+     * that fails, in the same order as
+     * {@link PeerTutorBusinessLogic#checkEligibility(PeerTutor, String)}.
+     *
+     * @param courseCode The code of the course to be assigned.
+     * @return ELIGIBLE if the course can be assigned, otherwise the status
+     * whose error message should be shown.
+     */
+    public EligibilityStatus checkEligibility(String courseCode) {
+        if (matches.size() != 1) {
+            return matches.isEmpty() ? EligibilityStatus.NOT_REGISTERED : EligibilityStatus.AMBIGUOUS_PEER_TUTOR;
+        }
+        return PeerTutorBusinessLogic.evaluate(verdict(courseCode));
+    }
+
+    /**
+     * Verifies whether the peer tutor has taken a course as a student.
+     *
+     * @param courseCode The code of the course to check.
+     * @return true if the peer tutor has taken the course, otherwise false.
+     */
+    public boolean hasTakenCourse(String courseCode) {
+        return matches.size() == 1 && verdict(courseCode).isCourseTaken();
+    }
+
+    /**
+     * Retrieves the letter grade the peer tutor received for a course.
+     *
+     * @param courseCode The course code for which the grade is needed.
+     * @return the grade, or null if no grade is found.
+     */
+    public String getLetterGrade(String courseCode) {
+        return matches.size() == 1 ? verdict(courseCode).getGradeCode() : null;
+    }
+
+    /**
+     * Determines if a course is already assigned to the peer tutor.
+     *
+     * @param courseCode The course code to be verified.
+     * @return true if the course is already assigned, otherwise false.
+     */
+    public boolean isCourseAlreadyAssigned(String courseCode) {
+        return matches.size() == 1 && verdict(courseCode).isAlreadyAssigned();
+    }
+
+    /**
+     * Assigns a course to the peer tutor if every rule passes.
+     *
+     * @param courseCode The code of the course to be assigned.
+     * @return ASSIGNED; ALREADY_ASSIGNED if the course was assigned before
+     * or by a concurrent submission; INELIGIBLE when a rule fails or the
+     * peer tutor is unknown or ambiguous; ERROR if the database could not be
+     * reached.
+     */
+    public AssignmentResult assignCourse(String courseCode) {
+        EligibilityStatus status = checkEligibility(courseCode);
+        if (status == EligibilityStatus.ALREADY_ASSIGNED) {
+            return AssignmentResult.ALREADY_ASSIGNED;
+        }
+        if (status != EligibilityStatus.ELIGIBLE) {
+            return matches.size() == 1 && record() == null ? AssignmentResult.ERROR : AssignmentResult.INELIGIBLE;
+        }
+        AssignmentResult result = peerTutorDAO.insertAssignment(record.getPeerTutorID(), courseCode);
+        if (result != AssignmentResult.ERROR) {
+            record.addAssignedCourse(courseCode);
+        }
+        return result;
+    }
+
+    /**
+     * The facts of the rules for one course, taken from the record. The
+     * course is known to exist when the record mentions it; otherwise the
+     * cached course list is asked.
+     */
+    private EligibilityVerdict verdict(String courseCode) {
+        EligibilityVerdict verdict = new EligibilityVerdict();
+        TutorRecord facts = record();
+        if (facts == null) {
+            // as after a failed eligibility query
+            return verdict;
+        }
+        String eligibleGrade = facts.getEligibleGradeCode(courseCode);
+        String grade = eligibleGrade != null ? eligibleGrade : facts.getGradeCode(courseCode);
+        boolean taken = eligibleGrade != null || facts.isCourseTaken(courseCode);
+        boolean assigned = facts.isCourseAssigned(courseCode);
+        verdict.setRegistered(true);
+        verdict.setPeerTutorID(facts.getPeerTutorID());
+        verdict.setCourseValid(taken || grade != null || assigned || peerTutorDAO.isCourseValid(courseCode));
+        verdict.setCourseTaken(taken);
+        verdict.setGradeCode(grade);
+        verdict.setAlreadyAssigned(assigned);
+        return verdict;
+    }
+
+    private TutorRecord record() {
+        if (!loaded) {
+            TutorIdentity tutor = matches.get(0);
+            record = peerTutorDAO.getTutorRecord(tutor.getPeerTutorID(), tutor.getStudentID());
+            loaded = true;
+        }
+        return record;
+    }
+}
@@ -0,0 +1,80 @@
+/* File: ReportBusinessLogic.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: tutor workload and course coverage reports
+ */
+package businesslayer;
+
+import dataaccesslayer.ReportDAO;
+import dataaccesslayer.ReportDAOImpl;
+import java.util.List;
+
+import transferobject.CourseCoverage;
+import transferobject.GradeCount;
+import transferobject.TutorWorkload;
+
+/**
+ * This class represents the business logic layer of the management reports.
+ * The reports are read from rollups kept up to date in the background, so
+ * they can be a refresh interval behind the assignment and booking pages.
+ * One instance is shared by every request.
+ */
+public class ReportBusinessLogic {
+
+    /**
+     * Largest page of the tutor workload report.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReportDAO reportDAO;
+
+    /**
+     * Constructs a new ReportBusinessLogic object, initializing the DAO
+     * implementation.
+     */
+    public ReportBusinessLogic() {
+        reportDAO = new ReportDAOImpl();
+    }
+
+    /**
+     * Opens the reporting connections and prepares their statements ahead
+     * of the first report.
+     */
+    public void warmUp() {
+        ReportDAOImpl.warmUp();
+    }
+
+    /**
+     * Lists the tutor and session counts of every course.
+     *
+     * @return one row per course in course code order.
+     */
+    public List<CourseCoverage> getCourseCoverage() {
+        return reportDAO.getCourseCoverage();
+    }
+
+    /**
+     * Retrieves one page of peer tutor workloads.
+     *
+     * @param afterPeerTutorID the PeerTutorID of the last row of the previous
+     * page, or 0 for the first page.
+     * @param pageSize the most rows to return, capped at MAX_PAGE_SIZE.
+     * @return up to pageSize workloads in PeerTutorID order.
+     */
+    public List<TutorWorkload> getTutorWorkload(int afterPeerTutorID, int pageSize) {
+        return reportDAO.getTutorWorkload(Math.max(0, afterPeerTutorID),
+                Math.max(1, Math.min(MAX_PAGE_SIZE, pageSize)));
+    }
+
+    /**
+     * Lists how many students got each grade.
+     *
+     * @param courseCode the course to report on, or null or blank for every
+     * course.
+     * @return the grades that at least one student got.
+     */
+    public List<GradeCount> getGradeDistribution(String courseCode) {
+        String code = courseCode == null || courseCode.trim().isEmpty() ? null : courseCode.trim();
+        return reportDAO.getGradeDistribution(code);
+    }
+}
@@ -0,0 +1,17 @@
+/** File: AuditDAO.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: where the audit trail of assignment attempts is written
+ * References:
+ */
+package dataaccesslayer;
+
+import java.util.List;
+import transferobject.AssignmentAudit;
+
+public interface AuditDAO {
+
+    boolean writeAssignmentAudits(List<AssignmentAudit> audits);
+
+    void close();
+}
@@ -0,0 +1,137 @@
+/* File: AuditDAOImpl.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: writes the audit trail of assignment attempts to the database
+ */
+package dataaccesslayer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import metrics.Counter;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+import transferobject.AssignmentAudit;
+
+/**
+ * Implementation of the AuditDAO interface that inserts into the
+ * AssignmentAudit table of migration V007. Every connection comes from the
+ * "audit" pool, so the audit writer never holds a connection the
+ * assignment path needs; the pool can be pointed at another server with
+ * the audit.* settings.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class AuditDAOImpl implements AuditDAO {
+
+    /**
+     * The connection pool of the audit trail.
+     */
+    static final String POOL = "audit";
+
+    /**
+     * Records one assignment attempt.
+     * Parameters: AttemptedAt, Source, ClientAddress, LastName, FirstName,
+     * Email, PeerTutorID, CourseCode, Status, Result, LatencyMicros.
+     */
+    private static final String INSERT_ASSIGNMENT_AUDIT
+            = "INSERT INTO AssignmentAudit (AttemptedAt, Source, ClientAddress, LastName, FirstName, Email, "
+            + "PeerTutorID, CourseCode, Status, Result, LatencyMicros) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * SQL errors caught and logged by each method.
+     */
+    private static final MetricFamily<Counter> ERRORS = MetricsRegistry.counter(
+            "peertutor_audit_errors_total", "SQL errors caught in AuditDAOImpl methods.", "method");
+
+    private final DataSource dataSource = new DataSource(POOL);
+
+    /**
+     * Inserts a batch of attempts in one transaction; with
+     * rewriteBatchedStatements on, the driver sends it as one statement.
+     *
+     * @param audits the attempts, in the order they were made.
+     * @return true if every row was written, false if the batch was rolled
+     * back.
+     */
+    @Override
+    public boolean writeAssignmentAudits(List<AssignmentAudit> audits) {
+
+        boolean written = false;
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            con.setAutoCommit(false);
+            pstmt = con.prepareStatement(INSERT_ASSIGNMENT_AUDIT);
+            for (AssignmentAudit audit : audits) {
+                pstmt.setTimestamp(1, new Timestamp(audit.getAttemptedAt()));
+                pstmt.setString(2, fit(audit.getSource(), 32));
+                pstmt.setString(3, fit(audit.getClientAddress(), 45));
+                pstmt.setString(4, fit(audit.getLastName(), 45));
+                pstmt.setString(5, fit(audit.getFirstName(), 45));
+                pstmt.setString(6, fit(audit.getEmail(), 45));
+                if (audit.getPeerTutorID() > 0) {
+                    pstmt.setInt(7, audit.getPeerTutorID());
+                } else {
+                    pstmt.setNull(7, Types.INTEGER);
+                }
+                pstmt.setString(8, fit(audit.getCourseCode(), 7));
+                pstmt.setString(9, audit.getStatus() == null ? "" : audit.getStatus().name());
+                pstmt.setString(10, audit.getResult() == null ? null : audit.getResult().name());
+                pstmt.setLong(11, Math.min(Integer.MAX_VALUE, audit.getLatencyMicros()));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            con.commit();
+            written = true;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("writeAssignmentAudits").increment();
+            try {
+                if (con != null) {
+                    con.rollback();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        } finally {
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Nothing to release; the audit pool is closed with the other named
+     * pools by {@link DataSource#shutdown()}.
+     */
+    @Override
+    public void close() {
+    }
+
+    /* submitted values are not validated, so they may not fit their column */
+    private static String fit(String value, int length) {
+        return value == null || value.length() <= length ? value : value.substring(0, length);
+    }
+}
@@ -0,0 +1,230 @@
+/* File: AuditLog.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: records assignment attempts off the request path
+ */
+package dataaccesslayer;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+import transferobject.AssignmentAudit;
+
+/**
+ * The audit trail of assignment attempts, written behind the requests that
+ * make them. A request hands its attempt to {@link #record} and goes on; the
+ * attempt waits in a fixed-size {@link MpscRingBuffer}, and one writer
+ * thread takes up to audit.batchSize attempts at a time and writes them
+ * with one call to an {@link AuditDAO}. The writer wakes when a batch is
+ * full or every audit.flushMillis, so attempts reach the trail within
+ * about that long and the cost of each write is shared by the batch.
+ * <p>
+ * The audit.sink setting chooses where the trail goes: "database" (the
+ * AssignmentAudit table of migration V007, through the audit pool), "file"
+ * (JSON lines under audit.file.*) or "none". Memory is bounded by
+ * audit.capacity. When the ring is full, the audit.overflow setting
+ * decides: "drop" (the default) drops the attempt at once, "block" makes
+ * the request wait for room for up to audit.blockMillis (0 waits as long as
+ * it takes) and then drops it. A batch the sink fails to write is dropped
+ * as well, so a slow or failing sink can never hold more than the ring.
+ * Every attempt is counted as written, dropped or failed.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class AuditLog {
+
+    private static final MetricFamily<Counter> EVENTS = MetricsRegistry.counter("peertutor_audit_events_total",
+            "Assignment attempts handed to the audit log, by what became of them.", "outcome");
+    private static final Counter WRITTEN = EVENTS.labels("written");
+    private static final Counter DROPPED = EVENTS.labels("dropped");
+    private static final Counter FAILED = EVENTS.labels("failed");
+    private static final Histogram WRITE = MetricsRegistry.histogram("peertutor_audit_write_seconds",
+            "Time taken to write one batch of the audit trail.", null).labels("");
+
+    /* how long a blocked request sleeps between attempts to find room */
+    private static final long BLOCK_PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final AuditDAO auditDAO;
+    private final MpscRingBuffer<AssignmentAudit> buffer;
+    private final boolean block;
+    private final long blockNanos;
+    private final int batchSize;
+    private final long flushNanos;
+    private volatile boolean running;
+    private volatile Thread writer;
+
+    /**
+     * Constructs the audit log from the audit.* settings of
+     * database.properties. Nothing is recorded until it is started.
+     */
+    public AuditLog() {
+        this(new DataSourceConfig(DataSourceConfig.loadProperties(), "audit"));
+    }
+
+    private AuditLog(DataSourceConfig config) {
+        this(sink(config), config.getInt("capacity", 8192),
+                "block".equalsIgnoreCase(config.getString("overflow", "drop")),
+                config.getLong("blockMillis", 100L), config.getInt("batchSize", 500),
+                config.getLong("flushMillis", 200L));
+    }
+
+    /**
+     * Constructs an audit log over the given sink.
+     *
+     * @param auditDAO where the trail is written, or null to record nothing.
+     * @param capacity the most attempts waiting at once.
+     * @param block whether a request waits for room rather than dropping
+     * its attempt.
+     * @param blockMillis the longest a request waits for room, 0 for no
+     * limit.
+     * @param batchSize the most attempts written with one call.
+     * @param flushMillis the longest an attempt waits for its batch to fill.
+     */
+    AuditLog(AuditDAO auditDAO, int capacity, boolean block, long blockMillis, int batchSize, long flushMillis) {
+        this.auditDAO = auditDAO;
+        this.buffer = new MpscRingBuffer<>(Math.max(2, capacity));
+        this.block = block;
+        this.blockNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0L, blockMillis));
+        this.batchSize = Math.max(1, Math.min(batchSize, buffer.capacity()));
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, flushMillis));
+        MetricsRegistry.gauge("peertutor_audit_queue_depth", "Assignment attempts waiting to be audited.", null)
+                .register("", buffer::size);
+    }
+
+    /**
+     * Starts the writer thread, unless there is no sink or it is already
+     * running.
+     */
+    public synchronized void start() {
+        if (writer != null || auditDAO == null) {
+            return;
+        }
+        running = true;
+        Thread t = new Thread(this::drain, "peertutor-audit-writer");
+        t.setDaemon(true);
+        writer = t;
+        t.start();
+    }
+
+    /**
+     * Stops taking attempts, writes the ones still waiting and closes the
+     * sink.
+     */
+    public synchronized void stop() {
+        Thread t = writer;
+        if (t == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(t);
+        try {
+            t.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (t.isAlive()) {
+            t.interrupt();
+        } else {
+            auditDAO.close();
+        }
+        writer = null;
+    }
+
+    /**
+     * Hands an attempt to the writer. Costs the caller one compare-and-set
+     * when there is room; see the class comment for when there is none.
+     *
+     * @param audit the attempt; must not be changed afterwards.
+     * @return false if the attempt was dropped.
+     */
+    public boolean record(AssignmentAudit audit) {
+        if (!running) {
+            return false;
+        }
+        if (!buffer.offer(audit) && !(block && waitForRoom(audit))) {
+            DROPPED.increment();
+            return false;
+        }
+        if (buffer.size() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    private boolean waitForRoom(AssignmentAudit audit) {
+        long deadline = System.nanoTime() + blockNanos;
+        do {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, BLOCK_PAUSE_NANOS);
+            if (buffer.offer(audit)) {
+                return true;
+            }
+        } while (running && !Thread.currentThread().isInterrupted()
+                && (blockNanos == 0 || System.nanoTime() - deadline < 0));
+        return false;
+    }
+
+    /**
+     * The writer thread: writes batches until stopped and the ring is empty.
+     */
+    private void drain() {
+        List<AssignmentAudit> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            // read before draining, so nothing recorded before stop() is left behind
+            boolean stopping = !running;
+            int taken = buffer.drainTo(batch, batchSize);
+            if (taken > 0) {
+                write(batch);
+                batch.clear();
+            }
+            if (taken < batchSize) {
+                if (stopping) {
+                    return;
+                }
+                // lets the next batch gather, so one write and one sync cover it
+                LockSupport.parkNanos(this, flushNanos);
+            }
+        }
+    }
+
+    private void write(List<AssignmentAudit> batch) {
+        long start = System.nanoTime();
+        try {
+            if (auditDAO.writeAssignmentAudits(batch)) {
+                WRITTEN.add(batch.size());
+            } else {
+                FAILED.add(batch.size());
+            }
+        } catch (RuntimeException ex) {
+            // the writer must outlive a failing sink
+            ex.printStackTrace();
+            FAILED.add(batch.size());
+        } finally {
+            WRITE.recordSince(start);
+        }
+    }
+
+    private static AuditDAO sink(DataSourceConfig config) {
+        String sink = config.getString("sink", "database");
+        if ("database".equalsIgnoreCase(sink)) {
+            return new AuditDAOImpl();
+        }
+        if ("file".equalsIgnoreCase(sink)) {
+            return new FileAuditDAO(Paths.get(config.getString("file.path", "logs/peertutor-audit.log")),
+                    config.getLong("file.maxBytes", 10485760L), config.getInt("file.maxFiles", 5),
+                    Boolean.parseBoolean(config.getString("file.fsync", "true")));
+        }
+        if (!"none".equalsIgnoreCase(sink)) {
+            System.out.println("Unknown audit.sink " + sink + ", auditing nothing");
+        }
+        return null;
+    }
+}
@@ -0,0 +1,454 @@
+/* File: AvailabilityIndex.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: in-memory free-slot index of every peer tutor's calendar
+ */
+package dataaccesslayer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import metrics.Counter;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+import transferobject.FreeSlot;
+import transferobject.PeerTutor;
+import transferobject.TutoringSession;
+
+/**
+ * Answers "the next free times of any peer tutor of a course" from memory.
+ * <p>
+ * The opening hours of each day are cut into slots of
+ * {@code availability.slotMinutes}, and every peer tutor with booked
+ * sessions gets one bitmap word per day, a bit set for each slot a session
+ * touches. Tutors without sessions have no entry and are free throughout.
+ * Finding a run of free slots is a few bit operations per tutor and day, so
+ * a query over thousands of tutors reads no table at all: the index covers
+ * {@code availability.horizonDays} from today and is built with one range
+ * scan of the TutoringSession primary key.
+ * <p>
+ * {@link CachingPeerTutorDAO} reports every booking and cancellation after
+ * it commits, and only that tutor's bitmap is recomputed. The
+ * whole index is rebuilt when the day changes and every
+ * {@code availability.rebuildMillis}, to pick up changes made elsewhere;
+ * changes reported during a rebuild are replayed onto the new index. The
+ * peer tutors of each course are cached for
+ * {@code availability.roster.ttlMillis} and dropped when an assignment
+ * changes the roster.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class AvailabilityIndex {
+
+    private static final DataSourceConfig CONFIG = new DataSourceConfig(DataSourceConfig.loadProperties(), "availability");
+    private static final LocalTime OPENS_AT = time(CONFIG.getString("opensAt", "09:00"), LocalTime.of(9, 0));
+    private static final LocalTime CLOSES_AT = time(CONFIG.getString("closesAt", "21:00"), LocalTime.of(21, 0));
+    private static final int OPEN_MINUTES = Math.max(1, (int) ChronoUnit.MINUTES.between(OPENS_AT, CLOSES_AT));
+    /* at most 64 slots a day, so that a day fits in one long */
+    private static final int SLOT_MINUTES = Math.max(CONFIG.getInt("slotMinutes", 30), (OPEN_MINUTES + 63) / 64);
+    private static final int SLOTS_PER_DAY = Math.max(1, OPEN_MINUTES / SLOT_MINUTES);
+    private static final long DAY_MASK = SLOTS_PER_DAY == 64 ? -1L : (1L << SLOTS_PER_DAY) - 1;
+    private static final int HORIZON_DAYS = Math.max(1, CONFIG.getInt("horizonDays", 14));
+    private static final long REBUILD_MILLIS = CONFIG.getLong("rebuildMillis", 600000L);
+    /* how soon to try again after the index could not be built */
+    private static final long RETRY_MILLIS = 5000L;
+
+    private static final ReferenceDataCache<String, PeerTutor[]> ROSTERS = new ReferenceDataCache<>(
+            "availability-roster", 1000, CONFIG.getLong("roster.ttlMillis", 60000L));
+
+    private static final MetricFamily<Counter> REBUILDS = MetricsRegistry.counter(
+            "peertutor_availability_rebuilds_total", "Full rebuilds of the availability index, by outcome.", "result");
+    private static final Counter REBUILT = REBUILDS.labels("ok");
+    private static final Counter REBUILD_FAILED = REBUILDS.labels("failed");
+
+    /* guards every change to a calendar and the list of changes seen during a rebuild */
+    private static final Object LOCK = new Object();
+    private static final AtomicBoolean REBUILDING = new AtomicBoolean();
+    private static volatile Calendar calendar;
+    private static List<Change> pending;
+
+    static {
+        MetricsRegistry.gauge("peertutor_availability_tutors",
+                "Peer tutors with booked sessions in the availability index.", null)
+                .register("", () -> {
+                    Calendar current = calendar;
+                    return current == null ? 0 : current.tutors.size();
+                });
+    }
+
+    private final PeerTutorDAO dao;
+
+    /**
+     * Constructs an index view that builds the index and reads course
+     * rosters through the given DAO.
+     *
+     * @param dao the DAO to read sessions and rosters from.
+     */
+    public AvailabilityIndex(PeerTutorDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Records a session that was just booked.
+     *
+     * @param session the booked session.
+     */
+    public static void sessionBooked(TutoringSession session) {
+        change(new Change(session, true));
+    }
+
+    /**
+     * Records a session that was just cancelled.
+     *
+     * @param session the cancelled session.
+     */
+    public static void sessionCancelled(TutoringSession session) {
+        change(new Change(session, false));
+    }
+
+    /**
+     * Drops the cached peer tutors of a course after an assignment.
+     *
+     * @param courseCode the course whose roster changed.
+     */
+    public static void rosterChanged(String courseCode) {
+        ROSTERS.invalidate(courseCode);
+    }
+
+    /**
+     * Drops the whole index; the next query rebuilds it.
+     */
+    public static void invalidate() {
+        calendar = null;
+        ROSTERS.invalidateAll();
+    }
+
+    /**
+     * Builds the index now rather than on the first query.
+     */
+    public void warmUp() {
+        current();
+    }
+
+    /**
+     * Finds the earliest times at which a peer tutor of the course is free
+     * for a session of the given length. Each tutor contributes times that
+     * do not overlap each other, so the list offers real alternatives.
+     *
+     * @param courseCode the course.
+     * @param from the earliest start.
+     * @param to no start at or after this.
+     * @param durationMinutes the length of the session.
+     * @param count the most free times to return.
+     * @return the free times in start order, or null if the index could not
+     * be built.
+     */
+    public List<FreeSlot> nextFreeSlots(String courseCode, LocalDateTime from, LocalDateTime to,
+            int durationMinutes, int count) {
+        Calendar current = current();
+        if (current == null) {
+            return null;
+        }
+        int slots = Math.max(1, (durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        List<FreeSlot> found = new ArrayList<>(Math.min(count, 100));
+        if (slots > SLOTS_PER_DAY || count <= 0) {
+            return found;
+        }
+        PeerTutor[] tutors = ROSTERS.get(courseCode, this::loadRoster);
+        int first = current.position(from, slots);
+        int end = current.position(to, 1);
+
+        // one candidate per tutor, earliest first: (position << 32) | tutor index
+        PriorityQueue<Long> candidates = new PriorityQueue<>(Math.max(1, tutors.length));
+        long[][] busy = new long[tutors.length][];
+        for (int i = 0; i < tutors.length; i++) {
+            TutorDays days = current.tutors.get(tutors[i].getPeerTutorID());
+            busy[i] = days == null ? null : days.busy;
+            int position = firstFree(busy[i], first, end, slots);
+            if (position >= 0) {
+                candidates.add(((long) position << 32) | i);
+            }
+        }
+        while (found.size() < count && !candidates.isEmpty()) {
+            long candidate = candidates.poll();
+            int position = (int) (candidate >>> 32);
+            int i = (int) candidate;
+            found.add(new FreeSlot(tutors[i], current.start(position), durationMinutes));
+            int next = firstFree(busy[i], position + slots, end, slots);
+            if (next >= 0) {
+                candidates.add(((long) next << 32) | i);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first position at or after from, and before end, where the
+     * given number of slots in a row are free on the same day.
+     *
+     * @return the position, or -1 if there is none.
+     */
+    private static int firstFree(long[] busy, int from, int end, int slots) {
+        // positions where a run of this many slots still fits into the day
+        long fits = SLOTS_PER_DAY - slots + 1 == 64 ? -1L : (1L << (SLOTS_PER_DAY - slots + 1)) - 1;
+        int position = from;
+        while (position < end) {
+            int day = position / SLOTS_PER_DAY;
+            long free = busy == null || day >= busy.length ? DAY_MASK : ~busy[day] & DAY_MASK;
+            long runs = free;
+            for (int i = 1; i < slots; i++) {
+                runs &= free >>> i;
+            }
+            runs &= fits & (-1L << (position % SLOTS_PER_DAY));
+            if (runs != 0) {
+                int found = day * SLOTS_PER_DAY + Long.numberOfTrailingZeros(runs);
+                return found < end ? found : -1;
+            }
+            position = (day + 1) * SLOTS_PER_DAY;
+        }
+        return -1;
+    }
+
+    private PeerTutor[] loadRoster(String courseCode) {
+        List<PeerTutor> tutors = new ArrayList<>();
+        dao.streamPeerTutorsForCourse(courseCode, Integer.MIN_VALUE, Integer.MAX_VALUE, tutors::add);
+        return tutors.toArray(new PeerTutor[0]);
+    }
+
+    /**
+     * Returns the index, building it on first use and rebuilding it when it
+     * is stale. Only one thread rebuilds at a time; the others keep using
+     * the old index meanwhile.
+     */
+    private Calendar current() {
+        Calendar current = calendar;
+        if (current == null) {
+            synchronized (AvailabilityIndex.class) {
+                current = calendar;
+                if (current == null) {
+                    current = rebuild(null);
+                }
+            }
+            return current;
+        }
+        if ((current.expiresAt < System.currentTimeMillis() || !current.firstDay.equals(LocalDate.now()))
+                && REBUILDING.compareAndSet(false, true)) {
+            try {
+                current = rebuild(current);
+            } finally {
+                REBUILDING.set(false);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Reads every booked session of the horizon into a new calendar and
+     * replays the changes reported meanwhile.
+     *
+     * @param previous kept, and retried soon, if the read fails.
+     * @return the calendar now in use, null if there is none.
+     */
+    private Calendar rebuild(Calendar previous) {
+        LocalDate today = LocalDate.now();
+        Calendar built = new Calendar(today, System.currentTimeMillis() + REBUILD_MILLIS);
+        synchronized (LOCK) {
+            pending = new ArrayList<>();
+        }
+        Map<Integer, TreeMap<Long, Integer>> sessions = new HashMap<>();
+        // the day before too, for sessions running past midnight
+        int rows = dao.streamBookedSessions(today.minusDays(1), today.plusDays(HORIZON_DAYS),
+                session -> sessions.computeIfAbsent(session.getPeerTutorID(), id -> new TreeMap<>())
+                        .put(minute(session.getStart()), session.getDurationMinutes()));
+        synchronized (LOCK) {
+            List<Change> changes = pending;
+            pending = null;
+            if (rows < 0) {
+                REBUILD_FAILED.increment();
+                if (previous != null) {
+                    calendar = previous.retryAt(System.currentTimeMillis() + RETRY_MILLIS);
+                }
+                return calendar;
+            }
+            for (Map.Entry<Integer, TreeMap<Long, Integer>> entry : sessions.entrySet()) {
+                TutorDays days = new TutorDays(entry.getValue());
+                days.busy = built.busy(days.sessions);
+                built.tutors.put(entry.getKey(), days);
+            }
+            for (Change change : changes) {
+                built.apply(change);
+            }
+            calendar = built;
+            REBUILT.increment();
+            return built;
+        }
+    }
+
+    private static void change(Change change) {
+        if (change.session.getStart() == null) {
+            return;
+        }
+        synchronized (LOCK) {
+            Calendar current = calendar;
+            if (current != null) {
+                current.apply(change);
+            }
+            if (pending != null) {
+                pending.add(change);
+            }
+        }
+    }
+
+    /* minutes since the epoch of a local date and time; only compared, never shown */
+    private static long minute(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static LocalTime time(String value, LocalTime defaultValue) {
+        try {
+            return LocalTime.parse(value);
+        } catch (DateTimeParseException ex) {
+            System.out.println("Invalid time for availability: " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * A booking or cancellation reported by the DAO.
+     */
+    private static final class Change {
+
+        final TutoringSession session;
+        final boolean booked;
+
+        Change(TutoringSession session, boolean booked) {
+            this.session = session;
+            this.booked = booked;
+        }
+    }
+
+    /**
+     * The booked sessions of one peer tutor and the bitmap made from them.
+     * The sessions are only touched under LOCK; the bitmap is replaced, never
+     * changed, so queries read it without locking.
+     */
+    private static final class TutorDays {
+
+        /* start minute -> length in minutes */
+        final TreeMap<Long, Integer> sessions;
+        volatile long[] busy;
+
+        TutorDays(TreeMap<Long, Integer> sessions) {
+            this.sessions = sessions;
+        }
+    }
+
+    /**
+     * One build of the index: the busy slots of every peer tutor from
+     * firstDay on.
+     */
+    private static final class Calendar {
+
+        final LocalDate firstDay;
+        final long firstMinute;
+        final long expiresAt;
+        final ConcurrentHashMap<Integer, TutorDays> tutors;
+
+        Calendar(LocalDate firstDay, long expiresAt) {
+            this(firstDay, expiresAt, new ConcurrentHashMap<>());
+        }
+
+        private Calendar(LocalDate firstDay, long expiresAt, ConcurrentHashMap<Integer, TutorDays> tutors) {
+            this.firstDay = firstDay;
+            this.firstMinute = minute(firstDay.atStartOfDay());
+            this.expiresAt = expiresAt;
+            this.tutors = tutors;
+        }
+
+        Calendar retryAt(long retry) {
+            return new Calendar(firstDay, retry, tutors);
+        }
+
+        /**
+         * The slot position at which a run of the given length can start no
+         * earlier than the given time.
+         */
+        int position(LocalDateTime time, int slots) {
+            long day = ChronoUnit.DAYS.between(firstDay, time.toLocalDate());
+            if (day < 0) {
+                return 0;
+            }
+            if (day >= HORIZON_DAYS) {
+                return HORIZON_DAYS * SLOTS_PER_DAY;
+            }
+            long minutes = ChronoUnit.MINUTES.between(OPENS_AT, time.toLocalTime());
+            long slot = minutes <= 0 ? 0 : (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+            if (slot + slots > SLOTS_PER_DAY) {
+                return (int) (day + 1) * SLOTS_PER_DAY;
+            }
+            return (int) (day * SLOTS_PER_DAY + slot);
+        }
+
+        LocalDateTime start(int position) {
+            return firstDay.plusDays(position / SLOTS_PER_DAY).atTime(OPENS_AT)
+                    .plusMinutes((long) (position % SLOTS_PER_DAY) * SLOT_MINUTES);
+        }
+
+        void apply(Change change) {
+            long start = minute(change.session.getStart());
+            int peerTutorID = change.session.getPeerTutorID();
+            TutorDays days = tutors.get(peerTutorID);
+            if (days == null) {
+                if (!change.booked) {
+                    return;
+                }
+                days = new TutorDays(new TreeMap<>());
+                days.busy = new long[HORIZON_DAYS];
+                tutors.put(peerTutorID, days);
+            }
+            if (change.booked) {
+                days.sessions.put(start, change.session.getDurationMinutes());
+            } else {
+                days.sessions.remove(start);
+            }
+            days.busy = busy(days.sessions);
+        }
+
+        /**
+         * The busy slots of every day of the horizon.
+         */
+        long[] busy(TreeMap<Long, Integer> sessions) {
+            long[] busy = new long[HORIZON_DAYS];
+            for (Map.Entry<Long, Integer> session : sessions.entrySet()) {
+                long start = session.getKey();
+                long end = start + session.getValue();
+                long firstDayIndex = Math.max(0, Math.floorDiv(start - firstMinute, 1440));
+                long lastDayIndex = Math.min(HORIZON_DAYS - 1, Math.floorDiv(end - 1 - firstMinute, 1440));
+                for (long day = firstDayIndex; day <= lastDayIndex; day++) {
+                    long opens = firstMinute + day * 1440 + OPENS_AT.toSecondOfDay() / 60;
+                    long firstSlot = Math.max(0, Math.floorDiv(start - opens, SLOT_MINUTES));
+                    long lastSlot = Math.min(SLOTS_PER_DAY - 1, Math.floorDiv(end - opens - 1, SLOT_MINUTES));
+                    if (firstSlot <= lastSlot) {
+                        long width = lastSlot - firstSlot + 1;
+                        long bits = width == 64 ? -1L : (1L << width) - 1;
+                        busy[(int) day] |= bits << firstSlot;
+                    }
+                }
+            }
+            return busy;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/* File: CachingPeerTutorDAO.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: PeerTutorDAO decorator that keeps course lookups in memory
+ */
+package dataaccesslayer;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import transferobject.AssignmentResult;
+import transferobject.BookingResult;
+import transferobject.CourseAssignment;
+import transferobject.EligibilityVerdict;
+import transferobject.EligibleTutor;
+import transferobject.PeerTutor;
+import transferobject.TutorIdentity;
+import transferobject.TutorRecord;
+import transferobject.TutoringSession;
+
+/**
+ * Wraps another PeerTutorDAO and answers course validity lookups from
+ * memory. The Course table changes rarely, so most validation calls never
+ * reach the database; peer tutors are known from the {@link IdentityResolver}
+ * before any call gets here. The cache is shared by every instance; call
+ * {@link #invalidateAll()} after changing Course or PeerTutor rows outside
+ * this DAO.
+ * <p>
+ * A lookup that fails is never cached: the DAO answers false or a failed
+ * verdict, which would otherwise pass for "no such course" until the entry
+ * expires. For the same reason a fact that a row is
+ * missing is only cached when it was read from the primary; a replica may
+ * simply not have received the row yet. Positive facts are always cached.
+ * <p>
+ * Bookings are not cached: the locked overlap query of the delegate is what
+ * detects a double booking. A booking or cancellation that commits is only
+ * passed on to the {@link AvailabilityIndex}.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class CachingPeerTutorDAO implements PeerTutorDAO {
+
+    private static final DataSourceConfig CONFIG = new DataSourceConfig(DataSourceConfig.loadProperties(), "cache");
+
+    private static final ReferenceDataCache<String, Boolean> COURSES = new ReferenceDataCache<>("course",
+            CONFIG.getInt("course.maxSize", 1000), CONFIG.getLong("course.ttlMillis", 600000L));
+
+    private final PeerTutorDAO delegate;
+
+    /**
+     * Constructs a caching DAO in front of the given implementation.
+     *
+     * @param delegate the DAO that reads from the database.
+     */
+    public CachingPeerTutorDAO(PeerTutorDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the shared course validity cache.
+     */
+    public static ReferenceDataCache<String, Boolean> getCourseCache() {
+        return COURSES;
+    }
+
+    /**
+     * Drops every cached lookup. Call after administrative changes to the
+     * Course or PeerTutor tables.
+     */
+    public static void invalidateAll() {
+        COURSES.invalidateAll();
+        AvailabilityIndex.invalidate();
+        IdentityResolver.invalidate();
+    }
+
+    /**
+     * Answers from the cache, or asks the delegate and caches a positive
+     * answer. A negative one may come from a failed query, so it is only
+     * remembered through {@link #getEligibilityVerdict(int, int, String)}.
+     */
+    @Override
+    public boolean isCourseValid(String courseCode) {
+        if (courseCode == null) {
+            return false;
+        }
+        Boolean valid = COURSES.getIfPresent(courseCode);
+        if (valid != null) {
+            return valid;
+        }
+        boolean found = delegate.isCourseValid(courseCode);
+        if (found) {
+            COURSES.put(courseCode, Boolean.TRUE);
+        }
+        return found;
+    }
+
+    @Override
+    public List<PeerTutor> getAllPeerTutorsForCourse(String courseCode) {
+        return delegate.getAllPeerTutorsForCourse(courseCode);
+    }
+
+    @Override
+    public List<PeerTutor> getPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit) {
+        return delegate.getPeerTutorsForCourse(courseCode, afterPeerTutorID, limit);
+    }
+
+    @Override
+    public int streamPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit,
+            Consumer<PeerTutor> handler) {
+        return delegate.streamPeerTutorsForCourse(courseCode, afterPeerTutorID, limit, handler);
+    }
+
+    @Override
+    public String getRosterVersion(String courseCode) {
+        return delegate.getRosterVersion(courseCode);
+    }
+
+    /**
+     * Runs the set-based query and caches the course facts of every pair it
+     * answered.
+     */
+    @Override
+    public List<EligibilityVerdict> getEligibilityVerdicts(List<CourseAssignment> requests) {
+        List<EligibilityVerdict> verdicts = delegate.getEligibilityVerdicts(requests);
+        for (int i = 0; i < verdicts.size(); i++) {
+            EligibilityVerdict verdict = verdicts.get(i);
+            CourseAssignment request = requests.get(i);
+            // read on the primary; failed chunks have no verdict
+            if (verdict != null && request.getCourseCode() != null) {
+                COURSES.put(request.getCourseCode(), verdict.isCourseValid());
+            }
+        }
+        return verdicts;
+    }
+
+    /**
+     * Assigns the courses, then drops the cached roster of every course
+     * that gained a peer tutor.
+     */
+    @Override
+    public void assignCoursesToPeerTutors(List<CourseAssignment> assignments) {
+        delegate.assignCoursesToPeerTutors(assignments);
+        for (CourseAssignment assignment : assignments) {
+            if (assignment.getResult() == AssignmentResult.ASSIGNED) {
+                AvailabilityIndex.rosterChanged(assignment.getCourseCode());
+            }
+        }
+    }
+
+    @Override
+    public List<PeerTutor> getEligiblePeerTutorsForCourse(String courseCode, int limit) {
+        return delegate.getEligiblePeerTutorsForCourse(courseCode, limit);
+    }
+
+    @Override
+    public List<EligibleTutor> getEligibleUnassignedTutors(String courseCode, EligibleTutor after, int limit) {
+        return delegate.getEligibleUnassignedTutors(courseCode, after, limit);
+    }
+
+    /**
+     * Answers without a database round trip when the cache already knows the
+     * course does not exist; otherwise runs the query and caches the course
+     * fact it returns, unless it failed.
+     */
+    @Override
+    public EligibilityVerdict getEligibilityVerdict(int peerTutorID, int studentID, String courseCode) {
+        if (courseCode == null || Boolean.FALSE.equals(COURSES.getIfPresent(courseCode))) {
+            EligibilityVerdict verdict = new EligibilityVerdict();
+            verdict.setRegistered(true);
+            verdict.setPeerTutorID(peerTutorID);
+            return verdict;
+        }
+        EligibilityVerdict verdict = delegate.getEligibilityVerdict(peerTutorID, studentID, courseCode);
+        if (verdict.isRegistered() && !verdict.isFailed()) {
+            remember(COURSES, courseCode, verdict.isCourseValid(), !DataSource.readsMayLag());
+        }
+        return verdict;
+    }
+
+    @Override
+    public AssignmentResult assignCourseToPeerTutor(int peerTutorID, String courseCode) {
+        AssignmentResult result = delegate.assignCourseToPeerTutor(peerTutorID, courseCode);
+        if (result == AssignmentResult.ASSIGNED) {
+            AvailabilityIndex.rosterChanged(courseCode);
+        }
+        return result;
+    }
+
+    @Override
+    public TutorRecord getTutorRecord(int peerTutorID, int studentID) {
+        return delegate.getTutorRecord(peerTutorID, studentID);
+    }
+
+    @Override
+    public AssignmentResult insertAssignment(int peerTutorID, String courseCode) {
+        AssignmentResult result = delegate.insertAssignment(peerTutorID, courseCode);
+        if (result == AssignmentResult.ASSIGNED) {
+            AvailabilityIndex.rosterChanged(courseCode);
+        }
+        return result;
+    }
+
+    @Override
+    public int streamPeerTutorIdentities(Consumer<TutorIdentity> handler) {
+        return delegate.streamPeerTutorIdentities(handler);
+    }
+
+    @Override
+    public List<TutorIdentity> findPeerTutorIdentities(String lastName, String firstName, String email) {
+        return delegate.findPeerTutorIdentities(lastName, firstName, email);
+    }
+
+    @Override
+    public TutorIdentity findPeerTutorIdentity(int peerTutorID) {
+        return delegate.findPeerTutorIdentity(peerTutorID);
+    }
+
+    @Override
+    public BookingResult bookSession(TutoringSession session) {
+        BookingResult result = delegate.bookSession(session);
+        if (result == BookingResult.BOOKED) {
+            AvailabilityIndex.sessionBooked(session);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean cancelSession(TutoringSession session) {
+        boolean cancelled = delegate.cancelSession(session);
+        if (cancelled) {
+            AvailabilityIndex.sessionCancelled(session);
+        }
+        return cancelled;
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForTutor(int peerTutorID, LocalDate from, LocalDate to, int limit) {
+        return delegate.getSessionsForTutor(peerTutorID, from, to, limit);
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForCourse(String courseCode, LocalDate from, LocalDate to, int limit) {
+        return delegate.getSessionsForCourse(courseCode, from, to, limit);
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForStudent(int studentID, LocalDate from, LocalDate to, int limit) {
+        return delegate.getSessionsForStudent(studentID, from, to, limit);
+    }
+
+    @Override
+    public int streamBookedSessions(LocalDate from, LocalDate to, Consumer<TutoringSession> handler) {
+        return delegate.streamBookedSessions(from, to, handler);
+    }
+
+    /**
+     * Caches a fact, unless it says a row is missing and that may only mean
+     * the row has not reached the replica the fact was read from.
+     */
+    private static <K> void remember(ReferenceDataCache<K, Boolean> cache, K key, boolean exists,
+            boolean negativesKnown) {
+        if (exists || negativesKnown) {
+            cache.put(key, exists);
+        }
+    }
+}
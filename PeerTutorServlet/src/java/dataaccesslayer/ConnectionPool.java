@@ -0,0 +1,547 @@
+/* File: ConnectionPool.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: bounded, thread-safe pool of JDBC connections
+ */
+package dataaccesslayer;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of physical database connections.
+ * <p>
+ * Callers borrow a connection with {@link #borrow()} and give it back by
+ * calling {@code close()} on it, exactly as they would with a connection from
+ * {@link DriverManager}. At most {@code maxSize} connections are open at any
+ * time; a borrower waits up to {@code maxWaitMillis} for one to free up.
+ * A returned connection has its transaction rolled back and auto-commit,
+ * the read-only flag, the isolation level and the catalog put back as they
+ * were when it was opened, so no borrower inherits another's settings; one
+ * that cannot be put back is closed instead.
+ * Connections that sat idle for a while are validated before they are handed
+ * out, idle connections above {@code minIdle} are closed after
+ * {@code idleTimeoutMillis}, and connections held longer than the leak
+ * threshold are reported. Only the borrow time is recorded by default; with
+ * {@code leakTrace} on, the stack that borrowed each connection is captured
+ * too and printed with the report, at the cost of a stack walk per borrow.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class ConnectionPool {
+
+    private final DataSourceConfig config;
+    private final Semaphore permits;
+    /* read once: checked on every borrow */
+    private final boolean leakTrace;
+    /* most recently returned first, so quiet connections drift to the tail and expire */
+    private final ConcurrentLinkedDeque<PooledEntry> idle = new ConcurrentLinkedDeque<>();
+    private final Set<PooledEntry> active = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaksDetected = new AtomicLong();
+
+    /**
+     * Creates the pool and starts its housekeeping thread. No connection is
+     * opened until the first borrow or warm-up.
+     *
+     * @param config the connection and sizing settings.
+     */
+    public ConnectionPool(DataSourceConfig config) {
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxPoolSize(), true);
+        this.leakTrace = config.isLeakTraceEnabled() && config.getLeakDetectionThresholdMillis() > 0;
+        try {
+            Class.forName(config.getDriver());
+        } catch (ClassNotFoundException ex) {
+            System.out.println("JDBC driver not found: " + ex.getMessage());
+        }
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "peertutor-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = config.getHousekeepingIntervalMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured maximum wait for one
+     * to become available. Closing the returned connection hands it back.
+     *
+     * @return a validated connection in auto-commit mode, with the session
+     * settings it was opened with.
+     * @throws SQLException if the pool is closed, the wait times out or a new
+     * connection cannot be opened.
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(config.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", ex);
+        }
+        if (!acquired) {
+            timeouts.incrementAndGet();
+            throw new SQLException("Timed out after " + config.getMaxWaitMillis()
+                    + " ms waiting for a connection (" + getMetrics() + ")");
+        }
+        try {
+            PooledEntry entry;
+            while ((entry = idle.pollFirst()) != null) {
+                if (isUsable(entry)) {
+                    return lease(entry);
+                }
+                validationFailures.incrementAndGet();
+                destroy(entry);
+            }
+            return lease(open());
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens connections until at least {@code minIdle} are idle, so the first
+     * requests after startup do not pay for the handshake.
+     */
+    public void warmUp() {
+        while (!closed && idle.size() < config.getMinIdle()) {
+            // hold a permit while opening so warm-up never pushes the pool past its bound
+            if (!permits.tryAcquire()) {
+                return;
+            }
+            try {
+                if (idle.size() + active.size() >= config.getMaxPoolSize()) {
+                    return;
+                }
+                PooledEntry entry = open();
+                entry.lastUsed = System.currentTimeMillis();
+                idle.offerLast(entry);
+            } catch (SQLException ex) {
+                System.out.println("Pool warm-up failed: " + ex.getMessage());
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops housekeeping. Connections still
+     * borrowed are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    /**
+     * @return a snapshot of the pool counters.
+     */
+    public PoolMetrics getMetrics() {
+        return new PoolMetrics(config.getMaxPoolSize(), active.size(), idle.size(),
+                permits.getQueueLength(), created.get(), destroyed.get(), borrowed.get(),
+                timeouts.get(), validationFailures.get(), leaksDetected.get());
+    }
+
+    private PooledEntry open() throws SQLException {
+        Connection physical = DriverManager.getConnection(config.getUrl(), config.getUsername(), config.getPassword());
+        created.incrementAndGet();
+        try {
+            return new PooledEntry(physical, new StatementCache(config.getStatementCacheSize()),
+                    physical.isReadOnly(), physical.getTransactionIsolation(), physical.getCatalog());
+        } catch (SQLException ex) {
+            physical.close();
+            destroyed.incrementAndGet();
+            throw ex;
+        }
+    }
+
+    private boolean isUsable(PooledEntry entry) {
+        long idleFor = System.currentTimeMillis() - entry.lastUsed;
+        try {
+            if (idleFor < config.getValidationIntervalMillis()) {
+                return !entry.physical.isClosed();
+            }
+            return entry.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private Connection lease(PooledEntry entry) {
+        entry.borrowedAt = System.currentTimeMillis();
+        entry.leakReported = false;
+        entry.borrowSite = leakTrace ? new Throwable("Connection borrowed here") : null;
+        active.add(entry);
+        borrowed.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PooledConnectionHandler(entry));
+    }
+
+    private void release(PooledEntry entry, boolean broken) {
+        active.remove(entry);
+        try {
+            if (!broken && !closed) {
+                if (!entry.physical.getAutoCommit()) {
+                    entry.physical.rollback();
+                    entry.physical.setAutoCommit(true);
+                }
+                restoreSessionState(entry);
+                entry.lastUsed = System.currentTimeMillis();
+                entry.borrowSite = null;
+                idle.offerFirst(entry);
+            } else {
+                destroy(entry);
+            }
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+            destroy(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Puts back whichever of the read-only flag, isolation level and catalog
+     * the borrower changed. Statements prepared while another catalog was
+     * in use are dropped from the cache, since the server resolved their
+     * tables in that catalog.
+     *
+     * @param entry the returned connection, not in a transaction.
+     * @throws SQLException if a setting cannot be put back; the connection
+     * is then closed rather than reused.
+     */
+    private static void restoreSessionState(PooledEntry entry) throws SQLException {
+        Connection physical = entry.physical;
+        if (entry.readOnlyChanged) {
+            physical.setReadOnly(entry.defaultReadOnly);
+            entry.readOnlyChanged = false;
+        }
+        if (entry.isolationChanged) {
+            physical.setTransactionIsolation(entry.defaultIsolation);
+            entry.isolationChanged = false;
+        }
+        if (entry.catalogChanged) {
+            if (entry.defaultCatalog == null) {
+                throw new SQLException("Cannot restore the catalog of a connection opened without one");
+            }
+            physical.setCatalog(entry.defaultCatalog);
+            entry.statements.clear();
+            entry.catalogChanged = false;
+        }
+    }
+
+    private void destroy(PooledEntry entry) {
+        entry.statements.clear();
+        try {
+            entry.physical.close();
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+        }
+        destroyed.incrementAndGet();
+    }
+
+    /**
+     * Closes connections idle for longer than the idle timeout while more than
+     * {@code minIdle} remain, and reports borrowed connections held past the
+     * leak threshold.
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            Iterator<PooledEntry> oldestFirst = idle.descendingIterator();
+            while (oldestFirst.hasNext() && idle.size() > config.getMinIdle()) {
+                PooledEntry entry = oldestFirst.next();
+                if (now - entry.lastUsed > config.getIdleTimeoutMillis() && idle.remove(entry)) {
+                    destroy(entry);
+                }
+            }
+            long threshold = config.getLeakDetectionThresholdMillis();
+            if (threshold > 0) {
+                for (PooledEntry entry : active) {
+                    if (!entry.leakReported && now - entry.borrowedAt > threshold) {
+                        entry.leakReported = true;
+                        leaksDetected.incrementAndGet();
+                        Throwable site = entry.borrowSite;
+                        System.out.println("Possible connection leak: connection held for "
+                                + (now - entry.borrowedAt) + " ms"
+                                + (site == null ? "; set pool.leakTrace=true to see where it was borrowed" : ""));
+                        if (site != null) {
+                            site.printStackTrace();
+                        }
+                    }
+                }
+            }
+            warmUp();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    /**
+     * A physical connection and its bookkeeping.
+     */
+    private static class PooledEntry {
+
+        final Connection physical;
+        final StatementCache statements;
+        /* the session settings the connection was opened with */
+        final boolean defaultReadOnly;
+        final int defaultIsolation;
+        final String defaultCatalog;
+        /* set when a borrower changes a setting, so only those are restored */
+        volatile boolean readOnlyChanged;
+        volatile boolean isolationChanged;
+        volatile boolean catalogChanged;
+        volatile long lastUsed;
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+
+        PooledEntry(Connection physical, StatementCache statements, boolean defaultReadOnly,
+                int defaultIsolation, String defaultCatalog) {
+            this.physical = physical;
+            this.statements = statements;
+            this.defaultReadOnly = defaultReadOnly;
+            this.defaultIsolation = defaultIsolation;
+            this.defaultCatalog = defaultCatalog;
+        }
+    }
+
+    /**
+     * Forwards calls to the physical connection until the borrower closes it,
+     * at which point the connection goes back to the pool instead. Prepared
+     * statements come from the connection's statement cache when it has one.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+
+        private final PooledEntry entry;
+        /* cached statements handed out through this proxy and not closed yet */
+        private final List<CachedStatementHandler> outstanding = new ArrayList<>();
+        private boolean returned;
+        private volatile boolean broken;
+
+        PooledConnectionHandler(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        discardOutstanding();
+                        release(entry, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + entry.physical + "]";
+                default:
+                    break;
+            }
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            noteSessionChange(method.getName());
+            if ("prepareStatement".equals(method.getName()) && entry.statements.isEnabled()) {
+                Class<?>[] types = method.getParameterTypes();
+                if (types.length == 1) {
+                    return prepareCached(proxy, (String) args[0], ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY);
+                }
+                if (types.length == 3 && types[1] == int.class && types[2] == int.class) {
+                    return prepareCached(proxy, (String) args[0], (Integer) args[1], (Integer) args[2]);
+                }
+            }
+            try {
+                return method.invoke(entry.physical, args);
+            } catch (InvocationTargetException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof SQLException && isFatal((SQLException) cause)) {
+                    broken = true;
+                }
+                throw cause;
+            }
+        }
+
+        /**
+         * Takes the statement for this SQL out of the cache, or prepares it,
+         * and wraps it so that closing it puts it back.
+         */
+        private PreparedStatement prepareCached(Object proxy, String sql, int resultSetType,
+                int resultSetConcurrency) throws SQLException {
+            String key = StatementCache.key(sql, resultSetType, resultSetConcurrency);
+            PreparedStatement physical = entry.statements.checkout(key);
+            if (physical == null) {
+                try {
+                    physical = entry.physical.prepareStatement(sql, resultSetType, resultSetConcurrency);
+                } catch (SQLException ex) {
+                    if (isFatal(ex)) {
+                        broken = true;
+                    }
+                    throw ex;
+                }
+            }
+            CachedStatementHandler handler = new CachedStatementHandler(key, physical, proxy);
+            outstanding.add(handler);
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, handler);
+        }
+
+        /* statements the borrower never closed are not reused: their state is unknown */
+        private void discardOutstanding() {
+            for (CachedStatementHandler handler : outstanding) {
+                handler.closed = true;
+                StatementCache.closeQuietly(handler.physical);
+            }
+            outstanding.clear();
+        }
+
+        /* remembers which session settings the borrower touched, for release to put back */
+        private void noteSessionChange(String name) {
+            switch (name) {
+                case "setReadOnly":
+                    entry.readOnlyChanged = true;
+                    break;
+                case "setTransactionIsolation":
+                    entry.isolationChanged = true;
+                    break;
+                case "setCatalog":
+                    entry.catalogChanged = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        /* SQLState class 08 means the connection itself is gone */
+        private boolean isFatal(SQLException ex) {
+            String state = ex.getSQLState();
+            return state != null && state.startsWith("08");
+        }
+
+        /**
+         * Forwards calls to a cached statement until the borrower closes it;
+         * closing resets the statement and returns it to the cache.
+         */
+        private class CachedStatementHandler implements InvocationHandler {
+
+            private final String key;
+            private final PreparedStatement physical;
+            private final Object connection;
+            private boolean closed;
+
+            CachedStatementHandler(String key, PreparedStatement physical, Object connection) {
+                this.key = key;
+                this.physical = physical;
+                this.connection = connection;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                synchronized (PooledConnectionHandler.this) {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!closed) {
+                                closed = true;
+                                outstanding.remove(this);
+                                if (!broken && reset()) {
+                                    entry.statements.checkin(key, physical);
+                                } else {
+                                    StatementCache.closeQuietly(physical);
+                                }
+                            }
+                            return null;
+                        case "isClosed":
+                            return closed;
+                        case "getConnection":
+                            return connection;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Cached[" + physical + "]";
+                        default:
+                            break;
+                    }
+                    if (closed) {
+                        throw new SQLException("Statement has already been closed");
+                    }
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException ex) {
+                    Throwable cause = ex.getCause();
+                    if (cause instanceof SQLException && isFatal((SQLException) cause)) {
+                        broken = true;
+                    }
+                    throw cause;
+                }
+            }
+
+            /* undoes whatever the last borrower set, so the next one starts clean */
+            private boolean reset() {
+                try {
+                    ResultSet rs = physical.getResultSet();
+                    if (rs != null) {
+                        rs.close();
+                    }
+                    physical.clearParameters();
+                    physical.clearBatch();
+                    physical.setFetchSize(0);
+                    physical.setMaxRows(0);
+                    physical.setQueryTimeout(0);
+                    return true;
+                } catch (SQLException ex) {
+                    System.out.println(ex.getMessage());
+                    return false;
+                }
+            }
+        }
+    }
+}
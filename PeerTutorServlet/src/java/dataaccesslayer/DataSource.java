@@ -10,52 +10,358 @@
 package dataaccesslayer;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import metrics.Histogram;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
 
 /**
  * Provides database connection functionality for the PeerTutor application.
- * This class handles the creation and management of connections to the database.
- * It follows the Singleton pattern to ensure only one connection is used throughout the application.
+ * All DataSource objects share one {@link ConnectionPool}, created on first
+ * use from {@link DataSourceConfig}, so creating a DataSource is cheap and
+ * closing a connection returns it to the pool rather than disconnecting.
+ * <p>
+ * Work that must not take connections from the assignment path, such as
+ * reporting, uses a DataSource named after its own pool. A named pool is
+ * configured by {@link DataSourceConfig#load(String)} and can point at the
+ * same database or another one.
+ * <p>
+ * A DataSource from {@link #forReads()} borrows from a read replica when
+ * replicas are configured (see {@link ReplicaRouter}). Code that writes
+ * calls {@link #markWritten()} after committing, and reads on the same
+ * thread go to the primary for a short while after, so they see the write.
  * @author: Lei Luo
  * @version 1.0
  * @since JDK 11
  */
 public class DataSource {
- 
-    private Connection connection = null;
- 
-    private final String url = "jdbc:mysql://localhost:3306/peertutor?useSSL=false&allowPublicKeyRetrieval=true";
-    private final String username = "root";
-    private final String password = "new_password_here";
+
+    private static volatile ConnectionPool pool;
+
+    /* pools other than the primary one, by configuration prefix */
+    private static final Map<String, ConnectionPool> NAMED_POOLS = new ConcurrentHashMap<>();
+
+    private static volatile ReplicaRouter router;
+
+    /* when the current thread last wrote to the primary, 0 if it has not */
+    private static final ThreadLocal<long[]> LAST_WRITE = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * Time callers spend getting a connection, including any wait for one to
+     * free up and validation of idle ones.
+     */
+    private static final Histogram ACQUIRE = MetricsRegistry.histogram("peertutor_pool_acquire_seconds",
+            "Time taken to borrow a connection from the pool.", null).labels("");
+
+    static {
+        MetricFamily<Supplier<Number>> connections = MetricsRegistry.gauge(
+                "peertutor_pool_connections", "Open pool connections by state.", "state");
+        connections.register("active", poolValue(PoolMetrics::getActive));
+        connections.register("idle", poolValue(PoolMetrics::getIdle));
+        connections.register("max", poolValue(PoolMetrics::getMaxSize));
+        MetricsRegistry.gauge("peertutor_pool_waiting", "Threads waiting for a pool connection.", null)
+                .register("", poolValue(PoolMetrics::getWaiting));
+        MetricsRegistry.counterFunction("peertutor_pool_timeouts_total",
+                "Borrows that gave up waiting for a connection.", null)
+                .register("", poolValue(PoolMetrics::getTimeouts));
+        MetricsRegistry.counterFunction("peertutor_pool_validation_failures_total",
+                "Idle connections discarded because they failed validation.", null)
+                .register("", poolValue(PoolMetrics::getValidationFailures));
+        MetricsRegistry.counterFunction("peertutor_pool_leaks_total",
+                "Connections held past the leak detection threshold.", null)
+                .register("", poolValue(PoolMetrics::getLeaksDetected));
+    }
+
+    /* null for the primary pool */
+    private final String poolName;
+
+    /* whether a replica may serve the connection */
+    private final boolean forReads;
+
  /**
-     * Constructs a DataSource object. 
-     * Initializes database connection parameters but does not establish the connection.
+     * Constructs a DataSource object.
+     * The shared pool is created lazily by the first call to createConnection.
      */
-    
+
     public DataSource() {
+        this(null, false);
+    }
+
+    /**
+     * Constructs a DataSource that borrows from a named pool instead of the
+     * primary one, for example "reporting".
+     *
+     * @param poolName the pool's configuration prefix.
+     */
+    public DataSource(String poolName) {
+        this(poolName, false);
+    }
+
+    private DataSource(String poolName, boolean forReads) {
+        this.poolName = poolName;
+        this.forReads = forReads;
+    }
+
+    /**
+     * Returns a DataSource for statements that only read. Its connections
+     * come from a read replica when one is configured and healthy and the
+     * current thread has not written recently, otherwise from the primary.
+     * Nothing may be written through them.
+     *
+     * @return a DataSource for reads.
+     */
+    public static DataSource forReads() {
+        return new DataSource(null, true);
+    }
+
+    /**
+     * Records that the current thread has just committed a write, so its
+     * reads go to the primary for the read-your-writes window.
+     */
+    public static void markWritten() {
+        LAST_WRITE.get()[0] = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns when the current thread last wrote, so that the time can be
+     * carried to another thread or to the client's next request.
+     *
+     * @return the time in milliseconds, or 0 if the thread has not written.
+     */
+    public static long getLastWriteMillis() {
+        return LAST_WRITE.get()[0];
+    }
+
+    /**
+     * Sets when the current thread last wrote; 0 clears it. Threads are
+     * pooled, so whoever sets it clears it when the work is done.
+     *
+     * @param lastWriteMillis the time in milliseconds, or 0.
+     */
+    public static void setLastWriteMillis(long lastWriteMillis) {
+        LAST_WRITE.get()[0] = lastWriteMillis;
+    }
+
+    /**
+     * Whether a read on the current thread may be served by a read replica,
+     * and so may not see writes the primary has already committed. Results
+     * of such reads that say a row is missing must not be kept.
+     *
+     * @return true when replicas are configured and the thread is outside
+     * its read-your-writes window.
+     */
+    public static boolean readsMayLag() {
+        ReplicaRouter current = getRouter();
+        return current.hasReplicas()
+                && System.currentTimeMillis() - getLastWriteMillis() >= current.getReadYourWritesMillis();
+    }
+
+    /**
+     * How long after a write reads are kept on the primary.
+     *
+     * @return the read-your-writes window in milliseconds.
+     */
+    public static long getReadYourWritesMillis() {
+        return getRouter().getReadYourWritesMillis();
     }
 
    /**
-     * Creates and returns a database connection.
-     * This method ensures that only one connection is active at any given time.
-     * If a connection already exists, it will not create a new one.
-     * 
-     * @return An active database connection. If a connection was previously created, the existing connection is returned.
+     * Borrows a connection from the shared pool. The caller must close the
+     * connection when finished so that it can be reused.
+     *
+     * @return An active database connection, or null if none could be obtained
+     * within the configured maximum wait.
      */
     public Connection createConnection() {
+        long start = System.nanoTime();
         try {
-            if (connection != null) {
-                System.out.println("Cannot create new connection, one exists already");
-            } else {
-                connection = DriverManager.getConnection(url, username, password);
+            if (forReads) {
+                ReplicaRouter current = getRouter();
+                if (current.hasReplicas()) {
+                    return current.borrowForRead(getPool(), getLastWriteMillis());
+                }
             }
+            return (poolName == null ? getPool() : getPool(poolName)).borrow();
         } catch (SQLException ex) {
             ex.printStackTrace();
+        } finally {
+            ACQUIRE.recordSince(start);
+        }
+        return null;
+    }
+
+    /**
+     * Opens the minimum idle connections of a pool and prepares the given
+     * statements on each of them, so the first requests after a deploy find
+     * both the connections and the cached statements ready. Warming the
+     * primary pool warms the read replicas too. Failures are reported and
+     * leave the rest to be done on first use.
+     *
+     * @param poolName a named pool, or null for the primary.
+     * @param statements the SQL to prepare on every connection.
+     */
+    public static void warmUp(String poolName, Collection<String> statements) {
+        if (poolName != null) {
+            warmUp(getPool(poolName), statements);
+            return;
+        }
+        warmUp(getPool(), statements);
+        for (String replica : getRouter().getReplicaNames()) {
+            warmUp(getPool(replica), statements);
+        }
+    }
+
+    private static void warmUp(ConnectionPool target, Collection<String> statements) {
+        target.warmUp();
+        List<Connection> borrowed = new ArrayList<>();
+        try {
+            // hold them all at once, so each borrow hands out a different connection
+            int idle = Math.max(1, target.getMetrics().getIdle());
+            for (int i = 0; i < idle; i++) {
+                borrowed.add(target.borrow());
+            }
+            for (Connection con : borrowed) {
+                for (String sql : statements) {
+                    try {
+                        // closing hands the statement to the connection's cache
+                        con.prepareStatement(sql).close();
+                    } catch (SQLException ex) {
+                        System.out.println("Could not prepare statement: " + ex.getMessage());
+                    }
+                }
+            }
+        } catch (SQLException ex) {
+            System.out.println("Pool warm-up failed: " + ex.getMessage());
+        } finally {
+            for (Connection con : borrowed) {
+                try {
+                    con.close();
+                } catch (SQLException ex) {
+                    System.out.println(ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the current counters of the shared pool.
+     *
+     * @return a snapshot of the pool metrics.
+     */
+    public PoolMetrics getPoolMetrics() {
+        return (poolName == null ? getPool() : getPool(poolName)).getMetrics();
+    }
+
+    /**
+     * Returns the shared pool, creating it on first use.
+     *
+     * @return the connection pool used by every DataSource.
+     */
+    static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DataSource.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(DataSourceConfig.load());
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns a named pool, creating it on first use and publishing its
+     * connection counts under the pool's name.
+     *
+     * @param poolName the pool's configuration prefix.
+     * @return the pool.
+     */
+    static ConnectionPool getPool(String poolName) {
+        ConnectionPool current = NAMED_POOLS.get(poolName);
+        if (current == null) {
+            synchronized (DataSource.class) {
+                current = NAMED_POOLS.get(poolName);
+                if (current == null) {
+                    current = new ConnectionPool(DataSourceConfig.load(poolName));
+                    NAMED_POOLS.put(poolName, current);
+                    MetricsRegistry.gauge("peertutor_named_pool_active", "Borrowed connections of a named pool.",
+                            "pool").register(poolName, namedPoolValue(poolName, PoolMetrics::getActive));
+                    MetricsRegistry.gauge("peertutor_named_pool_idle", "Idle connections of a named pool.",
+                            "pool").register(poolName, namedPoolValue(poolName, PoolMetrics::getIdle));
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the replica router, reading the replica settings on first use.
+     *
+     * @return the router used by every DataSource for reads.
+     */
+    private static ReplicaRouter getRouter() {
+        ReplicaRouter current = router;
+        if (current == null) {
+            synchronized (DataSource.class) {
+                current = router;
+                if (current == null) {
+                    current = new ReplicaRouter(new DataSourceConfig(DataSourceConfig.loadProperties(), "replica"));
+                    router = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Supplier<Number> namedPoolValue(String poolName, Function<PoolMetrics, Number> statistic) {
+        return () -> {
+            ConnectionPool current = NAMED_POOLS.get(poolName);
+            return current == null ? 0 : statistic.apply(current.getMetrics());
+        };
+    }
+
+    /**
+     * Reads one pool statistic at scrape time, without creating the pool.
+     *
+     * @param statistic the statistic to read.
+     * @return a supplier of the value, 0 while there is no pool.
+     */
+    private static Supplier<Number> poolValue(Function<PoolMetrics, Number> statistic) {
+        return () -> {
+            ConnectionPool current = pool;
+            return current == null ? 0 : statistic.apply(current.getMetrics());
+        };
+    }
+
+    /**
+     * Closes the shared pool and every named pool, replicas included, and
+     * stops the replica health checks. A later call to createConnection
+     * starts a new one.
+     */
+    public static void shutdown() {
+        synchronized (DataSource.class) {
+            if (router != null) {
+                router.close();
+                router = null;
+            }
+            if (pool != null) {
+                pool.close();
+                pool = null;
+            }
+            for (ConnectionPool named : NAMED_POOLS.values()) {
+                named.close();
+            }
+            NAMED_POOLS.clear();
         }
-        return connection;
     }
-    
-      
 
 }
@@ -0,0 +1,190 @@
+/* File: DataSourceConfig.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: connection and pool settings for the peertutor database
+ */
+package dataaccesslayer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Holds the settings used to open and pool connections to the peertutor
+ * database. Values are read from {@code database.properties} on the classpath
+ * and can be overridden with system properties prefixed by "peertutor.".
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class DataSourceConfig {
+
+    private static final String RESOURCE = "database.properties";
+    private static final String SYSTEM_PREFIX = "peertutor.";
+
+    private final Properties properties;
+    private final String prefix;
+
+    /**
+     * Constructs a configuration view over the given properties.
+     *
+     * @param properties the raw settings.
+     * @param prefix the key prefix of this configuration, e.g. "db".
+     */
+    DataSourceConfig(Properties properties, String prefix) {
+        this.properties = properties;
+        this.prefix = prefix;
+    }
+
+    /**
+     * Loads the primary database configuration.
+     *
+     * @return the configuration found on the classpath, with system property
+     * overrides applied.
+     */
+    public static DataSourceConfig load() {
+        return new DataSourceConfig(loadProperties(), "db");
+    }
+
+    /**
+     * Loads the configuration of another connection pool, such as
+     * "reporting". Every "db." setting applies unless the pool overrides it
+     * with the same key under its own prefix.
+     *
+     * @param prefix the pool's key prefix.
+     * @return the pool's configuration.
+     */
+    public static DataSourceConfig load(String prefix) {
+        Properties props = loadProperties();
+        Properties merged = new Properties();
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith("db.")) {
+                merged.setProperty(prefix + name.substring(2), props.getProperty(name));
+            }
+        }
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith(prefix + ".")) {
+                merged.setProperty(name, props.getProperty(name));
+            }
+        }
+        return new DataSourceConfig(merged, prefix);
+    }
+
+    /**
+     * Reads database.properties from the classpath and applies any
+     * "peertutor."-prefixed system property on top of it.
+     *
+     * @return the merged settings.
+     */
+    static Properties loadProperties() {
+        Properties props = new Properties();
+        try (InputStream in = DataSourceConfig.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                props.load(in);
+            } else {
+                System.out.println(RESOURCE + " not found on classpath, using defaults");
+            }
+        } catch (IOException ex) {
+            System.out.println(ex.getMessage());
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(SYSTEM_PREFIX)) {
+                props.setProperty(name.substring(SYSTEM_PREFIX.length()), System.getProperty(name));
+            }
+        }
+        return props;
+    }
+
+    public String getDriver() {
+        return getString("driver", "com.mysql.cj.jdbc.Driver");
+    }
+
+    public String getUrl() {
+        return getString("url", "jdbc:mysql://localhost:3306/peertutor?useSSL=false&allowPublicKeyRetrieval=true");
+    }
+
+    public String getUsername() {
+        return getString("username", "root");
+    }
+
+    public String getPassword() {
+        return getString("password", "");
+    }
+
+    public int getMaxPoolSize() {
+        return Math.max(1, getInt("pool.maxSize", 10));
+    }
+
+    public int getMinIdle() {
+        return Math.min(getMaxPoolSize(), Math.max(0, getInt("pool.minIdle", 2)));
+    }
+
+    public long getMaxWaitMillis() {
+        return getLong("pool.maxWaitMillis", 5000L);
+    }
+
+    public long getIdleTimeoutMillis() {
+        return getLong("pool.idleTimeoutMillis", 300000L);
+    }
+
+    public long getValidationIntervalMillis() {
+        return getLong("pool.validationIntervalMillis", 30000L);
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return getInt("pool.validationTimeoutSeconds", 2);
+    }
+
+    public long getLeakDetectionThresholdMillis() {
+        return getLong("pool.leakDetectionThresholdMillis", 60000L);
+    }
+
+    public boolean isLeakTraceEnabled() {
+        return Boolean.parseBoolean(getString("pool.leakTrace", "false"));
+    }
+
+    public long getHousekeepingIntervalMillis() {
+        return Math.max(1000L, getLong("pool.housekeepingIntervalMillis", 30000L));
+    }
+
+    public int getStatementCacheSize() {
+        return Math.max(0, getInt("pool.statementCacheSize", 50));
+    }
+
+    public int getBatchSize() {
+        return Math.max(1, getInt("batch.size", 200));
+    }
+
+    /**
+     * Looks up a setting under this configuration's prefix.
+     *
+     * @param key the key without prefix.
+     * @param defaultValue returned when the key is not set.
+     * @return the trimmed value, or the default.
+     */
+    String getString(String key, String defaultValue) {
+        String value = properties.getProperty(prefix + "." + key);
+        return value == null ? defaultValue : value.trim();
+    }
+
+    int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value == null ? defaultValue : Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid value for " + prefix + "." + key + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        try {
+            return value == null ? defaultValue : Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid value for " + prefix + "." + key + ": " + value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/* File: FileAuditDAO.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: appends the audit trail of assignment attempts to rolling files
+ */
+package dataaccesslayer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import transferobject.AssignmentAudit;
+
+/**
+ * Implementation of the AuditDAO interface that appends one JSON object per
+ * line to a file. A batch is written with one call and, with fsync on,
+ * forced to disk with one more, so the cost of syncing is shared by every
+ * attempt in the batch. When the file would grow past its size limit it is
+ * renamed to {@code <file>.1}, older files move up one number, the oldest
+ * is deleted, and a new file is started.
+ * <p>
+ * Only the audit writer thread calls it.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class FileAuditDAO implements AuditDAO {
+
+    private final Path path;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final boolean fsync;
+    private FileChannel channel;
+    private long size;
+
+    /**
+     * Constructs the writer; the file is opened on the first write.
+     *
+     * @param path the file to append to.
+     * @param maxBytes the size at which the file is rolled over.
+     * @param maxFiles how many rolled-over files are kept.
+     * @param fsync whether every batch is forced to disk.
+     */
+    public FileAuditDAO(Path path, long maxBytes, int maxFiles, boolean fsync) {
+        this.path = path;
+        this.maxBytes = Math.max(1024L, maxBytes);
+        this.maxFiles = Math.max(0, maxFiles);
+        this.fsync = fsync;
+    }
+
+    /**
+     * Appends a batch of attempts.
+     *
+     * @param audits the attempts, in the order they were made.
+     * @return true if the batch was written (and synced, with fsync on);
+     * false if the file could not be written, in which case it is reopened
+     * for the next batch.
+     */
+    @Override
+    public boolean writeAssignmentAudits(List<AssignmentAudit> audits) {
+        StringBuilder lines = new StringBuilder(audits.size() * 256);
+        for (AssignmentAudit audit : audits) {
+            appendJson(lines, audit);
+            lines.append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            if (channel == null) {
+                open();
+            }
+            if (size > 0 && size + bytes.remaining() > maxBytes) {
+                roll();
+            }
+            int length = bytes.remaining();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            size += length;
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            close();
+            return false;
+        }
+    }
+
+    /**
+     * Closes the file.
+     */
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                System.out.println(ex.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+
+    private void roll() throws IOException {
+        close();
+        if (maxFiles == 0) {
+            Files.deleteIfExists(path);
+        } else {
+            Files.deleteIfExists(rolled(maxFiles));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                if (Files.exists(rolled(i))) {
+                    Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    private Path rolled(int number) {
+        return Paths.get(path.toString() + "." + number);
+    }
+
+    private static void appendJson(StringBuilder out, AssignmentAudit audit) {
+        out.append("{\"attemptedAt\":");
+        appendString(out, Instant.ofEpochMilli(audit.getAttemptedAt()).toString());
+        out.append(",\"source\":");
+        appendString(out, audit.getSource());
+        out.append(",\"clientAddress\":");
+        appendString(out, audit.getClientAddress());
+        out.append(",\"lastName\":");
+        appendString(out, audit.getLastName());
+        out.append(",\"firstName\":");
+        appendString(out, audit.getFirstName());
+        out.append(",\"email\":");
+        appendString(out, audit.getEmail());
+        out.append(",\"peerTutorID\":");
+        out.append(audit.getPeerTutorID() > 0 ? Integer.toString(audit.getPeerTutorID()) : "null");
+        out.append(",\"courseCode\":");
+        appendString(out, audit.getCourseCode());
+        out.append(",\"status\":");
+        appendString(out, audit.getStatus() == null ? null : audit.getStatus().name());
+        out.append(",\"result\":");
+        appendString(out, audit.getResult() == null ? null : audit.getResult().name());
+        out.append(",\"latencyMicros\":").append(audit.getLatencyMicros()).append('}');
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,254 @@
+/* File: IdentityResolver.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: in-memory index from peer tutor names and emails to IDs
+ */
+package dataaccesslayer;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import metrics.Counter;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+import transferobject.PeerTutor;
+import transferobject.TutorIdentity;
+
+/**
+ * Maps the names and email addresses users submit to the PeerTutorID and
+ * StudentID that the data access layer keys on, so each request resolves
+ * the person once and every later query is a primary key lookup.
+ * <p>
+ * Every registered peer tutor is held in an index shared by all instances.
+ * The index is loaded on first use and rebuilt once it is older than
+ * {@code identity.refreshMillis}: the request that notices runs the rebuild
+ * while the others keep using the old index. Names are compared without
+ * regard to case or accents, like the database's default collation. A name
+ * missing from the index is looked up in the database, so peer tutors
+ * registered since the last rebuild are still found.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class IdentityResolver {
+
+    private static final DataSourceConfig CONFIG = new DataSourceConfig(DataSourceConfig.loadProperties(), "identity");
+    private static final long REFRESH_MILLIS = CONFIG.getLong("refreshMillis", 60000L);
+    /* how soon to try again after the index could not be loaded */
+    private static final long RETRY_MILLIS = 5000L;
+
+    private static final MetricFamily<Counter> LOOKUPS = MetricsRegistry.counter("peertutor_identity_lookups_total",
+            "Peer tutor identity lookups by where they were answered.", "source");
+    private static final Counter FROM_INDEX = LOOKUPS.labels("index");
+    private static final Counter FROM_DATABASE = LOOKUPS.labels("database");
+
+    private static final AtomicBoolean LOADING = new AtomicBoolean();
+    private static volatile Index index;
+
+    static {
+        MetricsRegistry.gauge("peertutor_identity_index_entries", "Peer tutors held in the identity index.", null)
+                .register("", () -> {
+                    Index current = index;
+                    return current == null ? 0 : current.byId.size();
+                });
+    }
+
+    private final PeerTutorDAO dao;
+
+    /**
+     * Constructs a resolver that loads the index and answers misses through
+     * the given DAO.
+     *
+     * @param dao the DAO to read peer tutor identities from.
+     */
+    public IdentityResolver(PeerTutorDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Drops the index; the next lookup rebuilds it. Call after changing
+     * PeerTutor rows outside this application.
+     */
+    public static void invalidate() {
+        index = null;
+    }
+
+    /**
+     * Loads the index now rather than on the first lookup.
+     */
+    public void warmUp() {
+        current();
+    }
+
+    /**
+     * Resolves a submitted peer tutor: by ID when it has one, otherwise by
+     * name, narrowed by email when given, or by email alone.
+     *
+     * @param peerTutor the submitted peer tutor.
+     * @return every matching identity; empty if none, more than one if the
+     * name is shared and no email told them apart.
+     */
+    public List<TutorIdentity> resolve(PeerTutor peerTutor) {
+        if (peerTutor.getPeerTutorID() > 0) {
+            TutorIdentity identity = resolve(peerTutor.getPeerTutorID());
+            return identity == null ? Collections.emptyList() : Collections.singletonList(identity);
+        }
+        return resolve(peerTutor.getLastName(), peerTutor.getFirstName(), peerTutor.getEmail());
+    }
+
+    /**
+     * Resolves a peer tutor by ID.
+     *
+     * @param peerTutorID the PeerTutorID.
+     * @return the identity, or null if there is no such peer tutor.
+     */
+    public TutorIdentity resolve(int peerTutorID) {
+        TutorIdentity identity = current().byId.get(peerTutorID);
+        if (identity != null) {
+            FROM_INDEX.increment();
+            return identity;
+        }
+        FROM_DATABASE.increment();
+        return dao.findPeerTutorIdentity(peerTutorID);
+    }
+
+    /**
+     * Resolves a peer tutor by name, narrowed by email when given, or by
+     * email alone when no name is given.
+     *
+     * @param lastName the last name, or null.
+     * @param firstName the first name, or null.
+     * @param email the email address, or null.
+     * @return every matching identity.
+     */
+    public List<TutorIdentity> resolve(String lastName, String firstName, String email) {
+        boolean byName = lastName != null && firstName != null;
+        if (!byName && email == null) {
+            return Collections.emptyList();
+        }
+        Index current = current();
+        TutorIdentity[] candidates = byName
+                ? current.byName.get(nameKey(lastName, firstName))
+                : current.byEmail.get(normalize(email));
+        if (candidates != null) {
+            List<TutorIdentity> matches = new ArrayList<>(candidates.length);
+            String emailKey = email == null ? null : normalize(email);
+            for (TutorIdentity candidate : candidates) {
+                if (emailKey == null || emailKey.equals(normalize(candidate.getEmail()))) {
+                    matches.add(candidate);
+                }
+            }
+            if (!matches.isEmpty()) {
+                FROM_INDEX.increment();
+                return matches;
+            }
+        }
+        FROM_DATABASE.increment();
+        return dao.findPeerTutorIdentities(byName ? lastName : null, byName ? firstName : null, email);
+    }
+
+    /**
+     * Returns the index, loading it on first use and rebuilding it once it
+     * is stale. Only one thread rebuilds at a time.
+     */
+    private Index current() {
+        Index current = index;
+        if (current == null) {
+            synchronized (IdentityResolver.class) {
+                current = index;
+                if (current == null) {
+                    current = load(Index.EMPTY);
+                    index = current;
+                }
+            }
+            return current;
+        }
+        if (current.expiresAt < System.currentTimeMillis() && LOADING.compareAndSet(false, true)) {
+            try {
+                current = load(current);
+                index = current;
+            } finally {
+                LOADING.set(false);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Reads every identity into a new index.
+     *
+     * @param previous kept, and retried soon, if the read fails.
+     */
+    private Index load(Index previous) {
+        Map<String, List<TutorIdentity>> byName = new HashMap<>();
+        Map<String, List<TutorIdentity>> byEmail = new HashMap<>();
+        Map<Integer, TutorIdentity> byId = new HashMap<>();
+        int rows = dao.streamPeerTutorIdentities(identity -> {
+            byId.put(identity.getPeerTutorID(), identity);
+            byName.computeIfAbsent(nameKey(identity.getLastName(), identity.getFirstName()),
+                    key -> new ArrayList<>(1)).add(identity);
+            if (identity.getEmail() != null) {
+                byEmail.computeIfAbsent(normalize(identity.getEmail()), key -> new ArrayList<>(1)).add(identity);
+            }
+        });
+        if (rows < 0) {
+            return new Index(previous.byName, previous.byEmail, previous.byId,
+                    System.currentTimeMillis() + RETRY_MILLIS);
+        }
+        return new Index(toArrays(byName), toArrays(byEmail), byId, System.currentTimeMillis() + REFRESH_MILLIS);
+    }
+
+    private static Map<String, TutorIdentity[]> toArrays(Map<String, List<TutorIdentity>> lists) {
+        Map<String, TutorIdentity[]> arrays = new HashMap<>(lists.size() * 4 / 3 + 1);
+        for (Map.Entry<String, List<TutorIdentity>> entry : lists.entrySet()) {
+            arrays.put(entry.getKey(), entry.getValue().toArray(new TutorIdentity[0]));
+        }
+        return arrays;
+    }
+
+    private static String nameKey(String lastName, String firstName) {
+        return normalize(lastName) + '\u0000' + normalize(firstName);
+    }
+
+    /* case and accent folding, close to utf8mb4_0900_ai_ci */
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        boolean plain = true;
+        for (int i = 0; i < value.length() && plain; i++) {
+            plain = value.charAt(i) < 0x80;
+        }
+        String folded = plain ? value
+                : Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return folded.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * One immutable snapshot of every registered peer tutor.
+     */
+    private static final class Index {
+
+        static final Index EMPTY = new Index(Collections.emptyMap(), Collections.emptyMap(),
+                Collections.emptyMap(), 0L);
+
+        final Map<String, TutorIdentity[]> byName;
+        final Map<String, TutorIdentity[]> byEmail;
+        final Map<Integer, TutorIdentity> byId;
+        final long expiresAt;
+
+        Index(Map<String, TutorIdentity[]> byName, Map<String, TutorIdentity[]> byEmail,
+                Map<Integer, TutorIdentity> byId, long expiresAt) {
+            this.byName = byName;
+            this.byEmail = byEmail;
+            this.byId = byId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
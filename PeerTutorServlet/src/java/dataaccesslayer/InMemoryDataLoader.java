@@ -0,0 +1,378 @@
+/* File: InMemoryDataLoader.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: reads peer tutor data from a SQL script or the database for the in-memory DAO
+ */
+package dataaccesslayer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Collects the rows {@link InMemoryPeerTutorDAO} is built from, either by
+ * reading a SQL script or by copying the tables of the configured database.
+ * A script can be {@code peertutor-MySQL.sql} or a mysqldump of the
+ * database: CREATE TABLE statements give the column order of the INSERT
+ * statements that follow, every other statement is skipped. Only the
+ * columns the DAO uses are kept, as the raw values of the script or the
+ * JDBC objects of the snapshot.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+final class InMemoryDataLoader {
+
+    static final String COURSE = "course";
+    static final String STUDENT = "student";
+    static final String STUDENT_COURSE = "studentcourse";
+    static final String GRADE = "grade";
+    static final String PEER_TUTOR = "peertutor";
+    static final String PEER_TUTOR_COURSE = "peertutorcourse";
+    static final String TUTORING_SESSION = "tutoringsession";
+
+    /* the kept columns of each table, in the order rows are stored */
+    private static final Map<String, String[]> COLUMNS = new HashMap<>();
+
+    static {
+        COLUMNS.put(COURSE, new String[]{"CourseCode", "CourseName"});
+        COLUMNS.put(STUDENT, new String[]{"StudentID", "LastName", "FirstName", "Email"});
+        COLUMNS.put(STUDENT_COURSE, new String[]{"Student_StudentID", "Course_CourseCode"});
+        COLUMNS.put(GRADE, new String[]{"Student_StudentID", "Course_CourseCode", "GradeCode"});
+        COLUMNS.put(PEER_TUTOR, new String[]{"PeerTutorID", "LastName", "FirstName", "Email"});
+        COLUMNS.put(PEER_TUTOR_COURSE, new String[]{"PeerTutor_PeerTutorID", "Course_CourseCode"});
+        // DurationMinutes is missing before migration V005 and then reads as null
+        COLUMNS.put(TUTORING_SESSION, new String[]{"DateKey", "TimeKey", "DurationMinutes", "StudentLastName",
+            "TutoringSessionStatus", "TutoringSessionTopic", "PeerTutor_PeerTutorID", "Course_CourseCode",
+            "Student_StudentID"});
+    }
+
+    private static final Pattern CREATE_TABLE = Pattern.compile(
+            "CREATE\\s+TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?`?(\\w+)`?\\s*\\((.*)\\)[^)]*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern INSERT = Pattern.compile(
+            "INSERT\\s+(?:IGNORE\\s+)?INTO\\s+`?(\\w+)`?\\s*(?:\\(([^)]*)\\))?\\s*VALUES\\s*",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, List<Object[]>> rows = new HashMap<>();
+    /* column names of each table declared so far, lower case */
+    private final Map<String, List<String>> declared = new HashMap<>();
+
+    /**
+     * Returns the rows read for a table.
+     *
+     * @param table one of the table constants.
+     * @return the kept columns of each row, in the order of the table's
+     * column list; empty if the table had no rows.
+     */
+    List<Object[]> rows(String table) {
+        List<Object[]> tableRows = rows.get(table);
+        return tableRows == null ? Collections.emptyList() : tableRows;
+    }
+
+    /**
+     * Reads every statement of a SQL script.
+     *
+     * @param script the script; not closed.
+     * @throws IOException if the script cannot be read.
+     */
+    void readScript(Reader script) throws IOException {
+        StringBuilder statement = new StringBuilder();
+        char quote = 0;
+        boolean lineComment = false;
+        boolean blockComment = false;
+        int previous = -1;
+        int c;
+        while ((c = script.read()) != -1) {
+            if (lineComment) {
+                if (c == '\n') {
+                    lineComment = false;
+                    statement.append(' ');
+                }
+            } else if (blockComment) {
+                if (previous == '*' && c == '/') {
+                    blockComment = false;
+                    c = -1;
+                }
+            } else if (quote != 0) {
+                statement.append((char) c);
+                if (c == '\\') {
+                    int escaped = script.read();
+                    if (escaped != -1) {
+                        statement.append((char) escaped);
+                    }
+                    c = -1;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = (char) c;
+                statement.append((char) c);
+            } else if (c == '#' || (c == '-' && previous == '-')) {
+                if (c == '-') {
+                    statement.setLength(statement.length() - 1);
+                }
+                lineComment = true;
+            } else if (c == '*' && previous == '/') {
+                statement.setLength(statement.length() - 1);
+                blockComment = true;
+                c = -1;
+            } else if (c == ';') {
+                statement(statement.toString().trim());
+                statement.setLength(0);
+            } else {
+                statement.append((char) c);
+            }
+            previous = c;
+        }
+        statement(statement.toString().trim());
+    }
+
+    /**
+     * Copies the tables of the database, from a read replica if there is
+     * one, reading each one in streaming mode.
+     *
+     * @throws SQLException if a table cannot be read.
+     */
+    void readDatabase() throws SQLException {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            DataSource ds = DataSource.forReads();
+            con = ds.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            for (Map.Entry<String, String[]> table : COLUMNS.entrySet()) {
+                pstmt = con.prepareStatement("SELECT * FROM " + tableName(table.getKey()),
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                // tells Connector/J to stream rows instead of reading the whole result
+                pstmt.setFetchSize(Integer.MIN_VALUE);
+                rs = pstmt.executeQuery();
+                ResultSetMetaData metaData = rs.getMetaData();
+                List<String> columns = new ArrayList<>();
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    columns.add(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT));
+                }
+                int[] positions = positions(table.getValue(), columns);
+                List<Object[]> tableRows = rows.computeIfAbsent(table.getKey(), k -> new ArrayList<>());
+                while (rs.next()) {
+                    Object[] row = new Object[positions.length];
+                    for (int i = 0; i < positions.length; i++) {
+                        row[i] = positions[i] < 0 ? null : rs.getObject(positions[i] + 1);
+                    }
+                    tableRows.add(row);
+                }
+                rs.close();
+                rs = null;
+                pstmt.close();
+                pstmt = null;
+            }
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+    }
+
+    private void statement(String sql) {
+        Matcher create = CREATE_TABLE.matcher(sql);
+        if (create.matches()) {
+            List<String> columns = new ArrayList<>();
+            for (String item : split(create.group(2), ',')) {
+                String name = item.trim().split("\\s+", 2)[0].replace("`", "");
+                switch (name.toUpperCase(Locale.ROOT)) {
+                    case "PRIMARY":
+                    case "FOREIGN":
+                    case "KEY":
+                    case "INDEX":
+                    case "UNIQUE":
+                    case "CONSTRAINT":
+                    case "CHECK":
+                    case "FULLTEXT":
+                    case "SPATIAL":
+                        break;
+                    default:
+                        columns.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+            declared.put(create.group(1).toLowerCase(Locale.ROOT), columns);
+            return;
+        }
+        Matcher insert = INSERT.matcher(sql);
+        if (!insert.lookingAt()) {
+            return;
+        }
+        String table = insert.group(1).toLowerCase(Locale.ROOT);
+        String[] kept = COLUMNS.get(table);
+        if (kept == null) {
+            return;
+        }
+        List<String> columns;
+        if (insert.group(2) != null) {
+            columns = new ArrayList<>();
+            for (String column : insert.group(2).split(",")) {
+                columns.add(column.trim().replace("`", "").toLowerCase(Locale.ROOT));
+            }
+        } else {
+            columns = declared.get(table);
+            if (columns == null) {
+                System.out.println("Skipped INSERT INTO " + table + " without a column list or CREATE TABLE");
+                return;
+            }
+        }
+        int[] positions = positions(kept, columns);
+        List<Object[]> tableRows = rows.computeIfAbsent(table, k -> new ArrayList<>());
+        for (List<Object> values : tuples(sql, insert.end())) {
+            Object[] row = new Object[positions.length];
+            for (int i = 0; i < positions.length; i++) {
+                row[i] = positions[i] < 0 || positions[i] >= values.size() ? null : values.get(positions[i]);
+            }
+            tableRows.add(row);
+        }
+    }
+
+    private static int[] positions(String[] kept, List<String> columns) {
+        int[] positions = new int[kept.length];
+        for (int i = 0; i < kept.length; i++) {
+            positions[i] = columns.indexOf(kept[i].toLowerCase(Locale.ROOT));
+        }
+        return positions;
+    }
+
+    /**
+     * Parses the value tuples of an INSERT statement: quoted strings, with
+     * their escapes undone, NULL, and any other literal as its text.
+     */
+    private static List<List<Object>> tuples(String sql, int from) {
+        List<List<Object>> tuples = new ArrayList<>();
+        int i = from;
+        int n = sql.length();
+        while (i < n) {
+            while (i < n && sql.charAt(i) != '(') {
+                if (Character.isLetter(sql.charAt(i))) {
+                    // ON DUPLICATE KEY UPDATE and the like
+                    return tuples;
+                }
+                i++;
+            }
+            i++;
+            List<Object> values = new ArrayList<>();
+            while (i < n && sql.charAt(i) != ')') {
+                while (i < n && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (i < n && sql.charAt(i) == '\'') {
+                    StringBuilder value = new StringBuilder();
+                    i++;
+                    while (i < n) {
+                        char c = sql.charAt(i++);
+                        if (c == '\\' && i < n) {
+                            char escaped = sql.charAt(i++);
+                            value.append(escaped == 'n' ? '\n' : escaped == 't' ? '\t' : escaped == 'r' ? '\r'
+                                    : escaped == '0' ? '\0' : escaped);
+                        } else if (c == '\'' && i < n && sql.charAt(i) == '\'') {
+                            value.append('\'');
+                            i++;
+                        } else if (c == '\'') {
+                            break;
+                        } else {
+                            value.append(c);
+                        }
+                    }
+                    values.add(value.toString());
+                    while (i < n && sql.charAt(i) != ',' && sql.charAt(i) != ')') {
+                        i++;
+                    }
+                } else {
+                    int start = i;
+                    while (i < n && sql.charAt(i) != ',' && sql.charAt(i) != ')') {
+                        i++;
+                    }
+                    String literal = sql.substring(start, i).trim();
+                    values.add("NULL".equalsIgnoreCase(literal) ? null : literal);
+                }
+                if (i < n && sql.charAt(i) == ',') {
+                    i++;
+                }
+            }
+            i++;
+            tuples.add(values);
+        }
+        return tuples;
+    }
+
+    /* splits on a separator outside parentheses and quotes */
+    private static List<String> split(String text, char separator) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == separator && depth == 0) {
+                parts.add(text.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(text.substring(start));
+        return parts;
+    }
+
+    private static String tableName(String table) {
+        switch (table) {
+            case STUDENT_COURSE:
+                return "StudentCourse";
+            case PEER_TUTOR:
+                return "PeerTutor";
+            case PEER_TUTOR_COURSE:
+                return "PeerTutorCourse";
+            case TUTORING_SESSION:
+                return "TutoringSession";
+            default:
+                return Character.toUpperCase(table.charAt(0)) + table.substring(1);
+        }
+    }
+}
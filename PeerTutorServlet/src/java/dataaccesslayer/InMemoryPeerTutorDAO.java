@@ -0,0 +1,955 @@
+/* File: InMemoryPeerTutorDAO.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: PeerTutorDAO answered from an in-memory copy of the peer tutor data
+ */
+package dataaccesslayer;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import transferobject.AssignmentResult;
+import transferobject.BookingResult;
+import transferobject.CourseAssignment;
+import transferobject.EligibilityVerdict;
+import transferobject.EligibleTutor;
+import transferobject.PeerTutor;
+import transferobject.SessionStatus;
+import transferobject.TutorIdentity;
+import transferobject.TutorRecord;
+import transferobject.TutoringSession;
+
+/**
+ * Implementation of the PeerTutorDAO interface that keeps the whole data set
+ * in memory and answers every call without a database. It is loaded once
+ * from {@code peertutor-MySQL.sql}, a mysqldump snapshot or the tables of
+ * the configured database, and is meant for tests, benchmarks and as an
+ * embedded read-only engine for eligibility checks.
+ * <p>
+ * Students and peer tutors are kept in {@link IntHashMap}s keyed by their
+ * IDs; course codes are numbered once, so a peer tutor's assignments and
+ * eligible courses are a bit set and a small array indexed by that number.
+ * Eligibility follows the rule of migration V003: the peer tutor's student
+ * record, matched on (LastName, FirstName, Email), took the course and got
+ * an A-range grade. Names, emails and course codes compare without regard
+ * to case, as they do in the database.
+ * <p>
+ * Changes made through the DAO (assignments and sessions) live only as long
+ * as the object; a read-only instance refuses them with ERROR results. Reads
+ * share a read lock and changes take the write lock, so every call sees a
+ * consistent state.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class InMemoryPeerTutorDAO implements PeerTutorDAO {
+
+    /* eligible grades, best first; the index plus one is the GradeRank of V003 */
+    private static final String[] ELIGIBLE_GRADES = {"A+", "A", "A-"};
+
+    private static final int[] NO_IDS = new int[0];
+    private static final long[] NO_RANKS = new long[0];
+
+    private final boolean readOnly;
+    /* starts every roster version, so versions of an earlier load never match */
+    private final String loadedAt = Long.toString(System.currentTimeMillis(), 36);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /* by lower case course code */
+    private final Map<String, Course> courses = new HashMap<>();
+    private final IntHashMap<Student> students;
+    private final IntHashMap<Tutor> tutors;
+    /* by lower case "last\nfirst"; IDs in ascending order */
+    private final Map<String, int[]> studentsByName = new HashMap<>();
+    private final Map<String, int[]> tutorsByName = new HashMap<>();
+    /* by lower case email; IDs in ascending order */
+    private final Map<String, int[]> tutorsByEmail = new HashMap<>();
+    private final int[] tutorIDs;
+    /* every session by start */
+    private final TreeMap<LocalDateTime, List<Session>> sessionsByStart = new TreeMap<>();
+    private int longestSessionMinutes;
+
+    /**
+     * Builds the indexes from the rows read by a loader.
+     *
+     * @param data the rows of every table.
+     * @param readOnly whether assignments and bookings are refused.
+     */
+    InMemoryPeerTutorDAO(InMemoryDataLoader data, boolean readOnly) {
+        this.readOnly = readOnly;
+        List<Object[]> courseRows = data.rows(InMemoryDataLoader.COURSE);
+        for (Object[] row : courseRows) {
+            String code = text(row[0]);
+            courses.put(key(code), new Course(courses.size(), code, text(row[1])));
+        }
+        int courseCount = courses.size();
+
+        List<Object[]> studentRows = data.rows(InMemoryDataLoader.STUDENT);
+        students = new IntHashMap<>(studentRows.size());
+        Map<String, List<Integer>> names = new HashMap<>();
+        for (Object[] row : studentRows) {
+            Student student = new Student(number(row[0]), text(row[1]), text(row[2]), text(row[3]));
+            students.put(student.id, student);
+            names.computeIfAbsent(nameKey(student.lastName, student.firstName), k -> new ArrayList<>())
+                    .add(student.id);
+        }
+        index(names, studentsByName);
+        for (Object[] row : data.rows(InMemoryDataLoader.STUDENT_COURSE)) {
+            Student student = students.get(number(row[0]));
+            Course course = course(text(row[1]));
+            if (student != null && course != null) {
+                student.taken.set(course.ordinal);
+            }
+        }
+        for (Object[] row : data.rows(InMemoryDataLoader.GRADE)) {
+            Student student = students.get(number(row[0]));
+            Course course = course(text(row[1]));
+            if (student != null && course != null) {
+                if (student.grades == null) {
+                    student.grades = new String[courseCount];
+                }
+                student.grades[course.ordinal] = text(row[2]);
+            }
+        }
+
+        List<Object[]> tutorRows = data.rows(InMemoryDataLoader.PEER_TUTOR);
+        tutors = new IntHashMap<>(tutorRows.size());
+        names.clear();
+        Map<String, List<Integer>> emails = new HashMap<>();
+        Map<Course, List<Long>> eligible = new HashMap<>();
+        for (Object[] row : tutorRows) {
+            Tutor tutor = new Tutor(number(row[0]), text(row[1]), text(row[2]), text(row[3]));
+            tutors.put(tutor.id, tutor);
+            names.computeIfAbsent(nameKey(tutor.lastName, tutor.firstName), k -> new ArrayList<>()).add(tutor.id);
+            if (tutor.email != null) {
+                emails.computeIfAbsent(key(tutor.email), k -> new ArrayList<>()).add(tutor.id);
+            }
+            resolveStudentRecord(tutor, courseCount, eligible);
+        }
+        index(names, tutorsByName);
+        index(emails, tutorsByEmail);
+        tutorIDs = tutors.sortedKeys();
+        for (Map.Entry<Course, List<Long>> pairs : eligible.entrySet()) {
+            long[] ranked = new long[pairs.getValue().size()];
+            for (int i = 0; i < ranked.length; i++) {
+                ranked[i] = pairs.getValue().get(i);
+            }
+            Arrays.sort(ranked);
+            pairs.getKey().eligible = ranked;
+        }
+
+        for (Object[] row : data.rows(InMemoryDataLoader.PEER_TUTOR_COURSE)) {
+            Tutor tutor = tutors.get(number(row[0]));
+            Course course = course(text(row[1]));
+            if (tutor != null && course != null) {
+                assign(tutor, course);
+            }
+        }
+
+        for (Object[] row : data.rows(InMemoryDataLoader.TUTORING_SESSION)) {
+            Tutor tutor = tutors.get(number(row[6]));
+            Course course = course(text(row[7]));
+            if (tutor != null && course != null) {
+                Session session = new Session(date(row[0]), time(row[1]), tutor.id, course, number(row[8]),
+                        text(row[3]));
+                session.durationMinutes = row[2] == null ? 60 : number(row[2]);
+                session.status = number(row[4]);
+                session.topic = text(row[5]);
+                addSession(tutor, session);
+            }
+        }
+    }
+
+    /**
+     * Loads a SQL script, such as peertutor-MySQL.sql or a mysqldump of the
+     * peertutor tables.
+     *
+     * @param script the script; not closed.
+     * @param readOnly whether assignments and bookings are refused.
+     * @return the DAO holding the script's rows.
+     * @throws IOException if the script cannot be read.
+     */
+    public static InMemoryPeerTutorDAO fromScript(Reader script, boolean readOnly) throws IOException {
+        InMemoryDataLoader data = new InMemoryDataLoader();
+        data.readScript(script);
+        return new InMemoryPeerTutorDAO(data, readOnly);
+    }
+
+    /**
+     * Takes a snapshot of the tables of the configured database.
+     *
+     * @param readOnly whether assignments and bookings are refused.
+     * @return the DAO holding the snapshot.
+     * @throws SQLException if a table cannot be read.
+     */
+    public static InMemoryPeerTutorDAO fromDatabase(boolean readOnly) throws SQLException {
+        InMemoryDataLoader data = new InMemoryDataLoader();
+        data.readDatabase();
+        return new InMemoryPeerTutorDAO(data, readOnly);
+    }
+
+    /**
+     * Loads the DAO from a configured source: "database" for a snapshot of
+     * the configured database, otherwise the name of a script on the classpath
+     * or the path of a script file.
+     *
+     * @param source where to load the data from.
+     * @param readOnly whether assignments and bookings are refused.
+     * @return the loaded DAO.
+     * @throws IOException if the script cannot be found or read.
+     * @throws SQLException if the snapshot cannot be taken.
+     */
+    public static InMemoryPeerTutorDAO load(String source, boolean readOnly) throws IOException, SQLException {
+        if ("database".equalsIgnoreCase(source)) {
+            return fromDatabase(readOnly);
+        }
+        String resource = source.startsWith("/") ? source : "/" + source;
+        InputStream in = InMemoryPeerTutorDAO.class.getResourceAsStream(resource);
+        if (in == null) {
+            in = new FileInputStream(source);
+        }
+        try (Reader script = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return fromScript(script, readOnly);
+        }
+    }
+
+    /**
+     * Whether assignments and bookings are refused.
+     *
+     * @return true for a read-only instance.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public boolean isCourseValid(String courseCode) {
+        lock.readLock().lock();
+        try {
+            return course(courseCode) != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PeerTutor> getAllPeerTutorsForCourse(String courseCode) {
+        ArrayList<PeerTutor> peerTutors = new ArrayList<>();
+        streamPeerTutorsForCourse(courseCode, Integer.MIN_VALUE, Integer.MAX_VALUE, peerTutors::add);
+        return peerTutors;
+    }
+
+    @Override
+    public List<PeerTutor> getPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit) {
+        ArrayList<PeerTutor> peerTutors = new ArrayList<>(Math.min(limit, 1000));
+        streamPeerTutorsForCourse(courseCode, afterPeerTutorID, limit, peerTutors::add);
+        return peerTutors;
+    }
+
+    /**
+     * Passes one page of a course's roster to the handler. The page is
+     * copied under the lock and handed over after it is released, so the
+     * handler may call the DAO.
+     */
+    @Override
+    public int streamPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit,
+            Consumer<PeerTutor> handler) {
+        List<PeerTutor> page = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Course course = course(courseCode);
+            if (course != null) {
+                int[] roster = course.roster;
+                int at = Arrays.binarySearch(roster, afterPeerTutorID);
+                for (int i = at >= 0 ? at + 1 : -at - 1; i < roster.length && page.size() < limit; i++) {
+                    page.add(peerTutor(tutors.get(roster[i]), new PeerTutor()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        page.forEach(handler);
+        return page.size();
+    }
+
+    /**
+     * Counts the changes to the roster since the data was loaded, as the
+     * V008 triggers do in the database.
+     */
+    @Override
+    public String getRosterVersion(String courseCode) {
+        lock.readLock().lock();
+        try {
+            Course course = course(courseCode);
+            return loadedAt + "-" + Long.toString(course == null ? 0L : course.rosterVersion, 36);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<EligibilityVerdict> getEligibilityVerdicts(List<CourseAssignment> requests) {
+        List<EligibilityVerdict> verdicts = new ArrayList<>(requests.size());
+        lock.readLock().lock();
+        try {
+            for (CourseAssignment request : requests) {
+                verdicts.add(verdict(request.getPeerTutorID(), request.getStudentID(), request.getCourseCode()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return verdicts;
+    }
+
+    /**
+     * Records course assignments by PeerTutorID. An assignment whose peer
+     * tutor or course does not exist, or any assignment of a read-only
+     * instance, gets ERROR, as a foreign key failure would in the database.
+     */
+    @Override
+    public void assignCoursesToPeerTutors(List<CourseAssignment> assignments) {
+        if (readOnly) {
+            assignments.forEach(assignment -> assignment.setResult(AssignmentResult.ERROR));
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (CourseAssignment assignment : assignments) {
+                Tutor tutor = tutors.get(assignment.getPeerTutorID());
+                Course course = course(assignment.getCourseCode());
+                if (tutor == null || course == null) {
+                    assignment.setResult(AssignmentResult.ERROR);
+                } else if (tutor.assigned.get(course.ordinal)) {
+                    assignment.setResult(AssignmentResult.ALREADY_ASSIGNED);
+                } else {
+                    assign(tutor, course);
+                    assignment.setResult(AssignmentResult.ASSIGNED);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<PeerTutor> getEligiblePeerTutorsForCourse(String courseCode, int limit) {
+        List<PeerTutor> peerTutors = new ArrayList<>(Math.min(limit, 1000));
+        lock.readLock().lock();
+        try {
+            Course course = course(courseCode);
+            long[] ranked = course == null ? NO_RANKS : course.eligible;
+            for (int i = 0; i < ranked.length && peerTutors.size() < limit; i++) {
+                peerTutors.add(peerTutor(tutors.get(rankedID(ranked[i])), new PeerTutor()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return peerTutors;
+    }
+
+    /**
+     * Ranks the eligible, unassigned tutors of a course by grade, load and
+     * PeerTutorID and returns the page after the cursor.
+     */
+    @Override
+    public List<EligibleTutor> getEligibleUnassignedTutors(String courseCode, EligibleTutor after, int limit) {
+        List<EligibleTutor> candidates = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Course course = course(courseCode);
+            long[] ranked = course == null ? NO_RANKS : course.eligible;
+            int afterRank = after == null ? Integer.MIN_VALUE : after.getGradeRank();
+            int afterLoad = after == null ? Integer.MIN_VALUE : after.getLoad();
+            int afterID = after == null ? Integer.MIN_VALUE : after.getPeerTutorID();
+            for (long pair : ranked) {
+                int rank = (int) (pair >>> 32);
+                Tutor tutor = tutors.get(rankedID(pair));
+                if (rank < afterRank || tutor.assigned.get(course.ordinal)) {
+                    continue;
+                }
+                int load = tutor.assigned.cardinality();
+                if (rank > afterRank || load > afterLoad || (load == afterLoad && tutor.id > afterID)) {
+                    EligibleTutor candidate = peerTutor(tutor, new EligibleTutor());
+                    candidate.setGradeRank(rank);
+                    candidate.setGradeCode(ELIGIBLE_GRADES[rank - 1]);
+                    candidate.setLoad(load);
+                    candidates.add(candidate);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        candidates.sort(Comparator.comparingInt(EligibleTutor::getGradeRank).thenComparingInt(EligibleTutor::getLoad)
+                .thenComparingInt(EligibleTutor::getPeerTutorID));
+        return new ArrayList<>(candidates.subList(0, Math.min(limit, candidates.size())));
+    }
+
+    @Override
+    public EligibilityVerdict getEligibilityVerdict(int peerTutorID, int studentID, String courseCode) {
+        lock.readLock().lock();
+        try {
+            return verdict(peerTutorID, studentID, courseCode);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public AssignmentResult assignCourseToPeerTutor(int peerTutorID, String courseCode) {
+        if (readOnly) {
+            return AssignmentResult.ERROR;
+        }
+        lock.writeLock().lock();
+        try {
+            Tutor tutor = tutors.get(peerTutorID);
+            Course course = course(courseCode);
+            if (tutor == null || course == null) {
+                return AssignmentResult.INELIGIBLE;
+            }
+            if (tutor.assigned.get(course.ordinal)) {
+                return AssignmentResult.ALREADY_ASSIGNED;
+            }
+            if (tutor.eligibleRank(course) == 0) {
+                return AssignmentResult.INELIGIBLE;
+            }
+            assign(tutor, course);
+            return AssignmentResult.ASSIGNED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TutorRecord getTutorRecord(int peerTutorID, int studentID) {
+        TutorRecord record = new TutorRecord(peerTutorID, studentID);
+        lock.readLock().lock();
+        try {
+            Tutor tutor = tutors.get(peerTutorID);
+            Student student = students.get(studentID);
+            for (Course course : courses.values()) {
+                if (student != null && student.taken.get(course.ordinal)) {
+                    record.addTakenCourse(course.code);
+                }
+                if (student != null && student.grade(course) != null) {
+                    record.setGradeCode(course.code, student.grade(course));
+                }
+                if (tutor != null && tutor.eligibleRank(course) > 0) {
+                    record.setEligibleGradeCode(course.code, ELIGIBLE_GRADES[tutor.eligibleRank(course) - 1]);
+                }
+                if (tutor != null && tutor.assigned.get(course.ordinal)) {
+                    record.addAssignedCourse(course.code);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return record;
+    }
+
+    @Override
+    public AssignmentResult insertAssignment(int peerTutorID, String courseCode) {
+        if (readOnly) {
+            return AssignmentResult.ERROR;
+        }
+        lock.writeLock().lock();
+        try {
+            Tutor tutor = tutors.get(peerTutorID);
+            Course course = course(courseCode);
+            if (tutor == null || course == null) {
+                return AssignmentResult.ERROR;
+            }
+            if (tutor.assigned.get(course.ordinal)) {
+                return AssignmentResult.ALREADY_ASSIGNED;
+            }
+            assign(tutor, course);
+            return AssignmentResult.ASSIGNED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int streamPeerTutorIdentities(Consumer<TutorIdentity> handler) {
+        // peer tutors are never added or removed after loading, so no lock is needed
+        for (int id : tutorIDs) {
+            handler.accept(tutors.get(id).identity());
+        }
+        return tutorIDs.length;
+    }
+
+    @Override
+    public List<TutorIdentity> findPeerTutorIdentities(String lastName, String firstName, String email) {
+        List<TutorIdentity> identities = new ArrayList<>();
+        if (lastName != null && firstName != null) {
+            for (int id : tutorsByName.getOrDefault(nameKey(lastName, firstName), NO_IDS)) {
+                Tutor tutor = tutors.get(id);
+                if (email == null || email.equalsIgnoreCase(tutor.email)) {
+                    identities.add(tutor.identity());
+                }
+            }
+        } else if (email != null) {
+            for (int id : tutorsByEmail.getOrDefault(key(email), NO_IDS)) {
+                identities.add(tutors.get(id).identity());
+            }
+        }
+        return identities;
+    }
+
+    @Override
+    public TutorIdentity findPeerTutorIdentity(int peerTutorID) {
+        Tutor tutor = tutors.get(peerTutorID);
+        return tutor == null ? null : tutor.identity();
+    }
+
+    /**
+     * Books a session under the write lock, which plays the part of the
+     * database's lock on the peer tutor's row.
+     *
+     * @return BOOKED, or why the session could not be booked; ERROR for a
+     * read-only instance.
+     */
+    @Override
+    public BookingResult bookSession(TutoringSession session) {
+        if (readOnly) {
+            return BookingResult.ERROR;
+        }
+        lock.writeLock().lock();
+        try {
+            Tutor tutor = tutors.get(session.getPeerTutorID());
+            Course course = course(session.getCourseCode());
+            if (tutor == null || course == null || !tutor.assigned.get(course.ordinal)) {
+                return BookingResult.NOT_ASSIGNED;
+            }
+            if (overlaps(tutor, session.getStart(), session.getEnd())) {
+                return BookingResult.TUTOR_BUSY;
+            }
+            Student student = students.get(session.getStudentID());
+            if (student == null) {
+                return BookingResult.UNKNOWN_STUDENT;
+            }
+            Session booked = findSession(session);
+            if (booked == null) {
+                booked = new Session(session.getDate(), session.getTime(), tutor.id, course, student.id,
+                        student.lastName);
+                addSession(tutor, booked);
+            }
+            booked.durationMinutes = session.getDurationMinutes();
+            booked.status = SessionStatus.BOOKED.getCode();
+            booked.topic = session.getTopic();
+            longestSessionMinutes = Math.max(longestSessionMinutes, booked.durationMinutes);
+            session.setStatus(SessionStatus.BOOKED);
+            return BookingResult.BOOKED;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean cancelSession(TutoringSession session) {
+        if (readOnly) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Session booked = findSession(session);
+            if (booked == null || booked.status != SessionStatus.BOOKED.getCode()) {
+                return false;
+            }
+            booked.status = SessionStatus.CANCELLED.getCode();
+            session.setStatus(SessionStatus.CANCELLED);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForTutor(int peerTutorID, LocalDate from, LocalDate to, int limit) {
+        List<TutoringSession> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Tutor tutor = tutors.get(peerTutorID);
+            if (tutor != null) {
+                collect(tutor.sessions, from, to, limit, session -> true, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForCourse(String courseCode, LocalDate from, LocalDate to, int limit) {
+        List<TutoringSession> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Course course = course(courseCode);
+            if (course != null) {
+                collect(sessionsByStart, from, to, limit, session -> session.course == course, found);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForStudent(int studentID, LocalDate from, LocalDate to, int limit) {
+        List<TutoringSession> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collect(sessionsByStart, from, to, limit, session -> session.studentID == studentID, found);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found;
+    }
+
+    @Override
+    public int streamBookedSessions(LocalDate from, LocalDate to, Consumer<TutoringSession> handler) {
+        List<TutoringSession> booked = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (List<Session> sessions : sessionsByStart.subMap(from.atStartOfDay(), to.atStartOfDay()).values()) {
+                addBooked(sessions, booked);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        booked.forEach(handler);
+        return booked.size();
+    }
+
+    /* the caller holds a lock */
+    private EligibilityVerdict verdict(int peerTutorID, int studentID, String courseCode) {
+        Tutor tutor = tutors.get(peerTutorID);
+        Student student = students.get(studentID);
+        Course course = course(courseCode);
+        int rank = tutor == null ? 0 : tutor.eligibleRank(course);
+        EligibilityVerdict verdict = new EligibilityVerdict();
+        verdict.setRegistered(true);
+        verdict.setPeerTutorID(peerTutorID);
+        verdict.setCourseValid(course != null);
+        verdict.setCourseTaken(rank > 0 || (student != null && course != null && student.taken.get(course.ordinal)));
+        verdict.setGradeCode(rank > 0 ? ELIGIBLE_GRADES[rank - 1] : student == null ? null : student.grade(course));
+        verdict.setAlreadyAssigned(tutor != null && course != null && tutor.assigned.get(course.ordinal));
+        return verdict;
+    }
+
+    /**
+     * Finds a peer tutor's student records, matched on name and email, and
+     * works out the tutor's eligible courses from their grades.
+     */
+    private void resolveStudentRecord(Tutor tutor, int courseCount, Map<Course, List<Long>> eligible) {
+        if (tutor.email == null) {
+            return;
+        }
+        for (int studentID : studentsByName.getOrDefault(nameKey(tutor.lastName, tutor.firstName), NO_IDS)) {
+            Student student = students.get(studentID);
+            if (!tutor.email.equalsIgnoreCase(student.email)) {
+                continue;
+            }
+            if (tutor.studentID == 0) {
+                // the IDs are in ascending order, so this is the lowest one
+                tutor.studentID = student.id;
+            }
+            if (student.grades == null) {
+                continue;
+            }
+            for (Course course : courses.values()) {
+                int rank = rank(student.grades[course.ordinal]);
+                if (rank > 0 && student.taken.get(course.ordinal)) {
+                    if (tutor.eligibleRanks == null) {
+                        tutor.eligibleRanks = new byte[courseCount];
+                    }
+                    int current = tutor.eligibleRanks[course.ordinal];
+                    if (current == 0 || rank < current) {
+                        tutor.eligibleRanks[course.ordinal] = (byte) rank;
+                    }
+                }
+            }
+        }
+        if (tutor.eligibleRanks != null) {
+            for (Course course : courses.values()) {
+                int rank = tutor.eligibleRanks[course.ordinal];
+                if (rank > 0) {
+                    eligible.computeIfAbsent(course, k -> new ArrayList<>()).add(rankedPair(rank, tutor.id));
+                }
+            }
+        }
+    }
+
+    private static void assign(Tutor tutor, Course course) {
+        tutor.assigned.set(course.ordinal);
+        int[] roster = course.roster;
+        int at = Arrays.binarySearch(roster, tutor.id);
+        if (at < 0) {
+            int insert = -at - 1;
+            int[] grown = new int[roster.length + 1];
+            System.arraycopy(roster, 0, grown, 0, insert);
+            grown[insert] = tutor.id;
+            System.arraycopy(roster, insert, grown, insert + 1, roster.length - insert);
+            course.roster = grown;
+            course.rosterVersion++;
+        }
+    }
+
+    private void addSession(Tutor tutor, Session session) {
+        LocalDateTime start = session.start();
+        sessionsByStart.computeIfAbsent(start, k -> new ArrayList<>(1)).add(session);
+        tutor.sessions.computeIfAbsent(start, k -> new ArrayList<>(1)).add(session);
+        longestSessionMinutes = Math.max(longestSessionMinutes, session.durationMinutes);
+    }
+
+    private Session findSession(TutoringSession key) {
+        List<Session> sessions = sessionsByStart.get(LocalDateTime.of(key.getDate(), key.getTime()));
+        if (sessions != null) {
+            for (Session session : sessions) {
+                if (session.peerTutorID == key.getPeerTutorID() && session.studentID == key.getStudentID()
+                        && session.course.code.equalsIgnoreCase(key.getCourseCode())) {
+                    return session;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean overlaps(Tutor tutor, LocalDateTime start, LocalDateTime end) {
+        for (List<Session> sessions : tutor.sessions.subMap(start.minusMinutes(longestSessionMinutes), true,
+                end, false).values()) {
+            for (Session session : sessions) {
+                if (session.status == SessionStatus.BOOKED.getCode()
+                        && session.start().plusMinutes(session.durationMinutes).isAfter(start)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void collect(TreeMap<LocalDateTime, List<Session>> sessions, LocalDate from, LocalDate to,
+            int limit, java.util.function.Predicate<Session> filter, List<TutoringSession> found) {
+        for (List<Session> atStart : sessions.subMap(from.atStartOfDay(), to.atStartOfDay()).values()) {
+            for (Session session : atStart) {
+                if (found.size() >= limit) {
+                    return;
+                }
+                if (filter.test(session)) {
+                    found.add(session.toTransferObject());
+                }
+            }
+        }
+    }
+
+    private static void addBooked(List<Session> sessions, List<TutoringSession> booked) {
+        for (Session session : sessions) {
+            if (session.status == SessionStatus.BOOKED.getCode()) {
+                TutoringSession copy = new TutoringSession();
+                copy.setDate(session.date);
+                copy.setTime(session.time);
+                copy.setDurationMinutes(session.durationMinutes);
+                copy.setPeerTutorID(session.peerTutorID);
+                copy.setStatus(SessionStatus.BOOKED);
+                booked.add(copy);
+            }
+        }
+    }
+
+    private Course course(String courseCode) {
+        return courseCode == null ? null : courses.get(key(courseCode));
+    }
+
+    private static <T extends PeerTutor> T peerTutor(Tutor tutor, T peerTutor) {
+        peerTutor.setPeerTutorID(tutor.id);
+        peerTutor.setLastName(tutor.lastName);
+        peerTutor.setFirstName(tutor.firstName);
+        return peerTutor;
+    }
+
+    private static void index(Map<String, List<Integer>> lists, Map<String, int[]> index) {
+        for (Map.Entry<String, List<Integer>> entry : lists.entrySet()) {
+            int[] ids = new int[entry.getValue().size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = entry.getValue().get(i);
+            }
+            Arrays.sort(ids);
+            index.put(entry.getKey(), ids);
+        }
+    }
+
+    private static int rank(String gradeCode) {
+        for (int i = 0; gradeCode != null && i < ELIGIBLE_GRADES.length; i++) {
+            if (ELIGIBLE_GRADES[i].equalsIgnoreCase(gradeCode.trim())) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /* grade rank in the high half, so pairs sort by rank and then by ID */
+    private static long rankedPair(int rank, int peerTutorID) {
+        return ((long) rank << 32) | ((peerTutorID ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+    }
+
+    private static int rankedID(long pair) {
+        return (int) pair ^ Integer.MIN_VALUE;
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String nameKey(String lastName, String firstName) {
+        return key(lastName) + '\n' + key(firstName);
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static int number(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+    }
+
+    private static LocalDate date(Object value) {
+        return value instanceof java.sql.Date ? ((java.sql.Date) value).toLocalDate()
+                : value instanceof LocalDate ? (LocalDate) value : LocalDate.parse(value.toString().trim());
+    }
+
+    private static LocalTime time(Object value) {
+        return value instanceof java.sql.Time ? ((java.sql.Time) value).toLocalTime()
+                : value instanceof LocalTime ? (LocalTime) value : LocalTime.parse(value.toString().trim());
+    }
+
+    private static final class Course {
+
+        final int ordinal;
+        final String code;
+        final String name;
+        /* assigned peer tutors, ascending */
+        int[] roster = NO_IDS;
+        /* changes to the roster since the data was loaded */
+        long rosterVersion;
+        /* eligible peer tutors as rankedPair values, ascending */
+        long[] eligible = NO_RANKS;
+
+        Course(int ordinal, String code, String name) {
+            this.ordinal = ordinal;
+            this.code = code;
+            this.name = name;
+        }
+    }
+
+    private static final class Student {
+
+        final int id;
+        final String lastName;
+        final String firstName;
+        final String email;
+        /* by course ordinal */
+        final BitSet taken = new BitSet();
+        /* by course ordinal; null until the student has a grade */
+        String[] grades;
+
+        Student(int id, String lastName, String firstName, String email) {
+            this.id = id;
+            this.lastName = lastName;
+            this.firstName = firstName;
+            this.email = email;
+        }
+
+        String grade(Course course) {
+            return grades == null || course == null ? null : grades[course.ordinal];
+        }
+    }
+
+    private static final class Tutor {
+
+        final int id;
+        final String lastName;
+        final String firstName;
+        final String email;
+        /* the lowest matching StudentID, 0 if none */
+        int studentID;
+        /* by course ordinal */
+        final BitSet assigned = new BitSet();
+        /* GradeRank by course ordinal, 0 when not eligible; null when eligible for none */
+        byte[] eligibleRanks;
+        final TreeMap<LocalDateTime, List<Session>> sessions = new TreeMap<>();
+
+        Tutor(int id, String lastName, String firstName, String email) {
+            this.id = id;
+            this.lastName = lastName;
+            this.firstName = firstName;
+            this.email = email;
+        }
+
+        int eligibleRank(Course course) {
+            return eligibleRanks == null || course == null ? 0 : eligibleRanks[course.ordinal];
+        }
+
+        TutorIdentity identity() {
+            return new TutorIdentity(id, studentID, lastName, firstName, email);
+        }
+    }
+
+    private static final class Session {
+
+        final LocalDate date;
+        final LocalTime time;
+        final int peerTutorID;
+        final Course course;
+        final int studentID;
+        final String studentLastName;
+        int durationMinutes;
+        int status;
+        String topic;
+
+        Session(LocalDate date, LocalTime time, int peerTutorID, Course course, int studentID,
+                String studentLastName) {
+            this.date = date;
+            this.time = time;
+            this.peerTutorID = peerTutorID;
+            this.course = course;
+            this.studentID = studentID;
+            this.studentLastName = studentLastName;
+        }
+
+        LocalDateTime start() {
+            return LocalDateTime.of(date, time);
+        }
+
+        TutoringSession toTransferObject() {
+            TutoringSession session = new TutoringSession();
+            session.setDate(date);
+            session.setTime(time);
+            session.setDurationMinutes(durationMinutes);
+            session.setPeerTutorID(peerTutorID);
+            session.setCourseCode(course.code);
+            session.setStudentID(studentID);
+            session.setStudentLastName(studentLastName);
+            session.setStatus(SessionStatus.fromCode(status));
+            session.setTopic(topic);
+            return session;
+        }
+    }
+}
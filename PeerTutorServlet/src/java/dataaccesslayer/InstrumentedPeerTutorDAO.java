@@ -0,0 +1,328 @@
+/* File: InstrumentedPeerTutorDAO.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: PeerTutorDAO decorator that times every call
+ */
+package dataaccesslayer;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+import transferobject.AssignmentResult;
+import transferobject.BookingResult;
+import transferobject.CourseAssignment;
+import transferobject.EligibilityVerdict;
+import transferobject.EligibleTutor;
+import transferobject.PeerTutor;
+import transferobject.TutorIdentity;
+import transferobject.TutorRecord;
+import transferobject.TutoringSession;
+
+/**
+ * Wraps another PeerTutorDAO and records how long each method takes and how
+ * many rows the roster and bulk methods return, per method name. Placed
+ * directly in front of {@link PeerTutorDAOImpl}, it measures database time
+ * only; cache hits never reach it.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class InstrumentedPeerTutorDAO implements PeerTutorDAO {
+
+    private static final MetricFamily<Histogram> DURATION = MetricsRegistry.histogram(
+            "peertutor_dao_duration_seconds", "Time spent in PeerTutorDAO methods.", "method");
+
+    private static final MetricFamily<Counter> ROWS = MetricsRegistry.counter(
+            "peertutor_dao_rows_total", "Rows returned or written by PeerTutorDAO methods.", "method");
+
+    private static final Histogram IS_COURSE_VALID = DURATION.labels("isCourseValid");
+    private static final Histogram ALL_FOR_COURSE = DURATION.labels("getAllPeerTutorsForCourse");
+    private static final Histogram PAGE_FOR_COURSE = DURATION.labels("getPeerTutorsForCourse");
+    private static final Histogram STREAM_FOR_COURSE = DURATION.labels("streamPeerTutorsForCourse");
+    private static final Histogram ROSTER_VERSION = DURATION.labels("getRosterVersion");
+    private static final Histogram VERDICTS = DURATION.labels("getEligibilityVerdicts");
+    private static final Histogram BULK_ASSIGN = DURATION.labels("assignCoursesToPeerTutors");
+    private static final Histogram ELIGIBLE_FOR_COURSE = DURATION.labels("getEligiblePeerTutorsForCourse");
+    private static final Histogram ELIGIBLE_UNASSIGNED = DURATION.labels("getEligibleUnassignedTutors");
+    private static final Histogram VERDICT_BY_ID = DURATION.labels("getEligibilityVerdictById");
+    private static final Histogram ASSIGN_BY_ID = DURATION.labels("assignCourseToPeerTutorById");
+    private static final Histogram TUTOR_RECORD = DURATION.labels("getTutorRecord");
+    private static final Histogram INSERT_ASSIGNMENT = DURATION.labels("insertAssignment");
+    private static final Histogram STREAM_IDENTITIES = DURATION.labels("streamPeerTutorIdentities");
+    private static final Histogram FIND_IDENTITIES = DURATION.labels("findPeerTutorIdentities");
+    private static final Histogram FIND_IDENTITY = DURATION.labels("findPeerTutorIdentity");
+    private static final Histogram BOOK_SESSION = DURATION.labels("bookSession");
+    private static final Histogram CANCEL_SESSION = DURATION.labels("cancelSession");
+    private static final Histogram SESSIONS_FOR_TUTOR = DURATION.labels("getSessionsForTutor");
+    private static final Histogram SESSIONS_FOR_COURSE = DURATION.labels("getSessionsForCourse");
+    private static final Histogram SESSIONS_FOR_STUDENT = DURATION.labels("getSessionsForStudent");
+    private static final Histogram STREAM_BOOKED_BETWEEN = DURATION.labels("streamBookedSessionsBetween");
+
+    private static final Counter ALL_FOR_COURSE_ROWS = ROWS.labels("getAllPeerTutorsForCourse");
+    private static final Counter PAGE_FOR_COURSE_ROWS = ROWS.labels("getPeerTutorsForCourse");
+    private static final Counter STREAM_FOR_COURSE_ROWS = ROWS.labels("streamPeerTutorsForCourse");
+    private static final Counter VERDICTS_ROWS = ROWS.labels("getEligibilityVerdicts");
+    private static final Counter BULK_ASSIGN_ROWS = ROWS.labels("assignCoursesToPeerTutors");
+    private static final Counter ELIGIBLE_FOR_COURSE_ROWS = ROWS.labels("getEligiblePeerTutorsForCourse");
+    private static final Counter ELIGIBLE_UNASSIGNED_ROWS = ROWS.labels("getEligibleUnassignedTutors");
+    private static final Counter STREAM_IDENTITIES_ROWS = ROWS.labels("streamPeerTutorIdentities");
+    private static final Counter STREAM_BOOKED_BETWEEN_ROWS = ROWS.labels("streamBookedSessionsBetween");
+
+    private final PeerTutorDAO delegate;
+
+    /**
+     * Constructs an instrumented DAO in front of the given implementation.
+     *
+     * @param delegate the DAO to time.
+     */
+    public InstrumentedPeerTutorDAO(PeerTutorDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isCourseValid(String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return delegate.isCourseValid(courseCode);
+        } finally {
+            IS_COURSE_VALID.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<PeerTutor> getAllPeerTutorsForCourse(String courseCode) {
+        long start = System.nanoTime();
+        try {
+            List<PeerTutor> tutors = delegate.getAllPeerTutorsForCourse(courseCode);
+            ALL_FOR_COURSE_ROWS.add(tutors.size());
+            return tutors;
+        } finally {
+            ALL_FOR_COURSE.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<PeerTutor> getPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<PeerTutor> tutors = delegate.getPeerTutorsForCourse(courseCode, afterPeerTutorID, limit);
+            PAGE_FOR_COURSE_ROWS.add(tutors.size());
+            return tutors;
+        } finally {
+            PAGE_FOR_COURSE.recordSince(start);
+        }
+    }
+
+    /**
+     * Times the whole stream, including the time the handler spends writing
+     * each row to the client.
+     */
+    @Override
+    public int streamPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit,
+            Consumer<PeerTutor> handler) {
+        long start = System.nanoTime();
+        try {
+            int rows = delegate.streamPeerTutorsForCourse(courseCode, afterPeerTutorID, limit, handler);
+            STREAM_FOR_COURSE_ROWS.add(rows);
+            return rows;
+        } finally {
+            STREAM_FOR_COURSE.recordSince(start);
+        }
+    }
+
+    @Override
+    public String getRosterVersion(String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getRosterVersion(courseCode);
+        } finally {
+            ROSTER_VERSION.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<EligibilityVerdict> getEligibilityVerdicts(List<CourseAssignment> requests) {
+        long start = System.nanoTime();
+        try {
+            List<EligibilityVerdict> verdicts = delegate.getEligibilityVerdicts(requests);
+            VERDICTS_ROWS.add(verdicts.size());
+            return verdicts;
+        } finally {
+            VERDICTS.recordSince(start);
+        }
+    }
+
+    @Override
+    public void assignCoursesToPeerTutors(List<CourseAssignment> assignments) {
+        long start = System.nanoTime();
+        try {
+            delegate.assignCoursesToPeerTutors(assignments);
+            BULK_ASSIGN_ROWS.add(assignments.size());
+        } finally {
+            BULK_ASSIGN.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<PeerTutor> getEligiblePeerTutorsForCourse(String courseCode, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<PeerTutor> tutors = delegate.getEligiblePeerTutorsForCourse(courseCode, limit);
+            ELIGIBLE_FOR_COURSE_ROWS.add(tutors.size());
+            return tutors;
+        } finally {
+            ELIGIBLE_FOR_COURSE.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<EligibleTutor> getEligibleUnassignedTutors(String courseCode, EligibleTutor after, int limit) {
+        long start = System.nanoTime();
+        try {
+            List<EligibleTutor> tutors = delegate.getEligibleUnassignedTutors(courseCode, after, limit);
+            ELIGIBLE_UNASSIGNED_ROWS.add(tutors.size());
+            return tutors;
+        } finally {
+            ELIGIBLE_UNASSIGNED.recordSince(start);
+        }
+    }
+
+    @Override
+    public EligibilityVerdict getEligibilityVerdict(int peerTutorID, int studentID, String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getEligibilityVerdict(peerTutorID, studentID, courseCode);
+        } finally {
+            VERDICT_BY_ID.recordSince(start);
+        }
+    }
+
+    @Override
+    public AssignmentResult assignCourseToPeerTutor(int peerTutorID, String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return delegate.assignCourseToPeerTutor(peerTutorID, courseCode);
+        } finally {
+            ASSIGN_BY_ID.recordSince(start);
+        }
+    }
+
+    @Override
+    public TutorRecord getTutorRecord(int peerTutorID, int studentID) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getTutorRecord(peerTutorID, studentID);
+        } finally {
+            TUTOR_RECORD.recordSince(start);
+        }
+    }
+
+    @Override
+    public AssignmentResult insertAssignment(int peerTutorID, String courseCode) {
+        long start = System.nanoTime();
+        try {
+            return delegate.insertAssignment(peerTutorID, courseCode);
+        } finally {
+            INSERT_ASSIGNMENT.recordSince(start);
+        }
+    }
+
+    @Override
+    public int streamPeerTutorIdentities(Consumer<TutorIdentity> handler) {
+        long start = System.nanoTime();
+        try {
+            int rows = delegate.streamPeerTutorIdentities(handler);
+            STREAM_IDENTITIES_ROWS.add(Math.max(0, rows));
+            return rows;
+        } finally {
+            STREAM_IDENTITIES.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<TutorIdentity> findPeerTutorIdentities(String lastName, String firstName, String email) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPeerTutorIdentities(lastName, firstName, email);
+        } finally {
+            FIND_IDENTITIES.recordSince(start);
+        }
+    }
+
+    @Override
+    public TutorIdentity findPeerTutorIdentity(int peerTutorID) {
+        long start = System.nanoTime();
+        try {
+            return delegate.findPeerTutorIdentity(peerTutorID);
+        } finally {
+            FIND_IDENTITY.recordSince(start);
+        }
+    }
+
+    @Override
+    public BookingResult bookSession(TutoringSession session) {
+        long start = System.nanoTime();
+        try {
+            return delegate.bookSession(session);
+        } finally {
+            BOOK_SESSION.recordSince(start);
+        }
+    }
+
+    @Override
+    public boolean cancelSession(TutoringSession session) {
+        long start = System.nanoTime();
+        try {
+            return delegate.cancelSession(session);
+        } finally {
+            CANCEL_SESSION.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForTutor(int peerTutorID, LocalDate from, LocalDate to, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSessionsForTutor(peerTutorID, from, to, limit);
+        } finally {
+            SESSIONS_FOR_TUTOR.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForCourse(String courseCode, LocalDate from, LocalDate to, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSessionsForCourse(courseCode, from, to, limit);
+        } finally {
+            SESSIONS_FOR_COURSE.recordSince(start);
+        }
+    }
+
+    @Override
+    public List<TutoringSession> getSessionsForStudent(int studentID, LocalDate from, LocalDate to, int limit) {
+        long start = System.nanoTime();
+        try {
+            return delegate.getSessionsForStudent(studentID, from, to, limit);
+        } finally {
+            SESSIONS_FOR_STUDENT.recordSince(start);
+        }
+    }
+
+    @Override
+    public int streamBookedSessions(LocalDate from, LocalDate to, Consumer<TutoringSession> handler) {
+        long start = System.nanoTime();
+        try {
+            int rows = delegate.streamBookedSessions(from, to, handler);
+            STREAM_BOOKED_BETWEEN_ROWS.add(Math.max(0, rows));
+            return rows;
+        } finally {
+            STREAM_BOOKED_BETWEEN.recordSince(start);
+        }
+    }
+}
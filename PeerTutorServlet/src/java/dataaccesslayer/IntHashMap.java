@@ -0,0 +1,128 @@
+/* File: IntHashMap.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: hash map keyed by primitive ints
+ */
+package dataaccesslayer;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from int keys to objects, with the keys stored unboxed in an
+ * open addressing table. A lookup is an array probe or two and a put of an
+ * existing key allocates nothing, which matters for the millions of
+ * students and peer tutors the in-memory DAO keeps. Entries cannot be
+ * removed, and null values are not allowed.
+ * <p>
+ * Not thread safe; callers synchronize.
+ *
+ * @param <V> the value type.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+final class IntHashMap<V> {
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Creates a map sized for the expected number of entries.
+     *
+     * @param expectedSize how many entries the map should hold before it
+     * needs to grow.
+     */
+    IntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Looks up the value of a key.
+     *
+     * @param key the key.
+     * @return the value, or null if the key is not in the map.
+     */
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            Object value = values[slot];
+            if (value == null || keys[slot] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    /**
+     * Maps a key to a value, replacing any earlier value.
+     *
+     * @param key the key.
+     * @param value the value, not null.
+     */
+    void put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not allowed");
+        }
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int slot = slot(key);
+        while (values[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == null) {
+            size++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the keys in ascending order.
+     *
+     * @return a new array of every key.
+     */
+    int[] sortedKeys() {
+        int[] sorted = new int[size];
+        int n = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (values[slot] != null) {
+                sorted[n++] = keys[slot];
+            }
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /* spreads sequential IDs, which are the common case, over the table */
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
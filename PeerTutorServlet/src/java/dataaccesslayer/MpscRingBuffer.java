@@ -0,0 +1,129 @@
+/* File: MpscRingBuffer.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: bounded lock-free queue for many producers and one consumer
+ */
+package dataaccesslayer;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded queue that any number of threads offer to and a single thread
+ * drains, without locks. The slots form a ring whose size is a power of
+ * two; each slot carries a sequence number telling whose turn it is. A
+ * producer claims the next position with one compare-and-set on the tail,
+ * stores its element and then publishes it by advancing the slot's
+ * sequence. The consumer takes elements in order as long as the next slot
+ * is published, and frees each slot for the producer one lap ahead.
+ * <p>
+ * Memory is fixed at construction. When the ring is full, offer returns
+ * false at once, so a producer never waits on the consumer unless it
+ * chooses to. Only one thread may call {@link #drainTo}.
+ *
+ * @param <E> the element type.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+final class MpscRingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    /* the position a slot expects next: p while free for the producer of
+       position p, p + 1 once that producer has published into it */
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /* written by the consumer only */
+    private volatile long head;
+
+    /**
+     * Creates a ring of at least the given capacity.
+     *
+     * @param capacity the most elements held at once; rounded up to a power
+     * of two.
+     */
+    MpscRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        elements = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return the most elements the ring holds.
+     */
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Adds an element unless the ring is full.
+     *
+     * @param element the element, not null.
+     * @return false if the ring was full and the element was not added.
+     */
+    boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long expected = sequences.get(index);
+            if (expected == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, element);
+                    // publishes the element to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (expected < position) {
+                // the slot still holds the element of the previous lap
+                return false;
+            } else {
+                // another producer took this position first
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves up to max published elements, in order, into the target. Only
+     * the consumer thread may call this.
+     *
+     * @param target receives the elements.
+     * @param max the most elements to move.
+     * @return the number of elements moved.
+     */
+    int drainTo(Collection<? super E> target, int max) {
+        long position = head;
+        int moved = 0;
+        while (moved < max) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                // empty, or the producer has claimed the slot but not published yet
+                break;
+            }
+            target.add(elements.get(index));
+            elements.lazySet(index, null);
+            sequences.set(index, position + mask + 1);
+            position++;
+            moved++;
+        }
+        head = position;
+        return moved;
+    }
+
+    /**
+     * @return about how many elements are waiting; exact only when no
+     * thread is offering or draining.
+     */
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, mask + 1));
+    }
+}
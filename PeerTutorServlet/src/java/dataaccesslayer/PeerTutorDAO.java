@@ -6,22 +6,62 @@
  */
 package dataaccesslayer;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
+import transferobject.AssignmentResult;
+import transferobject.BookingResult;
+import transferobject.CourseAssignment;
+import transferobject.EligibilityVerdict;
+import transferobject.EligibleTutor;
 import transferobject.PeerTutor;
+import transferobject.TutorIdentity;
+import transferobject.TutorRecord;
+import transferobject.TutoringSession;
 
 public interface PeerTutorDAO {
 
-    boolean isPeerTutorRegistered(PeerTutor peerTutor);
-
     boolean isCourseValid(String courseCode);
 
-    boolean hasPeerTutorTakenCourse(PeerTutor peerTutor, String courseCode);
+    List<PeerTutor> getAllPeerTutorsForCourse(String courseCode);
 
-    String getPeerTutorLetterGradeForCourse(PeerTutor peerTutor, String courseCode);
+    List<PeerTutor> getPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit);
 
-    boolean isCourseAlreadyAssignedToPeerTutor(PeerTutor peerTutor, String courseCode);
+    int streamPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit, Consumer<PeerTutor> handler);
 
-    void assignCourseToPeerTutor(PeerTutor peerTutor, String courseCOde);
+    String getRosterVersion(String courseCode);
 
-    List<PeerTutor> getAllPeerTutorsForCourse(String courseCode);
+    List<EligibilityVerdict> getEligibilityVerdicts(List<CourseAssignment> requests);
+
+    void assignCoursesToPeerTutors(List<CourseAssignment> assignments);
+
+    List<PeerTutor> getEligiblePeerTutorsForCourse(String courseCode, int limit);
+
+    List<EligibleTutor> getEligibleUnassignedTutors(String courseCode, EligibleTutor after, int limit);
+
+    EligibilityVerdict getEligibilityVerdict(int peerTutorID, int studentID, String courseCode);
+
+    AssignmentResult assignCourseToPeerTutor(int peerTutorID, String courseCode);
+
+    TutorRecord getTutorRecord(int peerTutorID, int studentID);
+
+    AssignmentResult insertAssignment(int peerTutorID, String courseCode);
+
+    int streamPeerTutorIdentities(Consumer<TutorIdentity> handler);
+
+    List<TutorIdentity> findPeerTutorIdentities(String lastName, String firstName, String email);
+
+    TutorIdentity findPeerTutorIdentity(int peerTutorID);
+
+    BookingResult bookSession(TutoringSession session);
+
+    boolean cancelSession(TutoringSession session);
+
+    List<TutoringSession> getSessionsForTutor(int peerTutorID, LocalDate from, LocalDate to, int limit);
+
+    List<TutoringSession> getSessionsForCourse(String courseCode, LocalDate from, LocalDate to, int limit);
+
+    List<TutoringSession> getSessionsForStudent(int studentID, LocalDate from, LocalDate to, int limit);
+
+    int streamBookedSessions(LocalDate from, LocalDate to, Consumer<TutoringSession> handler);
 }
@@ -0,0 +1,98 @@
+/* File: PeerTutorDAOFactory.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: creates the configured PeerTutorDAO
+ */
+package dataaccesslayer;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Creates the PeerTutorDAO the business layer works with. The backend is
+ * chosen by the "dao.backend" setting:
+ * <ul>
+ * <li>"mysql" (the default) talks to the database through
+ * {@link PeerTutorDAOImpl};</li>
+ * <li>"memory" answers from an {@link InMemoryPeerTutorDAO} loaded once
+ * from "dao.memory.source" and shared by every caller.</li>
+ * </ul>
+ * Either backend is wrapped in the instrumenting and caching decorators, so
+ * metrics and the identity and availability indexes behave the same. An unknown backend, or an in-memory data set
+ * that cannot be loaded, falls back to the database.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class PeerTutorDAOFactory {
+
+    private static final DataSourceConfig CONFIG = new DataSourceConfig(DataSourceConfig.loadProperties(), "dao");
+
+    /* loaded on first use and then shared, since loading reads the whole data set */
+    private static InMemoryPeerTutorDAO memory;
+
+    private PeerTutorDAOFactory() {
+    }
+
+    /**
+     * Creates a DAO over the configured backend.
+     *
+     * @return the decorated DAO.
+     */
+    public static PeerTutorDAO create() {
+        return decorate(backend());
+    }
+
+    /**
+     * Wraps a backend in the decorators every DAO of the application uses.
+     *
+     * @param backend the DAO that answers the queries.
+     * @return the decorated DAO.
+     */
+    public static PeerTutorDAO decorate(PeerTutorDAO backend) {
+        return new CachingPeerTutorDAO(new InstrumentedPeerTutorDAO(backend));
+    }
+
+    /**
+     * Gets the configured backend ready for its first request: the
+     * in-memory data is loaded, or the database pools are opened and every
+     * PeerTutorSql statement is prepared on their connections.
+     */
+    public static void warmUp() {
+        if ("memory".equalsIgnoreCase(CONFIG.getString("backend", "mysql")) && memory() != null) {
+            return;
+        }
+        List<String> statements = StatementCache.declaredIn(PeerTutorSql.class);
+        statements.addAll(PeerTutorSql.chunkStatements(DataSourceConfig.load().getBatchSize()));
+        DataSource.warmUp(null, statements);
+    }
+
+    private static PeerTutorDAO backend() {
+        String backend = CONFIG.getString("backend", "mysql");
+        if ("memory".equalsIgnoreCase(backend)) {
+            PeerTutorDAO dao = memory();
+            if (dao != null) {
+                return dao;
+            }
+            System.out.println("In-memory data could not be loaded, using mysql");
+        } else if (!"mysql".equalsIgnoreCase(backend)) {
+            System.out.println("Unknown dao.backend " + backend + ", using mysql");
+        }
+        return new PeerTutorDAOImpl();
+    }
+
+    private static synchronized InMemoryPeerTutorDAO memory() {
+        if (memory == null) {
+            String source = CONFIG.getString("memory.source", "peertutor-MySQL.sql");
+            boolean readOnly = Boolean.parseBoolean(CONFIG.getString("memory.readOnly", "false"));
+            try {
+                memory = InMemoryPeerTutorDAO.load(source, readOnly);
+            } catch (IOException | SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        return memory;
+    }
+}
@@ -9,13 +9,35 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import metrics.Counter;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+import transferobject.AssignmentResult;
+import transferobject.BookingResult;
+import transferobject.CourseAssignment;
+import transferobject.EligibilityVerdict;
+import transferobject.EligibleTutor;
 import transferobject.PeerTutor;
+import transferobject.SessionStatus;
+import transferobject.TutorIdentity;
+import transferobject.TutorRecord;
+import transferobject.TutoringSession;
 
 /**
  * Implementation of the PeerTutorDAO interface. This class handles the data
  * access operations related to peer tutors, interfacing with a SQL database.
+ * Queries that only read use a {@link DataSource#forReads()} DataSource and
+ * may run on a read replica; writes, and the reads that decide what is written, use the
+ * primary and mark the thread as having written once they commit.
  * @author: Lei Luo
  * @version 1.0
  * @since JDK 11
@@ -23,37 +45,57 @@ import transferobject.PeerTutor;
 public class PeerTutorDAOImpl implements PeerTutorDAO {
 
     /**
-     * Checks if a peer tutor is registered in the database.
+     * Pairs per verdict query and rows per insert transaction in bulk
+     * operations.
+     */
+    private static final int BATCH_SIZE = DataSourceConfig.load().getBatchSize();
+
+    /**
+     * SQL errors caught and logged by each method, which otherwise only show
+     * up in the server log.
+     */
+    private static final MetricFamily<Counter> ERRORS = MetricsRegistry.counter(
+            "peertutor_dao_errors_total", "SQL errors caught in PeerTutorDAOImpl methods.", "method");
+
+    /**
+     * Connections for writes, and for reads that must see the primary.
+     */
+    private final DataSource dataSource = new DataSource();
+
+    /**
+     * Connections for reads, from a read replica when there is one.
+     */
+    private final DataSource readDataSource = DataSource.forReads();
+
+    /**
+     * Checks if a course code is valid and exists in the database.
      *
-     * @param peerTutor The peer tutor to be checked.
-     * @return true if the peer tutor is registered, false otherwise.
+     * @param courseCode The course code to be validated.
+     * @return true if the course code is valid, false otherwise.
      */
     @Override
-    public boolean isPeerTutorRegistered(PeerTutor peerTutor) {
+    public boolean isCourseValid(String courseCode) {
 
-        // if the person is not registered as a peer tutor, then display an error message
-        boolean isRegistered = false;
+        boolean isCourseValid = false;
         Connection con = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            DataSource ds = new DataSource();
-
-            con = ds.createConnection();
+            con = readDataSource.createConnection();
             if (con == null) {
                 throw new SQLException("Could not establish database connection");
             }
-            pstmt = con.prepareStatement("SELECT * FROM peertutor WHERE firstName = ? and lastName=?");
-            pstmt.setString(1, peerTutor.getFirstName());
-            pstmt.setString(2, peerTutor.getLastName());
-            rs = pstmt.executeQuery();
+            pstmt = con.prepareStatement(PeerTutorSql.IS_COURSE_VALID);
+            pstmt.setString(1, courseCode);
+            rs = pstmt.executeQuery(); // Execute the query
 
-            while (rs.next()) {
+            if (rs.next()) {
 
-                isRegistered = true;// Peer tutor is registered because a record was found
+                isCourseValid = true;// Peer tutor is registered because a record was found
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            ERRORS.labels("isCourseValid").increment();
         } finally {
             try {
                 if (rs != null) {
@@ -77,37 +119,88 @@ public class PeerTutorDAOImpl implements PeerTutorDAO {
                 System.out.println(ex.getMessage());
             }
         }
-        return isRegistered;
+        return isCourseValid;
+    }
 
+    /**
+     * Retrieves a list of all peer tutors assigned to a specific course.
+     *
+     * @param courseCode The course code for which peer tutors are to be
+     * retrieved.
+     * @return A list of peer tutors assigned to the specified course.
+     */
+    @Override
+    public List<PeerTutor> getAllPeerTutorsForCourse(String courseCode) {
+        ArrayList<PeerTutor> tutors = new ArrayList<>();
+        streamPeerTutorsForCourse(courseCode, Integer.MIN_VALUE, Integer.MAX_VALUE, tutors::add);
+        return tutors;
     }
 
     /**
-     * Checks if a course code is valid and exists in the database.
+     * Retrieves one page of the peer tutors assigned to a course.
      *
-     * @param courseCode The course code to be validated.
-     * @return true if the course code is valid, false otherwise.
+     * @param courseCode The course code for which peer tutors are to be
+     * retrieved.
+     * @param afterPeerTutorID the last PeerTutorID of the previous page, or
+     * Integer.MIN_VALUE for the first page.
+     * @param limit the most peer tutors to return.
+     * @return up to limit peer tutors with an ID above afterPeerTutorID, in ID
+     * order.
      */
     @Override
-    public boolean isCourseValid(String courseCode) {
+    public List<PeerTutor> getPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit) {
+        ArrayList<PeerTutor> tutors = new ArrayList<>(Math.min(limit, 1000));
+        streamPeerTutorsForCourse(courseCode, afterPeerTutorID, limit, tutors::add);
+        return tutors;
+    }
 
-        boolean isCourseValid = false;
+    /**
+     * Passes one page of the peer tutors assigned to a course to the handler
+     * as the rows arrive, without holding the page in memory. The result set
+     * is read in streaming mode, so the handler should not run other queries.
+     *
+     * @param courseCode The course code for which peer tutors are to be
+     * retrieved.
+     * @param afterPeerTutorID the last PeerTutorID of the previous page, or
+     * Integer.MIN_VALUE for the first page.
+     * @param limit the most peer tutors to pass on.
+     * @param handler receives each peer tutor in PeerTutorID order. A runtime
+     * exception thrown by the handler stops the query and is rethrown.
+     * @return the number of peer tutors passed to the handler.
+     */
+    @Override
+    public int streamPeerTutorsForCourse(String courseCode, int afterPeerTutorID, int limit,
+            Consumer<PeerTutor> handler) {
         Connection con = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
+        int rows = 0;
+
         try {
-            DataSource ds = new DataSource();
-            con = ds.createConnection();
-            pstmt = con.prepareStatement(
-                    "SELECT * FROM course WHERE CourseCode = ?");
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.PEER_TUTORS_FOR_COURSE,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // tells Connector/J to stream rows instead of reading the whole result
+            pstmt.setFetchSize(Integer.MIN_VALUE);
             pstmt.setString(1, courseCode);
-            rs = pstmt.executeQuery(); // Execute the query
-
-            if (rs.next()) {
+            pstmt.setInt(2, afterPeerTutorID);
+            pstmt.setInt(3, limit);
+            rs = pstmt.executeQuery();
 
-                isCourseValid = true;// Peer tutor is registered because a record was found
+            while (rs.next()) {
+                PeerTutor tutor = new PeerTutor();
+                tutor.setPeerTutorID(rs.getInt("PeerTutorID"));
+                tutor.setFirstName(rs.getString("FirstName"));
+                tutor.setLastName(rs.getString("LastName"));
+                handler.accept(tutor);
+                rows++;
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            ERRORS.labels("streamPeerTutorsForCourse").increment();
         } finally {
             try {
                 if (rs != null) {
@@ -131,42 +224,131 @@ public class PeerTutorDAOImpl implements PeerTutorDAO {
                 System.out.println(ex.getMessage());
             }
         }
-        return isCourseValid;
+        return rows;
     }
 
     /**
-     * Checks if a peer tutor has taken a specific course.
+     * Reads the version of the roster of a course, which changes whenever a
+     * peer tutor is assigned to or removed from it or an assigned peer tutor
+     * is renamed. Used to answer conditional requests without reading the
+     * roster itself.
      *
-     * @param peerTutor The peer tutor to be checked.
-     * @param courseCode The course code to check against the tutor.
-     * @return true if the peer tutor has taken the course, false otherwise.
+     * @param courseCode The course code of the roster.
+     * @return the version, or null if it could not be read.
      */
     @Override
-    public boolean hasPeerTutorTakenCourse(PeerTutor peerTutor, String courseCode) {
-        // TODO:  Add your code here.  Be sure to use try-catch-finally statement.
+    public String getRosterVersion(String courseCode) {
 
-        boolean hasPeerTutorTakenCourse = false;
+        String version = null;
         Connection con = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            DataSource ds = new DataSource();
-            con = ds.createConnection();
-
-            pstmt = con.prepareStatement(
-                    "SELECT * FROM course join StudentCourse on course.CourseCode=StudentCourse.Course_CourseCode join  "
-                    + "Student on StudentCourse.Student_StudentID=Student.StudentID "
-                    + "WHERE CourseCode = ?  and student.FirstName=? and  student.LastName=?");
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.ROSTER_VERSION);
             pstmt.setString(1, courseCode);
-            pstmt.setString(2, peerTutor.getFirstName());
-            pstmt.setString(3, peerTutor.getLastName());
             rs = pstmt.executeQuery();
             if (rs.next()) {
+                version = Long.toString(rs.getLong("Version"), 36);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("getRosterVersion").increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Gathers the eligibility facts of many resolved peer tutor and course
+     * pairs, a configurable number at a time, with one query per chunk.
+     *
+     * @param requests the pairs to check, each with its PeerTutorID and
+     * StudentID filled in.
+     * @return one verdict per request, in the same order; null entries for
+     * pairs whose chunk could not be queried.
+     */
+    @Override
+    public List<EligibilityVerdict> getEligibilityVerdicts(List<CourseAssignment> requests) {
 
-                hasPeerTutorTakenCourse = true;// Peer tutor is registered because a record was found
+        EligibilityVerdict[] verdicts = new EligibilityVerdict[requests.size()];
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            // on the primary: the verdicts decide which assignments are written next
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            int preparedRows = 0;
+            for (int from = 0; from < requests.size(); from += BATCH_SIZE) {
+                int to = Math.min(requests.size(), from + BATCH_SIZE);
+                // a short last chunk is padded to one of a few sizes, not given its own statement
+                int rows = PeerTutorSql.chunkRows(to - from, BATCH_SIZE);
+                if (rows != preparedRows) {
+                    if (pstmt != null) {
+                        pstmt.close();
+                    }
+                    pstmt = con.prepareStatement(PeerTutorSql.eligibilityVerdicts(rows));
+                    preparedRows = rows;
+                }
+                int index = 1;
+                for (int i = from; i < to; i++) {
+                    CourseAssignment request = requests.get(i);
+                    pstmt.setInt(index++, i);
+                    pstmt.setInt(index++, request.getPeerTutorID());
+                    pstmt.setInt(index++, request.getStudentID());
+                    pstmt.setString(index++, request.getCourseCode());
+                }
+                for (int i = to - from; i < rows; i++) {
+                    pstmt.setInt(index++, -1);
+                    pstmt.setInt(index++, 0);
+                    pstmt.setInt(index++, 0);
+                    pstmt.setNull(index++, Types.VARCHAR);
+                }
+                rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    int row = rs.getInt("RowIndex");
+                    EligibilityVerdict verdict = new EligibilityVerdict();
+                    verdict.setRegistered(true);
+                    verdict.setPeerTutorID(requests.get(row).getPeerTutorID());
+                    verdict.setCourseValid(rs.getBoolean("CourseValid"));
+                    verdict.setCourseTaken(rs.getBoolean("CourseTaken"));
+                    verdict.setGradeCode(rs.getString("GradeCode"));
+                    verdict.setAlreadyAssigned(rs.getBoolean("AlreadyAssigned"));
+                    verdicts[row] = verdict;
+                }
+                rs.close();
+                rs = null;
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            ERRORS.labels("getEligibilityVerdicts").increment();
         } finally {
             try {
                 if (rs != null) {
@@ -190,43 +372,232 @@ public class PeerTutorDAOImpl implements PeerTutorDAO {
                 System.out.println(ex.getMessage());
             }
         }
-        return hasPeerTutorTakenCourse;
+        return Arrays.asList(verdicts);
+    }
+
+    /**
+     * Records course assignments by PeerTutorID with one multi-row insert
+     * per chunk, each in its own transaction, so a failure only rolls back
+     * its own chunk. Each assignment's result is set to ASSIGNED when this
+     * call inserted its row, ALREADY_ASSIGNED when the row existed, or ERROR
+     * when its chunk failed. The pairs are expected to have been checked for
+     * eligibility already.
+     * <p>
+     * The insert reports how many rows it added, not which. When that is
+     * all of the chunk or none of it, every pair's result follows; otherwise
+     * another request assigned some of the pairs after they were checked,
+     * and the chunk is rolled back and inserted again pair by pair, so that
+     * only the caller that really inserted a row is told ASSIGNED.
+     *
+     * @param assignments the pairs to insert, each with its PeerTutorID set.
+     */
+    @Override
+    public void assignCoursesToPeerTutors(List<CourseAssignment> assignments) {
 
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        PreparedStatement single = null;
+        int from = 0;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            con.setAutoCommit(false);
+            int preparedRows = 0;
+            while (from < assignments.size()) {
+                int to = Math.min(assignments.size(), from + BATCH_SIZE);
+                try {
+                    int rows = PeerTutorSql.chunkRows(to - from, BATCH_SIZE);
+                    if (rows != preparedRows) {
+                        if (pstmt != null) {
+                            pstmt.close();
+                        }
+                        pstmt = con.prepareStatement(PeerTutorSql.insertPeerTutorCourses(rows));
+                        preparedRows = rows;
+                    }
+                    int index = 1;
+                    for (int i = 0; i < rows; i++) {
+                        // padding repeats the first pair, which the IGNORE skips
+                        CourseAssignment assignment = assignments.get(i < to - from ? from + i : from);
+                        pstmt.setInt(index++, assignment.getPeerTutorID());
+                        pstmt.setString(index++, assignment.getCourseCode());
+                    }
+                    int inserted = pstmt.executeUpdate();
+                    if (inserted == to - from || inserted == 0) {
+                        con.commit();
+                        for (int i = from; i < to; i++) {
+                            assignments.get(i).setResult(inserted > 0
+                                    ? AssignmentResult.ASSIGNED : AssignmentResult.ALREADY_ASSIGNED);
+                        }
+                    } else {
+                        // some pairs were assigned since they were checked; only one at a time tells which
+                        con.rollback();
+                        if (single == null) {
+                            single = con.prepareStatement(PeerTutorSql.INSERT_PEER_TUTOR_COURSE);
+                        }
+                        AssignmentResult[] results = new AssignmentResult[to - from];
+                        for (int i = from; i < to; i++) {
+                            single.setInt(1, assignments.get(i).getPeerTutorID());
+                            single.setString(2, assignments.get(i).getCourseCode());
+                            results[i - from] = single.executeUpdate() > 0
+                                    ? AssignmentResult.ASSIGNED : AssignmentResult.ALREADY_ASSIGNED;
+                        }
+                        con.commit();
+                        for (int i = from; i < to; i++) {
+                            assignments.get(i).setResult(results[i - from]);
+                        }
+                    }
+                    if (inserted > 0) {
+                        DataSource.markWritten();
+                    }
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                    ERRORS.labels("assignCoursesToPeerTutors").increment();
+                    con.rollback();
+                    for (int i = from; i < to; i++) {
+                        assignments.get(i).setResult(AssignmentResult.ERROR);
+                    }
+                }
+                from = to;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("assignCoursesToPeerTutors").increment();
+            for (int i = from; i < assignments.size(); i++) {
+                assignments.get(i).setResult(AssignmentResult.ERROR);
+            }
+        } finally {
+            try {
+                if (single != null) {
+                    single.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
     }
 
     /**
-     * Retrieves the letter grade a peer tutor obtained in a specific course.
+     * Lists the peer tutors who could tutor a course, whether or not it is
+     * assigned to them, from the EligibleTutorCourse projection.
      *
-     * @param peerTutor The peer tutor whose grade is to be retrieved.
-     * @param courseCode The course code for which the grade is required.
-     * @return The letter grade obtained by the peer tutor, or an error message
-     * if the grade is insufficient.
+     * @param courseCode The course code.
+     * @param limit the most peer tutors to return.
+     * @return up to limit eligible peer tutors, best grade first, then in
+     * PeerTutorID order; empty if the query could not be run.
      */
     @Override
-    public String getPeerTutorLetterGradeForCourse(PeerTutor peerTutor, String courseCode) {
+    public List<PeerTutor> getEligiblePeerTutorsForCourse(String courseCode, int limit) {
 
-        String PeerTutorLetterGradeForCourse = null;
+        ArrayList<PeerTutor> tutors = new ArrayList<>(Math.min(limit, 1000));
         Connection con = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            DataSource ds = new DataSource();
-            con = ds.createConnection();
-            pstmt = con.prepareStatement(
-                    "SELECT distinct(grade.GradeCode)as GradeCode FROM  grade join  student on grade.Student_StudentID =student.StudentID join peertutor on peertutor.LastName=student. LastName and peertutor.FirstName=student.FirstName and peertutor.Email=student.Email where "
-                    + "peertutor.FirstName=? and peertutor.LastName=? and grade.Course_CourseCode=?");
-
-            pstmt.setString(1, peerTutor.getFirstName());
-            pstmt.setString(2, peerTutor.getLastName());
-            pstmt.setString(3, courseCode);
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.ELIGIBLE_TUTORS_FOR_COURSE);
+            pstmt.setString(1, courseCode);
+            pstmt.setInt(2, limit);
             rs = pstmt.executeQuery();
-            if (rs.next()) {
-                PeerTutorLetterGradeForCourse = rs.getString("GradeCode");
-
+            while (rs.next()) {
+                PeerTutor tutor = new PeerTutor();
+                tutor.setPeerTutorID(rs.getInt("PeerTutorID"));
+                tutor.setFirstName(rs.getString("FirstName"));
+                tutor.setLastName(rs.getString("LastName"));
+                tutors.add(tutor);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("getEligiblePeerTutorsForCourse").increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
             }
+        }
+        return tutors;
+    }
+
+    /**
+     * Retrieves one page of the peer tutors who could tutor a course but are
+     * not assigned to it, best grade first, then least loaded, with a single
+     * query.
+     *
+     * @param courseCode The course code.
+     * @param after the last tutor of the previous page, or null for the first
+     * page; only its grade rank, load and ID are used.
+     * @param limit the most peer tutors to return.
+     * @return up to limit ranked tutors; empty if the query could not be run.
+     */
+    @Override
+    public List<EligibleTutor> getEligibleUnassignedTutors(String courseCode, EligibleTutor after, int limit) {
 
+        ArrayList<EligibleTutor> tutors = new ArrayList<>(Math.min(limit, 1000));
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.ELIGIBLE_UNASSIGNED_TUTORS_FOR_COURSE);
+            int rank = after == null ? Integer.MIN_VALUE : after.getGradeRank();
+            pstmt.setString(1, courseCode);
+            pstmt.setInt(2, rank);
+            pstmt.setInt(3, rank);
+            pstmt.setInt(4, after == null ? Integer.MIN_VALUE : after.getLoad());
+            pstmt.setInt(5, after == null ? Integer.MIN_VALUE : after.getPeerTutorID());
+            pstmt.setInt(6, limit);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                EligibleTutor tutor = new EligibleTutor();
+                tutor.setPeerTutorID(rs.getInt("PeerTutorID"));
+                tutor.setFirstName(rs.getString("FirstName"));
+                tutor.setLastName(rs.getString("LastName"));
+                tutor.setGradeCode(rs.getString("GradeCode"));
+                tutor.setGradeRank(rs.getInt("GradeRank"));
+                tutor.setLoad(rs.getInt("TutorLoad"));
+                tutors.add(tutor);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
+            ERRORS.labels("getEligibleUnassignedTutors").increment();
         } finally {
             try {
                 if (rs != null) {
@@ -250,41 +621,55 @@ public class PeerTutorDAOImpl implements PeerTutorDAO {
                 System.out.println(ex.getMessage());
             }
         }
-        return PeerTutorLetterGradeForCourse;
+        return tutors;
     }
 
     /**
-     * Checks if a course is already assigned to a peer tutor.
+     * Gathers every fact needed to decide whether a course can be assigned to
+     * a resolved peer tutor, with primary key lookups only.
      *
-     * @param peerTutor The peer tutor to check for course assignment.
+     * @param peerTutorID The PeerTutorID.
+     * @param studentID The StudentID of the peer tutor's student record, or 0
+     * when there is none.
      * @param courseCode The course code to be checked.
-     * @return true if the course is already assigned to the peer tutor, false
-     * otherwise.
+     * @return the course, grade and assignment facts, with registered set;
+     * all false and marked as failed if the query could not be run.
      */
     @Override
-    public boolean isCourseAlreadyAssignedToPeerTutor(PeerTutor peerTutor, String courseCode) {
-        // the peer tutor is already assigned to the course, then display an error message
-        boolean isCourseAlreadyAssignedToPeerTutor = false;
+    public EligibilityVerdict getEligibilityVerdict(int peerTutorID, int studentID, String courseCode) {
+
+        EligibilityVerdict verdict = new EligibilityVerdict();
         Connection con = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
         try {
-            DataSource ds = new DataSource();
-            con = ds.createConnection();
-            pstmt = con.prepareStatement(
-                    "SELECT * FROM peertutorcourse join peertutor on  peertutorcourse.PeerTutor_PeerTutorID=peertutor.PeerTutorID"
-                    + " WHERE peertutor.LastName = ? and peertutor.FirstName = ?  and Course_CourseCode=? ");
-
-            pstmt.setString(2, peerTutor.getFirstName());
-            pstmt.setString(1, peerTutor.getLastName());
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.ELIGIBILITY_VERDICT_BY_ID);
+            pstmt.setString(1, courseCode);
+            pstmt.setInt(2, studentID);
             pstmt.setString(3, courseCode);
+            pstmt.setInt(4, studentID);
+            pstmt.setString(5, courseCode);
+            pstmt.setInt(6, peerTutorID);
+            pstmt.setString(7, courseCode);
+            pstmt.setInt(8, peerTutorID);
+            pstmt.setString(9, courseCode);
             rs = pstmt.executeQuery();
-            while (rs.next()) {
-
-                isCourseAlreadyAssignedToPeerTutor = true;
+            if (rs.next()) {
+                verdict.setRegistered(true);
+                verdict.setPeerTutorID(peerTutorID);
+                verdict.setCourseValid(rs.getBoolean("CourseValid"));
+                verdict.setCourseTaken(rs.getBoolean("CourseTaken"));
+                verdict.setGradeCode(rs.getString("GradeCode"));
+                verdict.setAlreadyAssigned(rs.getBoolean("AlreadyAssigned"));
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            ERRORS.labels("getEligibilityVerdict").increment();
+            verdict.setFailed(true);
         } finally {
             try {
                 if (rs != null) {
@@ -308,39 +693,70 @@ public class PeerTutorDAOImpl implements PeerTutorDAO {
                 System.out.println(ex.getMessage());
             }
         }
-        return isCourseAlreadyAssignedToPeerTutor;
+        return verdict;
     }
 
     /**
-     * Assigns a course to a peer tutor.
+     * Assigns a course to a resolved peer tutor as one transaction, if the
+     * pair is eligible; both statements are primary key lookups.
      *
-     * @param peerTutor The peer tutor to whom the course is to be assigned.
+     * @param peerTutorID The PeerTutorID.
      * @param courseCode The course code to be assigned.
+     * @return ASSIGNED if a row was inserted, ALREADY_ASSIGNED if the course
+     * was assigned before, INELIGIBLE if the peer tutor does not qualify, or
+     * ERROR if the database could not be reached.
      */
     @Override
-    public void assignCourseToPeerTutor(PeerTutor peerTutor, String courseCode) {
-        // assign the course to the peer tutor
+    public AssignmentResult assignCourseToPeerTutor(int peerTutorID, String courseCode) {
 
+        AssignmentResult result = AssignmentResult.ERROR;
         Connection con = null;
         PreparedStatement pstmt = null;
+        ResultSet rs = null;
         try {
-            DataSource ds = new DataSource();
-            con = ds.createConnection();
-
-            pstmt = con.prepareStatement(
-                    "INSERT INTO PeerTutorCourse (PeerTutor_PeerTutorID, Course_CourseCode) "
-                            + "SELECT PeerTutorID,grade.Course_CourseCode FROM peertutor join student on peertutor.LastName=student. LastName and peertutor.FirstName=student.FirstName and peertutor.Email=student.Email join  grade on grade.Student_StudentID =student.StudentID "
-                            + "WHERE peertutor.FirstName=? and peertutor.LastName=? and grade.Course_CourseCode=?");
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            con.setAutoCommit(false);
 
-            pstmt.setString(1, peerTutor.getLastName());
-            pstmt.setString(2, peerTutor.getFirstName());
-            pstmt.setString(3, courseCode);
+            pstmt = con.prepareStatement(PeerTutorSql.ASSIGN_COURSE_TO_PEER_TUTOR_BY_ID);
+            pstmt.setInt(1, peerTutorID);
+            pstmt.setString(2, courseCode);
 
-            pstmt.executeUpdate();
+            if (pstmt.executeUpdate() > 0) {
+                result = AssignmentResult.ASSIGNED;
+            } else {
+                // nothing inserted: either the row exists already or the tutor does not qualify
+                pstmt.close();
+                pstmt = con.prepareStatement(PeerTutorSql.IS_COURSE_ASSIGNED_TO_PEER_TUTOR_BY_ID);
+                pstmt.setInt(1, peerTutorID);
+                pstmt.setString(2, courseCode);
+                rs = pstmt.executeQuery();
+                result = rs.next() ? AssignmentResult.ALREADY_ASSIGNED : AssignmentResult.INELIGIBLE;
+            }
+            con.commit();
+            DataSource.markWritten();
 
         } catch (SQLException e) {
+            result = AssignmentResult.ERROR;
             e.printStackTrace();
+            ERRORS.labels("assignCourseToPeerTutor").increment();
+            try {
+                if (con != null) {
+                    con.rollback();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
         } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
             try {
                 if (pstmt != null) {
                     pstmt.close();
@@ -356,42 +772,60 @@ public class PeerTutorDAOImpl implements PeerTutorDAO {
                 System.out.println(ex.getMessage());
             }
         }
+        return result;
     }
 
     /**
-     * Retrieves a list of all peer tutors assigned to a specific course.
+     * Loads every course fact of a resolved peer tutor with one query of
+     * primary key lookups.
      *
-     * @param courseCode The course code for which peer tutors are to be
-     * retrieved.
-     * @return A list of peer tutors assigned to the specified course.
+     * @param peerTutorID The PeerTutorID.
+     * @param studentID The StudentID of the peer tutor's student record, or 0
+     * when there is none.
+     * @return the peer tutor's courses, grades and assignments, or null if
+     * the query could not be run.
      */
     @Override
-    public List<PeerTutor> getAllPeerTutorsForCourse(String courseCode) {
-        // TODO:  Add your code here.  Be sure to use try-catch-finally statement.
-        //       display a table of peer tutors assigned to the course
+    public TutorRecord getTutorRecord(int peerTutorID, int studentID) {
+
+        TutorRecord record = null;
         Connection con = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
-        ArrayList<PeerTutor> tutors = new ArrayList<>();
-
         try {
-            DataSource ds = new DataSource();
-            con = ds.createConnection();
-            pstmt = con.prepareStatement("SELECT PeerTutorCourse.PeerTutorID, lastName,firstName FROM PeerTutor join PeerTutorCourse on PeerTutor.PeerTutorID="
-                    + " PeerTutorCourse.PeerTutorID where Course_CourseCode=?");
-            pstmt.setString(1, courseCode);
+            // on the primary: the record decides whether an assignment is written next
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.TUTOR_RECORD);
+            pstmt.setInt(1, studentID);
+            pstmt.setInt(2, studentID);
+            pstmt.setInt(3, peerTutorID);
+            pstmt.setInt(4, peerTutorID);
             rs = pstmt.executeQuery();
-
+            TutorRecord loaded = new TutorRecord(peerTutorID, studentID);
             while (rs.next()) {
-                PeerTutor turor = new PeerTutor();
-                turor.setPeerTutorID(new Integer(rs.getInt("PeerTutorID")));
-                turor.setFirstName(rs.getString("firstName"));
-                turor.setLastName(rs.getString("lastName"));
-                tutors.add(turor);
-
+                String courseCode = rs.getString("CourseCode");
+                switch (rs.getString("Fact")) {
+                    case "T":
+                        loaded.addTakenCourse(courseCode);
+                        break;
+                    case "G":
+                        loaded.setGradeCode(courseCode, rs.getString("GradeCode"));
+                        break;
+                    case "E":
+                        loaded.setEligibleGradeCode(courseCode, rs.getString("GradeCode"));
+                        break;
+                    default:
+                        loaded.addAssignedCourse(courseCode);
+                        break;
+                }
             }
+            record = loaded;
         } catch (SQLException e) {
             e.printStackTrace();
+            ERRORS.labels("getTutorRecord").increment();
         } finally {
             try {
                 if (rs != null) {
@@ -415,7 +849,525 @@ public class PeerTutorDAOImpl implements PeerTutorDAO {
                 System.out.println(ex.getMessage());
             }
         }
-        return tutors;
+        return record;
     }
 
+    /**
+     * Records a course assignment the caller has already checked, with a
+     * single insert. The primary key of PeerTutorCourse decides between
+     * concurrent submissions for the same pair.
+     *
+     * @param peerTutorID The PeerTutorID.
+     * @param courseCode The course code to be assigned.
+     * @return ASSIGNED if a row was inserted, ALREADY_ASSIGNED if the course
+     * was assigned before, or ERROR if the database could not be reached.
+     */
+    @Override
+    public AssignmentResult insertAssignment(int peerTutorID, String courseCode) {
+
+        AssignmentResult result = AssignmentResult.ERROR;
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.INSERT_PEER_TUTOR_COURSE);
+            pstmt.setInt(1, peerTutorID);
+            pstmt.setString(2, courseCode);
+            result = pstmt.executeUpdate() > 0 ? AssignmentResult.ASSIGNED : AssignmentResult.ALREADY_ASSIGNED;
+            DataSource.markWritten();
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("insertAssignment").increment();
+        } finally {
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Passes every registered peer tutor's identity to the handler, reading
+     * the rows in streaming mode. Used to build the identity index.
+     *
+     * @param handler receives each identity in PeerTutorID order.
+     * @return the number of identities passed on, or -1 if the query failed.
+     */
+    @Override
+    public int streamPeerTutorIdentities(Consumer<TutorIdentity> handler) {
+        return queryIdentities("streamPeerTutorIdentities", PeerTutorSql.PEER_TUTOR_IDENTITIES, true, handler);
+    }
+
+    /**
+     * Looks up the identities of the peer tutors with a given name or, when
+     * no name is given, with a given email address.
+     *
+     * @param lastName the last name, or null.
+     * @param firstName the first name, or null.
+     * @param email the email address; narrows a name lookup when not null.
+     * @return the matching identities; empty if none match or the query
+     * failed.
+     */
+    @Override
+    public List<TutorIdentity> findPeerTutorIdentities(String lastName, String firstName, String email) {
+        List<TutorIdentity> identities = new ArrayList<>();
+        if (lastName != null && firstName != null) {
+            queryIdentities("findPeerTutorIdentities", PeerTutorSql.PEER_TUTOR_IDENTITIES_BY_NAME, false,
+                    identity -> {
+                        if (email == null || email.equalsIgnoreCase(identity.getEmail())) {
+                            identities.add(identity);
+                        }
+                    }, lastName, firstName);
+        } else if (email != null) {
+            queryIdentities("findPeerTutorIdentities", PeerTutorSql.PEER_TUTOR_IDENTITIES_BY_EMAIL, false,
+                    identities::add, email);
+        }
+        return identities;
+    }
+
+    /**
+     * Looks up the identity of one peer tutor.
+     *
+     * @param peerTutorID the PeerTutorID.
+     * @return the identity, or null if there is no such peer tutor or the
+     * query failed.
+     */
+    @Override
+    public TutorIdentity findPeerTutorIdentity(int peerTutorID) {
+        TutorIdentity[] found = new TutorIdentity[1];
+        queryIdentities("findPeerTutorIdentity", PeerTutorSql.PEER_TUTOR_IDENTITY_BY_ID, false,
+                identity -> found[0] = identity, peerTutorID);
+        return found[0];
+    }
+
+    /**
+     * Books a tutoring session. The peer tutor's row is locked first, so
+     * concurrent bookings for the same tutor are checked one after the other
+     * and two overlapping sessions can never both be booked.
+     *
+     * @param session the session to book; its date, time, duration, peer
+     * tutor, course, student and topic are used.
+     * @return BOOKED, or why the session could not be booked.
+     */
+    @Override
+    public BookingResult bookSession(TutoringSession session) {
+
+        BookingResult result = BookingResult.ERROR;
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            con.setAutoCommit(false);
+            LocalDateTime start = session.getStart();
+            LocalDateTime end = session.getEnd();
+
+            pstmt = con.prepareStatement(PeerTutorSql.LOCK_PEER_TUTOR);
+            pstmt.setInt(1, session.getPeerTutorID());
+            rs = pstmt.executeQuery();
+            boolean tutorExists = rs.next();
+            rs.close();
+            pstmt.close();
+
+            boolean assigned = false;
+            if (tutorExists) {
+                pstmt = con.prepareStatement(PeerTutorSql.IS_COURSE_ASSIGNED_TO_PEER_TUTOR_BY_ID);
+                pstmt.setInt(1, session.getPeerTutorID());
+                pstmt.setString(2, session.getCourseCode());
+                rs = pstmt.executeQuery();
+                assigned = rs.next();
+                rs.close();
+                pstmt.close();
+            }
+
+            if (!assigned) {
+                result = BookingResult.NOT_ASSIGNED;
+            } else {
+                pstmt = con.prepareStatement(PeerTutorSql.TUTOR_SESSION_OVERLAPS);
+                pstmt.setInt(1, session.getPeerTutorID());
+                pstmt.setDate(2, java.sql.Date.valueOf(start.toLocalDate().minusDays(1)));
+                pstmt.setDate(3, java.sql.Date.valueOf(end.toLocalDate()));
+                pstmt.setTimestamp(4, Timestamp.valueOf(end));
+                pstmt.setTimestamp(5, Timestamp.valueOf(start));
+                rs = pstmt.executeQuery();
+                boolean busy = rs.next();
+                rs.close();
+                pstmt.close();
+
+                if (busy) {
+                    result = BookingResult.TUTOR_BUSY;
+                } else {
+                    pstmt = con.prepareStatement(PeerTutorSql.INSERT_TUTORING_SESSION);
+                    pstmt.setDate(1, java.sql.Date.valueOf(session.getDate()));
+                    pstmt.setTime(2, Time.valueOf(session.getTime()));
+                    pstmt.setInt(3, session.getDurationMinutes());
+                    pstmt.setString(4, session.getTopic());
+                    pstmt.setInt(5, session.getPeerTutorID());
+                    pstmt.setString(6, session.getCourseCode());
+                    pstmt.setInt(7, session.getStudentID());
+                    pstmt.setInt(8, session.getDurationMinutes());
+                    pstmt.setString(9, session.getTopic());
+                    result = pstmt.executeUpdate() > 0 ? BookingResult.BOOKED : BookingResult.UNKNOWN_STUDENT;
+                }
+            }
+            // also releases the lock when nothing was written
+            con.commit();
+            if (result == BookingResult.BOOKED) {
+                session.setStatus(SessionStatus.BOOKED);
+                DataSource.markWritten();
+            }
+
+        } catch (SQLException e) {
+            result = BookingResult.ERROR;
+            e.printStackTrace();
+            ERRORS.labels("bookSession").increment();
+            try {
+                if (con != null) {
+                    con.rollback();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cancels a booked tutoring session.
+     *
+     * @param session identifies the session by date, time, peer tutor,
+     * course and student.
+     * @return true if a booked session was cancelled, false if there was
+     * none or the update failed.
+     */
+    @Override
+    public boolean cancelSession(TutoringSession session) {
+
+        boolean cancelled = false;
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(PeerTutorSql.CANCEL_TUTORING_SESSION);
+            pstmt.setDate(1, java.sql.Date.valueOf(session.getDate()));
+            pstmt.setTime(2, Time.valueOf(session.getTime()));
+            pstmt.setInt(3, session.getPeerTutorID());
+            pstmt.setString(4, session.getCourseCode());
+            pstmt.setInt(5, session.getStudentID());
+            cancelled = pstmt.executeUpdate() > 0;
+            if (cancelled) {
+                session.setStatus(SessionStatus.CANCELLED);
+                DataSource.markWritten();
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("cancelSession").increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Retrieves a peer tutor's sessions of every status in a date range.
+     *
+     * @param peerTutorID the PeerTutorID.
+     * @param from the first day.
+     * @param to the day after the last.
+     * @param limit the most sessions to return.
+     * @return the sessions in start order.
+     */
+    @Override
+    public List<TutoringSession> getSessionsForTutor(int peerTutorID, LocalDate from, LocalDate to, int limit) {
+        return querySessions("getSessionsForTutor", PeerTutorSql.SESSIONS_FOR_TUTOR, peerTutorID, from, to, limit);
+    }
+
+    /**
+     * Retrieves a course's sessions of every status in a date range.
+     *
+     * @param courseCode the course code.
+     * @param from the first day.
+     * @param to the day after the last.
+     * @param limit the most sessions to return.
+     * @return the sessions in start order.
+     */
+    @Override
+    public List<TutoringSession> getSessionsForCourse(String courseCode, LocalDate from, LocalDate to, int limit) {
+        return querySessions("getSessionsForCourse", PeerTutorSql.SESSIONS_FOR_COURSE, courseCode, from, to, limit);
+    }
+
+    /**
+     * Retrieves a student's sessions of every status in a date range.
+     *
+     * @param studentID the StudentID.
+     * @param from the first day.
+     * @param to the day after the last.
+     * @param limit the most sessions to return.
+     * @return the sessions in start order.
+     */
+    @Override
+    public List<TutoringSession> getSessionsForStudent(int studentID, LocalDate from, LocalDate to, int limit) {
+        return querySessions("getSessionsForStudent", PeerTutorSql.SESSIONS_FOR_STUDENT, studentID, from, to, limit);
+    }
+
+    /**
+     * Passes the start, length and peer tutor of every booked session in a
+     * date range to the handler, reading the rows in streaming mode. Used to
+     * build the availability index.
+     *
+     * @param from the first day to include.
+     * @param to the day after the last.
+     * @param handler receives each session with its date, time, duration
+     * and peer tutor set.
+     * @return the number of sessions passed on, or -1 if the query failed.
+     */
+    @Override
+    public int streamBookedSessions(LocalDate from, LocalDate to, Consumer<TutoringSession> handler) {
+        return streamSessions("streamBookedSessionsBetween", PeerTutorSql.BOOKED_SESSIONS_BETWEEN, true, handler,
+                java.sql.Date.valueOf(from), java.sql.Date.valueOf(to));
+    }
+
+    /**
+     * Runs one of the identity queries and passes each row to the handler.
+     *
+     * @return the number of rows, or -1 if the query failed.
+     */
+    private int queryIdentities(String method, String sql, boolean stream, Consumer<TutorIdentity> handler,
+            Object... parameters) {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        int rows = 0;
+        try {
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (stream) {
+                // tells Connector/J to stream rows instead of reading the whole result
+                pstmt.setFetchSize(Integer.MIN_VALUE);
+            }
+            for (int i = 0; i < parameters.length; i++) {
+                pstmt.setObject(i + 1, parameters[i]);
+            }
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                handler.accept(new TutorIdentity(rs.getInt("PeerTutorID"), rs.getInt("StudentID"),
+                        rs.getString("LastName"), rs.getString("FirstName"), rs.getString("Email")));
+                rows++;
+            }
+        } catch (SQLException e) {
+            rows = -1;
+            e.printStackTrace();
+            ERRORS.labels(method).increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return rows;
+    }
+
+    private List<TutoringSession> querySessions(String method, String sql, Object key, LocalDate from, LocalDate to,
+            int limit) {
+        List<TutoringSession> sessions = new ArrayList<>(Math.min(limit, 1000));
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(sql);
+            pstmt.setObject(1, key);
+            pstmt.setDate(2, java.sql.Date.valueOf(from));
+            pstmt.setDate(3, java.sql.Date.valueOf(to));
+            pstmt.setInt(4, limit);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                TutoringSession session = new TutoringSession();
+                session.setDate(rs.getDate("DateKey").toLocalDate());
+                session.setTime(rs.getTime("TimeKey").toLocalTime());
+                session.setDurationMinutes(rs.getInt("DurationMinutes"));
+                session.setPeerTutorID(rs.getInt("PeerTutor_PeerTutorID"));
+                session.setCourseCode(rs.getString("Course_CourseCode"));
+                session.setStudentID(rs.getInt("Student_StudentID"));
+                session.setStudentLastName(rs.getString("StudentLastName"));
+                session.setStatus(SessionStatus.fromCode(rs.getInt("TutoringSessionStatus")));
+                session.setTopic(rs.getString("TutoringSessionTopic"));
+                sessions.add(session);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels(method).increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return sessions;
+    }
+
+    private int streamSessions(String method, String sql, boolean stream, Consumer<TutoringSession> handler,
+            Object... parameters) {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        int rows = 0;
+        try {
+            con = readDataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (stream) {
+                // tells Connector/J to stream rows instead of reading the whole result
+                pstmt.setFetchSize(Integer.MIN_VALUE);
+            }
+            for (int i = 0; i < parameters.length; i++) {
+                pstmt.setObject(i + 1, parameters[i]);
+            }
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                TutoringSession session = new TutoringSession();
+                session.setDate(rs.getDate("DateKey").toLocalDate());
+                session.setTime(rs.getTime("TimeKey").toLocalTime());
+                session.setDurationMinutes(rs.getInt("DurationMinutes"));
+                session.setPeerTutorID(rs.getInt("PeerTutor_PeerTutorID"));
+                session.setStatus(SessionStatus.BOOKED);
+                handler.accept(session);
+                rows++;
+            }
+        } catch (SQLException e) {
+            rows = -1;
+            e.printStackTrace();
+            ERRORS.labels(method).increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return rows;
+    }
 }
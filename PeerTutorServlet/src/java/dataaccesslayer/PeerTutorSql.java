@@ -0,0 +1,397 @@
+/* File: PeerTutorSql.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: SQL statements used by the peer tutor data access objects
+ */
+package dataaccesslayer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The SQL run by {@link PeerTutorDAOImpl}, kept in one place so that the
+ * statements can be reviewed, explained and reused as a whole.
+ * <p>
+ * Names and emails are only looked up by the identity statements, which
+ * {@link IdentityResolver} runs to find a peer tutor's IDs; name lookups
+ * compare LastName before FirstName and join PeerTutor to Student on
+ * (LastName, FirstName, Email), which is the column order of the
+ * IX_PeerTutor_Name and IX_Student_Name indexes added by migration V002.
+ * Every other statement takes those IDs and only does primary key lookups.
+ * Eligibility is read from the EligibleTutorCourse table of migration V003,
+ * which triggers keep in step with Grade, StudentCourse, Student and
+ * PeerTutor; the underlying tables are only read to explain why a tutor
+ * is not eligible. TutoringSession statements use the indexes of
+ * migration V005, and roster versions the CourseRosterVersion table of
+ * migration V008.
+ * The parameters of each statement are listed in binding order.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class PeerTutorSql {
+
+    /**
+     * Whether a course exists.
+     * Parameters: course code.
+     */
+    public static final String IS_COURSE_VALID
+            = "SELECT 1 FROM Course WHERE Course.CourseCode = ?";
+
+    /**
+     * One page of the peer tutors assigned to a course, in PeerTutorID order.
+     * Seeking past the last ID of the previous page walks the
+     * IX_PeerTutorCourse_Course index, so every page costs the same no matter
+     * how deep into the roster it is.
+     * Parameters: course code, last PeerTutorID of the previous page, page size.
+     */
+    public static final String PEER_TUTORS_FOR_COURSE
+            = "SELECT PeerTutor.PeerTutorID, PeerTutor.LastName, PeerTutor.FirstName FROM PeerTutorCourse "
+            + "JOIN PeerTutor ON PeerTutor.PeerTutorID = PeerTutorCourse.PeerTutor_PeerTutorID "
+            + "WHERE PeerTutorCourse.Course_CourseCode = ? AND PeerTutorCourse.PeerTutor_PeerTutorID > ? "
+            + "ORDER BY PeerTutorCourse.PeerTutor_PeerTutorID LIMIT ?";
+
+    /**
+     * The peer tutors eligible for a course, best grade first and then by
+     * PeerTutorID, read in order from the IX_EligibleTutorCourse_Course index.
+     * Parameters: course code, the most rows to return.
+     */
+    public static final String ELIGIBLE_TUTORS_FOR_COURSE
+            = "SELECT PeerTutor.PeerTutorID, PeerTutor.LastName, PeerTutor.FirstName FROM EligibleTutorCourse "
+            + "JOIN PeerTutor ON PeerTutor.PeerTutorID = EligibleTutorCourse.PeerTutor_PeerTutorID "
+            + "WHERE EligibleTutorCourse.Course_CourseCode = ? "
+            + "ORDER BY EligibleTutorCourse.GradeRank, EligibleTutorCourse.PeerTutor_PeerTutorID LIMIT ?";
+
+    /**
+     * One page of the peer tutors eligible for a course but not assigned to
+     * it, ranked by grade, then by load (the number of courses assigned to
+     * the tutor), then by PeerTutorID. The candidates come from the
+     * IX_EligibleTutorCourse_Course index, starting at the cursor's grade
+     * rank; load and the assignment check are primary key lookups in
+     * PeerTutorCourse. The page continues after the (grade rank, load,
+     * PeerTutorID) of the last row of the previous page.
+     * Parameters: course code, cursor grade rank, cursor grade rank, cursor
+     * load, cursor PeerTutorID, page size.
+     */
+    public static final String ELIGIBLE_UNASSIGNED_TUTORS_FOR_COURSE
+            = "SELECT Candidate.PeerTutorID, PeerTutor.LastName, PeerTutor.FirstName, Candidate.GradeCode, "
+            + "Candidate.GradeRank, Candidate.TutorLoad FROM ("
+            + "SELECT EligibleTutorCourse.PeerTutor_PeerTutorID AS PeerTutorID, EligibleTutorCourse.GradeCode, "
+            + "EligibleTutorCourse.GradeRank, (SELECT COUNT(*) FROM PeerTutorCourse AS Assigned "
+            + "WHERE Assigned.PeerTutor_PeerTutorID = EligibleTutorCourse.PeerTutor_PeerTutorID) AS TutorLoad "
+            + "FROM EligibleTutorCourse WHERE EligibleTutorCourse.Course_CourseCode = ? "
+            + "AND EligibleTutorCourse.GradeRank >= ? "
+            + "AND NOT EXISTS(SELECT 1 FROM PeerTutorCourse "
+            + "WHERE PeerTutorCourse.PeerTutor_PeerTutorID = EligibleTutorCourse.PeerTutor_PeerTutorID "
+            + "AND PeerTutorCourse.Course_CourseCode = EligibleTutorCourse.Course_CourseCode)) AS Candidate "
+            + "JOIN PeerTutor ON PeerTutor.PeerTutorID = Candidate.PeerTutorID "
+            + "WHERE (Candidate.GradeRank, Candidate.TutorLoad, Candidate.PeerTutorID) > (?, ?, ?) "
+            + "ORDER BY Candidate.GradeRank, Candidate.TutorLoad, Candidate.PeerTutorID LIMIT ?";
+
+    /**
+     * The version of a course roster from migration V008, which triggers bump
+     * whenever a tutor is assigned to or removed from the course or an
+     * assigned tutor is renamed; 0 for a roster that has never changed.
+     * Parameters: course code.
+     */
+    public static final String ROSTER_VERSION
+            = "SELECT COALESCE((SELECT CourseRosterVersion.Version FROM CourseRosterVersion "
+            + "WHERE CourseRosterVersion.Course_CourseCode = ?), 0) AS Version";
+
+    /**
+     * The eligibility facts of a resolved peer tutor, by primary key lookups
+     * only. The grade comes from EligibleTutorCourse when the pair is
+     * eligible; the StudentCourse and Grade lookups only run when it is not.
+     * Parameters: course code, StudentID, course code, StudentID, course
+     * code, PeerTutorID, course code, PeerTutorID, course code.
+     */
+    public static final String ELIGIBILITY_VERDICT_BY_ID
+            = "SELECT EXISTS(SELECT 1 FROM Course WHERE Course.CourseCode = ?) AS CourseValid, "
+            + "Eligible.GradeCode IS NOT NULL OR EXISTS(SELECT 1 FROM StudentCourse "
+            + "WHERE StudentCourse.Student_StudentID = ? AND StudentCourse.Course_CourseCode = ?) AS CourseTaken, "
+            + "COALESCE(Eligible.GradeCode, (SELECT Grade.GradeCode FROM Grade "
+            + "WHERE Grade.Student_StudentID = ? AND Grade.Course_CourseCode = ?)) AS GradeCode, "
+            + "EXISTS(SELECT 1 FROM PeerTutorCourse WHERE PeerTutorCourse.PeerTutor_PeerTutorID = ? "
+            + "AND PeerTutorCourse.Course_CourseCode = ?) AS AlreadyAssigned "
+            + "FROM (SELECT (SELECT EligibleTutorCourse.GradeCode FROM EligibleTutorCourse "
+            + "WHERE EligibleTutorCourse.PeerTutor_PeerTutorID = ? AND EligibleTutorCourse.Course_CourseCode = ?) "
+            + "AS GradeCode) AS Eligible";
+
+    /**
+     * Assigns a course to a resolved peer tutor if the pair is in
+     * EligibleTutorCourse; an existing assignment is left alone.
+     * Parameters: PeerTutorID, course code.
+     */
+    public static final String ASSIGN_COURSE_TO_PEER_TUTOR_BY_ID
+            = "INSERT IGNORE INTO PeerTutorCourse (PeerTutor_PeerTutorID, Course_CourseCode) "
+            + "SELECT EligibleTutorCourse.PeerTutor_PeerTutorID, EligibleTutorCourse.Course_CourseCode "
+            + "FROM EligibleTutorCourse "
+            + "WHERE EligibleTutorCourse.PeerTutor_PeerTutorID = ? AND EligibleTutorCourse.Course_CourseCode = ?";
+
+    /**
+     * Whether a course is assigned to a resolved peer tutor.
+     * Parameters: PeerTutorID, course code.
+     */
+    public static final String IS_COURSE_ASSIGNED_TO_PEER_TUTOR_BY_ID
+            = "SELECT 1 FROM PeerTutorCourse "
+            + "WHERE PeerTutorCourse.PeerTutor_PeerTutorID = ? AND PeerTutorCourse.Course_CourseCode = ?";
+
+    /**
+     * Every course fact of a resolved peer tutor, one row per fact: the
+     * courses its student record took ('T'), the grades it got ('G'), the
+     * courses it is eligible for with the best grade ('E') and the courses
+     * assigned to it ('A'). Each part reads a primary key prefix.
+     * Parameters: StudentID, StudentID, PeerTutorID, PeerTutorID.
+     */
+    public static final String TUTOR_RECORD
+            = "SELECT 'T' AS Fact, StudentCourse.Course_CourseCode AS CourseCode, NULL AS GradeCode "
+            + "FROM StudentCourse WHERE StudentCourse.Student_StudentID = ? "
+            + "UNION ALL SELECT 'G', Grade.Course_CourseCode, Grade.GradeCode "
+            + "FROM Grade WHERE Grade.Student_StudentID = ? "
+            + "UNION ALL SELECT 'E', EligibleTutorCourse.Course_CourseCode, EligibleTutorCourse.GradeCode "
+            + "FROM EligibleTutorCourse WHERE EligibleTutorCourse.PeerTutor_PeerTutorID = ? "
+            + "UNION ALL SELECT 'A', PeerTutorCourse.Course_CourseCode, NULL "
+            + "FROM PeerTutorCourse WHERE PeerTutorCourse.PeerTutor_PeerTutorID = ?";
+
+    /**
+     * Every registered peer tutor with the StudentID of its student record
+     * (the lowest one if several match), for the identity index. Read in
+     * streaming mode.
+     * Parameters: none.
+     */
+    public static final String PEER_TUTOR_IDENTITIES = peerTutorIdentities("");
+
+    /**
+     * The identities of the peer tutors with a given name.
+     * Parameters: last name, first name.
+     */
+    public static final String PEER_TUTOR_IDENTITIES_BY_NAME
+            = peerTutorIdentities("WHERE PeerTutor.LastName = ? AND PeerTutor.FirstName = ? ");
+
+    /**
+     * The identities of the peer tutors with a given email address; uses
+     * IX_PeerTutor_Email from migration V004.
+     * Parameters: email.
+     */
+    public static final String PEER_TUTOR_IDENTITIES_BY_EMAIL
+            = peerTutorIdentities("WHERE PeerTutor.Email = ? ");
+
+    /**
+     * The identity of one peer tutor.
+     * Parameters: PeerTutorID.
+     */
+    public static final String PEER_TUTOR_IDENTITY_BY_ID
+            = peerTutorIdentities("WHERE PeerTutor.PeerTutorID = ? ");
+
+    /**
+     * Records one course assignment by ID; an existing assignment is left
+     * alone. Used for one pair after it was checked against its
+     * {@link #TUTOR_RECORD}, and pair by pair when a bulk insert of
+     * {@link #insertPeerTutorCourses(int)} raced with another request.
+     * Parameters: PeerTutorID, course code.
+     */
+    public static final String INSERT_PEER_TUTOR_COURSE
+            = "INSERT IGNORE INTO PeerTutorCourse (PeerTutor_PeerTutorID, Course_CourseCode) VALUES (?, ?)";
+
+    /**
+     * Locks a peer tutor's row until the transaction ends, so that bookings
+     * for the same tutor run one after the other.
+     * Parameters: PeerTutorID.
+     */
+    public static final String LOCK_PEER_TUTOR
+            = "SELECT PeerTutor.PeerTutorID FROM PeerTutor WHERE PeerTutor.PeerTutorID = ? FOR UPDATE";
+
+    /**
+     * Whether a peer tutor has a booked session overlapping a time range.
+     * DateKey starts the range scan one day early so that a session running
+     * past midnight is still seen.
+     * Parameters: PeerTutorID, first day minus one, last day, range end,
+     * range start.
+     */
+    public static final String TUTOR_SESSION_OVERLAPS
+            = "SELECT 1 FROM TutoringSession "
+            + "WHERE TutoringSession.PeerTutor_PeerTutorID = ? AND TutoringSession.DateKey BETWEEN ? AND ? "
+            + "AND TutoringSession.TutoringSessionStatus = 1 "
+            + "AND TIMESTAMP(TutoringSession.DateKey, TutoringSession.TimeKey) < ? "
+            + "AND TIMESTAMP(TutoringSession.DateKey, TutoringSession.TimeKey) "
+            + "+ INTERVAL TutoringSession.DurationMinutes MINUTE > ? "
+            + "LIMIT 1";
+
+    /**
+     * Books a session for an existing student, copying the student's last
+     * name. A cancelled session with the same key is booked again. Nothing
+     * is written when the student does not exist.
+     * Parameters: date, time, duration, topic, PeerTutorID, course code,
+     * StudentID, duration, topic.
+     */
+    public static final String INSERT_TUTORING_SESSION
+            = "INSERT INTO TutoringSession (DateKey, TimeKey, DurationMinutes, StudentLastName, "
+            + "TutoringSessionStatus, TutoringSessionTopic, PeerTutor_PeerTutorID, Course_CourseCode, "
+            + "Student_StudentID) "
+            + "SELECT ?, ?, ?, Student.LastName, 1, ?, ?, ?, Student.StudentID FROM Student "
+            + "WHERE Student.StudentID = ? "
+            + "ON DUPLICATE KEY UPDATE DurationMinutes = ?, TutoringSessionStatus = 1, TutoringSessionTopic = ?";
+
+    /**
+     * Cancels a booked session.
+     * Parameters: date, time, PeerTutorID, course code, StudentID.
+     */
+    public static final String CANCEL_TUTORING_SESSION
+            = "UPDATE TutoringSession SET TutoringSessionStatus = 2 "
+            + "WHERE TutoringSession.DateKey = ? AND TutoringSession.TimeKey = ? "
+            + "AND TutoringSession.PeerTutor_PeerTutorID = ? AND TutoringSession.Course_CourseCode = ? "
+            + "AND TutoringSession.Student_StudentID = ? AND TutoringSession.TutoringSessionStatus = 1";
+
+    /**
+     * One page of a peer tutor's sessions in a date range.
+     * Parameters: PeerTutorID, first day, day after the last, row limit.
+     */
+    public static final String SESSIONS_FOR_TUTOR
+            = tutoringSessions("TutoringSession.PeerTutor_PeerTutorID = ? ");
+
+    /**
+     * One page of a course's sessions in a date range.
+     * Parameters: course code, first day, day after the last, row limit.
+     */
+    public static final String SESSIONS_FOR_COURSE
+            = tutoringSessions("TutoringSession.Course_CourseCode = ? ");
+
+    /**
+     * One page of a student's sessions in a date range.
+     * Parameters: StudentID, first day, day after the last, row limit.
+     */
+    public static final String SESSIONS_FOR_STUDENT
+            = tutoringSessions("TutoringSession.Student_StudentID = ? ");
+
+    /**
+     * The start, length and peer tutor of every booked session in a date
+     * range, used to build the availability index. A range scan of the
+     * primary key, which leads with DateKey.
+     * Parameters: first day, day after the last.
+     */
+    public static final String BOOKED_SESSIONS_BETWEEN
+            = "SELECT TutoringSession.DateKey, TutoringSession.TimeKey, TutoringSession.DurationMinutes, "
+            + "TutoringSession.PeerTutor_PeerTutorID FROM TutoringSession "
+            + "WHERE TutoringSession.DateKey >= ? AND TutoringSession.DateKey < ? "
+            + "AND TutoringSession.TutoringSessionStatus = 1";
+
+    /**
+     * The eligibility facts for many resolved peer tutor and course pairs in
+     * one statement. The pairs are sent as a derived table and every join is
+     * a primary key lookup: Course, EligibleTutorCourse and PeerTutorCourse
+     * by course code and ID, and StudentCourse and Grade by StudentID only
+     * when the pair is not eligible. One row per pair, ordered by RowIndex.
+     * A pair with a negative row index is padding and returns no row, so a
+     * chunk can be sent with one of the few sizes of
+     * {@link #chunkRows(int, int)}.
+     * Parameters: for each pair, its row index, PeerTutorID, StudentID and
+     * course code.
+     *
+     * @param rows the number of pairs, at least one.
+     * @return the statement text.
+     */
+    public static String eligibilityVerdicts(int rows) {
+        StringBuilder sql = new StringBuilder(1024 + rows * 32);
+        sql.append("SELECT Request.RowIndex, Course.CourseCode IS NOT NULL AS CourseValid, ")
+                .append("EligibleTutorCourse.GradeCode IS NOT NULL OR EXISTS(SELECT 1 FROM StudentCourse ")
+                .append("WHERE StudentCourse.Student_StudentID = Request.StudentID ")
+                .append("AND StudentCourse.Course_CourseCode = Request.CourseCode) AS CourseTaken, ")
+                .append("COALESCE(EligibleTutorCourse.GradeCode, (SELECT Grade.GradeCode FROM Grade ")
+                .append("WHERE Grade.Student_StudentID = Request.StudentID ")
+                .append("AND Grade.Course_CourseCode = Request.CourseCode)) AS GradeCode, ")
+                .append("PeerTutorCourse.PeerTutor_PeerTutorID IS NOT NULL AS AlreadyAssigned ")
+                .append("FROM (SELECT ? AS RowIndex, ? AS PeerTutorID, ? AS StudentID, ? AS CourseCode");
+        for (int i = 1; i < rows; i++) {
+            sql.append(" UNION ALL SELECT ?, ?, ?, ?");
+        }
+        sql.append(") AS Request ")
+                .append("LEFT JOIN Course ON Course.CourseCode = Request.CourseCode ")
+                .append("LEFT JOIN EligibleTutorCourse ON EligibleTutorCourse.PeerTutor_PeerTutorID = Request.PeerTutorID ")
+                .append("AND EligibleTutorCourse.Course_CourseCode = Request.CourseCode ")
+                .append("LEFT JOIN PeerTutorCourse ON PeerTutorCourse.PeerTutor_PeerTutorID = Request.PeerTutorID ")
+                .append("AND PeerTutorCourse.Course_CourseCode = Request.CourseCode ")
+                .append("WHERE Request.RowIndex >= 0 ")
+                .append("ORDER BY Request.RowIndex");
+        return sql.toString();
+    }
+
+    /**
+     * Records many course assignments by ID in one statement; existing
+     * assignments are left alone. The affected row count is the number of
+     * rows this statement inserted. A chunk is padded to one of the sizes of
+     * {@link #chunkRows(int, int)} by repeating its first pair, which the
+     * IGNORE then skips.
+     * Parameters: for each pair, its PeerTutorID and course code.
+     *
+     * @param rows the number of pairs, at least one.
+     * @return the statement text.
+     */
+    public static String insertPeerTutorCourses(int rows) {
+        StringBuilder sql = new StringBuilder(96 + rows * 8);
+        sql.append("INSERT IGNORE INTO PeerTutorCourse (PeerTutor_PeerTutorID, Course_CourseCode) VALUES (?, ?)");
+        for (int i = 1; i < rows; i++) {
+            sql.append(", (?, ?)");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * The size of the statement that carries a chunk of pairs in the bulk
+     * statements: the next power of two from 8 up, or the batch size itself.
+     * Every statement text is prepared on the server and kept in each
+     * connection's statement cache, so a size per remainder would crowd out
+     * the other statements; this way there are only a handful, all prepared
+     * at warm-up.
+     *
+     * @param pairs the pairs in the chunk, at most the batch size.
+     * @param batchSize the largest chunk.
+     * @return the number of rows to send, padding included.
+     */
+    public static int chunkRows(int pairs, int batchSize) {
+        int rows = 8;
+        while (rows < pairs) {
+            rows <<= 1;
+        }
+        return Math.min(rows, Math.max(pairs, batchSize));
+    }
+
+    /**
+     * Every bulk statement that chunks of up to the batch size are sent
+     * with, for warming up.
+     *
+     * @param batchSize the largest chunk.
+     * @return the statement texts, smallest first.
+     */
+    public static List<String> chunkStatements(int batchSize) {
+        List<String> statements = new ArrayList<>();
+        int rows = 0;
+        do {
+            rows = chunkRows(rows + 1, batchSize);
+            statements.add(eligibilityVerdicts(rows));
+            statements.add(insertPeerTutorCourses(rows));
+        } while (rows < batchSize);
+        return statements;
+    }
+
+    private static String tutoringSessions(String where) {
+        return "SELECT TutoringSession.DateKey, TutoringSession.TimeKey, TutoringSession.DurationMinutes, "
+                + "TutoringSession.PeerTutor_PeerTutorID, TutoringSession.Course_CourseCode, "
+                + "TutoringSession.Student_StudentID, TutoringSession.StudentLastName, "
+                + "TutoringSession.TutoringSessionStatus, TutoringSession.TutoringSessionTopic "
+                + "FROM TutoringSession WHERE " + where
+                + "AND TutoringSession.DateKey >= ? AND TutoringSession.DateKey < ? "
+                + "ORDER BY TutoringSession.DateKey, TutoringSession.TimeKey LIMIT ?";
+    }
+
+    private static String peerTutorIdentities(String where) {
+        return "SELECT PeerTutor.PeerTutorID, PeerTutor.LastName, PeerTutor.FirstName, PeerTutor.Email, "
+                + "MIN(Student.StudentID) AS StudentID FROM PeerTutor "
+                + "LEFT JOIN Student ON Student.LastName = PeerTutor.LastName "
+                + "AND Student.FirstName = PeerTutor.FirstName AND Student.Email = PeerTutor.Email "
+                + where + "GROUP BY PeerTutor.PeerTutorID ORDER BY PeerTutor.PeerTutorID";
+    }
+
+    private PeerTutorSql() {
+    }
+}
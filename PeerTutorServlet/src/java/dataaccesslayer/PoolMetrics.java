@@ -0,0 +1,119 @@
+/* File: PoolMetrics.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: point-in-time statistics of the connection pool
+ */
+package dataaccesslayer;
+
+/**
+ * An immutable snapshot of the connection pool counters.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class PoolMetrics {
+
+    private final int maxSize;
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final long created;
+    private final long destroyed;
+    private final long borrowed;
+    private final long timeouts;
+    private final long validationFailures;
+    private final long leaksDetected;
+
+    PoolMetrics(int maxSize, int active, int idle, int waiting, long created, long destroyed,
+            long borrowed, long timeouts, long validationFailures, long leaksDetected) {
+        this.maxSize = maxSize;
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.borrowed = borrowed;
+        this.timeouts = timeouts;
+        this.validationFailures = validationFailures;
+        this.leaksDetected = leaksDetected;
+    }
+
+    /**
+     * @return the configured upper bound on open connections.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return connections currently handed out to callers.
+     */
+    public int getActive() {
+        return active;
+    }
+
+    /**
+     * @return open connections waiting in the pool.
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * @return an estimate of the threads blocked waiting for a connection.
+     */
+    public int getWaiting() {
+        return waiting;
+    }
+
+    /**
+     * @return physical connections opened since startup.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * @return physical connections closed since startup.
+     */
+    public long getDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * @return successful borrows since startup.
+     */
+    public long getBorrowed() {
+        return borrowed;
+    }
+
+    /**
+     * @return borrows that gave up after the maximum wait.
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * @return idle connections discarded because they failed validation.
+     */
+    public long getValidationFailures() {
+        return validationFailures;
+    }
+
+    /**
+     * @return borrowed connections held past the leak detection threshold.
+     */
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics[max=" + maxSize + ", active=" + active + ", idle=" + idle
+                + ", waiting=" + waiting + ", created=" + created + ", destroyed=" + destroyed
+                + ", borrowed=" + borrowed + ", timeouts=" + timeouts
+                + ", validationFailures=" + validationFailures + ", leaks=" + leaksDetected + "]";
+    }
+}
@@ -0,0 +1,210 @@
+/* File: ReferenceDataCache.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: bounded read-through cache for rarely changing lookups
+ */
+package dataaccesslayer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import metrics.MetricsRegistry;
+
+/**
+ * A small read-through cache for reference data such as course codes and
+ * peer tutor registrations. Entries expire after a fixed time to live, and
+ * once the cache is full the least recently used entry is dropped. Its hit,
+ * miss and eviction counts and its size are published in
+ * {@link MetricsRegistry} under the cache name.
+ *
+ * @param <K> the lookup key type.
+ * @param <V> the cached value type.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class ReferenceDataCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final Map<K, CachedValue<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param name a short name used in diagnostics and as the metrics label.
+     * @param maxSize the most entries kept at once.
+     * @param ttlMillis how long an entry stays valid after it is loaded.
+     */
+    public ReferenceDataCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                if (size() > ReferenceDataCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        MetricsRegistry.counterFunction("peertutor_cache_hits_total", "Reference data cache hits.", "cache")
+                .register(name, this::getHits);
+        MetricsRegistry.counterFunction("peertutor_cache_misses_total", "Reference data cache misses.", "cache")
+                .register(name, this::getMisses);
+        MetricsRegistry.counterFunction("peertutor_cache_evictions_total",
+                "Reference data cache entries dropped to make room.", "cache").register(name, this::getEvictions);
+        MetricsRegistry.gauge("peertutor_cache_entries", "Entries held by a reference data cache.", "cache")
+                .register(name, this::size);
+    }
+
+    /**
+     * Returns the cached value for the key, loading and caching it on a miss.
+     * A null result from the loader is returned but not cached.
+     *
+     * @param key the lookup key.
+     * @param loader computes the value when it is not cached.
+     * @return the cached or freshly loaded value.
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value without loading it.
+     *
+     * @param key the lookup key.
+     * @return the value, or null if it is not cached or has expired.
+     */
+    public V getIfPresent(K key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CachedValue<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Stores a value, for example one learned as a side effect of another query.
+     *
+     * @param key the lookup key.
+     * @param value the value to cache.
+     */
+    public void put(K key, V value) {
+        CachedValue<V> entry = new CachedValue<>(value, System.currentTimeMillis() + ttlMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    /**
+     * Drops a single entry.
+     *
+     * @param key the lookup key.
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the name given to this cache.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of entries currently held.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return lookups answered from the cache.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups that found nothing or an expired entry.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return entries dropped for size or age.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return hits divided by lookups, or 0 before the first lookup.
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return "ReferenceDataCache[" + name + ", size=" + size() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+    }
+
+    /**
+     * A cached value and its expiry time.
+     */
+    private static class CachedValue<V> {
+
+        final V value;
+        final long expiresAt;
+
+        CachedValue(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
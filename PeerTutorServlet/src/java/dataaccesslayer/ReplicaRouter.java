@@ -0,0 +1,264 @@
+/* File: ReplicaRouter.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: spreads reads over the read replicas of the peertutor database
+ */
+package dataaccesslayer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import metrics.Counter;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+
+/**
+ * Chooses the connection a read runs on: one of the read replicas listed by
+ * the replica.names setting, in turn, or the primary.
+ * <p>
+ * Each replica is a named pool ({@link DataSourceConfig#load(String)}), so
+ * it inherits every db.* setting and usually only overrides its url. A
+ * health check borrows a connection from every replica on a fixed delay;
+ * with replica.maxLagSeconds above 0 it also reads the replica's
+ * Seconds_Behind_Source and takes a replica that has fallen further behind
+ * out of rotation. A replica that fails a borrow is taken out at once and
+ * comes back when a health check passes. With no healthy replica, reads go
+ * to the primary.
+ * <p>
+ * Reads on a thread that wrote within the read-your-writes window go to the
+ * primary, so a caller always sees its own assignments and bookings. The
+ * window is at least the largest lag a replica may have plus one health
+ * check interval, which is the longest a replica in rotation can trail.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+final class ReplicaRouter {
+
+    private static final MetricFamily<Counter> READS = MetricsRegistry.counter("peertutor_db_reads_total",
+            "Read connections borrowed while replicas are configured, by where they went.", "route");
+    private static final Counter TO_REPLICA = READS.labels("replica");
+    private static final Counter STICKY = READS.labels("primary_read_your_writes");
+    private static final Counter FALLBACK = READS.labels("primary_no_replica");
+
+    private final List<Replica> replicas;
+    private final long readYourWritesMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService checker;
+
+    /**
+     * Reads the replica settings. No connection is opened until the first
+     * read or health check.
+     *
+     * @param config the "replica" settings.
+     */
+    ReplicaRouter(DataSourceConfig config) {
+        List<Replica> configured = new ArrayList<>();
+        for (String name : config.getString("names", "").split(",")) {
+            if (!name.trim().isEmpty()) {
+                configured.add(new Replica(name.trim()));
+            }
+        }
+        replicas = Collections.unmodifiableList(configured);
+        int maxLagSeconds = Math.max(0, config.getInt("maxLagSeconds", 2));
+        long interval = Math.max(500L, config.getLong("healthCheckMillis", 2000L));
+        readYourWritesMillis = Math.max(config.getLong("readYourWritesMillis", 5000L),
+                maxLagSeconds * 1000L + interval);
+
+        MetricFamily<Supplier<Number>> healthy = MetricsRegistry.gauge(
+                "peertutor_replica_healthy", "1 while a read replica is in rotation.", "replica");
+        MetricFamily<Supplier<Number>> lag = MetricsRegistry.gauge(
+                "peertutor_replica_lag_seconds", "Replication lag seen by the last health check.", "replica");
+        for (Replica replica : replicas) {
+            healthy.register(replica.name, () -> replica.healthy ? 1 : 0);
+            lag.register(replica.name, () -> replica.lagSeconds);
+        }
+        if (!replicas.isEmpty()) {
+            checker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "peertutor-replica-health");
+                t.setDaemon(true);
+                return t;
+            });
+            checker.scheduleWithFixedDelay(() -> checkAll(maxLagSeconds), 0L, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Whether any replica is configured.
+     *
+     * @return false when every read goes to the primary.
+     */
+    boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * The pool names of the configured replicas.
+     *
+     * @return the names, in rotation order.
+     */
+    List<String> getReplicaNames() {
+        List<String> names = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            names.add(replica.name);
+        }
+        return names;
+    }
+
+    /**
+     * How long after a write the writing thread keeps reading from the
+     * primary.
+     *
+     * @return the window in milliseconds.
+     */
+    long getReadYourWritesMillis() {
+        return readYourWritesMillis;
+    }
+
+    /**
+     * Borrows a connection for a read.
+     *
+     * @param primary the primary pool, used when no replica may serve the read.
+     * @param lastWriteMillis when the calling thread last wrote, 0 if never.
+     * @return a connection from a replica or the primary.
+     * @throws SQLException if the primary cannot provide one either.
+     */
+    Connection borrowForRead(ConnectionPool primary, long lastWriteMillis) throws SQLException {
+        if (lastWriteMillis > 0 && System.currentTimeMillis() - lastWriteMillis < readYourWritesMillis) {
+            STICKY.increment();
+            return primary.borrow();
+        }
+        int count = replicas.size();
+        int first = Math.floorMod(next.getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get((first + i) % count);
+            if (replica.healthy) {
+                try {
+                    Connection con = DataSource.getPool(replica.name).borrow();
+                    TO_REPLICA.increment();
+                    return con;
+                } catch (SQLException ex) {
+                    markDown(replica, ex.getMessage());
+                }
+            }
+        }
+        FALLBACK.increment();
+        return primary.borrow();
+    }
+
+    /**
+     * Stops the health checks. The replica pools are closed with the other
+     * named pools.
+     */
+    void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+    }
+
+    private void checkAll(int maxLagSeconds) {
+        for (Replica replica : replicas) {
+            try {
+                check(replica, maxLagSeconds);
+            } catch (RuntimeException ex) {
+                // an exception would cancel the schedule
+                markDown(replica, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Checks one replica and puts it in or takes it out of rotation.
+     */
+    private void check(Replica replica, int maxLagSeconds) {
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = DataSource.getPool(replica.name).borrow();
+            if (maxLagSeconds == 0) {
+                replica.lagSeconds = 0;
+                markUp(replica);
+                return;
+            }
+            // needs the REPLICATION CLIENT privilege; MySQL 8.0.22 or later
+            pstmt = con.prepareStatement("SHOW REPLICA STATUS");
+            rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                markDown(replica, "not a replica");
+                return;
+            }
+            long lag = rs.getLong("Seconds_Behind_Source");
+            if (rs.wasNull()) {
+                markDown(replica, "replication is not running");
+            } else {
+                replica.lagSeconds = lag;
+                if (lag > maxLagSeconds) {
+                    markDown(replica, lag + " s behind the primary");
+                } else {
+                    markUp(replica);
+                }
+            }
+        } catch (SQLException e) {
+            markDown(replica, e.getMessage());
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+    }
+
+    private static void markUp(Replica replica) {
+        if (!replica.healthy) {
+            replica.healthy = true;
+            System.out.println("Replica " + replica.name + " is back in rotation");
+        }
+    }
+
+    private static void markDown(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            System.out.println("Replica " + replica.name + " taken out of rotation: " + reason);
+        }
+    }
+
+    private static final class Replica {
+
+        final String name;
+        /* in rotation until a borrow or health check fails */
+        volatile boolean healthy = true;
+        volatile long lagSeconds;
+
+        Replica(String name) {
+            this.name = name;
+        }
+    }
+}
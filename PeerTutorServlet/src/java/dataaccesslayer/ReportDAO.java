@@ -0,0 +1,23 @@
+/** File: ReportDAO.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: data access for the tutor workload and course coverage reports
+ * References:
+ */
+package dataaccesslayer;
+
+import java.util.List;
+import transferobject.CourseCoverage;
+import transferobject.GradeCount;
+import transferobject.TutorWorkload;
+
+public interface ReportDAO {
+
+    List<CourseCoverage> getCourseCoverage();
+
+    List<TutorWorkload> getTutorWorkload(int afterPeerTutorID, int limit);
+
+    List<GradeCount> getGradeDistribution(String courseCode);
+
+    int refreshRollups(int batchSize);
+}
@@ -0,0 +1,453 @@
+/* File: ReportDAOImpl.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: reads the reporting rollups and folds the rollup journal into them
+ */
+package dataaccesslayer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import metrics.Counter;
+import metrics.MetricFamily;
+import metrics.MetricsRegistry;
+import transferobject.CourseCoverage;
+import transferobject.GradeCount;
+import transferobject.SessionStatus;
+import transferobject.TutorWorkload;
+
+/**
+ * Implementation of the ReportDAO interface. Every connection comes from the
+ * "reporting" pool, so a slow report or a long refresh waits for one of its
+ * own few connections and never holds one the assignment path needs. The
+ * pool can be pointed at another server with the reporting.* settings, as
+ * long as that server accepts writes to the rollup tables.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class ReportDAOImpl implements ReportDAO {
+
+    /**
+     * The connection pool of the reports.
+     */
+    static final String POOL = "reporting";
+
+    /* RollupJournal.Kind values written by the V006 triggers */
+    private static final int ASSIGNMENT = 1;
+    private static final int SESSION = 2;
+    private static final int GRADE = 3;
+
+    /**
+     * SQL errors caught and logged by each method.
+     */
+    private static final MetricFamily<Counter> ERRORS = MetricsRegistry.counter(
+            "peertutor_report_errors_total", "SQL errors caught in ReportDAOImpl methods.", "method");
+
+    private final DataSource dataSource = new DataSource(POOL);
+
+    /**
+     * Opens the reporting pool and prepares every ReportSql statement on it.
+     */
+    public static void warmUp() {
+        DataSource.warmUp(POOL, StatementCache.declaredIn(ReportSql.class));
+    }
+
+    /**
+     * Lists the tutor and session counts of every course.
+     *
+     * @return one row per course in course code order; empty if the query
+     * could not be run.
+     */
+    @Override
+    public List<CourseCoverage> getCourseCoverage() {
+
+        ArrayList<CourseCoverage> rows = new ArrayList<>();
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(ReportSql.COURSE_COVERAGE);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                CourseCoverage row = new CourseCoverage();
+                row.setCourseCode(rs.getString("CourseCode"));
+                row.setCourseName(rs.getString("CourseName"));
+                row.setTutorCount(rs.getInt("TutorCount"));
+                row.setBookedSessions(rs.getInt("BookedSessions"));
+                row.setCompletedSessions(rs.getInt("CompletedSessions"));
+                row.setCancelledSessions(rs.getInt("CancelledSessions"));
+                rows.add(row);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("getCourseCoverage").increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Retrieves one page of peer tutor workloads.
+     *
+     * @param afterPeerTutorID the PeerTutorID of the last row of the previous
+     * page, or 0 for the first page.
+     * @param limit the most rows to return.
+     * @return up to limit workloads in PeerTutorID order; empty if the query
+     * could not be run.
+     */
+    @Override
+    public List<TutorWorkload> getTutorWorkload(int afterPeerTutorID, int limit) {
+
+        ArrayList<TutorWorkload> rows = new ArrayList<>(Math.min(limit, 1000));
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(ReportSql.TUTOR_WORKLOAD);
+            pstmt.setInt(1, afterPeerTutorID);
+            pstmt.setInt(2, limit);
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                TutorWorkload row = new TutorWorkload();
+                row.setPeerTutorID(rs.getInt("PeerTutorID"));
+                row.setLastName(rs.getString("LastName"));
+                row.setFirstName(rs.getString("FirstName"));
+                row.setCourseCount(rs.getInt("CourseCount"));
+                row.setBookedSessions(rs.getInt("BookedSessions"));
+                row.setCompletedSessions(rs.getInt("CompletedSessions"));
+                row.setCancelledSessions(rs.getInt("CancelledSessions"));
+                row.setTutoringMinutes(rs.getInt("TutoringMinutes"));
+                rows.add(row);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("getTutorWorkload").increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Lists how many students got each grade.
+     *
+     * @param courseCode the course to report on, or null for every course.
+     * @return the grades that at least one student got, by course and grade
+     * code; empty if the query could not be run.
+     */
+    @Override
+    public List<GradeCount> getGradeDistribution(String courseCode) {
+
+        ArrayList<GradeCount> rows = new ArrayList<>();
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            if (courseCode == null) {
+                pstmt = con.prepareStatement(ReportSql.GRADE_DISTRIBUTION);
+            } else {
+                pstmt = con.prepareStatement(ReportSql.GRADE_DISTRIBUTION_FOR_COURSE);
+                pstmt.setString(1, courseCode);
+            }
+            rs = pstmt.executeQuery();
+            while (rs.next()) {
+                GradeCount row = new GradeCount();
+                row.setCourseCode(rs.getString("Course_CourseCode"));
+                row.setGradeCode(rs.getString("GradeCode"));
+                row.setStudentCount(rs.getInt("StudentCount"));
+                rows.add(row);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            ERRORS.labels("getGradeDistribution").increment();
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Folds the oldest journal rows into the rollup tables and deletes them,
+     * in one transaction. The rows are summed here first, so a batch costs
+     * one upsert per course, tutor and grade it touches rather than one per
+     * row. Runs under READ COMMITTED so that reading the journal takes no
+     * gap locks the triggers' inserts would wait for. Does nothing while
+     * another application instance holds the refresh lock.
+     *
+     * @param batchSize the most journal rows to fold.
+     * @return the number of journal rows folded; 0 if there were none, the
+     * lock was taken or the refresh failed and was rolled back.
+     */
+    @Override
+    public int refreshRollups(int batchSize) {
+
+        int folded = 0;
+        boolean locked = false;
+        int isolation = -1;
+        Connection con = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        try {
+            con = dataSource.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            pstmt = con.prepareStatement(ReportSql.ACQUIRE_REFRESH_LOCK);
+            rs = pstmt.executeQuery();
+            locked = rs.next() && rs.getInt(1) == 1;
+            rs.close();
+            pstmt.close();
+
+            if (locked) {
+                isolation = con.getTransactionIsolation();
+                con.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                con.setAutoCommit(false);
+
+                // per course: tutors, booked, completed, cancelled
+                Map<String, int[]> courses = new TreeMap<>();
+                // per tutor: courses, booked, completed, cancelled, minutes
+                Map<Integer, int[]> tutors = new TreeMap<>();
+                // per course and grade: students
+                Map<String, Map<String, int[]>> grades = new TreeMap<>();
+                List<long[]> runs = new ArrayList<>();
+                int read = 0;
+
+                pstmt = con.prepareStatement(ReportSql.JOURNAL_HEAD);
+                pstmt.setInt(1, batchSize);
+                rs = pstmt.executeQuery();
+                while (rs.next()) {
+                    read++;
+                    long journalID = rs.getLong("JournalID");
+                    long[] run = runs.isEmpty() ? null : runs.get(runs.size() - 1);
+                    if (run != null && run[1] == journalID - 1) {
+                        run[1] = journalID;
+                    } else {
+                        runs.add(new long[]{journalID, journalID});
+                    }
+                    String courseCode = rs.getString("CourseCode");
+                    int peerTutorID = rs.getInt("PeerTutorID");
+                    int delta = rs.getInt("Delta");
+                    int kind = rs.getInt("Kind");
+                    if (kind == ASSIGNMENT) {
+                        courses.computeIfAbsent(courseCode, k -> new int[4])[0] += delta;
+                        tutors.computeIfAbsent(peerTutorID, k -> new int[5])[0] += delta;
+                    } else if (kind == SESSION) {
+                        SessionStatus status = SessionStatus.fromCode(rs.getInt("SessionStatus"));
+                        int column = status == SessionStatus.BOOKED ? 1
+                                : status == SessionStatus.COMPLETED ? 2
+                                : status == SessionStatus.CANCELLED ? 3 : 0;
+                        if (column > 0) {
+                            courses.computeIfAbsent(courseCode, k -> new int[4])[column] += delta;
+                            int[] tutor = tutors.computeIfAbsent(peerTutorID, k -> new int[5]);
+                            tutor[column] += delta;
+                            if (status != SessionStatus.CANCELLED) {
+                                tutor[4] += delta * rs.getInt("Minutes");
+                            }
+                        }
+                    } else if (kind == GRADE) {
+                        grades.computeIfAbsent(courseCode, k -> new TreeMap<>())
+                                .computeIfAbsent(rs.getString("GradeCode"), k -> new int[1])[0] += delta;
+                    }
+                }
+                rs.close();
+                pstmt.close();
+
+                if (read > 0) {
+                    pstmt = con.prepareStatement(ReportSql.ADD_COURSE_COVERAGE);
+                    for (Map.Entry<String, int[]> course : courses.entrySet()) {
+                        int[] counts = course.getValue();
+                        if (!isZero(counts)) {
+                            pstmt.setString(1, course.getKey());
+                            for (int i = 0; i < counts.length; i++) {
+                                pstmt.setInt(i + 2, counts[i]);
+                            }
+                            pstmt.addBatch();
+                        }
+                    }
+                    pstmt.executeBatch();
+                    pstmt.close();
+
+                    pstmt = con.prepareStatement(ReportSql.ADD_TUTOR_WORKLOAD);
+                    for (Map.Entry<Integer, int[]> tutor : tutors.entrySet()) {
+                        int[] counts = tutor.getValue();
+                        if (!isZero(counts)) {
+                            pstmt.setInt(1, tutor.getKey());
+                            for (int i = 0; i < counts.length; i++) {
+                                pstmt.setInt(i + 2, counts[i]);
+                            }
+                            pstmt.addBatch();
+                        }
+                    }
+                    pstmt.executeBatch();
+                    pstmt.close();
+
+                    pstmt = con.prepareStatement(ReportSql.ADD_GRADE_COUNT);
+                    for (Map.Entry<String, Map<String, int[]>> course : grades.entrySet()) {
+                        for (Map.Entry<String, int[]> grade : course.getValue().entrySet()) {
+                            if (grade.getValue()[0] != 0) {
+                                pstmt.setString(1, course.getKey());
+                                pstmt.setString(2, grade.getKey());
+                                pstmt.setInt(3, grade.getValue()[0]);
+                                pstmt.addBatch();
+                            }
+                        }
+                    }
+                    pstmt.executeBatch();
+                    pstmt.close();
+
+                    pstmt = con.prepareStatement(ReportSql.DELETE_JOURNAL_RUN);
+                    for (long[] run : runs) {
+                        pstmt.setLong(1, run[0]);
+                        pstmt.setLong(2, run[1]);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+                }
+                con.commit();
+                folded = read;
+            }
+
+        } catch (SQLException e) {
+            folded = 0;
+            e.printStackTrace();
+            ERRORS.labels("refreshRollups").increment();
+            try {
+                if (con != null) {
+                    con.rollback();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        } finally {
+            try {
+                if (rs != null) {
+                    rs.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            // the lock and the isolation level belong to the session, which
+            // outlives this borrow of the connection
+            try {
+                if (con != null && isolation >= 0) {
+                    con.setAutoCommit(true);
+                    con.setTransactionIsolation(isolation);
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null && locked) {
+                    pstmt = con.prepareStatement(ReportSql.RELEASE_REFRESH_LOCK);
+                    pstmt.executeQuery().close();
+                    pstmt.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+        }
+        return folded;
+    }
+
+    private static boolean isZero(int[] counts) {
+        for (int count : counts) {
+            if (count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,108 @@
+/* File: ReportRefresher.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: keeps the reporting rollups up to date in the background
+ */
+package dataaccesslayer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+
+/**
+ * Folds the rollup journal into the reporting rollups on a fixed delay, a
+ * batch at a time until the journal is empty, so the reports trail the
+ * assignment and booking tables by about one refresh interval. The interval
+ * and batch size are the reporting.refreshMillis and reporting.refreshBatch
+ * settings; an interval of 0 leaves the refresh to another instance.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class ReportRefresher {
+
+    /* batches folded per run at most, so one run cannot go on forever */
+    private static final int MAX_BATCHES_PER_RUN = 100;
+
+    private static final Counter FOLDED = MetricsRegistry.counter("peertutor_report_journal_rows_total",
+            "Rollup journal rows folded into the reporting rollups.", null).labels("");
+    private static final Histogram DURATION = MetricsRegistry.histogram("peertutor_report_refresh_seconds",
+            "Time taken by one run of the reporting rollup refresh.", null).labels("");
+
+    private final ReportDAO reportDAO;
+    private final long intervalMillis;
+    private final int batchSize;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Constructs a refresher reading its settings from database.properties.
+     *
+     * @param reportDAO folds the journal.
+     */
+    public ReportRefresher(ReportDAO reportDAO) {
+        DataSourceConfig config = DataSourceConfig.load(ReportDAOImpl.POOL);
+        this.reportDAO = reportDAO;
+        this.intervalMillis = Math.max(0L, config.getLong("refreshMillis", 10000L));
+        this.batchSize = Math.max(1, config.getInt("refreshBatch", 5000));
+    }
+
+    /**
+     * Starts refreshing on a daemon thread, unless the interval is 0 or it
+     * is already running.
+     */
+    public synchronized void start() {
+        if (scheduler != null || intervalMillis == 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "peertutor-report-refresher");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops refreshing, letting a run in progress finish its current batch.
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    /**
+     * Folds batches until the journal is drained, the refresh lock is held
+     * elsewhere or a batch fails.
+     */
+    void refresh() {
+        long start = System.nanoTime();
+        try {
+            for (int batch = 0; batch < MAX_BATCHES_PER_RUN && !Thread.currentThread().isInterrupted(); batch++) {
+                int folded = reportDAO.refreshRollups(batchSize);
+                FOLDED.add(folded);
+                if (folded < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException ex) {
+            // an exception would cancel the schedule
+            ex.printStackTrace();
+        } finally {
+            DURATION.recordSince(start);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/* File: ReportSql.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: SQL statements used by the reporting data access object
+ */
+package dataaccesslayer;
+
+/**
+ * The SQL run by {@link ReportDAOImpl}. Reports are read from the rollup
+ * tables of migration V006 only, never from the tables the assignment and
+ * booking paths write, and the rollups are brought up to date by folding
+ * the RollupJournal rows the triggers append.
+ * The parameters of each statement are listed in binding order.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class ReportSql {
+
+    /**
+     * Tutor and session counts of every course, including courses that have
+     * none yet.
+     * Parameters: none.
+     */
+    public static final String COURSE_COVERAGE
+            = "SELECT Course.CourseCode, Course.CourseName, "
+            + "COALESCE(CourseCoverageRollup.TutorCount, 0) AS TutorCount, "
+            + "COALESCE(CourseCoverageRollup.BookedSessions, 0) AS BookedSessions, "
+            + "COALESCE(CourseCoverageRollup.CompletedSessions, 0) AS CompletedSessions, "
+            + "COALESCE(CourseCoverageRollup.CancelledSessions, 0) AS CancelledSessions "
+            + "FROM Course LEFT JOIN CourseCoverageRollup ON CourseCoverageRollup.Course_CourseCode = Course.CourseCode "
+            + "ORDER BY Course.CourseCode";
+
+    /**
+     * One page of peer tutor workloads in PeerTutorID order.
+     * Parameters: PeerTutorID of the last row of the previous page (0 for the
+     * first page), page size.
+     */
+    public static final String TUTOR_WORKLOAD
+            = "SELECT PeerTutor.PeerTutorID, PeerTutor.LastName, PeerTutor.FirstName, "
+            + "TutorWorkloadRollup.CourseCount, TutorWorkloadRollup.BookedSessions, "
+            + "TutorWorkloadRollup.CompletedSessions, TutorWorkloadRollup.CancelledSessions, "
+            + "TutorWorkloadRollup.TutoringMinutes "
+            + "FROM TutorWorkloadRollup "
+            + "JOIN PeerTutor ON PeerTutor.PeerTutorID = TutorWorkloadRollup.PeerTutor_PeerTutorID "
+            + "WHERE TutorWorkloadRollup.PeerTutor_PeerTutorID > ? "
+            + "ORDER BY TutorWorkloadRollup.PeerTutor_PeerTutorID LIMIT ?";
+
+    /**
+     * Student counts by grade for every course.
+     * Parameters: none.
+     */
+    public static final String GRADE_DISTRIBUTION
+            = "SELECT Course_CourseCode, GradeCode, StudentCount FROM GradeDistributionRollup "
+            + "WHERE StudentCount > 0 ORDER BY Course_CourseCode, GradeCode";
+
+    /**
+     * Student counts by grade for one course.
+     * Parameters: course code.
+     */
+    public static final String GRADE_DISTRIBUTION_FOR_COURSE
+            = "SELECT Course_CourseCode, GradeCode, StudentCount FROM GradeDistributionRollup "
+            + "WHERE Course_CourseCode = ? AND StudentCount > 0 ORDER BY GradeCode";
+
+    /**
+     * Takes the refresh lock without waiting, so that one application
+     * instance at a time folds the journal. Returns 1 when taken.
+     * Parameters: none.
+     */
+    public static final String ACQUIRE_REFRESH_LOCK = "SELECT GET_LOCK('peertutor_report_refresh', 0)";
+
+    /**
+     * Parameters: none.
+     */
+    public static final String RELEASE_REFRESH_LOCK = "SELECT RELEASE_LOCK('peertutor_report_refresh')";
+
+    /**
+     * The oldest journal rows.
+     * Parameters: the most rows to read.
+     */
+    public static final String JOURNAL_HEAD
+            = "SELECT JournalID, Kind, CourseCode, PeerTutorID, GradeCode, SessionStatus, Minutes, Delta "
+            + "FROM RollupJournal ORDER BY JournalID LIMIT ?";
+
+    /**
+     * Removes a run of consecutive journal rows once folded. The IDs read
+     * are deleted run by run rather than up to the highest one, because a
+     * gap can belong to a transaction that has not committed yet.
+     * Parameters: first JournalID, last JournalID.
+     */
+    public static final String DELETE_JOURNAL_RUN
+            = "DELETE FROM RollupJournal WHERE JournalID BETWEEN ? AND ?";
+
+    /**
+     * Adds to the counts of one course.
+     * Parameters: course code, tutors, booked, completed and cancelled
+     * sessions.
+     */
+    public static final String ADD_COURSE_COVERAGE
+            = "INSERT INTO CourseCoverageRollup (Course_CourseCode, TutorCount, BookedSessions, CompletedSessions, "
+            + "CancelledSessions) VALUES (?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE TutorCount = TutorCount + VALUES(TutorCount), "
+            + "BookedSessions = BookedSessions + VALUES(BookedSessions), "
+            + "CompletedSessions = CompletedSessions + VALUES(CompletedSessions), "
+            + "CancelledSessions = CancelledSessions + VALUES(CancelledSessions)";
+
+    /**
+     * Adds to the counts of one peer tutor.
+     * Parameters: PeerTutorID, courses, booked, completed and cancelled
+     * sessions, minutes.
+     */
+    public static final String ADD_TUTOR_WORKLOAD
+            = "INSERT INTO TutorWorkloadRollup (PeerTutor_PeerTutorID, CourseCount, BookedSessions, "
+            + "CompletedSessions, CancelledSessions, TutoringMinutes) VALUES (?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE CourseCount = CourseCount + VALUES(CourseCount), "
+            + "BookedSessions = BookedSessions + VALUES(BookedSessions), "
+            + "CompletedSessions = CompletedSessions + VALUES(CompletedSessions), "
+            + "CancelledSessions = CancelledSessions + VALUES(CancelledSessions), "
+            + "TutoringMinutes = TutoringMinutes + VALUES(TutoringMinutes)";
+
+    /**
+     * Adds to the student count of one grade in one course.
+     * Parameters: course code, grade code, students.
+     */
+    public static final String ADD_GRADE_COUNT
+            = "INSERT INTO GradeDistributionRollup (Course_CourseCode, GradeCode, StudentCount) VALUES (?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE StudentCount = StudentCount + VALUES(StudentCount)";
+
+    private ReportSql() {
+    }
+}
@@ -0,0 +1,163 @@
+/* File: StatementCache.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: per-connection LRU cache of prepared statements
+ */
+package dataaccesslayer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import metrics.Counter;
+import metrics.MetricsRegistry;
+
+/**
+ * Keeps the prepared statements of one pooled connection open after the
+ * borrower closes them, keyed by SQL text and result set type, so the next
+ * borrower that prepares the same SQL on that connection reuses the parsed
+ * statement. With {@code useServerPrepStmts=true} on the JDBC URL this also
+ * keeps the server-side statement and its plan, which is where most of the
+ * saving is.
+ * <p>
+ * A statement is either in the cache (idle) or checked out to exactly one
+ * caller, never both, so two callers can not share one statement. Once more
+ * than {@code maxSize} statements are idle the least recently used one is
+ * closed. Not shared between connections.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+class StatementCache {
+
+    private static final Counter HITS = MetricsRegistry.counter("peertutor_statement_cache_hits_total",
+            "Prepared statements reused from a connection's statement cache.", null).labels("");
+    private static final Counter MISSES = MetricsRegistry.counter("peertutor_statement_cache_misses_total",
+            "Prepared statements that had to be prepared because none was cached.", null).labels("");
+    private static final Counter EVICTIONS = MetricsRegistry.counter("peertutor_statement_cache_evictions_total",
+            "Cached prepared statements closed to make room.", null).labels("");
+
+    private final int maxSize;
+    private final Map<String, PreparedStatement> idle;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maxSize the most idle statements kept; 0 disables caching.
+     */
+    StatementCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        this.idle = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    EVICTIONS.increment();
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return whether statements are cached at all.
+     */
+    boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    /**
+     * Takes an idle statement out of the cache.
+     *
+     * @param key the statement key, see {@link #key(String, int, int)}.
+     * @return the statement, now owned by the caller, or null if none is idle.
+     */
+    synchronized PreparedStatement checkout(String key) {
+        PreparedStatement statement = idle.remove(key);
+        if (statement != null) {
+            HITS.increment();
+        } else {
+            MISSES.increment();
+        }
+        return statement;
+    }
+
+    /**
+     * Puts a statement back once its caller is done with it. If an idle
+     * statement for the same key is already cached the returned one is closed.
+     *
+     * @param key the statement key.
+     * @param statement a statement whose parameters have been cleared.
+     */
+    synchronized void checkin(String key, PreparedStatement statement) {
+        if (!isEnabled() || idle.containsKey(key)) {
+            closeQuietly(statement);
+            return;
+        }
+        idle.put(key, statement);
+    }
+
+    /**
+     * Closes every idle statement, e.g. when the connection is closed.
+     */
+    synchronized void clear() {
+        for (PreparedStatement statement : idle.values()) {
+            closeQuietly(statement);
+        }
+        idle.clear();
+    }
+
+    /**
+     * @return the number of idle statements.
+     */
+    synchronized int size() {
+        return idle.size();
+    }
+
+    /**
+     * Builds the cache key of a statement.
+     *
+     * @param sql the SQL text.
+     * @param resultSetType the result set type it was prepared with.
+     * @param resultSetConcurrency the result set concurrency it was prepared with.
+     * @return the key.
+     */
+    static String key(String sql, int resultSetType, int resultSetConcurrency) {
+        return resultSetType + ":" + resultSetConcurrency + ":" + sql;
+    }
+
+    /**
+     * Lists the statements a SQL holder class such as {@link PeerTutorSql}
+     * declares as public String constants, for warming connections up.
+     *
+     * @param holder the class declaring the statements.
+     * @return the SQL of every constant.
+     */
+    static List<String> declaredIn(Class<?> holder) {
+        List<String> statements = new ArrayList<>();
+        for (Field field : holder.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+                try {
+                    statements.add((String) field.get(null));
+                } catch (IllegalAccessException ex) {
+                    System.out.println(ex.getMessage());
+                }
+            }
+        }
+        return statements;
+    }
+
+    static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ex) {
+            System.out.println(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/* File: Counter.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: monotonically increasing event counter
+ */
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts events. Backed by a {@link LongAdder}, so concurrent increments from
+ * many request threads do not contend on one memory location.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Adds one.
+     */
+    public void increment() {
+        count.increment();
+    }
+
+    /**
+     * Adds the given amount.
+     *
+     * @param amount a non-negative amount.
+     */
+    public void add(long amount) {
+        count.add(amount);
+    }
+
+    /**
+     * @return the total so far.
+     */
+    public long get() {
+        return count.sum();
+    }
+}
@@ -0,0 +1,100 @@
+/* File: Histogram.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: lock-free latency histogram with power-of-two buckets
+ */
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records durations into fixed buckets whose upper bounds double from 1
+ * microsecond to about 67 seconds, plus one bucket for anything longer.
+ * Recording is a bit count and two striped adds, with no locks and no
+ * allocation, so it is cheap enough to wrap every database call. The
+ * resolution is a factor of two, which is plenty to see where time goes and
+ * to compute percentiles in Prometheus.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class Histogram {
+
+    /**
+     * Upper bound of each bucket, in microseconds: 1, 2, 4, ... 2^26.
+     */
+    static final int BUCKETS = 27;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Creates an empty histogram.
+     */
+    public Histogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos the duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, (nanos + 999) / 1000);
+        // index of the smallest power of two not below micros
+        int bucket = micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1);
+        counts[Math.min(bucket, BUCKETS)].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Records the time elapsed since a {@link System#nanoTime()} reading.
+     *
+     * @param startNanos the reading taken at the start.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param bucket a bucket index below {@link #BUCKETS}.
+     * @return the upper bound of the bucket in seconds.
+     */
+    static double upperBoundSeconds(int bucket) {
+        return (1L << bucket) / 1e6;
+    }
+
+    /**
+     * @return the number of recordings in each bucket; the last one counts
+     * recordings above the largest bound.
+     */
+    long[] snapshot() {
+        long[] snapshot = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            snapshot[i] = counts[i].sum();
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the sum of all recorded durations in seconds.
+     */
+    public double getSumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * @return the number of recorded durations.
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : counts) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+}
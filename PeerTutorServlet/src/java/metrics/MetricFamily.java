@@ -0,0 +1,118 @@
+/* File: MetricFamily.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: a named metric and its labelled children
+ */
+package metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * One metric name with a help text, a Prometheus type and, optionally, one
+ * label. Each label value has its own child: a {@link Counter}, a
+ * {@link Histogram}, or a {@code Supplier<Number>} read at scrape time.
+ *
+ * @param <T> the type of the children.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class MetricFamily<T> {
+
+    private final String name;
+    private final String help;
+    private final String type;
+    private final String labelName;
+    private final Function<String, T> factory;
+    private final ConcurrentHashMap<String, T> children = new ConcurrentHashMap<>();
+
+    MetricFamily(String name, String help, String type, String labelName, Function<String, T> factory) {
+        this.name = name;
+        this.help = help;
+        this.type = type;
+        this.labelName = labelName;
+        this.factory = factory;
+    }
+
+    /**
+     * Returns the child for a label value, creating it on first use. Hot
+     * paths should keep the returned child rather than look it up per call.
+     *
+     * @param labelValue the label value, or "" for a family without a label.
+     * @return the child.
+     * @throws IllegalStateException for families whose children are
+     * registered explicitly.
+     */
+    public T labels(String labelValue) {
+        if (factory == null) {
+            throw new IllegalStateException(name + " children must be registered");
+        }
+        return children.computeIfAbsent(labelValue, factory);
+    }
+
+    /**
+     * Sets the child for a label value, replacing any earlier one.
+     *
+     * @param labelValue the label value, or "" for a family without a label.
+     * @param child the child.
+     */
+    public void register(String labelValue, T child) {
+        children.put(labelValue, child);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Writes the family in the Prometheus text exposition format.
+     */
+    void write(Appendable out) throws IOException {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (Map.Entry<String, T> child : new ConcurrentSkipListMap<>(children).entrySet()) {
+            String label = labelName == null ? "" : labelName + "=\"" + escape(child.getKey()) + "\"";
+            Object metric = child.getValue();
+            if (metric instanceof Histogram) {
+                writeHistogram(out, label, (Histogram) metric);
+            } else if (metric instanceof Counter) {
+                sample(out, name, label, Long.toString(((Counter) metric).get()));
+            } else if (metric instanceof Supplier) {
+                Object value = ((Supplier<?>) metric).get();
+                sample(out, name, label, value == null ? "NaN" : value.toString());
+            }
+        }
+    }
+
+    private void writeHistogram(Appendable out, String label, Histogram histogram) throws IOException {
+        long[] counts = histogram.snapshot();
+        String prefix = label.isEmpty() ? "" : label + ",";
+        long cumulative = 0;
+        for (int i = 0; i < Histogram.BUCKETS; i++) {
+            cumulative += counts[i];
+            sample(out, name + "_bucket", prefix + "le=\"" + Histogram.upperBoundSeconds(i) + "\"",
+                    Long.toString(cumulative));
+        }
+        cumulative += counts[Histogram.BUCKETS];
+        sample(out, name + "_bucket", prefix + "le=\"+Inf\"", Long.toString(cumulative));
+        sample(out, name + "_sum", label, Double.toString(histogram.getSumSeconds()));
+        sample(out, name + "_count", label, Long.toString(cumulative));
+    }
+
+    private static void sample(Appendable out, String name, String labels, String value) throws IOException {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,95 @@
+/* File: MetricsRegistry.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: process-wide registry of application metrics
+ */
+package metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds every metric of the application by name, so any layer can record
+ * without the others knowing, and the metrics servlet can write them all in
+ * the Prometheus text format. Asking twice for the same name returns the
+ * same family.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class MetricsRegistry {
+
+    private static final Map<String, MetricFamily<?>> FAMILIES = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {
+    }
+
+    /**
+     * @param name the metric name, ending in _total.
+     * @param help what is counted.
+     * @param labelName the label that tells the children apart, or null.
+     * @return the counter family.
+     */
+    public static MetricFamily<Counter> counter(String name, String help, String labelName) {
+        return family(name, new MetricFamily<>(name, help, "counter", labelName, label -> new Counter()));
+    }
+
+    /**
+     * @param name the metric name, ending in _seconds.
+     * @param help what is timed.
+     * @param labelName the label that tells the children apart, or null.
+     * @return the histogram family.
+     */
+    public static MetricFamily<Histogram> histogram(String name, String help, String labelName) {
+        return family(name, new MetricFamily<>(name, help, "histogram", labelName, label -> new Histogram()));
+    }
+
+    /**
+     * A family of values read at scrape time that can go up and down, such
+     * as connections in use. Children are added with
+     * {@link MetricFamily#register(String, Object)}.
+     *
+     * @param name the metric name.
+     * @param help what is measured.
+     * @param labelName the label that tells the children apart, or null.
+     * @return the gauge family.
+     */
+    public static MetricFamily<Supplier<Number>> gauge(String name, String help, String labelName) {
+        return family(name, new MetricFamily<>(name, help, "gauge", labelName, null));
+    }
+
+    /**
+     * A family of totals kept elsewhere and read at scrape time, such as the
+     * hit count of a cache. Children are added with
+     * {@link MetricFamily#register(String, Object)}.
+     *
+     * @param name the metric name, ending in _total.
+     * @param help what is counted.
+     * @param labelName the label that tells the children apart, or null.
+     * @return the counter family.
+     */
+    public static MetricFamily<Supplier<Number>> counterFunction(String name, String help, String labelName) {
+        return family(name, new MetricFamily<>(name, help, "counter", labelName, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> MetricFamily<T> family(String name, MetricFamily<T> created) {
+        return (MetricFamily<T>) FAMILIES.computeIfAbsent(name, key -> created);
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format, version
+     * 0.0.4, in name order.
+     *
+     * @param out where to write.
+     * @throws IOException if writing fails.
+     */
+    public static void writeTo(Appendable out) throws IOException {
+        for (MetricFamily<?> family : FAMILIES.values()) {
+            family.write(out);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+/* For CST8288 - Assignment 1 */
+/* For MySQL */
+/* Migration V002: indexes for name based lookups and course rosters.
+   Apply after peertutor-MySQL.sql (V001). */
+USE peertutor;
+
+CREATE TABLE IF NOT EXISTS SchemaVersion(
+    Version INT NOT NULL PRIMARY KEY,
+    Description VARCHAR(100) NOT NULL,
+    AppliedOn TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+/* PeerTutor and Student are matched on (LastName, FirstName, Email); InnoDB
+   appends the primary key to every secondary index, so these also cover the
+   PeerTutorID and StudentID the joins need. */
+CREATE INDEX IX_PeerTutor_Name ON PeerTutor (LastName, FirstName, Email);
+
+CREATE INDEX IX_Student_Name ON Student (LastName, FirstName, Email);
+
+/* Course rosters are read by course; the primary key leads with the tutor. */
+CREATE INDEX IX_PeerTutorCourse_Course ON PeerTutorCourse (Course_CourseCode, PeerTutor_PeerTutorID);
+
+INSERT INTO SchemaVersion (Version, Description)
+VALUES (2, 'Name lookup and course roster indexes');
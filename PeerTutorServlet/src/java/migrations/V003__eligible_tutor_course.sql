@@ -0,0 +1,154 @@
+/* For CST8288 - Assignment 1 */
+/* For MySQL */
+/* Migration V003: EligibleTutorCourse, the peer tutor and course pairs that
+   pass the eligibility rule, kept up to date by triggers.
+   Apply after V002. With binary logging on, creating the triggers needs
+   SUPER or log_bin_trust_function_creators=1. */
+USE peertutor;
+
+/* A pair is eligible when the peer tutor's student record, matched on
+   (LastName, FirstName, Email), took the course and got an A-range grade
+   for it. GradeRank orders the grades best first: 1 = A+, 2 = A, 3 = A-.
+   Registration is implied by the PeerTutor row; whether the course is
+   already assigned is still read from PeerTutorCourse. */
+CREATE TABLE EligibleTutorCourse(
+    PeerTutor_PeerTutorID INT NOT NULL,
+    Course_CourseCode VARCHAR(7) NOT NULL,
+    GradeCode VARCHAR(2) NOT NULL,
+    GradeRank TINYINT NOT NULL,
+    PRIMARY KEY (PeerTutor_PeerTutorID, Course_CourseCode),
+    INDEX IX_EligibleTutorCourse_Course (Course_CourseCode, GradeRank, PeerTutor_PeerTutorID),
+    FOREIGN KEY (PeerTutor_PeerTutorID) REFERENCES PeerTutor(PeerTutorID) ON DELETE CASCADE,
+    FOREIGN KEY (Course_CourseCode) REFERENCES Course(CourseCode) ON DELETE CASCADE
+);
+
+DELIMITER $$
+
+/* Recomputes the eligible pairs of every peer tutor with the given identity,
+   for one course or, when forCourse is NULL, for all of them. */
+CREATE PROCEDURE RefreshEligibleTutorCourse(IN tutorLastName VARCHAR(45), IN tutorFirstName VARCHAR(45),
+        IN tutorEmail VARCHAR(45), IN forCourse VARCHAR(7))
+BEGIN
+    DELETE EligibleTutorCourse FROM EligibleTutorCourse
+    JOIN PeerTutor ON PeerTutor.PeerTutorID = EligibleTutorCourse.PeerTutor_PeerTutorID
+    WHERE PeerTutor.LastName = tutorLastName AND PeerTutor.FirstName = tutorFirstName
+    AND PeerTutor.Email = tutorEmail
+    AND (forCourse IS NULL OR EligibleTutorCourse.Course_CourseCode = forCourse);
+
+    INSERT INTO EligibleTutorCourse (PeerTutor_PeerTutorID, Course_CourseCode, GradeCode, GradeRank)
+    SELECT PeerTutor.PeerTutorID, Grade.Course_CourseCode, Grade.GradeCode,
+        CASE Grade.GradeCode WHEN 'A+' THEN 1 WHEN 'A' THEN 2 ELSE 3 END
+    FROM PeerTutor
+    JOIN Student ON Student.LastName = PeerTutor.LastName AND Student.FirstName = PeerTutor.FirstName
+    AND Student.Email = PeerTutor.Email
+    JOIN Grade ON Grade.Student_StudentID = Student.StudentID
+    JOIN StudentCourse ON StudentCourse.Student_StudentID = Student.StudentID
+    AND StudentCourse.Course_CourseCode = Grade.Course_CourseCode
+    WHERE PeerTutor.LastName = tutorLastName AND PeerTutor.FirstName = tutorFirstName
+    AND PeerTutor.Email = tutorEmail
+    AND (forCourse IS NULL OR Grade.Course_CourseCode = forCourse)
+    AND Grade.GradeCode IN ('A+', 'A', 'A-')
+    ON DUPLICATE KEY UPDATE
+        GradeCode = IF(VALUES(GradeRank) < GradeRank, VALUES(GradeCode), GradeCode),
+        GradeRank = LEAST(GradeRank, VALUES(GradeRank));
+END$$
+
+/* Recomputes the pairs that depend on one student's result in one course. */
+CREATE PROCEDURE RefreshEligibleTutorCourseForStudent(IN changedStudentID INT, IN forCourse VARCHAR(7))
+BEGIN
+    DECLARE studentLastName VARCHAR(45);
+    DECLARE studentFirstName VARCHAR(45);
+    DECLARE studentEmail VARCHAR(45);
+    SELECT Student.LastName, Student.FirstName, Student.Email
+    INTO studentLastName, studentFirstName, studentEmail
+    FROM Student WHERE Student.StudentID = changedStudentID;
+    IF studentEmail IS NOT NULL THEN
+        CALL RefreshEligibleTutorCourse(studentLastName, studentFirstName, studentEmail, forCourse);
+    END IF;
+END$$
+
+CREATE TRIGGER Grade_AfterInsert AFTER INSERT ON Grade FOR EACH ROW
+BEGIN
+    CALL RefreshEligibleTutorCourseForStudent(NEW.Student_StudentID, NEW.Course_CourseCode);
+END$$
+
+CREATE TRIGGER Grade_AfterUpdate AFTER UPDATE ON Grade FOR EACH ROW
+BEGIN
+    CALL RefreshEligibleTutorCourseForStudent(NEW.Student_StudentID, NEW.Course_CourseCode);
+    IF OLD.Student_StudentID <> NEW.Student_StudentID OR OLD.Course_CourseCode <> NEW.Course_CourseCode THEN
+        CALL RefreshEligibleTutorCourseForStudent(OLD.Student_StudentID, OLD.Course_CourseCode);
+    END IF;
+END$$
+
+CREATE TRIGGER Grade_AfterDelete AFTER DELETE ON Grade FOR EACH ROW
+BEGIN
+    CALL RefreshEligibleTutorCourseForStudent(OLD.Student_StudentID, OLD.Course_CourseCode);
+END$$
+
+CREATE TRIGGER StudentCourse_AfterInsert AFTER INSERT ON StudentCourse FOR EACH ROW
+BEGIN
+    CALL RefreshEligibleTutorCourseForStudent(NEW.Student_StudentID, NEW.Course_CourseCode);
+END$$
+
+CREATE TRIGGER StudentCourse_AfterUpdate AFTER UPDATE ON StudentCourse FOR EACH ROW
+BEGIN
+    CALL RefreshEligibleTutorCourseForStudent(NEW.Student_StudentID, NEW.Course_CourseCode);
+    CALL RefreshEligibleTutorCourseForStudent(OLD.Student_StudentID, OLD.Course_CourseCode);
+END$$
+
+CREATE TRIGGER StudentCourse_AfterDelete AFTER DELETE ON StudentCourse FOR EACH ROW
+BEGIN
+    CALL RefreshEligibleTutorCourseForStudent(OLD.Student_StudentID, OLD.Course_CourseCode);
+END$$
+
+/* A student who changes name or email may stop or start matching a tutor. */
+CREATE TRIGGER Student_AfterUpdate AFTER UPDATE ON Student FOR EACH ROW
+BEGIN
+    IF NOT (OLD.LastName <=> NEW.LastName AND OLD.FirstName <=> NEW.FirstName AND OLD.Email <=> NEW.Email) THEN
+        IF OLD.Email IS NOT NULL THEN
+            CALL RefreshEligibleTutorCourse(OLD.LastName, OLD.FirstName, OLD.Email, NULL);
+        END IF;
+        IF NEW.Email IS NOT NULL THEN
+            CALL RefreshEligibleTutorCourse(NEW.LastName, NEW.FirstName, NEW.Email, NULL);
+        END IF;
+    END IF;
+END$$
+
+CREATE TRIGGER PeerTutor_AfterInsert AFTER INSERT ON PeerTutor FOR EACH ROW
+BEGIN
+    IF NEW.Email IS NOT NULL THEN
+        CALL RefreshEligibleTutorCourse(NEW.LastName, NEW.FirstName, NEW.Email, NULL);
+    END IF;
+END$$
+
+/* The rows of the old identity are found by ID, since the PeerTutor row no
+   longer carries it; deleted tutors are removed by the cascading key. */
+CREATE TRIGGER PeerTutor_AfterUpdate AFTER UPDATE ON PeerTutor FOR EACH ROW
+BEGIN
+    IF NOT (OLD.LastName <=> NEW.LastName AND OLD.FirstName <=> NEW.FirstName AND OLD.Email <=> NEW.Email) THEN
+        DELETE FROM EligibleTutorCourse WHERE EligibleTutorCourse.PeerTutor_PeerTutorID = OLD.PeerTutorID;
+        IF NEW.Email IS NOT NULL THEN
+            CALL RefreshEligibleTutorCourse(NEW.LastName, NEW.FirstName, NEW.Email, NULL);
+        END IF;
+    END IF;
+END$$
+
+DELIMITER ;
+
+/* initial fill from the data already present */
+INSERT INTO EligibleTutorCourse (PeerTutor_PeerTutorID, Course_CourseCode, GradeCode, GradeRank)
+SELECT PeerTutor.PeerTutorID, Grade.Course_CourseCode, Grade.GradeCode,
+    CASE Grade.GradeCode WHEN 'A+' THEN 1 WHEN 'A' THEN 2 ELSE 3 END
+FROM PeerTutor
+JOIN Student ON Student.LastName = PeerTutor.LastName AND Student.FirstName = PeerTutor.FirstName
+AND Student.Email = PeerTutor.Email
+JOIN Grade ON Grade.Student_StudentID = Student.StudentID
+JOIN StudentCourse ON StudentCourse.Student_StudentID = Student.StudentID
+AND StudentCourse.Course_CourseCode = Grade.Course_CourseCode
+WHERE Grade.GradeCode IN ('A+', 'A', 'A-')
+ON DUPLICATE KEY UPDATE
+    GradeCode = IF(VALUES(GradeRank) < GradeRank, VALUES(GradeCode), GradeCode),
+    GradeRank = LEAST(GradeRank, VALUES(GradeRank));
+
+INSERT INTO SchemaVersion (Version, Description)
+VALUES (3, 'EligibleTutorCourse projection and its triggers');
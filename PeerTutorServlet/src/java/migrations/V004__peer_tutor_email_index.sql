@@ -0,0 +1,12 @@
+/* For CST8288 - Assignment 1 */
+/* For MySQL */
+/* Migration V004: index for resolving peer tutors by email address.
+   Apply after V003. */
+USE peertutor;
+
+/* IdentityResolver falls back to the database for an email it has not
+   indexed yet; without this index that lookup reads the whole table. */
+CREATE INDEX IX_PeerTutor_Email ON PeerTutor (Email);
+
+INSERT INTO SchemaVersion (Version, Description)
+VALUES (4, 'Peer tutor email index');
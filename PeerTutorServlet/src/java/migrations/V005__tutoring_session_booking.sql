@@ -0,0 +1,22 @@
+/* For CST8288 - Assignment 1 */
+/* For MySQL */
+/* Migration V005: session lengths and lookup indexes for booking tutoring
+   sessions. Apply after V004. */
+USE peertutor;
+
+/* TimeKey is only the start; overlap checks need the end as well. */
+ALTER TABLE TutoringSession
+    ADD COLUMN DurationMinutes INT NOT NULL DEFAULT 60 AFTER TimeKey;
+
+/* The primary key leads with DateKey, so none of the per-tutor, per-student
+   and per-course listings could use it. The tutor index also serves the
+   overlap check made while booking. */
+CREATE INDEX IX_TutoringSession_Tutor
+    ON TutoringSession (PeerTutor_PeerTutorID, DateKey, TimeKey);
+CREATE INDEX IX_TutoringSession_Student
+    ON TutoringSession (Student_StudentID, DateKey, TimeKey);
+CREATE INDEX IX_TutoringSession_Course
+    ON TutoringSession (Course_CourseCode, DateKey, TimeKey);
+
+INSERT INTO SchemaVersion (Version, Description)
+VALUES (5, 'Tutoring session booking');
@@ -0,0 +1,172 @@
+/* For CST8288 - Assignment 1 */
+/* For MySQL */
+/* Migration V006: pre-aggregated reporting tables, fed through a journal.
+   Apply after V005. With binary logging on, creating the triggers needs
+   SUPER or log_bin_trust_function_creators=1. */
+USE peertutor;
+
+/* Triggers only append here, so an assignment, booking or grade change
+   never waits for a lock on a shared rollup row. The application folds the
+   journal into the rollup tables in the background and deletes the rows it
+   folded. Kind: 1 = PeerTutorCourse row, 2 = TutoringSession row,
+   3 = Grade row. Delta is +1 when the row appeared, -1 when it went away;
+   an update is recorded as the old row going and the new row appearing. */
+CREATE TABLE RollupJournal(
+    JournalID BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Kind TINYINT NOT NULL,
+    CourseCode VARCHAR(7) NOT NULL,
+    PeerTutorID INT,
+    GradeCode VARCHAR(2),
+    SessionStatus INT,
+    Minutes INT,
+    Delta TINYINT NOT NULL
+);
+
+/* Per course: assigned tutors and sessions by status. */
+CREATE TABLE CourseCoverageRollup(
+    Course_CourseCode VARCHAR(7) NOT NULL PRIMARY KEY,
+    TutorCount INT NOT NULL DEFAULT 0,
+    BookedSessions INT NOT NULL DEFAULT 0,
+    CompletedSessions INT NOT NULL DEFAULT 0,
+    CancelledSessions INT NOT NULL DEFAULT 0,
+    RefreshedOn TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+/* Per peer tutor: assigned courses, sessions by status and the minutes of
+   booked and completed sessions. */
+CREATE TABLE TutorWorkloadRollup(
+    PeerTutor_PeerTutorID INT NOT NULL PRIMARY KEY,
+    CourseCount INT NOT NULL DEFAULT 0,
+    BookedSessions INT NOT NULL DEFAULT 0,
+    CompletedSessions INT NOT NULL DEFAULT 0,
+    CancelledSessions INT NOT NULL DEFAULT 0,
+    TutoringMinutes INT NOT NULL DEFAULT 0,
+    RefreshedOn TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+/* Per course and grade: how many students got it. */
+CREATE TABLE GradeDistributionRollup(
+    Course_CourseCode VARCHAR(7) NOT NULL,
+    GradeCode VARCHAR(2) NOT NULL,
+    StudentCount INT NOT NULL DEFAULT 0,
+    RefreshedOn TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (Course_CourseCode, GradeCode)
+);
+
+DELIMITER $$
+
+/* Recomputes every rollup from the base tables and empties the journal.
+   For the initial fill, and to repair the rollups after changes made with
+   the triggers disabled. Run it while the application is quiet. */
+CREATE PROCEDURE RebuildReportRollups()
+BEGIN
+    DELETE FROM RollupJournal;
+    DELETE FROM CourseCoverageRollup;
+    DELETE FROM TutorWorkloadRollup;
+    DELETE FROM GradeDistributionRollup;
+
+    INSERT INTO CourseCoverageRollup (Course_CourseCode, TutorCount, BookedSessions, CompletedSessions,
+        CancelledSessions)
+    SELECT Course.CourseCode,
+        (SELECT COUNT(*) FROM PeerTutorCourse WHERE PeerTutorCourse.Course_CourseCode = Course.CourseCode),
+        (SELECT COUNT(*) FROM TutoringSession WHERE TutoringSession.Course_CourseCode = Course.CourseCode
+            AND TutoringSession.TutoringSessionStatus = 1),
+        (SELECT COUNT(*) FROM TutoringSession WHERE TutoringSession.Course_CourseCode = Course.CourseCode
+            AND TutoringSession.TutoringSessionStatus = 3),
+        (SELECT COUNT(*) FROM TutoringSession WHERE TutoringSession.Course_CourseCode = Course.CourseCode
+            AND TutoringSession.TutoringSessionStatus = 2)
+    FROM Course;
+
+    INSERT INTO TutorWorkloadRollup (PeerTutor_PeerTutorID, CourseCount, BookedSessions, CompletedSessions,
+        CancelledSessions, TutoringMinutes)
+    SELECT PeerTutor.PeerTutorID,
+        (SELECT COUNT(*) FROM PeerTutorCourse WHERE PeerTutorCourse.PeerTutor_PeerTutorID = PeerTutor.PeerTutorID),
+        COALESCE(SUM(TutoringSession.TutoringSessionStatus = 1), 0),
+        COALESCE(SUM(TutoringSession.TutoringSessionStatus = 3), 0),
+        COALESCE(SUM(TutoringSession.TutoringSessionStatus = 2), 0),
+        COALESCE(SUM(IF(TutoringSession.TutoringSessionStatus IN (1, 3), TutoringSession.DurationMinutes, 0)), 0)
+    FROM PeerTutor
+    LEFT JOIN TutoringSession ON TutoringSession.PeerTutor_PeerTutorID = PeerTutor.PeerTutorID
+    GROUP BY PeerTutor.PeerTutorID;
+
+    INSERT INTO GradeDistributionRollup (Course_CourseCode, GradeCode, StudentCount)
+    SELECT Grade.Course_CourseCode, Grade.GradeCode, COUNT(*)
+    FROM Grade
+    GROUP BY Grade.Course_CourseCode, Grade.GradeCode;
+END$$
+
+CREATE TRIGGER PeerTutorCourse_AfterInsertRollup AFTER INSERT ON PeerTutorCourse FOR EACH ROW
+BEGIN
+    INSERT INTO RollupJournal (Kind, CourseCode, PeerTutorID, Delta)
+    VALUES (1, NEW.Course_CourseCode, NEW.PeerTutor_PeerTutorID, 1);
+END$$
+
+CREATE TRIGGER PeerTutorCourse_AfterUpdateRollup AFTER UPDATE ON PeerTutorCourse FOR EACH ROW
+BEGIN
+    INSERT INTO RollupJournal (Kind, CourseCode, PeerTutorID, Delta)
+    VALUES (1, OLD.Course_CourseCode, OLD.PeerTutor_PeerTutorID, -1),
+        (1, NEW.Course_CourseCode, NEW.PeerTutor_PeerTutorID, 1);
+END$$
+
+CREATE TRIGGER PeerTutorCourse_AfterDeleteRollup AFTER DELETE ON PeerTutorCourse FOR EACH ROW
+BEGIN
+    INSERT INTO RollupJournal (Kind, CourseCode, PeerTutorID, Delta)
+    VALUES (1, OLD.Course_CourseCode, OLD.PeerTutor_PeerTutorID, -1);
+END$$
+
+CREATE TRIGGER TutoringSession_AfterInsertRollup AFTER INSERT ON TutoringSession FOR EACH ROW
+BEGIN
+    INSERT INTO RollupJournal (Kind, CourseCode, PeerTutorID, SessionStatus, Minutes, Delta)
+    VALUES (2, NEW.Course_CourseCode, NEW.PeerTutor_PeerTutorID, NEW.TutoringSessionStatus,
+        NEW.DurationMinutes, 1);
+END$$
+
+CREATE TRIGGER TutoringSession_AfterUpdateRollup AFTER UPDATE ON TutoringSession FOR EACH ROW
+BEGIN
+    IF OLD.TutoringSessionStatus <> NEW.TutoringSessionStatus OR OLD.DurationMinutes <> NEW.DurationMinutes
+            OR OLD.PeerTutor_PeerTutorID <> NEW.PeerTutor_PeerTutorID
+            OR OLD.Course_CourseCode <> NEW.Course_CourseCode THEN
+        INSERT INTO RollupJournal (Kind, CourseCode, PeerTutorID, SessionStatus, Minutes, Delta)
+        VALUES (2, OLD.Course_CourseCode, OLD.PeerTutor_PeerTutorID, OLD.TutoringSessionStatus,
+                OLD.DurationMinutes, -1),
+            (2, NEW.Course_CourseCode, NEW.PeerTutor_PeerTutorID, NEW.TutoringSessionStatus,
+                NEW.DurationMinutes, 1);
+    END IF;
+END$$
+
+CREATE TRIGGER TutoringSession_AfterDeleteRollup AFTER DELETE ON TutoringSession FOR EACH ROW
+BEGIN
+    INSERT INTO RollupJournal (Kind, CourseCode, PeerTutorID, SessionStatus, Minutes, Delta)
+    VALUES (2, OLD.Course_CourseCode, OLD.PeerTutor_PeerTutorID, OLD.TutoringSessionStatus,
+        OLD.DurationMinutes, -1);
+END$$
+
+/* Grade already has the V003 triggers; these run after them. */
+CREATE TRIGGER Grade_AfterInsertRollup AFTER INSERT ON Grade FOR EACH ROW FOLLOWS Grade_AfterInsert
+BEGIN
+    INSERT INTO RollupJournal (Kind, CourseCode, GradeCode, Delta)
+    VALUES (3, NEW.Course_CourseCode, NEW.GradeCode, 1);
+END$$
+
+CREATE TRIGGER Grade_AfterUpdateRollup AFTER UPDATE ON Grade FOR EACH ROW FOLLOWS Grade_AfterUpdate
+BEGIN
+    IF OLD.GradeCode <> NEW.GradeCode OR OLD.Course_CourseCode <> NEW.Course_CourseCode THEN
+        INSERT INTO RollupJournal (Kind, CourseCode, GradeCode, Delta)
+        VALUES (3, OLD.Course_CourseCode, OLD.GradeCode, -1),
+            (3, NEW.Course_CourseCode, NEW.GradeCode, 1);
+    END IF;
+END$$
+
+CREATE TRIGGER Grade_AfterDeleteRollup AFTER DELETE ON Grade FOR EACH ROW FOLLOWS Grade_AfterDelete
+BEGIN
+    INSERT INTO RollupJournal (Kind, CourseCode, GradeCode, Delta)
+    VALUES (3, OLD.Course_CourseCode, OLD.GradeCode, -1);
+END$$
+
+DELIMITER ;
+
+/* initial fill from the data already present */
+CALL RebuildReportRollups();
+
+INSERT INTO SchemaVersion (Version, Description)
+VALUES (6, 'Reporting rollups and their journal');
@@ -0,0 +1,35 @@
+/* For CST8288 - Assignment 1 */
+/* For MySQL */
+/* Migration V007: audit trail of assignment attempts. Apply after V006. */
+USE peertutor;
+
+/* One row per assignment attempt, written in batches by the application's
+   audit writer some milliseconds after the attempt. Names and the course
+   code are kept as submitted, with no foreign keys, so refused attempts
+   for unknown tutors and courses are recorded too. PeerTutorID is NULL
+   when the name did not resolve to one tutor; Result is NULL when the
+   attempt was refused before the insert. LatencyMicros is the time from
+   receiving the request to knowing the outcome. Submitted values longer
+   than their column are cut to fit. */
+CREATE TABLE AssignmentAudit(
+    AuditID BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    AttemptedAt DATETIME(3) NOT NULL,
+    Source VARCHAR(32) NOT NULL,
+    ClientAddress VARCHAR(45),
+    LastName VARCHAR(45),
+    FirstName VARCHAR(45),
+    Email VARCHAR(45),
+    PeerTutorID INT,
+    CourseCode VARCHAR(7),
+    Status VARCHAR(32) NOT NULL,
+    Result VARCHAR(32),
+    LatencyMicros INT NOT NULL
+);
+
+CREATE INDEX IX_AssignmentAudit_AttemptedAt
+    ON AssignmentAudit (AttemptedAt);
+CREATE INDEX IX_AssignmentAudit_Tutor
+    ON AssignmentAudit (PeerTutorID, AttemptedAt);
+
+INSERT INTO SchemaVersion (Version, Description)
+VALUES (7, 'Assignment audit trail');
@@ -0,0 +1,71 @@
+/* For CST8288 - Assignment 1 */
+/* For MySQL */
+/* Migration V008: a version number per course roster, for the roster ETag.
+   Apply after V007. With binary logging on, creating the triggers needs
+   SUPER or log_bin_trust_function_creators=1. */
+USE peertutor;
+
+/* Bumped by the triggers below whenever a course's roster, as the roster
+   API shows it, may have changed: a tutor assigned to or removed from the
+   course, or an assigned tutor renamed. A course with no row has
+   version 0. The bump locks the course's row until the writing transaction
+   commits, so assignments to the same course queue behind each other for
+   that long; assignments to different courses do not. */
+CREATE TABLE CourseRosterVersion(
+    Course_CourseCode VARCHAR(7) NOT NULL PRIMARY KEY,
+    Version BIGINT NOT NULL,
+    FOREIGN KEY (Course_CourseCode) REFERENCES Course(CourseCode) ON DELETE CASCADE
+);
+
+DELIMITER $$
+
+CREATE PROCEDURE BumpCourseRosterVersion(IN forCourse VARCHAR(7))
+BEGIN
+    INSERT INTO CourseRosterVersion (Course_CourseCode, Version)
+    VALUES (forCourse, 1)
+    ON DUPLICATE KEY UPDATE Version = Version + 1;
+END$$
+
+/* Bumps every course the peer tutor is assigned to. */
+CREATE PROCEDURE BumpTutorRosterVersions(IN tutorID INT)
+BEGIN
+    INSERT INTO CourseRosterVersion (Course_CourseCode, Version)
+    SELECT PeerTutorCourse.Course_CourseCode, 1 FROM PeerTutorCourse
+    WHERE PeerTutorCourse.PeerTutor_PeerTutorID = tutorID
+    ON DUPLICATE KEY UPDATE Version = Version + 1;
+END$$
+
+CREATE TRIGGER PeerTutorCourse_AfterInsertRoster AFTER INSERT ON PeerTutorCourse FOR EACH ROW
+    FOLLOWS PeerTutorCourse_AfterInsertRollup
+BEGIN
+    CALL BumpCourseRosterVersion(NEW.Course_CourseCode);
+END$$
+
+CREATE TRIGGER PeerTutorCourse_AfterUpdateRoster AFTER UPDATE ON PeerTutorCourse FOR EACH ROW
+    FOLLOWS PeerTutorCourse_AfterUpdateRollup
+BEGIN
+    CALL BumpCourseRosterVersion(OLD.Course_CourseCode);
+    IF OLD.Course_CourseCode <> NEW.Course_CourseCode THEN
+        CALL BumpCourseRosterVersion(NEW.Course_CourseCode);
+    END IF;
+END$$
+
+CREATE TRIGGER PeerTutorCourse_AfterDeleteRoster AFTER DELETE ON PeerTutorCourse FOR EACH ROW
+    FOLLOWS PeerTutorCourse_AfterDeleteRollup
+BEGIN
+    CALL BumpCourseRosterVersion(OLD.Course_CourseCode);
+END$$
+
+/* The roster shows names, so a rename changes it too. */
+CREATE TRIGGER PeerTutor_AfterUpdateRoster AFTER UPDATE ON PeerTutor FOR EACH ROW
+    FOLLOWS PeerTutor_AfterUpdate
+BEGIN
+    IF NOT (OLD.LastName <=> NEW.LastName AND OLD.FirstName <=> NEW.FirstName AND OLD.Email <=> NEW.Email) THEN
+        CALL BumpTutorRosterVersions(NEW.PeerTutorID);
+    END IF;
+END$$
+
+DELIMITER ;
+
+INSERT INTO SchemaVersion (Version, Description)
+VALUES (8, 'Course roster versions for the roster ETag');
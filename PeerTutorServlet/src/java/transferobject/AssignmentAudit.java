@@ -0,0 +1,230 @@
+/** File: AssignmentAudit.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: one assignment attempt as recorded in the audit trail
+ */
+
+package transferobject;
+
+/**
+ * One attempt to assign a course to a peer tutor, as recorded in the audit
+ * trail: who submitted it, for which course, how it ended and how long it
+ * took.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class AssignmentAudit {
+
+    /**
+     * When the attempt was made, in milliseconds since the epoch.
+     */
+    private long attemptedAt;
+
+    /**
+     * Where the attempt came from, e.g. the servlet name.
+     */
+    private String source;
+
+    /**
+     * The address of the client that submitted the attempt.
+     */
+    private String clientAddress;
+
+    /**
+     * The last name of the peer tutor, as submitted.
+     */
+    private String lastName;
+
+    /**
+     * The first name of the peer tutor, as submitted.
+     */
+    private String firstName;
+
+    /**
+     * The email address of the peer tutor, or null if not given.
+     */
+    private String email;
+
+    /**
+     * The ID of the matching peer tutor, or 0 when not resolved.
+     */
+    private int peerTutorID;
+
+    /**
+     * The code of the course, as submitted.
+     */
+    private String courseCode;
+
+    /**
+     * The outcome of the eligibility check.
+     */
+    private EligibilityStatus status;
+
+    /**
+     * The outcome of the assignment, or null if it was not attempted.
+     */
+    private AssignmentResult result;
+
+    /**
+     * The time from receiving the request to knowing the outcome.
+     */
+    private long latencyMicros;
+
+    /**
+     * @return when the attempt was made, in milliseconds since the epoch.
+     */
+    public long getAttemptedAt() {
+        return attemptedAt;
+    }
+
+    /**
+     * @param attemptedAt when the attempt was made, in milliseconds since
+     * the epoch.
+     */
+    public void setAttemptedAt(long attemptedAt) {
+        this.attemptedAt = attemptedAt;
+    }
+
+    /**
+     * @return where the attempt came from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @param source where the attempt came from.
+     */
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    /**
+     * @return the address of the client.
+     */
+    public String getClientAddress() {
+        return clientAddress;
+    }
+
+    /**
+     * @param clientAddress the address of the client.
+     */
+    public void setClientAddress(String clientAddress) {
+        this.clientAddress = clientAddress;
+    }
+
+    /**
+     * @return the last name of the peer tutor.
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * @param lastName the last name of the peer tutor.
+     */
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    /**
+     * @return the first name of the peer tutor.
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * @param firstName the first name of the peer tutor.
+     */
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    /**
+     * @return the email address of the peer tutor, or null.
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @param email the email address of the peer tutor, or null.
+     */
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    /**
+     * @return the ID of the matching peer tutor, or 0 when not resolved.
+     */
+    public int getPeerTutorID() {
+        return peerTutorID;
+    }
+
+    /**
+     * @param peerTutorID the ID of the matching peer tutor.
+     */
+    public void setPeerTutorID(int peerTutorID) {
+        this.peerTutorID = peerTutorID;
+    }
+
+    /**
+     * @return the code of the course.
+     */
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    /**
+     * @param courseCode the code of the course.
+     */
+    public void setCourseCode(String courseCode) {
+        this.courseCode = courseCode;
+    }
+
+    /**
+     * @return the outcome of the eligibility check.
+     */
+    public EligibilityStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @param status the outcome of the eligibility check.
+     */
+    public void setStatus(EligibilityStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * @return the outcome of the assignment, or null if it was not attempted.
+     */
+    public AssignmentResult getResult() {
+        return result;
+    }
+
+    /**
+     * @param result the outcome of the assignment.
+     */
+    public void setResult(AssignmentResult result) {
+        this.result = result;
+    }
+
+    /**
+     * @return the time from receiving the request to knowing the outcome,
+     * in microseconds.
+     */
+    public long getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    /**
+     * @param latencyMicros the time from receiving the request to knowing
+     * the outcome, in microseconds.
+     */
+    public void setLatencyMicros(long latencyMicros) {
+        this.latencyMicros = latencyMicros;
+    }
+}
@@ -0,0 +1,36 @@
+/** File: AssignmentResult.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: outcome of assigning a course to a peer tutor
+ */
+
+package transferobject;
+
+/**
+ * The outcome of an attempt to assign a course to a peer tutor.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public enum AssignmentResult {
+
+    /**
+     * The course was assigned by this attempt.
+     */
+    ASSIGNED,
+
+    /**
+     * The course was already assigned, possibly by a concurrent attempt.
+     */
+    ALREADY_ASSIGNED,
+
+    /**
+     * The peer tutor does not meet the requirements for the course.
+     */
+    INELIGIBLE,
+
+    /**
+     * The assignment could not be completed because of a database error.
+     */
+    ERROR
+}
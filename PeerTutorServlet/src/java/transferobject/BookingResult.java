@@ -0,0 +1,46 @@
+/** File: BookingResult.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: outcome of booking a tutoring session
+ */
+
+package transferobject;
+
+/**
+ * The outcome of an attempt to book a tutoring session.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public enum BookingResult {
+
+    /**
+     * The session was booked by this attempt.
+     */
+    BOOKED,
+
+    /**
+     * The peer tutor already has a session that overlaps the requested time.
+     */
+    TUTOR_BUSY,
+
+    /**
+     * The course is not assigned to the peer tutor.
+     */
+    NOT_ASSIGNED,
+
+    /**
+     * There is no student with the given ID.
+     */
+    UNKNOWN_STUDENT,
+
+    /**
+     * The start time is in the past or the duration is out of range.
+     */
+    INVALID_TIME,
+
+    /**
+     * The session could not be booked because of a database error.
+     */
+    ERROR
+}
@@ -0,0 +1,189 @@
+/** File: CourseAssignment.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: one requested peer tutor and course pair of a bulk assignment
+ */
+
+package transferobject;
+
+/**
+ * One peer tutor and course pair of a bulk assignment, together with its
+ * outcome once processed.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class CourseAssignment {
+
+    /**
+     * The last name of the peer tutor.
+     */
+    private String lastName;
+
+    /**
+     * The first name of the peer tutor.
+     */
+    private String firstName;
+
+    /**
+     * The code of the course to assign.
+     */
+    private String courseCode;
+
+    /**
+     * The email address of the peer tutor, or null if not given.
+     */
+    private String email;
+
+    /**
+     * The ID of the matching peer tutor, or 0 when not resolved.
+     */
+    private int peerTutorID;
+
+    /**
+     * The ID of the peer tutor's student record, or 0 when there is none.
+     */
+    private int studentID;
+
+    /**
+     * The outcome of the assignment, or null before it is processed.
+     */
+    private AssignmentResult result;
+
+    /**
+     * The rule that failed when the assignment was refused, or null.
+     */
+    private EligibilityStatus status;
+
+    /**
+     * Constructs an empty assignment request.
+     */
+    public CourseAssignment() {
+    }
+
+    /**
+     * Constructs an assignment request.
+     *
+     * @param lastName the last name of the peer tutor.
+     * @param firstName the first name of the peer tutor.
+     * @param courseCode the code of the course to assign.
+     */
+    public CourseAssignment(String lastName, String firstName, String courseCode) {
+        this.lastName = lastName;
+        this.firstName = firstName;
+        this.courseCode = courseCode;
+    }
+
+    /**
+     * @return the last name of the peer tutor.
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * @param lastName the last name of the peer tutor.
+     */
+    public void setLastName(String lastName) {
+        this.lastName = lastName;
+    }
+
+    /**
+     * @return the first name of the peer tutor.
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * @param firstName the first name of the peer tutor.
+     */
+    public void setFirstName(String firstName) {
+        this.firstName = firstName;
+    }
+
+    /**
+     * @return the code of the course to assign.
+     */
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    /**
+     * @param courseCode the code of the course to assign.
+     */
+    public void setCourseCode(String courseCode) {
+        this.courseCode = courseCode;
+    }
+
+    /**
+     * @return the email address of the peer tutor, or null.
+     */
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @param email the email address of the peer tutor.
+     */
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    /**
+     * @return the ID of the matching peer tutor, or 0 when not resolved.
+     */
+    public int getPeerTutorID() {
+        return peerTutorID;
+    }
+
+    /**
+     * @param peerTutorID the ID of the matching peer tutor.
+     */
+    public void setPeerTutorID(int peerTutorID) {
+        this.peerTutorID = peerTutorID;
+    }
+
+    /**
+     * @return the ID of the peer tutor's student record, or 0 when there is
+     * none.
+     */
+    public int getStudentID() {
+        return studentID;
+    }
+
+    /**
+     * @param studentID the ID of the peer tutor's student record.
+     */
+    public void setStudentID(int studentID) {
+        this.studentID = studentID;
+    }
+
+    /**
+     * @return the outcome, or null before the assignment is processed.
+     */
+    public AssignmentResult getResult() {
+        return result;
+    }
+
+    /**
+     * @param result the outcome of the assignment.
+     */
+    public void setResult(AssignmentResult result) {
+        this.result = result;
+    }
+
+    /**
+     * @return the rule that failed, or null if none did.
+     */
+    public EligibilityStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @param status the rule that failed.
+     */
+    public void setStatus(EligibilityStatus status) {
+        this.status = status;
+    }
+}
@@ -0,0 +1,155 @@
+/** File: CourseCoverage.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: a row of the course coverage report
+ */
+
+package transferobject;
+
+/**
+ * How well a course is covered: the number of peer tutors assigned to it and
+ * its tutoring sessions by status, as of the last rollup refresh.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class CourseCoverage {
+
+    /**
+     * The course code.
+     */
+    private String courseCode;
+
+    /**
+     * The course name.
+     */
+    private String courseName;
+
+    /**
+     * The number of peer tutors assigned to the course.
+     */
+    private int tutorCount;
+
+    /**
+     * The number of booked sessions of the course.
+     */
+    private int bookedSessions;
+
+    /**
+     * The number of completed sessions of the course.
+     */
+    private int completedSessions;
+
+    /**
+     * The number of cancelled sessions of the course.
+     */
+    private int cancelledSessions;
+
+    /**
+     * Gets the course code.
+     *
+     * @return The course code.
+     */
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    /**
+     * Sets the course code.
+     *
+     * @param courseCode The course code.
+     */
+    public void setCourseCode(String courseCode) {
+        this.courseCode = courseCode;
+    }
+
+    /**
+     * Gets the course name.
+     *
+     * @return The course name.
+     */
+    public String getCourseName() {
+        return courseName;
+    }
+
+    /**
+     * Sets the course name.
+     *
+     * @param courseName The course name.
+     */
+    public void setCourseName(String courseName) {
+        this.courseName = courseName;
+    }
+
+    /**
+     * Gets the number of peer tutors assigned to the course.
+     *
+     * @return The tutor count.
+     */
+    public int getTutorCount() {
+        return tutorCount;
+    }
+
+    /**
+     * Sets the number of peer tutors assigned to the course.
+     *
+     * @param tutorCount The tutor count.
+     */
+    public void setTutorCount(int tutorCount) {
+        this.tutorCount = tutorCount;
+    }
+
+    /**
+     * Gets the number of booked sessions of the course.
+     *
+     * @return The booked session count.
+     */
+    public int getBookedSessions() {
+        return bookedSessions;
+    }
+
+    /**
+     * Sets the number of booked sessions of the course.
+     *
+     * @param bookedSessions The booked session count.
+     */
+    public void setBookedSessions(int bookedSessions) {
+        this.bookedSessions = bookedSessions;
+    }
+
+    /**
+     * Gets the number of completed sessions of the course.
+     *
+     * @return The completed session count.
+     */
+    public int getCompletedSessions() {
+        return completedSessions;
+    }
+
+    /**
+     * Sets the number of completed sessions of the course.
+     *
+     * @param completedSessions The completed session count.
+     */
+    public void setCompletedSessions(int completedSessions) {
+        this.completedSessions = completedSessions;
+    }
+
+    /**
+     * Gets the number of cancelled sessions of the course.
+     *
+     * @return The cancelled session count.
+     */
+    public int getCancelledSessions() {
+        return cancelledSessions;
+    }
+
+    /**
+     * Sets the number of cancelled sessions of the course.
+     *
+     * @param cancelledSessions The cancelled session count.
+     */
+    public void setCancelledSessions(int cancelledSessions) {
+        this.cancelledSessions = cancelledSessions;
+    }
+}
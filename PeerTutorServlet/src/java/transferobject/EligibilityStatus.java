@@ -0,0 +1,40 @@
+/** File: EligibilityStatus.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: outcome of the peer tutor eligibility check
+ */
+
+package transferobject;
+
+/**
+ * The outcome of checking whether a course can be assigned to a peer tutor.
+ * Every status except {@link #ELIGIBLE} carries the error shown to the user.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public enum EligibilityStatus {
+
+    NOT_REGISTERED("The person is not registered as a peer tutor"),
+    AMBIGUOUS_PEER_TUTOR("Several peer tutors have this name, please give the email address as well"),
+    INVALID_COURSE("The course is not valid"),
+    COURSE_NOT_TAKEN("The peer tutor has not taken the course"),
+    INSUFFICIENT_GRADE("The letter grade obtained by the peer tutor for the course is not sufficient"),
+    ALREADY_ASSIGNED("The peer tutor is already assigned to the course"),
+    ELIGIBLE(null);
+
+    private final String errorMessage;
+
+    EligibilityStatus(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    /**
+     * Gets the error message for this status.
+     *
+     * @return the message to display, or null when the peer tutor is eligible.
+     */
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
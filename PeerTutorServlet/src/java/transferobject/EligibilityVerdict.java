@@ -0,0 +1,153 @@
+/** File: EligibilityVerdict.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: raw facts needed to decide whether a peer tutor can take a course
+ */
+
+package transferobject;
+
+/**
+ * Carries everything the business layer needs to decide whether a course can
+ * be assigned to a peer tutor, as gathered by the data access layer in a
+ * single round trip.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class EligibilityVerdict {
+
+    /**
+     * Whether the person is registered as a peer tutor.
+     */
+    private boolean registered;
+
+    /**
+     * Whether the course code exists.
+     */
+    private boolean courseValid;
+
+    /**
+     * Whether the peer tutor has taken the course as a student.
+     */
+    private boolean courseTaken;
+
+    /**
+     * The letter grade the peer tutor received for the course, or null.
+     */
+    private String gradeCode;
+
+    /**
+     * Whether the course is already assigned to the peer tutor.
+     */
+    private boolean alreadyAssigned;
+
+    /**
+     * The ID of the matching peer tutor, or 0 when the query does not resolve it.
+     */
+    private int peerTutorID;
+
+    /**
+     * Whether the facts could not be read, in which case the others are all
+     * false and say nothing about the peer tutor or the course.
+     */
+    private boolean failed;
+
+    /**
+     * @return true if the person is registered as a peer tutor.
+     */
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    /**
+     * @param registered whether the person is registered as a peer tutor.
+     */
+    public void setRegistered(boolean registered) {
+        this.registered = registered;
+    }
+
+    /**
+     * @return true if the course code exists.
+     */
+    public boolean isCourseValid() {
+        return courseValid;
+    }
+
+    /**
+     * @param courseValid whether the course code exists.
+     */
+    public void setCourseValid(boolean courseValid) {
+        this.courseValid = courseValid;
+    }
+
+    /**
+     * @return true if the peer tutor has taken the course.
+     */
+    public boolean isCourseTaken() {
+        return courseTaken;
+    }
+
+    /**
+     * @param courseTaken whether the peer tutor has taken the course.
+     */
+    public void setCourseTaken(boolean courseTaken) {
+        this.courseTaken = courseTaken;
+    }
+
+    /**
+     * @return the letter grade for the course, or null if none was recorded.
+     */
+    public String getGradeCode() {
+        return gradeCode;
+    }
+
+    /**
+     * @param gradeCode the letter grade for the course.
+     */
+    public void setGradeCode(String gradeCode) {
+        this.gradeCode = gradeCode;
+    }
+
+    /**
+     * @return true if the course is already assigned to the peer tutor.
+     */
+    public boolean isAlreadyAssigned() {
+        return alreadyAssigned;
+    }
+
+    /**
+     * @param alreadyAssigned whether the course is already assigned to the peer tutor.
+     */
+    public void setAlreadyAssigned(boolean alreadyAssigned) {
+        this.alreadyAssigned = alreadyAssigned;
+    }
+
+    /**
+     * @return the ID of the matching peer tutor, or 0 when not resolved.
+     */
+    public int getPeerTutorID() {
+        return peerTutorID;
+    }
+
+    /**
+     * @param peerTutorID the ID of the matching peer tutor.
+     */
+    public void setPeerTutorID(int peerTutorID) {
+        this.peerTutorID = peerTutorID;
+    }
+
+    /**
+     * @return true if the facts could not be read and must not be relied on
+     * beyond the current request.
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * @param failed whether the facts could not be read.
+     */
+    public void setFailed(boolean failed) {
+        this.failed = failed;
+    }
+}
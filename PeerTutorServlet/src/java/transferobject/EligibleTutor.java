@@ -0,0 +1,88 @@
+/** File: EligibleTutor.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: a peer tutor found by the eligible tutor search, with its ranking
+ */
+
+package transferobject;
+
+/**
+ * A peer tutor who could tutor a course, with the values the search ranks
+ * by: the grade the tutor got for the course and the number of courses
+ * already assigned to the tutor. The last row of a page is also the cursor
+ * of the next one.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class EligibleTutor extends PeerTutor {
+
+    /**
+     * The grade the peer tutor received for the course.
+     */
+    private String gradeCode;
+
+    /**
+     * The rank of the grade, 1 for the best.
+     */
+    private int gradeRank;
+
+    /**
+     * The number of courses currently assigned to the peer tutor.
+     */
+    private int load;
+
+    /**
+     * Gets the grade the peer tutor received for the course.
+     *
+     * @return The grade code.
+     */
+    public String getGradeCode() {
+        return gradeCode;
+    }
+
+    /**
+     * Sets the grade the peer tutor received for the course.
+     *
+     * @param gradeCode The grade code.
+     */
+    public void setGradeCode(String gradeCode) {
+        this.gradeCode = gradeCode;
+    }
+
+    /**
+     * Gets the rank of the grade, 1 for the best.
+     *
+     * @return The grade rank.
+     */
+    public int getGradeRank() {
+        return gradeRank;
+    }
+
+    /**
+     * Sets the rank of the grade.
+     *
+     * @param gradeRank The grade rank.
+     */
+    public void setGradeRank(int gradeRank) {
+        this.gradeRank = gradeRank;
+    }
+
+    /**
+     * Gets the number of courses currently assigned to the peer tutor.
+     *
+     * @return The load.
+     */
+    public int getLoad() {
+        return load;
+    }
+
+    /**
+     * Sets the number of courses currently assigned to the peer tutor.
+     *
+     * @param load The load.
+     */
+    public void setLoad(int load) {
+        this.load = load;
+    }
+}
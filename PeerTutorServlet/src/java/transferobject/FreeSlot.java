@@ -0,0 +1,74 @@
+/** File: FreeSlot.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: a time at which a peer tutor can take a session
+ */
+
+package transferobject;
+
+import java.time.LocalDateTime;
+
+/**
+ * A time at which a peer tutor of a course is free for a session of the
+ * requested length.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class FreeSlot {
+
+    /**
+     * The peer tutor who is free.
+     */
+    private final PeerTutor peerTutor;
+
+    /**
+     * When the free time starts.
+     */
+    private final LocalDateTime start;
+
+    /**
+     * How long the peer tutor is free from the start, in minutes.
+     */
+    private final int durationMinutes;
+
+    /**
+     * Constructs a free slot.
+     *
+     * @param peerTutor       The peer tutor who is free.
+     * @param start           When the free time starts.
+     * @param durationMinutes How long it lasts, in minutes.
+     */
+    public FreeSlot(PeerTutor peerTutor, LocalDateTime start, int durationMinutes) {
+        this.peerTutor = peerTutor;
+        this.start = start;
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * Gets the peer tutor who is free.
+     *
+     * @return The peer tutor.
+     */
+    public PeerTutor getPeerTutor() {
+        return peerTutor;
+    }
+
+    /**
+     * Gets when the free time starts.
+     *
+     * @return The start.
+     */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Gets how long the peer tutor is free from the start.
+     *
+     * @return The duration in minutes.
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+}
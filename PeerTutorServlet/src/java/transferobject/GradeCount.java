@@ -0,0 +1,86 @@
+/** File: GradeCount.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: a row of the grade distribution report
+ */
+
+package transferobject;
+
+/**
+ * The number of students who received a grade in a course, as of the last
+ * rollup refresh.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class GradeCount {
+
+    /**
+     * The course code.
+     */
+    private String courseCode;
+
+    /**
+     * The grade code.
+     */
+    private String gradeCode;
+
+    /**
+     * The number of students who received the grade.
+     */
+    private int studentCount;
+
+    /**
+     * Gets the course code.
+     *
+     * @return The course code.
+     */
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    /**
+     * Sets the course code.
+     *
+     * @param courseCode The course code.
+     */
+    public void setCourseCode(String courseCode) {
+        this.courseCode = courseCode;
+    }
+
+    /**
+     * Gets the grade code.
+     *
+     * @return The grade code.
+     */
+    public String getGradeCode() {
+        return gradeCode;
+    }
+
+    /**
+     * Sets the grade code.
+     *
+     * @param gradeCode The grade code.
+     */
+    public void setGradeCode(String gradeCode) {
+        this.gradeCode = gradeCode;
+    }
+
+    /**
+     * Gets the number of students who received the grade.
+     *
+     * @return The student count.
+     */
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    /**
+     * Sets the number of students who received the grade.
+     *
+     * @param studentCount The student count.
+     */
+    public void setStudentCount(int studentCount) {
+        this.studentCount = studentCount;
+    }
+}
@@ -29,6 +29,12 @@ public class PeerTutor {
      * The first name of the peer tutor.
      */
     private String firstName;
+
+    /**
+     * The email address of the peer tutor, used to tell apart peer tutors
+     * who share a name; may be null.
+     */
+    private String email;
     
     
     
@@ -87,6 +93,24 @@ public class PeerTutor {
     public void setLastName(String lastName){
     	this.lastName = lastName;
     }
+
+    /**
+     * Gets the email address of the peer tutor.
+     * 
+     * @return The email address, or null if not given.
+     */
+    public String getEmail(){
+    	return email;
+    }
+
+    /**
+     * Sets the email address of the peer tutor.
+     * 
+     * @param email The email address to be set for the peer tutor.
+     */
+    public void setEmail(String email){
+    	this.email = email;
+    }
      
 }
 
@@ -0,0 +1,62 @@
+/** File: SessionStatus.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: state of a tutoring session
+ */
+
+package transferobject;
+
+/**
+ * The state of a tutoring session, stored as an integer in the
+ * TutoringSessionStatus column.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public enum SessionStatus {
+
+    /**
+     * The session is booked and occupies the peer tutor's time.
+     */
+    BOOKED(1),
+
+    /**
+     * The session was cancelled; its time is free again.
+     */
+    CANCELLED(2),
+
+    /**
+     * The session took place.
+     */
+    COMPLETED(3);
+
+    private final int code;
+
+    SessionStatus(int code) {
+        this.code = code;
+    }
+
+    /**
+     * Gets the value stored in the database.
+     *
+     * @return The status code.
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Finds the status stored as the given code.
+     *
+     * @param code The status code.
+     * @return The status, or null for an unknown code.
+     */
+    public static SessionStatus fromCode(int code) {
+        for (SessionStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
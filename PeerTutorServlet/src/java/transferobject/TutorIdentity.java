@@ -0,0 +1,79 @@
+/** File: TutorIdentity.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: the IDs a peer tutor's name and email resolve to
+ */
+
+package transferobject;
+
+/**
+ * A registered peer tutor as known to the identity index: the name and
+ * email it is looked up by, and the PeerTutorID and StudentID that every
+ * later query keys on. Immutable, so one instance can be shared by all
+ * requests.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class TutorIdentity {
+
+    private final int peerTutorID;
+    private final int studentID;
+    private final String lastName;
+    private final String firstName;
+    private final String email;
+
+    /**
+     * Constructs an identity.
+     *
+     * @param peerTutorID the PeerTutorID.
+     * @param studentID the StudentID of the matching student record, or 0
+     * when there is none.
+     * @param lastName the last name.
+     * @param firstName the first name.
+     * @param email the email address, possibly null.
+     */
+    public TutorIdentity(int peerTutorID, int studentID, String lastName, String firstName, String email) {
+        this.peerTutorID = peerTutorID;
+        this.studentID = studentID;
+        this.lastName = lastName;
+        this.firstName = firstName;
+        this.email = email;
+    }
+
+    /**
+     * @return the PeerTutorID.
+     */
+    public int getPeerTutorID() {
+        return peerTutorID;
+    }
+
+    /**
+     * @return the StudentID of the peer tutor's student record, or 0 when
+     * there is none.
+     */
+    public int getStudentID() {
+        return studentID;
+    }
+
+    /**
+     * @return the last name.
+     */
+    public String getLastName() {
+        return lastName;
+    }
+
+    /**
+     * @return the first name.
+     */
+    public String getFirstName() {
+        return firstName;
+    }
+
+    /**
+     * @return the email address, possibly null.
+     */
+    public String getEmail() {
+        return email;
+    }
+}
@@ -0,0 +1,145 @@
+/** File: TutorRecord.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: a resolved peer tutor's courses, grades and assignments
+ */
+
+package transferobject;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything the assignment rules need to know about one resolved peer
+ * tutor, for every course at once: the courses its student record took, the
+ * grades it got, the courses it is eligible for and the courses assigned to
+ * it. Loaded once per request, so that each rule is checked against the
+ * same facts without another query. Course codes compare without regard to
+ * case, as they do in the database.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class TutorRecord {
+
+    private final int peerTutorID;
+    private final int studentID;
+
+    /**
+     * Courses taken by the peer tutor's student record.
+     */
+    private final Set<String> takenCourses = new HashSet<>();
+
+    /**
+     * Letter grades of the peer tutor's student record, by course.
+     */
+    private final Map<String, String> grades = new HashMap<>();
+
+    /**
+     * The best grade that makes the peer tutor eligible, by course, as in
+     * EligibleTutorCourse.
+     */
+    private final Map<String, String> eligibleGrades = new HashMap<>();
+
+    /**
+     * Courses assigned to the peer tutor.
+     */
+    private final Set<String> assignedCourses = new HashSet<>();
+
+    /**
+     * Constructs an empty record.
+     *
+     * @param peerTutorID the PeerTutorID.
+     * @param studentID the StudentID of the peer tutor's student record, or 0
+     * when there is none.
+     */
+    public TutorRecord(int peerTutorID, int studentID) {
+        this.peerTutorID = peerTutorID;
+        this.studentID = studentID;
+    }
+
+    /**
+     * @return the PeerTutorID.
+     */
+    public int getPeerTutorID() {
+        return peerTutorID;
+    }
+
+    /**
+     * @return the StudentID of the peer tutor's student record, or 0 when
+     * there is none.
+     */
+    public int getStudentID() {
+        return studentID;
+    }
+
+    /**
+     * @param courseCode the course code.
+     * @return true if the peer tutor's student record took the course.
+     */
+    public boolean isCourseTaken(String courseCode) {
+        return courseCode != null && takenCourses.contains(key(courseCode));
+    }
+
+    /**
+     * @param courseCode a course the peer tutor's student record took.
+     */
+    public void addTakenCourse(String courseCode) {
+        takenCourses.add(key(courseCode));
+    }
+
+    /**
+     * @param courseCode the course code.
+     * @return the letter grade for the course, or null.
+     */
+    public String getGradeCode(String courseCode) {
+        return courseCode == null ? null : grades.get(key(courseCode));
+    }
+
+    /**
+     * @param courseCode the course code.
+     * @param gradeCode the letter grade the peer tutor's student record got.
+     */
+    public void setGradeCode(String courseCode, String gradeCode) {
+        grades.put(key(courseCode), gradeCode);
+    }
+
+    /**
+     * @param courseCode the course code.
+     * @return the grade that makes the peer tutor eligible for the course,
+     * or null when it is not eligible.
+     */
+    public String getEligibleGradeCode(String courseCode) {
+        return courseCode == null ? null : eligibleGrades.get(key(courseCode));
+    }
+
+    /**
+     * @param courseCode the course code.
+     * @param gradeCode the grade that makes the peer tutor eligible for it.
+     */
+    public void setEligibleGradeCode(String courseCode, String gradeCode) {
+        eligibleGrades.put(key(courseCode), gradeCode);
+    }
+
+    /**
+     * @param courseCode the course code.
+     * @return true if the course is assigned to the peer tutor.
+     */
+    public boolean isCourseAssigned(String courseCode) {
+        return courseCode != null && assignedCourses.contains(key(courseCode));
+    }
+
+    /**
+     * @param courseCode a course assigned to the peer tutor.
+     */
+    public void addAssignedCourse(String courseCode) {
+        assignedCourses.add(key(courseCode));
+    }
+
+    private static String key(String courseCode) {
+        return courseCode.toUpperCase(Locale.ROOT);
+    }
+}
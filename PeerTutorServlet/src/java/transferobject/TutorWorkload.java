@@ -0,0 +1,133 @@
+/** File: TutorWorkload.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: a row of the tutor workload report
+ */
+
+package transferobject;
+
+/**
+ * The workload of a peer tutor: the courses assigned to the tutor, the
+ * tutor's sessions by status and the minutes of booked and completed
+ * sessions, as of the last rollup refresh.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class TutorWorkload extends PeerTutor {
+
+    /**
+     * The number of courses assigned to the peer tutor.
+     */
+    private int courseCount;
+
+    /**
+     * The number of booked sessions of the peer tutor.
+     */
+    private int bookedSessions;
+
+    /**
+     * The number of completed sessions of the peer tutor.
+     */
+    private int completedSessions;
+
+    /**
+     * The number of cancelled sessions of the peer tutor.
+     */
+    private int cancelledSessions;
+
+    /**
+     * The minutes of booked and completed sessions of the peer tutor.
+     */
+    private int tutoringMinutes;
+
+    /**
+     * Gets the number of courses assigned to the peer tutor.
+     *
+     * @return The course count.
+     */
+    public int getCourseCount() {
+        return courseCount;
+    }
+
+    /**
+     * Sets the number of courses assigned to the peer tutor.
+     *
+     * @param courseCount The course count.
+     */
+    public void setCourseCount(int courseCount) {
+        this.courseCount = courseCount;
+    }
+
+    /**
+     * Gets the number of booked sessions of the peer tutor.
+     *
+     * @return The booked session count.
+     */
+    public int getBookedSessions() {
+        return bookedSessions;
+    }
+
+    /**
+     * Sets the number of booked sessions of the peer tutor.
+     *
+     * @param bookedSessions The booked session count.
+     */
+    public void setBookedSessions(int bookedSessions) {
+        this.bookedSessions = bookedSessions;
+    }
+
+    /**
+     * Gets the number of completed sessions of the peer tutor.
+     *
+     * @return The completed session count.
+     */
+    public int getCompletedSessions() {
+        return completedSessions;
+    }
+
+    /**
+     * Sets the number of completed sessions of the peer tutor.
+     *
+     * @param completedSessions The completed session count.
+     */
+    public void setCompletedSessions(int completedSessions) {
+        this.completedSessions = completedSessions;
+    }
+
+    /**
+     * Gets the number of cancelled sessions of the peer tutor.
+     *
+     * @return The cancelled session count.
+     */
+    public int getCancelledSessions() {
+        return cancelledSessions;
+    }
+
+    /**
+     * Sets the number of cancelled sessions of the peer tutor.
+     *
+     * @param cancelledSessions The cancelled session count.
+     */
+    public void setCancelledSessions(int cancelledSessions) {
+        this.cancelledSessions = cancelledSessions;
+    }
+
+    /**
+     * Gets the minutes of booked and completed sessions of the peer tutor.
+     *
+     * @return The tutoring minutes.
+     */
+    public int getTutoringMinutes() {
+        return tutoringMinutes;
+    }
+
+    /**
+     * Sets the minutes of booked and completed sessions of the peer tutor.
+     *
+     * @param tutoringMinutes The tutoring minutes.
+     */
+    public void setTutoringMinutes(int tutoringMinutes) {
+        this.tutoringMinutes = tutoringMinutes;
+    }
+}
@@ -0,0 +1,248 @@
+/** File: TutoringSession.java
+ * author: Lei Luo
+ * Date: 2023
+ * Description: a tutoring session between a peer tutor and a student
+ */
+
+package transferobject;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A tutoring session: one peer tutor meets one student about one course,
+ * starting at a date and time and lasting a number of minutes. The date,
+ * time, peer tutor, course and student identify the session.
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class TutoringSession {
+
+    /**
+     * The day of the session.
+     */
+    private LocalDate date;
+
+    /**
+     * The start time of the session.
+     */
+    private LocalTime time;
+
+    /**
+     * The length of the session in minutes.
+     */
+    private int durationMinutes;
+
+    /**
+     * The ID of the peer tutor giving the session.
+     */
+    private int peerTutorID;
+
+    /**
+     * The course the session is about.
+     */
+    private String courseCode;
+
+    /**
+     * The ID of the student attending the session.
+     */
+    private int studentID;
+
+    /**
+     * The last name of the student attending the session.
+     */
+    private String studentLastName;
+
+    /**
+     * The state of the session.
+     */
+    private SessionStatus status;
+
+    /**
+     * What the student wants to work on.
+     */
+    private String topic;
+
+    /**
+     * Gets the day of the session.
+     *
+     * @return The date.
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Sets the day of the session.
+     *
+     * @param date The date.
+     */
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    /**
+     * Gets the start time of the session.
+     *
+     * @return The time.
+     */
+    public LocalTime getTime() {
+        return time;
+    }
+
+    /**
+     * Sets the start time of the session.
+     *
+     * @param time The time.
+     */
+    public void setTime(LocalTime time) {
+        this.time = time;
+    }
+
+    /**
+     * Gets the length of the session.
+     *
+     * @return The duration in minutes.
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * Sets the length of the session.
+     *
+     * @param durationMinutes The duration in minutes.
+     */
+    public void setDurationMinutes(int durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    /**
+     * Gets the ID of the peer tutor.
+     *
+     * @return The peer tutor ID.
+     */
+    public int getPeerTutorID() {
+        return peerTutorID;
+    }
+
+    /**
+     * Sets the ID of the peer tutor.
+     *
+     * @param peerTutorID The peer tutor ID.
+     */
+    public void setPeerTutorID(int peerTutorID) {
+        this.peerTutorID = peerTutorID;
+    }
+
+    /**
+     * Gets the course of the session.
+     *
+     * @return The course code.
+     */
+    public String getCourseCode() {
+        return courseCode;
+    }
+
+    /**
+     * Sets the course of the session.
+     *
+     * @param courseCode The course code.
+     */
+    public void setCourseCode(String courseCode) {
+        this.courseCode = courseCode;
+    }
+
+    /**
+     * Gets the ID of the student.
+     *
+     * @return The student ID.
+     */
+    public int getStudentID() {
+        return studentID;
+    }
+
+    /**
+     * Sets the ID of the student.
+     *
+     * @param studentID The student ID.
+     */
+    public void setStudentID(int studentID) {
+        this.studentID = studentID;
+    }
+
+    /**
+     * Gets the last name of the student.
+     *
+     * @return The student's last name.
+     */
+    public String getStudentLastName() {
+        return studentLastName;
+    }
+
+    /**
+     * Sets the last name of the student.
+     *
+     * @param studentLastName The student's last name.
+     */
+    public void setStudentLastName(String studentLastName) {
+        this.studentLastName = studentLastName;
+    }
+
+    /**
+     * Gets the state of the session.
+     *
+     * @return The status.
+     */
+    public SessionStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the state of the session.
+     *
+     * @param status The status.
+     */
+    public void setStatus(SessionStatus status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets what the student wants to work on.
+     *
+     * @return The topic.
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Sets what the student wants to work on.
+     *
+     * @param topic The topic.
+     */
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    /**
+     * Gets the moment the session starts.
+     *
+     * @return The start, or null if the date or time is not set.
+     */
+    public LocalDateTime getStart() {
+        return date == null || time == null ? null : LocalDateTime.of(date, time);
+    }
+
+    /**
+     * Gets the moment the session ends.
+     *
+     * @return The end, or null if the date or time is not set.
+     */
+    public LocalDateTime getEnd() {
+        LocalDateTime start = getStart();
+        return start == null ? null : start.plusMinutes(durationMinutes);
+    }
+}
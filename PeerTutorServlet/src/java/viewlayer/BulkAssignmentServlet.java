@@ -0,0 +1,259 @@
+package viewlayer;
+
+import businesslayer.PeerTutorBusinessLogic;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import transferobject.AssignmentResult;
+import transferobject.CourseAssignment;
+
+/**
+ * Assigns many courses to peer tutors in one request.
+ * {@code POST /api/assignments/bulk} accepts either
+ * <ul>
+ * <li>{@code text/csv}: one {@code lastname,firstname,code[,email]} line per
+ * pair, with an optional header line, or</li>
+ * <li>{@code application/json}: an array of objects with
+ * {@code lastName}, {@code firstName}, {@code courseCode} and optionally
+ * {@code email} members.</li>
+ * </ul>
+ * The email is only needed for peer tutors who share a name.
+ * Every pair is checked and inserted in bulk by the business layer; the
+ * response reports the outcome of each row in request order.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class BulkAssignmentServlet extends HttpServlet {
+
+    private static final String JSON = "application/json;charset=UTF-8";
+    private static final Histogram LATENCY = MetricsRegistry.histogram("peertutor_http_request_duration_seconds",
+            "Time from receiving a request to completing its response.", "servlet").labels("BulkAssignmentServlet");
+    private static final int MAX_ROWS = 10000;
+
+    private PeerTutorBusinessLogic logic;
+
+    /**
+     * Gets the business logic the application shares.
+     *
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Override
+    public void init() throws ServletException {
+        logic = PeerTutorApplication.peerTutorLogic(getServletContext());
+    }
+
+    /**
+     * Times every request before dispatching it to the method handlers.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            super.service(request, response);
+        } finally {
+            LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String contentType = request.getContentType();
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        List<CourseAssignment> assignments;
+        try {
+            if (contentType != null && contentType.startsWith("text/csv")) {
+                assignments = readCsv(request.getReader());
+            } else if (contentType != null && contentType.startsWith("application/json")) {
+                assignments = readJson(request.getReader());
+            } else {
+                error(response, HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                        "Send text/csv or application/json");
+                return;
+            }
+        } catch (TooManyRowsException ex) {
+            error(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, ex.getMessage());
+            return;
+        } catch (JsonReader.JsonSyntaxException | IllegalArgumentException ex) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, ex.getMessage());
+            return;
+        }
+
+        logic.assignCoursesToPeerTutors(assignments);
+
+        int assigned = 0;
+        int errors = 0;
+        for (CourseAssignment assignment : assignments) {
+            if (assignment.getResult() == AssignmentResult.ASSIGNED) {
+                assigned++;
+            } else if (assignment.getResult() == AssignmentResult.ERROR) {
+                errors++;
+            }
+        }
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject();
+            json.name("total").value(assignments.size());
+            json.name("assigned").value(assigned);
+            json.name("refused").value(assignments.size() - assigned - errors);
+            json.name("errors").value(errors);
+            json.name("results").beginArray();
+            for (int i = 0; i < assignments.size(); i++) {
+                CourseAssignment assignment = assignments.get(i);
+                json.beginObject();
+                json.name("row").value(i + 1);
+                json.name("lastName").value(assignment.getLastName());
+                json.name("firstName").value(assignment.getFirstName());
+                json.name("courseCode").value(assignment.getCourseCode());
+                json.name("result").value(assignment.getResult().name());
+                json.name("status").value(assignment.getStatus() == null ? null : assignment.getStatus().name());
+                json.name("message").value(assignment.getStatus() == null
+                        ? null : assignment.getStatus().getErrorMessage());
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private static List<CourseAssignment> readCsv(BufferedReader reader) throws IOException {
+        List<CourseAssignment> assignments = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> fields = csvFields(line);
+            if (fields.size() != 3 && fields.size() != 4) {
+                throw new IllegalArgumentException("Line " + lineNumber + ": expected lastname,firstname,code[,email]");
+            }
+            if (assignments.isEmpty() && lineNumber == 1 && fields.get(2).equalsIgnoreCase("code")) {
+                continue;
+            }
+            if (assignments.size() == MAX_ROWS) {
+                throw new TooManyRowsException();
+            }
+            assignments.add(assignment(fields.get(0), fields.get(1), fields.get(2),
+                    fields.size() == 4 ? fields.get(3) : null, lineNumber));
+        }
+        return assignments;
+    }
+
+    /* splits one CSV line, honouring double-quoted fields and "" escapes */
+    private static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+    private static List<CourseAssignment> readJson(BufferedReader reader) throws IOException {
+        List<Map<String, String>> objects;
+        try {
+            objects = new JsonReader(reader, MAX_ROWS).readObjects();
+        } catch (JsonReader.LimitExceededException ex) {
+            throw new TooManyRowsException();
+        }
+        List<CourseAssignment> assignments = new ArrayList<>(objects.size());
+        for (int i = 0; i < objects.size(); i++) {
+            Map<String, String> object = objects.get(i);
+            assignments.add(assignment(object.get("lastName"), object.get("firstName"),
+                    object.get("courseCode"), object.get("email"), i + 1));
+        }
+        return assignments;
+    }
+
+    private static CourseAssignment assignment(String lastName, String firstName, String courseCode, String email,
+            int row) {
+        if (isBlank(lastName) || isBlank(firstName) || isBlank(courseCode)) {
+            throw new IllegalArgumentException("Row " + row + ": last name, first name and course code are required");
+        }
+        CourseAssignment assignment = new CourseAssignment(lastName.trim(), firstName.trim(), courseCode.trim());
+        if (!isBlank(email)) {
+            assignment.setEmail(email.trim());
+        }
+        return assignment;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    private static void error(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject().name("error").value(message).endObject();
+        }
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Bulk course assignment from CSV or JSON";
+    }
+
+    private static class TooManyRowsException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        TooManyRowsException() {
+            super("At most " + MAX_ROWS + " rows per request");
+        }
+    }
+}
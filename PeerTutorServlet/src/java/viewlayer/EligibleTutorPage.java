@@ -0,0 +1,134 @@
+/* File: EligibleTutorPage.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: HTML fragments of the eligible tutor search page
+ */
+package viewlayer;
+
+import java.io.IOException;
+import transferobject.EligibleTutor;
+
+/**
+ * Renders the page of {@link EligibleTutorServlet}: a search form and one
+ * page of ranked tutors. Fixed markup is encoded once when the class loads,
+ * as in {@link PeerTutorPage}.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class EligibleTutorPage {
+
+    private static final byte[] HEAD = HtmlWriter.encode("<!DOCTYPE html>\n<html>\n<head>\n"
+            + "<meta charset=\"UTF-8\">\n<title>Eligible Peer Tutors</title>\n</head>\n"
+            + "<body bgcolor=\"#FDF5E6\">\n<h1>Eligible Peer Tutors</h1>\n<form method=\"GET\" action=\"");
+    private static final byte[] FORM = HtmlWriter.encode("\">\nCourse Code: <input type=\"text\" name=\"code\" value=\"");
+    private static final byte[] FORM_END = HtmlWriter.encode("\">\n<input type=\"submit\" value=\"Search\">\n</form>\n");
+    private static final byte[] ERROR = HtmlWriter.encode("<h2> Error: ");
+    private static final byte[] ERROR_END = HtmlWriter.encode("</h2>\n");
+    private static final byte[] TABLE_BEGIN = HtmlWriter.encode("<table>\n<caption>Unassigned Peer Tutors Eligible for ");
+    private static final byte[] TABLE_HEADER = HtmlWriter.encode("</caption>\n<tr><th>Tutor ID</th><th>Last Name</th>"
+            + "<th>First Name</th><th>Grade</th><th>Courses Tutored</th></tr>\n");
+    private static final byte[] ROW_BEGIN = HtmlWriter.encode("<tr><td>");
+    private static final byte[] CELL = HtmlWriter.encode("</td><td>");
+    private static final byte[] ROW_END = HtmlWriter.encode("</td></tr>\n");
+    private static final byte[] TABLE_END = HtmlWriter.encode("</table>\n");
+    private static final byte[] NONE = HtmlWriter.encode("<p>No unassigned peer tutor is eligible for this course.</p>\n");
+    private static final byte[] NEXT_PAGE = HtmlWriter.encode("<p><a href=\"");
+    private static final byte[] NEXT_PAGE_END = HtmlWriter.encode("\">Next page</a></p>\n");
+    private static final byte[] TAIL = HtmlWriter.encode("</body>\n</html>\n");
+
+    private EligibleTutorPage() {
+    }
+
+    /**
+     * Writes the document head and the search form.
+     *
+     * @param out the page writer.
+     * @param action the URL the form submits to.
+     * @param courseCode the course searched for, or null.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void begin(HtmlWriter out, String action, String courseCode) throws IOException {
+        out.raw(HEAD).text(action).raw(FORM).text(courseCode == null ? "" : courseCode).raw(FORM_END);
+    }
+
+    /**
+     * Writes an error heading.
+     *
+     * @param out the page writer.
+     * @param message the error message.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void error(HtmlWriter out, String message) throws IOException {
+        out.raw(ERROR).text(message).raw(ERROR_END);
+    }
+
+    /**
+     * Opens the result table.
+     *
+     * @param out the page writer.
+     * @param courseCode the course shown in the caption.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void tableBegin(HtmlWriter out, String courseCode) throws IOException {
+        out.raw(TABLE_BEGIN).text(courseCode).raw(TABLE_HEADER);
+    }
+
+    /**
+     * Writes one ranked tutor.
+     *
+     * @param out the page writer.
+     * @param tutor the tutor on this row.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void row(HtmlWriter out, EligibleTutor tutor) throws IOException {
+        out.raw(ROW_BEGIN).number(tutor.getPeerTutorID())
+                .raw(CELL).text(tutor.getLastName())
+                .raw(CELL).text(tutor.getFirstName())
+                .raw(CELL).text(tutor.getGradeCode())
+                .raw(CELL).number(tutor.getLoad())
+                .raw(ROW_END);
+    }
+
+    /**
+     * Closes the result table.
+     *
+     * @param out the page writer.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void tableEnd(HtmlWriter out) throws IOException {
+        out.raw(TABLE_END);
+    }
+
+    /**
+     * Says that the search found nobody.
+     *
+     * @param out the page writer.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void none(HtmlWriter out) throws IOException {
+        out.raw(NONE);
+    }
+
+    /**
+     * Writes a link to the next page.
+     *
+     * @param out the page writer.
+     * @param url the URL of the next page, already URL-encoded.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void nextPageLink(HtmlWriter out, String url) throws IOException {
+        out.raw(NEXT_PAGE).text(url).raw(NEXT_PAGE_END);
+    }
+
+    /**
+     * Closes the document.
+     *
+     * @param out the page writer.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void end(HtmlWriter out) throws IOException {
+        out.raw(TAIL);
+    }
+}
@@ -0,0 +1,180 @@
+package viewlayer;
+
+import businesslayer.PeerTutorBusinessLogic;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import transferobject.EligibilityStatus;
+import transferobject.EligibleTutor;
+
+/**
+ * Lets coordinators find everyone who could tutor a course. Lists the peer
+ * tutors who are eligible for the course and not yet assigned to it, best
+ * grade first and then least loaded, one page at a time.
+ * <p>
+ * {@code GET ?code=&page=&after=}, where {@code after} is the cursor of the
+ * previous page as written in its next page link: the grade rank, load and
+ * peer tutor ID of its last row, separated by dots.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class EligibleTutorServlet extends HttpServlet {
+
+    private static final Histogram LATENCY = MetricsRegistry.histogram("peertutor_http_request_duration_seconds",
+            "Time from receiving a request to completing its response.", "servlet").labels("EligibleTutorServlet");
+
+    /**
+     * Rows shown per page when the request does not say.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Upper bound on the page parameter.
+     */
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private PeerTutorBusinessLogic logic;
+
+    /**
+     * Gets the business logic the application shares.
+     *
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Override
+    public void init() throws ServletException {
+        logic = PeerTutorApplication.peerTutorLogic(getServletContext());
+    }
+
+    /**
+     * Times every request before dispatching it to the method handlers.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            super.service(request, response);
+        } finally {
+            LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>GET</code> method: shows the search form and,
+     * when a course code is given, one page of its eligible tutors.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String courseCode = request.getParameter("code");
+        if (courseCode != null) {
+            courseCode = courseCode.trim();
+        }
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, intParameter(request, "page", DEFAULT_PAGE_SIZE)));
+        String action = request.getContextPath() + request.getServletPath();
+
+        response.setContentType("text/html;charset=UTF-8");
+        try (HtmlWriter out = new HtmlWriter(response.getOutputStream())) {
+            EligibleTutorPage.begin(out, action, courseCode);
+            if (courseCode == null || courseCode.isEmpty()) {
+                EligibleTutorPage.end(out);
+                return;
+            }
+            if (!logic.isCourseValid(courseCode)) {
+                EligibleTutorPage.error(out, EligibilityStatus.INVALID_COURSE.getErrorMessage());
+                EligibleTutorPage.end(out);
+                return;
+            }
+
+            EligibleTutor after = cursor(request.getParameter("after"));
+            // one row more than the page tells whether there is a next page
+            List<EligibleTutor> tutors = logic.getEligibleUnassignedTutors(courseCode, after, pageSize + 1);
+            if (tutors.isEmpty()) {
+                EligibleTutorPage.none(out);
+            } else {
+                int shown = Math.min(pageSize, tutors.size());
+                EligibleTutorPage.tableBegin(out, courseCode);
+                for (int i = 0; i < shown; i++) {
+                    EligibleTutorPage.row(out, tutors.get(i));
+                }
+                EligibleTutorPage.tableEnd(out);
+                if (tutors.size() > pageSize) {
+                    EligibleTutor last = tutors.get(shown - 1);
+                    EligibleTutorPage.nextPageLink(out, action
+                            + "?code=" + URLEncoder.encode(courseCode, StandardCharsets.UTF_8)
+                            + "&after=" + last.getGradeRank() + "." + last.getLoad() + "." + last.getPeerTutorID()
+                            + "&page=" + pageSize);
+                }
+            }
+            EligibleTutorPage.end(out);
+        }
+    }
+
+    /**
+     * Reads the cursor of the previous page.
+     *
+     * @param value the after parameter, "rank.load.id".
+     * @return the cursor, or null for the first page or a malformed value.
+     */
+    private static EligibleTutor cursor(String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split("\\.");
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            EligibleTutor after = new EligibleTutor();
+            after.setGradeRank(Integer.parseInt(parts[0].trim()));
+            after.setLoad(Integer.parseInt(parts[1].trim()));
+            after.setPeerTutorID(Integer.parseInt(parts[2].trim()));
+            return after;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "Ranked search for peer tutors eligible for a course";
+    }
+}
@@ -0,0 +1,197 @@
+/* File: HtmlWriter.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: buffered UTF-8 writer with HTML escaping for servlet output
+ */
+package viewlayer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes HTML straight to a byte stream. Fixed markup is encoded to UTF-8
+ * once, ahead of time, with {@link #encode(String)} and copied as bytes;
+ * dynamic text is escaped and encoded in a single pass into the same buffer,
+ * with no intermediate Strings. Not thread-safe.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class HtmlWriter implements AutoCloseable {
+
+    private static final byte[] AMP = encode("&amp;");
+    private static final byte[] LT = encode("&lt;");
+    private static final byte[] GT = encode("&gt;");
+    private static final byte[] QUOT = encode("&quot;");
+    private static final byte[] APOS = encode("&#39;");
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+
+    /**
+     * Creates a writer with an 8 KB buffer.
+     *
+     * @param out the stream to write to, usually the servlet output stream.
+     */
+    public HtmlWriter(OutputStream out) {
+        this(out, 8192);
+    }
+
+    /**
+     * Creates a writer with the given buffer size.
+     *
+     * @param out the stream to write to.
+     * @param bufferSize bytes held before they are passed on.
+     */
+    public HtmlWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Encodes fixed markup once so it can be written as bytes later.
+     *
+     * @param markup the markup, written as is.
+     * @return the UTF-8 bytes.
+     */
+    public static byte[] encode(String markup) {
+        return markup.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes pre-encoded markup.
+     *
+     * @param markup bytes from {@link #encode(String)}.
+     * @return this writer.
+     * @throws IOException if the underlying stream fails.
+     */
+    public HtmlWriter raw(byte[] markup) throws IOException {
+        if (markup.length > buffer.length - count) {
+            flushBuffer();
+            if (markup.length > buffer.length) {
+                out.write(markup);
+                return this;
+            }
+        }
+        System.arraycopy(markup, 0, buffer, count, markup.length);
+        count += markup.length;
+        return this;
+    }
+
+    /**
+     * Writes text, escaping the characters that are special in HTML content
+     * and attribute values. Null is written as an empty string.
+     *
+     * @param text the text to write.
+     * @return this writer.
+     * @throws IOException if the underlying stream fails.
+     */
+    public HtmlWriter text(String text) throws IOException {
+        if (text == null) {
+            return this;
+        }
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&':
+                    raw(AMP);
+                    break;
+                case '<':
+                    raw(LT);
+                    break;
+                case '>':
+                    raw(GT);
+                    break;
+                case '"':
+                    raw(QUOT);
+                    break;
+                case '\'':
+                    raw(APOS);
+                    break;
+                default:
+                    if (c < 0x80) {
+                        ensure(1);
+                        buffer[count++] = (byte) c;
+                    } else if (c < 0x800) {
+                        ensure(2);
+                        buffer[count++] = (byte) (0xC0 | (c >> 6));
+                        buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < length
+                            && Character.isLowSurrogate(text.charAt(i + 1))) {
+                        int cp = Character.toCodePoint(c, text.charAt(++i));
+                        ensure(4);
+                        buffer[count++] = (byte) (0xF0 | (cp >> 18));
+                        buffer[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                        buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                        buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+                    } else if (Character.isSurrogate(c)) {
+                        ensure(1);
+                        buffer[count++] = '?';
+                    } else {
+                        ensure(3);
+                        buffer[count++] = (byte) (0xE0 | (c >> 12));
+                        buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                        buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                    }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number in decimal.
+     *
+     * @param value the number.
+     * @return this writer.
+     * @throws IOException if the underlying stream fails.
+     */
+    public HtmlWriter number(long value) throws IOException {
+        String digits = Long.toString(value);
+        ensure(digits.length());
+        for (int i = 0; i < digits.length(); i++) {
+            buffer[count++] = (byte) digits.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Sends everything buffered so far to the client.
+     *
+     * @throws IOException if the underlying stream fails.
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the underlying stream.
+     *
+     * @throws IOException if the underlying stream fails.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.length - count < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            count = 0;
+        }
+    }
+}
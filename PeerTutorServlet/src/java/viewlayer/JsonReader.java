@@ -0,0 +1,247 @@
+/* File: JsonReader.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: minimal JSON reader for request bodies of the REST API
+ */
+package viewlayer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the one shape of JSON the API accepts: an array of flat objects
+ * whose values are strings, numbers, booleans or null. Values are returned
+ * as strings, so {@code 3} and {@code "3"} read the same. Nested arrays and
+ * objects are rejected. Not thread-safe.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class JsonReader {
+
+    private final Reader in;
+    private final int maxObjects;
+    private int peeked = -2;
+    private long position;
+
+    /**
+     * Creates a reader over a request body.
+     *
+     * @param in the body, usually from {@code request.getReader()}.
+     * @param maxObjects the most objects accepted before reading stops.
+     */
+    public JsonReader(Reader in, int maxObjects) {
+        this.in = in;
+        this.maxObjects = maxObjects;
+    }
+
+    /**
+     * Reads the whole body as an array of objects.
+     *
+     * @return the objects in order, each mapping member names to values;
+     * a JSON null becomes a null value.
+     * @throws JsonSyntaxException if the body is not an array of flat objects.
+     * @throws LimitExceededException if the array holds more than the maximum
+     * number of objects.
+     * @throws IOException if the body cannot be read.
+     */
+    public List<Map<String, String>> readObjects() throws IOException {
+        List<Map<String, String>> objects = new ArrayList<>();
+        expect('[');
+        if (peekToken() == ']') {
+            next();
+        } else {
+            do {
+                if (objects.size() == maxObjects) {
+                    throw new LimitExceededException("More than " + maxObjects + " objects");
+                }
+                objects.add(readObject());
+            } while (separator(']'));
+        }
+        if (peekToken() != -1) {
+            throw syntax("end of input");
+        }
+        return objects;
+    }
+
+    private Map<String, String> readObject() throws IOException {
+        Map<String, String> object = new LinkedHashMap<>();
+        expect('{');
+        if (peekToken() == '}') {
+            next();
+            return object;
+        }
+        do {
+            if (peekToken() != '"') {
+                throw syntax("member name");
+            }
+            next();
+            String name = readString();
+            expect(':');
+            object.put(name, readScalar());
+        } while (separator('}'));
+        return object;
+    }
+
+    private String readScalar() throws IOException {
+        int c = peekToken();
+        if (c == '"') {
+            next();
+            return readString();
+        }
+        if (c == '-' || (c >= '0' && c <= '9')) {
+            StringBuilder number = new StringBuilder();
+            while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+                number.append((char) next());
+                c = peek();
+            }
+            return number.toString();
+        }
+        if (c == 't' || c == 'f' || c == 'n') {
+            StringBuilder word = new StringBuilder();
+            while (c >= 'a' && c <= 'z') {
+                word.append((char) next());
+                c = peek();
+            }
+            String literal = word.toString();
+            if ("true".equals(literal) || "false".equals(literal)) {
+                return literal;
+            }
+            if ("null".equals(literal)) {
+                return null;
+            }
+        }
+        throw syntax("string, number, boolean or null");
+    }
+
+    private String readString() throws IOException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int c = next();
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c == -1 || c < 0x20) {
+                throw syntax("closing quote");
+            }
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            c = next();
+            switch (c) {
+                case '"':
+                case '\\':
+                case '/':
+                    text.append((char) c);
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(next(), 16);
+                        if (digit < 0) {
+                            throw syntax("hex digit");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                    break;
+                default:
+                    throw syntax("escape sequence");
+            }
+        }
+    }
+
+    /* consumes a comma (true) or the closing character (false) */
+    private boolean separator(char close) throws IOException {
+        int c = peekToken();
+        next();
+        if (c == ',') {
+            return true;
+        }
+        if (c == close) {
+            return false;
+        }
+        throw syntax("',' or '" + close + "'");
+    }
+
+    private void expect(char expected) throws IOException {
+        if (peekToken() != expected) {
+            throw syntax("'" + expected + "'");
+        }
+        next();
+    }
+
+    private int peekToken() throws IOException {
+        int c = peek();
+        while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+            next();
+            c = peek();
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = in.read();
+        }
+        return peeked;
+    }
+
+    private int next() throws IOException {
+        int c = peek();
+        peeked = -2;
+        position++;
+        return c;
+    }
+
+    private JsonSyntaxException syntax(String expected) throws IOException {
+        int c = peek();
+        return new JsonSyntaxException("Expected " + expected + " at character " + position
+                + (c == -1 ? " but the input ended" : ""));
+    }
+
+    /**
+     * Thrown when a request body is not the JSON the API expects.
+     */
+    public static class JsonSyntaxException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        JsonSyntaxException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Thrown when a request body holds more objects than the reader accepts.
+     */
+    public static class LimitExceededException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        LimitExceededException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/* File: JsonWriter.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: minimal streaming JSON writer for the REST API
+ */
+package viewlayer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes JSON tokens straight to the response as they are produced. Callers
+ * describe the document with begin/end, name and value calls; commas and
+ * escaping are handled here, so no object graph or reflection is involved.
+ * Not thread-safe.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class JsonWriter implements AutoCloseable {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    /* whether the container at each nesting depth is still empty */
+    private boolean[] empty = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    /**
+     * Creates a writer that encodes UTF-8 to the given stream.
+     *
+     * @param out the stream to write to.
+     */
+    public JsonWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+    }
+
+    /**
+     * Opens an object.
+     *
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter beginObject() throws IOException {
+        open('{');
+        return this;
+    }
+
+    /**
+     * Closes the current object.
+     *
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter endObject() throws IOException {
+        depth--;
+        out.write('}');
+        return this;
+    }
+
+    /**
+     * Opens an array.
+     *
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter beginArray() throws IOException {
+        open('[');
+        return this;
+    }
+
+    /**
+     * Closes the current array.
+     *
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter endArray() throws IOException {
+        depth--;
+        out.write(']');
+        return this;
+    }
+
+    /**
+     * Writes the name of the next object member.
+     *
+     * @param name the member name.
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter name(String name) throws IOException {
+        separate();
+        string(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes a string value, or null.
+     *
+     * @param value the value.
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter value(String value) throws IOException {
+        separate();
+        if (value == null) {
+            out.write("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a number value.
+     *
+     * @param value the value.
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter value(long value) throws IOException {
+        separate();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /**
+     * Writes a boolean value.
+     *
+     * @param value the value.
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter value(boolean value) throws IOException {
+        separate();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Writes a null value.
+     *
+     * @return this writer.
+     * @throws IOException if the stream fails.
+     */
+    public JsonWriter nullValue() throws IOException {
+        separate();
+        out.write("null");
+        return this;
+    }
+
+    /**
+     * Sends buffered output on to the stream.
+     *
+     * @throws IOException if the stream fails.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the stream.
+     *
+     * @throws IOException if the stream fails.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void open(char bracket) throws IOException {
+        separate();
+        out.write(bracket);
+        if (++depth == empty.length) {
+            boolean[] grown = new boolean[empty.length * 2];
+            System.arraycopy(empty, 0, grown, 0, empty.length);
+            empty = grown;
+        }
+        empty[depth] = true;
+    }
+
+    private void separate() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (!empty[depth]) {
+                out.write(',');
+            }
+            empty[depth] = false;
+        }
+    }
+
+    private void string(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                case '\r':
+                    out.write("\\r");
+                    break;
+                case '\t':
+                    out.write("\\t");
+                    break;
+                default:
+                    out.write("\\u");
+                    out.write(HEX[c >> 12]);
+                    out.write(HEX[(c >> 8) & 0xF]);
+                    out.write(HEX[(c >> 4) & 0xF]);
+                    out.write(HEX[c & 0xF]);
+            }
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+}
@@ -0,0 +1,361 @@
+package viewlayer;
+
+import businesslayer.PeerTutorBusinessLogic;
+import businesslayer.PeerTutorUnitOfWork;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import transferobject.AssignmentResult;
+import transferobject.EligibilityStatus;
+import transferobject.FreeSlot;
+import transferobject.PeerTutor;
+
+/**
+ * JSON API over the peer tutor business logic, for front-ends and
+ * integrations that should not have to scrape the HTML pages.
+ * <ul>
+ * <li>{@code GET /api/eligibility?lastname=&firstname=&code=} checks whether
+ * a course can be assigned to a peer tutor. An optional {@code email} tells
+ * apart peer tutors who share a name.</li>
+ * <li>{@code POST /api/assignments} with the same parameters assigns it;
+ * the status is 201, 409 if already assigned, 422 if ineligible.</li>
+ * <li>{@code GET /api/courses/{code}/tutors?after=&page=} lists one page of
+ * the course roster. It carries an ETag built from the roster version of
+ * migration V008 and the content coding, answers If-None-Match with 304 when
+ * the roster has not changed, and is gzip-compressed when the client accepts
+ * it.</li>
+ * <li>{@code GET /api/courses/{code}/free-slots?count=&duration=&days=} lists
+ * the earliest times at which a peer tutor of the course is free for a
+ * session of the given minutes, until the end of this week unless
+ * {@code days} says otherwise.</li>
+ * </ul>
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class PeerTutorApiServlet extends HttpServlet {
+
+    private static final String JSON = "application/json;charset=UTF-8";
+    private static final Histogram LATENCY = MetricsRegistry.histogram("peertutor_http_request_duration_seconds",
+            "Time from receiving a request to completing its response.", "servlet").labels("PeerTutorApiServlet");
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_FREE_SLOTS = 10;
+    private static final int MAX_FREE_SLOTS = 100;
+    private static final int MAX_FREE_SLOT_DAYS = 14;
+    /* not among the HttpServletResponse constants of Servlet 4.0 */
+    private static final int SC_UNPROCESSABLE_ENTITY = 422;
+
+    private PeerTutorBusinessLogic logic;
+
+    /**
+     * Gets the business logic the application shares.
+     *
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Override
+    public void init() throws ServletException {
+        logic = PeerTutorApplication.peerTutorLogic(getServletContext());
+    }
+
+    /**
+     * Times every request before dispatching it to the method handlers.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            super.service(request, response);
+        } finally {
+            LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>GET</code> method: eligibility checks and roster
+     * listings.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String[] path = pathSegments(request);
+        if (path.length == 1 && "eligibility".equals(path[0])) {
+            eligibility(request, response);
+        } else if (path.length == 3 && "courses".equals(path[0]) && "tutors".equals(path[2])) {
+            tutors(request, response, path[1]);
+        } else if (path.length == 3 && "courses".equals(path[0]) && "free-slots".equals(path[2])) {
+            freeSlots(request, response, path[1]);
+        } else {
+            error(response, HttpServletResponse.SC_NOT_FOUND, "Unknown resource");
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method: course assignments.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String[] path = pathSegments(request);
+        if (path.length == 1 && "assignments".equals(path[0])) {
+            assign(request, response);
+        } else {
+            error(response, HttpServletResponse.SC_NOT_FOUND, "Unknown resource");
+        }
+    }
+
+    private void eligibility(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PeerTutor peerTutor = peerTutorParameter(request);
+        String courseCode = request.getParameter("code");
+        if (peerTutor == null || courseCode == null) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, "lastname, firstname and code are required");
+            return;
+        }
+        EligibilityStatus status = logic.checkEligibility(peerTutor, courseCode);
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject();
+            writeRequest(json, peerTutor, courseCode);
+            json.name("eligible").value(status == EligibilityStatus.ELIGIBLE);
+            json.name("status").value(status.name());
+            json.name("message").value(status.getErrorMessage());
+            json.endObject();
+        }
+    }
+
+    private void assign(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        PeerTutor peerTutor = peerTutorParameter(request);
+        String courseCode = request.getParameter("code");
+        if (peerTutor == null || courseCode == null) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, "lastname, firstname and code are required");
+            return;
+        }
+        // the assignment and a refusal's reason both come from one load of the tutor's record
+        PeerTutorUnitOfWork work = logic.beginUnitOfWork(peerTutor);
+        AssignmentResult result = work.assignCourse(courseCode);
+        EligibilityStatus status = null;
+        if (result == AssignmentResult.ASSIGNED) {
+            response.setStatus(HttpServletResponse.SC_CREATED);
+        } else if (result == AssignmentResult.ALREADY_ASSIGNED) {
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            status = EligibilityStatus.ALREADY_ASSIGNED;
+        } else if (result == AssignmentResult.INELIGIBLE) {
+            response.setStatus(SC_UNPROCESSABLE_ENTITY);
+            status = work.checkEligibility(courseCode);
+        } else {
+            error(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The course could not be assigned, please try again");
+            return;
+        }
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject();
+            writeRequest(json, peerTutor, courseCode);
+            json.name("result").value(result.name());
+            json.name("status").value(status == null ? null : status.name());
+            json.name("message").value(status == null ? null : status.getErrorMessage());
+            json.endObject();
+        }
+    }
+
+    private void tutors(HttpServletRequest request, HttpServletResponse response, String courseCode)
+            throws IOException {
+        int after = intParameter(request, "after", Integer.MIN_VALUE);
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, intParameter(request, "page", DEFAULT_PAGE_SIZE)));
+
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        // a 304 is cached like the response it stands for, so it varies the same way
+        response.setHeader("Vary", "Accept-Encoding");
+        String version = logic.getRosterVersion(courseCode);
+        if (version != null) {
+            // the gzip and identity bodies differ byte for byte, so they need different strong tags
+            String etag = "\"" + version + "." + after + "." + pageSize + (gzip ? "-gzip" : "") + "\"";
+            if (matches(request.getHeader("If-None-Match"), etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                response.setHeader("ETag", etag);
+                return;
+            }
+            response.setHeader("ETag", etag);
+        }
+        response.setContentType(JSON);
+
+        OutputStream body = response.getOutputStream();
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+            body = new GZIPOutputStream(body, 8192);
+        }
+        try (JsonWriter json = new JsonWriter(body)) {
+            int[] rows = {0};
+            int[] lastShown = {after};
+            json.beginObject();
+            json.name("courseCode").value(courseCode);
+            json.name("tutors").beginArray();
+            try {
+                // one row more than the page tells whether there is a next page
+                logic.streamPeerTutorsForCourse(courseCode, after, pageSize + 1, tutor -> {
+                    if (rows[0]++ < pageSize) {
+                        try {
+                            json.beginObject();
+                            json.name("id").value(tutor.getPeerTutorID());
+                            json.name("lastName").value(tutor.getLastName());
+                            json.name("firstName").value(tutor.getFirstName());
+                            json.endObject();
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                        lastShown[0] = tutor.getPeerTutorID();
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            json.endArray();
+            json.name("next");
+            if (rows[0] > pageSize) {
+                json.value(lastShown[0]);
+            } else {
+                json.nullValue();
+            }
+            json.endObject();
+        }
+    }
+
+    private void freeSlots(HttpServletRequest request, HttpServletResponse response, String courseCode)
+            throws IOException {
+        int count = Math.max(1, Math.min(MAX_FREE_SLOTS, intParameter(request, "count", DEFAULT_FREE_SLOTS)));
+        int duration = intParameter(request, "duration", 60);
+        LocalDate today = LocalDate.now();
+        int days = intParameter(request, "days", 0);
+        LocalDate until = days > 0
+                ? today.plusDays(Math.min(days, MAX_FREE_SLOT_DAYS))
+                : today.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+        List<FreeSlot> slots = logic.getNextFreeSlots(courseCode, until.atStartOfDay(),
+                duration, count);
+        if (slots == null) {
+            error(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Availability is unknown, please try again");
+            return;
+        }
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject();
+            json.name("courseCode").value(courseCode);
+            json.name("until").value(until.toString());
+            json.name("slots").beginArray();
+            for (FreeSlot slot : slots) {
+                json.beginObject();
+                json.name("start").value(slot.getStart().toString());
+                json.name("duration").value(slot.getDurationMinutes());
+                json.name("tutorId").value(slot.getPeerTutor().getPeerTutorID());
+                json.name("lastName").value(slot.getPeerTutor().getLastName());
+                json.name("firstName").value(slot.getPeerTutor().getFirstName());
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private static void writeRequest(JsonWriter json, PeerTutor peerTutor, String courseCode) throws IOException {
+        json.name("lastName").value(peerTutor.getLastName());
+        json.name("firstName").value(peerTutor.getFirstName());
+        json.name("courseCode").value(courseCode);
+    }
+
+    private static void error(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject().name("error").value(message).endObject();
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static PeerTutor peerTutorParameter(HttpServletRequest request) {
+        String lastName = request.getParameter("lastname");
+        String firstName = request.getParameter("firstname");
+        if (lastName == null || firstName == null) {
+            return null;
+        }
+        PeerTutor peerTutor = new PeerTutor();
+        peerTutor.setLastName(lastName);
+        peerTutor.setFirstName(firstName);
+        peerTutor.setEmail(request.getParameter("email"));
+        return peerTutor;
+    }
+
+    private static String[] pathSegments(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || pathInfo.length() <= 1) {
+            return new String[0];
+        }
+        return pathInfo.substring(1).split("/");
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "JSON API for peer tutor eligibility, assignment and rosters";
+    }
+}
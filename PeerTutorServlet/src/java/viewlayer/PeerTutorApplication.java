@@ -0,0 +1,126 @@
+package viewlayer;
+
+import businesslayer.PeerTutorBusinessLogic;
+import businesslayer.ReportBusinessLogic;
+import dataaccesslayer.AuditLog;
+import dataaccesslayer.DataSource;
+import dataaccesslayer.ReportDAOImpl;
+import dataaccesslayer.ReportRefresher;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * Builds the business layer once when the application is deployed and
+ * shares it with every servlet through the servlet context.
+ * <p>
+ * Before the container accepts the first request, the listener opens the
+ * connection pools, prepares the statements the DAOs use on every pooled
+ * connection, builds the identity and free-slot indexes and starts the
+ * {@link ReportRefresher} and the {@link AuditLog} writer, so the first
+ * requests after a deploy are no slower than the rest. When the application
+ * is undeployed, the container has already destroyed the servlets and their
+ * threads; the listener then stops the refresher, writes the audit entries
+ * still waiting and closes the pools.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class PeerTutorApplication implements ServletContextListener {
+
+    private static final String PEER_TUTOR_LOGIC = PeerTutorBusinessLogic.class.getName();
+    private static final String REPORT_LOGIC = ReportBusinessLogic.class.getName();
+    private static final String AUDIT_LOG = AuditLog.class.getName();
+
+    private ReportRefresher refresher;
+    private AuditLog auditLog;
+
+    /**
+     * Builds and warms up the business layer and starts the rollup refresh
+     * and the audit writer.
+     *
+     * @param event the context being initialized
+     */
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        long start = System.nanoTime();
+        PeerTutorBusinessLogic peerTutorLogic = new PeerTutorBusinessLogic();
+        ReportBusinessLogic reportLogic = new ReportBusinessLogic();
+        // a failed warm-up only leaves the work to the first requests
+        try {
+            peerTutorLogic.warmUp();
+            reportLogic.warmUp();
+        } catch (RuntimeException ex) {
+            ex.printStackTrace();
+        }
+        ServletContext context = event.getServletContext();
+        context.setAttribute(PEER_TUTOR_LOGIC, peerTutorLogic);
+        context.setAttribute(REPORT_LOGIC, reportLogic);
+        refresher = new ReportRefresher(new ReportDAOImpl());
+        refresher.start();
+        auditLog = new AuditLog();
+        auditLog.start();
+        context.setAttribute(AUDIT_LOG, auditLog);
+        System.out.println("PeerTutor started in " + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    /**
+     * Stops the rollup refresh, flushes the audit log and closes the
+     * connection pools.
+     *
+     * @param event the context being destroyed
+     */
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        ServletContext context = event.getServletContext();
+        context.removeAttribute(PEER_TUTOR_LOGIC);
+        context.removeAttribute(REPORT_LOGIC);
+        context.removeAttribute(AUDIT_LOG);
+        if (refresher != null) {
+            refresher.stop();
+        }
+        if (auditLog != null) {
+            auditLog.stop();
+        }
+        DataSource.shutdown();
+    }
+
+    /**
+     * The peer tutor business logic shared by the application.
+     *
+     * @param context the servlet context
+     * @return the shared instance, or a new one if the listener is not
+     * registered.
+     */
+    static PeerTutorBusinessLogic peerTutorLogic(ServletContext context) {
+        Object logic = context.getAttribute(PEER_TUTOR_LOGIC);
+        return logic instanceof PeerTutorBusinessLogic
+                ? (PeerTutorBusinessLogic) logic : new PeerTutorBusinessLogic();
+    }
+
+    /**
+     * The report business logic shared by the application.
+     *
+     * @param context the servlet context
+     * @return the shared instance, or a new one if the listener is not
+     * registered.
+     */
+    static ReportBusinessLogic reportLogic(ServletContext context) {
+        Object logic = context.getAttribute(REPORT_LOGIC);
+        return logic instanceof ReportBusinessLogic
+                ? (ReportBusinessLogic) logic : new ReportBusinessLogic();
+    }
+
+    /**
+     * The audit log shared by the application.
+     *
+     * @param context the servlet context
+     * @return the audit log, or null if the listener is not registered.
+     */
+    static AuditLog auditLog(ServletContext context) {
+        Object log = context.getAttribute(AUDIT_LOG);
+        return log instanceof AuditLog ? (AuditLog) log : null;
+    }
+}
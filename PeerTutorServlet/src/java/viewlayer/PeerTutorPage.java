@@ -0,0 +1,151 @@
+/* File: PeerTutorPage.java
+ * Author: Lei Luo
+ * Date: 2023
+ * Description: HTML fragments of the peer tutor assignment page
+ */
+package viewlayer;
+
+import java.io.IOException;
+import transferobject.EligibilityStatus;
+import transferobject.PeerTutor;
+
+/**
+ * Renders the result page of {@link PeerTutorServlet} piece by piece, so the
+ * roster can be written row by row as it is read from the database. All
+ * fixed markup is encoded once when the class loads.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public final class PeerTutorPage {
+
+    private static final byte[] HEAD = HtmlWriter.encode("<!DOCTYPE html>\n<html>\n<head>\n"
+            + "<meta charset=\"UTF-8\">\n<title>A Sample Form Using POST</title>\n</head>\n"
+            + "<body bgcolor=\"#FDF5E6\">\n<h1>Servlet PeerTutorServlet at ");
+    private static final byte[] HEAD_END = HtmlWriter.encode("</h1>\n");
+    private static final byte[] LIST_BEGIN = HtmlWriter.encode("<ul>\n");
+    private static final byte[] LAST_NAME = HtmlWriter.encode("<li> LastName: ");
+    private static final byte[] FIRST_NAME = HtmlWriter.encode("<li> FirstName: ");
+    private static final byte[] COURSE_CODE = HtmlWriter.encode("<li> Course Code: ");
+    private static final byte[] ITEM_END = HtmlWriter.encode("</li>\n");
+    private static final byte[] LIST_END = HtmlWriter.encode("</ul>\n");
+    private static final byte[] ERROR = HtmlWriter.encode("<h2> Error: ");
+    private static final byte[] ERROR_END = HtmlWriter.encode("</h2>\n");
+    private static final byte[] TABLE_BEGIN = HtmlWriter.encode("<table>\n<caption>Table of Peer Tutors for ");
+    private static final byte[] TABLE_HEADER = HtmlWriter.encode("</caption>\n"
+            + "<tr><th>Tutor ID</th><th>Last Name</th><th>First Name</th></tr>\n");
+    private static final byte[] ROW_BEGIN = HtmlWriter.encode("<tr><td>");
+    private static final byte[] CELL = HtmlWriter.encode("</td><td>");
+    private static final byte[] ROW_END = HtmlWriter.encode("</td></tr>\n");
+    private static final byte[] TABLE_END = HtmlWriter.encode("</table>\n");
+    private static final byte[] NEXT_PAGE = HtmlWriter.encode("<p><a href=\"");
+    private static final byte[] NEXT_PAGE_END = HtmlWriter.encode("\">Next page</a></p>\n");
+    private static final byte[] TAIL = HtmlWriter.encode("</body>\n</html>\n");
+
+    private PeerTutorPage() {
+    }
+
+    /**
+     * Writes the document head and page heading.
+     *
+     * @param out the page writer.
+     * @param contextPath the application context path shown in the heading.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void begin(HtmlWriter out, String contextPath) throws IOException {
+        out.raw(HEAD).text(contextPath).raw(HEAD_END);
+    }
+
+    /**
+     * Writes the submitted values relevant to a failed check, followed by its
+     * error message.
+     *
+     * @param out the page writer.
+     * @param status the failed check.
+     * @param lastName the submitted last name.
+     * @param firstName the submitted first name.
+     * @param courseCode the submitted course code.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void eligibilityError(HtmlWriter out, EligibilityStatus status, String lastName,
+            String firstName, String courseCode) throws IOException {
+        out.raw(LIST_BEGIN);
+        if (status != EligibilityStatus.INVALID_COURSE) {
+            out.raw(LAST_NAME).text(lastName).raw(ITEM_END);
+            out.raw(FIRST_NAME).text(firstName).raw(ITEM_END);
+        }
+        if (status != EligibilityStatus.NOT_REGISTERED) {
+            out.raw(COURSE_CODE).text(courseCode).raw(ITEM_END);
+        }
+        out.raw(LIST_END);
+        error(out, status.getErrorMessage());
+    }
+
+    /**
+     * Writes an error heading.
+     *
+     * @param out the page writer.
+     * @param message the error message.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void error(HtmlWriter out, String message) throws IOException {
+        out.raw(ERROR).text(message).raw(ERROR_END);
+    }
+
+    /**
+     * Opens the roster table of a course.
+     *
+     * @param out the page writer.
+     * @param courseCode the course shown in the caption.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void rosterBegin(HtmlWriter out, String courseCode) throws IOException {
+        out.raw(TABLE_BEGIN).text(courseCode).raw(TABLE_HEADER);
+    }
+
+    /**
+     * Writes one roster row.
+     *
+     * @param out the page writer.
+     * @param tutor the peer tutor on this row.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void rosterRow(HtmlWriter out, PeerTutor tutor) throws IOException {
+        out.raw(ROW_BEGIN).number(tutor.getPeerTutorID())
+                .raw(CELL).text(tutor.getLastName())
+                .raw(CELL).text(tutor.getFirstName())
+                .raw(ROW_END);
+    }
+
+    /**
+     * Closes the roster table.
+     *
+     * @param out the page writer.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void rosterEnd(HtmlWriter out) throws IOException {
+        out.raw(TABLE_END);
+    }
+
+    /**
+     * Writes a link to the next roster page.
+     *
+     * @param out the page writer.
+     * @param url the URL of the next page, already URL-encoded.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void nextPageLink(HtmlWriter out, String url) throws IOException {
+        out.raw(NEXT_PAGE).text(url).raw(NEXT_PAGE_END);
+    }
+
+    /**
+     * Closes the document.
+     *
+     * @param out the page writer.
+     * @throws IOException if the response cannot be written.
+     */
+    public static void end(HtmlWriter out) throws IOException {
+        out.raw(TAIL);
+    }
+}
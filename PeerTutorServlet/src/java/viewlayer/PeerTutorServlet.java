@@ -1,21 +1,59 @@
 package viewlayer;
 
 import businesslayer.PeerTutorBusinessLogic;
+import businesslayer.PeerTutorUnitOfWork;
+import dataaccesslayer.AuditLog;
+import dataaccesslayer.DataSource;
 
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.List;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import transferobject.AssignmentAudit;
+import transferobject.AssignmentResult;
+import transferobject.EligibilityStatus;
 import transferobject.PeerTutor;
 
 /**
  * Servlet responsible for handling requests related to Peer Tutor operations.
  * It communicates with the business logic layer to process peer tutor validations
  * and course assignments.
+ * <p>
+ * Requests are processed asynchronously: the container thread only hands the
+ * request to a small, bounded pool of database threads and returns, so slow
+ * database periods do not tie up the container's request threads. When the
+ * pool's queue is full the request is refused at once with 503, and a request
+ * that is not answered within the configured time gets 503 as well. The pool
+ * is sized with the init parameters {@code dbThreads},
+ * {@code dbQueueCapacity} and {@code requestTimeoutMillis}.
+ * <p>
+ * The time limit is kept by the servlet rather than by the container's async
+ * timeout. Once a worker has started writing, the response is its own until
+ * it completes it; the container's timeout would complete the request, and
+ * recycle it, underneath the worker.
+ * <p>
+ * Every assignment attempt is handed to the application's {@link AuditLog},
+ * which writes it to the audit trail in the background.
  * 
  * @author: Lei Luo
  * @version 1.0
@@ -24,9 +62,100 @@ import transferobject.PeerTutor;
 public class PeerTutorServlet extends HttpServlet {
 
     /**
-     * Processes requests for both HTTP {@code GET} and {@code POST} methods.
-     * Validates peer tutor information and course assignments, and generates
-     * appropriate HTML output in response to the client's request.
+     * Roster rows shown per page when the request does not say.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Upper bound on the page parameter.
+     */
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private static final Histogram LATENCY = MetricsRegistry.histogram("peertutor_http_request_duration_seconds",
+            "Time from receiving a request to completing its response.", "servlet").labels("PeerTutorServlet");
+
+    private static final Counter QUEUE_FULL = MetricsRegistry.counter("peertutor_http_rejected_total",
+            "Requests answered with 503 without being processed.", "reason").labels("queue_full");
+
+    private static final Counter TIMED_OUT = MetricsRegistry.counter("peertutor_http_rejected_total",
+            "Requests answered with 503 without being processed.", "reason").labels("timeout");
+
+    /**
+     * Runs the database work of each request off the container threads.
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Answers requests that run past their time limit.
+     */
+    private ScheduledExecutorService deadlines;
+
+    /**
+     * How long a request may take before it is answered with 503.
+     */
+    private long timeoutMillis;
+
+    private PeerTutorBusinessLogic logic;
+
+    /**
+     * Where assignment attempts are recorded, or null if nothing is.
+     */
+    private AuditLog auditLog;
+
+    /**
+     * Gets the business logic the application shares and starts the
+     * database thread pool from the servlet's init parameters. There is no
+     * point in more threads than database connections; a thread without a
+     * connection would only wait in the pool.
+     *
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Override
+    public void init() throws ServletException {
+        logic = PeerTutorApplication.peerTutorLogic(getServletContext());
+        auditLog = PeerTutorApplication.auditLog(getServletContext());
+        int threads = Math.max(1, intInitParameter("dbThreads", 10));
+        int queueCapacity = Math.max(1, intInitParameter("dbQueueCapacity", 100));
+        timeoutMillis = Math.max(1, intInitParameter("requestTimeoutMillis", 10000));
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread t = new Thread(r, "peertutor-db-" + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        deadlines = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "peertutor-deadline");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Lets running requests finish, then stops the database thread pool.
+     */
+    @Override
+    public void destroy() {
+        deadlines.shutdownNow();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Processes requests for both HTTP {@code GET} and {@code POST} methods
+     * by queueing them on the database thread pool. Whichever comes first of
+     * the worker starting to write and the deadline takes the response, and
+     * only that side writes to it and completes it. A deadline that loses
+     * does nothing: the worker already has its answer and finishes writing
+     * it.
      *
      * @param request  Servlet request
      * @param response Servlet response
@@ -35,73 +164,337 @@ public class PeerTutorServlet extends HttpServlet {
      */
     protected void processRequest(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
+        long start = System.nanoTime();
+        Submission submission = new Submission(request);
+        if (!request.isAsyncSupported()) {
+            // e.g. behind a filter that is not marked async-supported
+            try {
+                handleRequest(request, response, submission, new AtomicReference<>(), start);
+            } finally {
+                LATENCY.recordSince(start);
+            }
+            return;
+        }
+        AsyncContext async = request.startAsync();
+        // no container timeout, the deadline below keeps the time limit
+        async.setTimeout(0);
+        AtomicReference<Thread> owner = new AtomicReference<>();
+        AtomicReference<Future<?>> task = new AtomicReference<>();
+        AtomicReference<Future<?>> deadline = new AtomicReference<>();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                // the connection is gone; the container completes the request
+                owner.compareAndSet(null, Thread.currentThread());
+                cancel(task.get());
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+                cancel(deadline.get());
+                LATENCY.recordSince(start);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        // the client's last write, so the worker's reads see it too
+        long lastWrite = DataSource.getLastWriteMillis();
+        try {
+            task.set(executor.submit(() -> {
+                DataSource.setLastWriteMillis(lastWrite);
+                try {
+                    handleRequest(request, response, submission, owner, start);
+                } catch (IOException | RuntimeException ex) {
+                    ex.printStackTrace();
+                } finally {
+                    DataSource.setLastWriteMillis(0);
+                    // a request that failed before writing is still this worker's to complete
+                    owner.compareAndSet(null, Thread.currentThread());
+                    if (owner.get() == Thread.currentThread()) {
+                        complete(async);
+                    }
+                }
+            }));
+        } catch (RejectedExecutionException ex) {
+            QUEUE_FULL.increment();
+            owner.set(Thread.currentThread());
+            unavailable(request, response, "The server is busy, please try again");
+            async.complete();
+            return;
+        }
+        deadline.set(deadlines.schedule(() -> {
+            if (!owner.compareAndSet(null, Thread.currentThread())) {
+                return;
+            }
+            TIMED_OUT.increment();
+            cancel(task.get());
+            try {
+                unavailable(request, response, "The request took too long, please try again");
+            } catch (IOException ex) {
+                // the client is gone
+            } finally {
+                complete(async);
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Validates peer tutor information and course assignments, and generates
+     * appropriate HTML output in response to the client's request. The
+     * decision is made before anything is written, so a request that times
+     * out while waiting on the database can still be answered cleanly; the
+     * roster is then written row by row as it is read.
+     * <p>
+     * The roster is paginated: {@code page} sets the page size and
+     * {@code after} the last peer tutor ID of the previous page. A request
+     * that carries {@code after} only lists the roster of {@code code}.
+     * <p>
+     * The request itself is only used once the response is claimed: until
+     * then the deadline may complete it, after which the container may
+     * recycle it. What the work needs comes from the submission instead.
+     *
+     * @param request  Servlet request
+     * @param response Servlet response
+     * @param submission the request's parameters, read on the container thread
+     * @param owner    the thread that took the response, set by this method
+     *                 or by the deadline; nothing is written if it was
+     *                 already set
+     * @param start    when the request was received, from System.nanoTime()
+     * @throws IOException if an I/O error occurs
+     */
+    private void handleRequest(HttpServletRequest request, HttpServletResponse response, Submission submission,
+            AtomicReference<Thread> owner, long start) throws IOException {
+        String courseCode = submission.courseCode;
+        PeerTutor peerTutor = submission.peerTutor;
+        int pageSize = submission.pageSize;
+
+        if (submission.rosterOnly) {
+            if (!owner.compareAndSet(null, Thread.currentThread())) {
+                return;
+            }
+            response.setContentType("text/html;charset=UTF-8");
+            try (HtmlWriter out = new HtmlWriter(response.getOutputStream())) {
+                PeerTutorPage.begin(out, request.getContextPath());
+                out.flush();
+                writeRosterPage(out, logic, request, courseCode, submission.after, pageSize);
+                PeerTutorPage.end(out);
+            }
+            return;
+        }
+
+        // the check, the insert and a refusal's reason all use one load of the tutor's record
+        PeerTutorUnitOfWork work = logic.beginUnitOfWork(peerTutor);
+        EligibilityStatus status = work.checkEligibility(courseCode);
+        AssignmentResult result = null;
+        if (status == EligibilityStatus.ELIGIBLE) {
+            result = work.assignCourse(courseCode);
+            if (result == AssignmentResult.ALREADY_ASSIGNED) {
+                // another submission assigned it between the check and the insert
+                status = work.checkEligibility(courseCode);
+            }
+        }
+        audit(submission, status, result, start);
+
+        if (!owner.compareAndSet(null, Thread.currentThread())) {
+            return;
+        }
         response.setContentType("text/html;charset=UTF-8");
-        try (PrintWriter out = response.getWriter()) {
-            out.println("<!DOCTYPE html>");
-            out.println("<html>");
-            out.println("<head>");
-            out.println("<title>A Sample Form Using POST</title>");
-            out.println("</head>");
-            out.println("<body bgcolor=\"#FDF5E6\">");
-            out.println("<h1>Servlet PeerTutorServlet at " + request.getContextPath() + "</h1>");
-
-            PeerTutorBusinessLogic logic = new PeerTutorBusinessLogic();
-            String courseCode = request.getParameter("code");
-            String firstName = request.getParameter("firstname");
-            String lastName = request.getParameter("lastname");
-            PeerTutor peerTutor = new PeerTutor();
-            peerTutor.setFirstName(firstName);
-            peerTutor.setLastName(lastName);
-
-            if (logic.isPeerTutorRegistered(peerTutor) == false) {
-                out.println("<ul>");
-                out.println("<li> LastName: " + lastName + "</li>");
-                out.println("<li> FirstName: " + firstName + "</li>");
-                out.println("</ul>");
-                out.println("<h2> Error: The person is not registered as a peer tutor</h2> ");
-            } else if (logic.isCourseValid(courseCode) == false) {
-                out.println("<ul>");
-                out.println("<li> Course Code:" + courseCode + "</li>");
-                out.println("</ul>");
-                out.println("<h2> Error: The course is not valid</h2> ");
-            } else if (logic.hasPeerTutorTakenCourse(peerTutor, courseCode) == false) {
-                   out.println("<ul>");
-                out.println("<li> LastName:" + lastName + "</li>");
-                out.println("<li> FirstName:" + firstName + "</li>");
-                out.println("<li> Course Code:" + courseCode + "</li>");
-                  out.println("</ul>");
-                out.println("<h2> Error: The peer tutor has not taken the course</h2> ");
-            } else if (logic.getPeerTutorLetterGradeForCourse(peerTutor, courseCode) == false) {
-
-                 out.println("<ul>");
-                out.println("<li> LastName:" + lastName + "</li>");
-                out.println("<li> FirstName:" + firstName + "</li>");
-                out.println("<li> Course Code:" + courseCode + "</li>");
-                   out.println("</ul>");
-                out.println("<h2> Error: The letter grade obtained by the peer tutor for the course is not sufficient</h2> ");
-            } else if (logic.isCourseAlreadyAssignedToPeerTutor(peerTutor, courseCode) == true) {
-                   out.println("<ul>");
-                out.println("<li> LastName:" + lastName + "</li>");
-                out.println("<li> FirstName:" + firstName + "</li>");
-                out.println("<li> Course Code:" + courseCode + "</li>");
-                  out.println("</ul>");
-                out.println("<h2> Error: The peer tutor is already assigned to the course</h2> ");
+        try (HtmlWriter out = new HtmlWriter(response.getOutputStream())) {
+            PeerTutorPage.begin(out, request.getContextPath());
+
+            if (status != EligibilityStatus.ELIGIBLE) {
+                PeerTutorPage.eligibilityError(out, status, peerTutor.getLastName(), peerTutor.getFirstName(),
+                        courseCode);
+            } else if (result != AssignmentResult.ASSIGNED) {
+                PeerTutorPage.error(out, "The course could not be assigned, please try again");
             } else {
+                writeRosterPage(out, logic, request, courseCode, Integer.MIN_VALUE, pageSize);
+            }
+
+            PeerTutorPage.end(out);
+        }
+    }
 
-                logic.assignCourseToPeerTutor(peerTutor, courseCode);
-                List<PeerTutor> tutors = logic.getAllPeerTutorsForCourse(courseCode);
-                out.println("<table>");
-                out.println("<caption>Table of Peer Tutors for " + courseCode + "</caption>");
-                out.println("<tr><th>Tutor ID</th><th>Last Name</th><th>First Name</th></tr>");
-                for (PeerTutor tutor : tutors) {
-                    out.printf("<tr><td>%s</td><td>%s</td></tr>",
-                            tutor.getLastName(), tutor.getFirstName());
-                    out.println("</table>");
+    /**
+     * Hands an assignment attempt to the audit log; returns at once.
+     */
+    private void audit(Submission submission, EligibilityStatus status, AssignmentResult result, long start) {
+        if (auditLog == null) {
+            return;
+        }
+        PeerTutor peerTutor = submission.peerTutor;
+        AssignmentAudit audit = new AssignmentAudit();
+        audit.setAttemptedAt(System.currentTimeMillis());
+        audit.setSource("PeerTutorServlet");
+        audit.setClientAddress(submission.clientAddress);
+        audit.setLastName(peerTutor.getLastName());
+        audit.setFirstName(peerTutor.getFirstName());
+        audit.setEmail(peerTutor.getEmail());
+        audit.setPeerTutorID(peerTutor.getPeerTutorID());
+        audit.setCourseCode(submission.courseCode);
+        audit.setStatus(status);
+        audit.setResult(result);
+        audit.setLatencyMicros((System.nanoTime() - start) / 1000);
+        auditLog.record(audit);
+    }
+
+    /**
+     * Streams one page of a course roster, followed by a link to the next
+     * page when there is one. One row more than the page size is read to find
+     * out whether another page exists.
+     *
+     * @param out the page writer.
+     * @param logic the business logic to read from.
+     * @param request the current request, used to build the next page URL.
+     * @param courseCode the course to list.
+     * @param after the last peer tutor ID of the previous page.
+     * @param pageSize the number of rows to show.
+     * @throws IOException if the response cannot be written.
+     */
+    private void writeRosterPage(HtmlWriter out, PeerTutorBusinessLogic logic, HttpServletRequest request,
+            String courseCode, int after, int pageSize) throws IOException {
+        int[] lastShown = {after};
+        int[] rows = {0};
+        PeerTutorPage.rosterBegin(out, courseCode);
+        try {
+            logic.streamPeerTutorsForCourse(courseCode, after, pageSize + 1, tutor -> {
+                if (rows[0]++ < pageSize) {
+                    try {
+                        PeerTutorPage.rosterRow(out, tutor);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    lastShown[0] = tutor.getPeerTutorID();
                 }
-            }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        PeerTutorPage.rosterEnd(out);
+        if (rows[0] > pageSize) {
+            PeerTutorPage.nextPageLink(out, request.getContextPath() + request.getServletPath()
+                    + "?code=" + URLEncoder.encode(courseCode, StandardCharsets.UTF_8)
+                    + "&after=" + lastShown[0] + "&page=" + pageSize);
+        }
+    }
+
+    /**
+     * Answers with 503 and a short error page, asking the client to retry.
+     *
+     * @param request the current request.
+     * @param response the response to write.
+     * @param message the error shown to the user.
+     * @throws IOException if the response cannot be written.
+     */
+    private static void unavailable(HttpServletRequest request, HttpServletResponse response, String message)
+            throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.setContentType("text/html;charset=UTF-8");
+        try (HtmlWriter out = new HtmlWriter(response.getOutputStream())) {
+            PeerTutorPage.begin(out, request.getContextPath());
+            PeerTutorPage.error(out, message);
+            PeerTutorPage.end(out);
+        }
+    }
+
+    /**
+     * Stops a queued or running request that is no longer wanted. A queued
+     * one never starts; a running one is interrupted, which ends a wait for
+     * a database connection.
+     *
+     * @param task the request's task, or null if it was not queued yet.
+     */
+    private static void cancel(Future<?> task) {
+        if (task != null) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Completes an asynchronous request unless the other side already did.
+     *
+     * @param async the request's context.
+     */
+    private static void complete(AsyncContext async) {
+        try {
+            async.complete();
+        } catch (IllegalStateException ex) {
+            // already completed by the container after an error
+        }
+    }
+
+    /**
+     * Reads an integer init parameter of this servlet.
+     *
+     * @param name the parameter name.
+     * @param defaultValue returned when the parameter is missing or not a number.
+     * @return the parameter value.
+     */
+    private int intInitParameter(String name, int defaultValue) {
+        String value = getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            System.out.println("Invalid init parameter " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Reads an integer request parameter.
+     *
+     * @param request the current request.
+     * @param name the parameter name.
+     * @param defaultValue returned when the parameter is missing or not a number.
+     * @return the parameter value.
+     */
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * What a request asks for, read on the container thread before the
+     * request is queued, so the worker never reads a request the deadline
+     * may already have completed.
+     */
+    private static final class Submission {
+
+        final PeerTutor peerTutor = new PeerTutor();
+        final String courseCode;
+        /* only list the roster of the course, from after on */
+        final boolean rosterOnly;
+        final int after;
+        final int pageSize;
+        final String clientAddress;
 
-            out.println("</body>");
-            out.println("</html>");
+        Submission(HttpServletRequest request) {
+            peerTutor.setLastName(request.getParameter("lastname"));
+            peerTutor.setFirstName(request.getParameter("firstname"));
+            peerTutor.setEmail(request.getParameter("email"));
+            courseCode = request.getParameter("code");
+            rosterOnly = request.getParameter("after") != null;
+            after = intParameter(request, "after", Integer.MIN_VALUE);
+            pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, intParameter(request, "page", DEFAULT_PAGE_SIZE)));
+            clientAddress = request.getRemoteAddr();
         }
     }
 
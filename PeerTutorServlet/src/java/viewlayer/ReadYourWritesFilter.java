@@ -0,0 +1,156 @@
+package viewlayer;
+
+import dataaccesslayer.DataSource;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Carries a client's last write from one request to the next, so that the
+ * roster or sessions it reads right after an assignment or booking come
+ * from the primary rather than a replica that may not have the write yet.
+ * <p>
+ * A request that writes gets a short-lived cookie holding the time of the
+ * write; while the cookie is sent back, the request's reads go to the
+ * primary. The cookie is added as the response starts, so servlets write to
+ * the database before they write the response, and it expires with the
+ * read-your-writes window. Servlets that hand work to another thread pass
+ * the time on with {@link DataSource#getLastWriteMillis()} and
+ * {@link DataSource#setLastWriteMillis(long)}.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class ReadYourWritesFilter implements Filter {
+
+    static final String COOKIE = "PeerTutorLastWrite";
+
+    /**
+     * Restores the client's last write on the request thread, runs the
+     * request and clears it again, since container threads are pooled.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @param chain the rest of the filter chain
+     * @throws IOException if an I/O error occurs
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        long lastWrite = lastWriteFrom(httpRequest);
+        DataSource.setLastWriteMillis(lastWrite);
+        LastWriteResponse wrapped = new LastWriteResponse(httpRequest, (HttpServletResponse) response, lastWrite);
+        try {
+            chain.doFilter(request, wrapped);
+            if (!request.isAsyncStarted() && !response.isCommitted()) {
+                // e.g. a 204 with no body: the response has not started yet
+                wrapped.start();
+            }
+        } finally {
+            DataSource.setLastWriteMillis(0);
+        }
+    }
+
+    private static long lastWriteFrom(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    // a time in the future would pin the client to the primary
+                    return Math.min(Long.parseLong(cookie.getValue()), System.currentTimeMillis());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds the cookie when the response starts, if the thread writing the
+     * response wrote to the database since the request arrived.
+     */
+    private static final class LastWriteResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+        private final long lastWriteAtStart;
+        private boolean started;
+
+        LastWriteResponse(HttpServletRequest request, HttpServletResponse response, long lastWriteAtStart) {
+            super(response);
+            this.request = request;
+            this.lastWriteAtStart = lastWriteAtStart;
+        }
+
+        void start() {
+            if (started) {
+                return;
+            }
+            started = true;
+            long lastWrite = DataSource.getLastWriteMillis();
+            if (lastWrite > lastWriteAtStart) {
+                Cookie cookie = new Cookie(COOKIE, Long.toString(lastWrite));
+                cookie.setMaxAge((int) Math.max(1, (DataSource.getReadYourWritesMillis() + 999) / 1000));
+                cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+                cookie.setHttpOnly(true);
+                addCookie(cookie);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            start();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            start();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            start();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            start();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            start();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            start();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package viewlayer;
+
+import businesslayer.ReportBusinessLogic;
+
+import java.io.IOException;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import transferobject.CourseCoverage;
+import transferobject.GradeCount;
+import transferobject.TutorWorkload;
+
+/**
+ * JSON API for the management reports, read from the rollups of migration
+ * V006 over the reporting connection pool.
+ * <ul>
+ * <li>{@code GET /api/reports/coverage}: tutors and sessions by status for
+ * every course.</li>
+ * <li>{@code GET /api/reports/workload?after=&page=}: courses, sessions by
+ * status and tutoring minutes per peer tutor, one page in PeerTutorID order.
+ * The response's {@code next} is the {@code after} of the next page.</li>
+ * <li>{@code GET /api/reports/grades?code=}: students by grade, for one
+ * course or all of them.</li>
+ * </ul>
+ * The rollups are kept up to date by the refresher that
+ * {@link PeerTutorApplication} starts with the application.
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class ReportServlet extends HttpServlet {
+
+    private static final String JSON = "application/json;charset=UTF-8";
+    private static final Histogram LATENCY = MetricsRegistry.histogram("peertutor_http_request_duration_seconds",
+            "Time from receiving a request to completing its response.", "servlet").labels("ReportServlet");
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
+    private ReportBusinessLogic logic;
+
+    /**
+     * Gets the business logic the application shares.
+     *
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Override
+    public void init() throws ServletException {
+        logic = PeerTutorApplication.reportLogic(getServletContext());
+    }
+
+    /**
+     * Times every request before dispatching it to the method handlers.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            super.service(request, response);
+        } finally {
+            LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>GET</code> method: the reports.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        String report = request.getPathInfo() == null ? "" : request.getPathInfo();
+        if ("/coverage".equals(report)) {
+            List<CourseCoverage> rows = logic.getCourseCoverage();
+            response.setContentType(JSON);
+            try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+                json.beginObject();
+                json.name("courses").beginArray();
+                for (CourseCoverage row : rows) {
+                    json.beginObject();
+                    json.name("code").value(row.getCourseCode());
+                    json.name("name").value(row.getCourseName());
+                    json.name("tutors").value(row.getTutorCount());
+                    json.name("booked").value(row.getBookedSessions());
+                    json.name("completed").value(row.getCompletedSessions());
+                    json.name("cancelled").value(row.getCancelledSessions());
+                    json.endObject();
+                }
+                json.endArray();
+                json.endObject();
+            }
+        } else if ("/workload".equals(report)) {
+            int pageSize = Math.max(1, Math.min(ReportBusinessLogic.MAX_PAGE_SIZE,
+                    intParameter(request, "page", DEFAULT_PAGE_SIZE)));
+            List<TutorWorkload> rows = logic.getTutorWorkload(intParameter(request, "after", 0), pageSize);
+            response.setContentType(JSON);
+            try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+                json.beginObject();
+                json.name("tutors").beginArray();
+                for (TutorWorkload row : rows) {
+                    json.beginObject();
+                    json.name("tutorId").value(row.getPeerTutorID());
+                    json.name("lastName").value(row.getLastName());
+                    json.name("firstName").value(row.getFirstName());
+                    json.name("courses").value(row.getCourseCount());
+                    json.name("booked").value(row.getBookedSessions());
+                    json.name("completed").value(row.getCompletedSessions());
+                    json.name("cancelled").value(row.getCancelledSessions());
+                    json.name("minutes").value(row.getTutoringMinutes());
+                    json.endObject();
+                }
+                json.endArray();
+                json.name("next");
+                if (rows.size() < pageSize) {
+                    json.nullValue();
+                } else {
+                    json.value(rows.get(rows.size() - 1).getPeerTutorID());
+                }
+                json.endObject();
+            }
+        } else if ("/grades".equals(report)) {
+            List<GradeCount> rows = logic.getGradeDistribution(request.getParameter("code"));
+            response.setContentType(JSON);
+            try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+                json.beginObject();
+                json.name("grades").beginArray();
+                for (GradeCount row : rows) {
+                    json.beginObject();
+                    json.name("code").value(row.getCourseCode());
+                    json.name("grade").value(row.getGradeCode());
+                    json.name("students").value(row.getStudentCount());
+                    json.endObject();
+                }
+                json.endArray();
+                json.endObject();
+            }
+        } else {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setContentType(JSON);
+            try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+                json.beginObject().name("error").value("Unknown report, expected coverage, workload or grades")
+                        .endObject();
+            }
+        }
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "JSON API for the tutor workload, course coverage and grade distribution reports";
+    }
+}
@@ -0,0 +1,273 @@
+package viewlayer;
+
+import businesslayer.PeerTutorBusinessLogic;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import transferobject.BookingResult;
+import transferobject.TutoringSession;
+
+/**
+ * JSON API for booking tutoring sessions.
+ * <ul>
+ * <li>{@code POST /api/sessions} with {@code tutorId}, {@code studentId},
+ * {@code code}, {@code date} (yyyy-MM-dd), {@code time} (HH:mm) and
+ * optionally {@code duration} in minutes and {@code topic} books a session.
+ * The status is 201, 409 if the peer tutor is busy at that time, 422 if the
+ * tutor does not tutor the course, the student is unknown or the time is
+ * not allowed.</li>
+ * <li>{@code DELETE /api/sessions} with {@code tutorId}, {@code studentId},
+ * {@code code}, {@code date} and {@code time} cancels it: 204, or 404 if no
+ * such session is booked.</li>
+ * <li>{@code GET /api/sessions?tutorId=} (or {@code studentId=} or
+ * {@code code=}) {@code &from=&days=&page=} lists the sessions of the given
+ * days, today and the following week by default.</li>
+ * </ul>
+ *
+ * @author: Lei Luo
+ * @version 1.0
+ * @since JDK 11
+ */
+public class SessionApiServlet extends HttpServlet {
+
+    private static final String JSON = "application/json;charset=UTF-8";
+    private static final Histogram LATENCY = MetricsRegistry.histogram("peertutor_http_request_duration_seconds",
+            "Time from receiving a request to completing its response.", "servlet").labels("SessionApiServlet");
+    private static final int DEFAULT_DAYS = 7;
+    private static final int MAX_DAYS = 62;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_DURATION = 60;
+    /* not among the HttpServletResponse constants of Servlet 4.0 */
+    private static final int SC_UNPROCESSABLE_ENTITY = 422;
+
+    private PeerTutorBusinessLogic logic;
+
+    /**
+     * Gets the business logic the application shares.
+     *
+     * @throws ServletException if a servlet-specific error occurs
+     */
+    @Override
+    public void init() throws ServletException {
+        logic = PeerTutorApplication.peerTutorLogic(getServletContext());
+    }
+
+    /**
+     * Times every request before dispatching it to the method handlers.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            super.service(request, response);
+        } finally {
+            LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>GET</code> method: session listings.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        LocalDate from;
+        try {
+            String fromParameter = request.getParameter("from");
+            from = fromParameter == null ? LocalDate.now() : LocalDate.parse(fromParameter.trim());
+        } catch (DateTimeParseException ex) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, "from must be a date like 2023-09-30");
+            return;
+        }
+        LocalDate to = from.plusDays(Math.max(1, Math.min(MAX_DAYS, intParameter(request, "days", DEFAULT_DAYS))));
+        int pageSize = Math.max(1, Math.min(MAX_PAGE_SIZE, intParameter(request, "page", DEFAULT_PAGE_SIZE)));
+
+        List<TutoringSession> sessions;
+        int tutorID = intParameter(request, "tutorId", 0);
+        int studentID = intParameter(request, "studentId", 0);
+        String courseCode = request.getParameter("code");
+        if (tutorID > 0) {
+            sessions = logic.getSessionsForTutor(tutorID, from, to, pageSize);
+        } else if (studentID > 0) {
+            sessions = logic.getSessionsForStudent(studentID, from, to, pageSize);
+        } else if (courseCode != null) {
+            sessions = logic.getSessionsForCourse(courseCode.trim(), from, to, pageSize);
+        } else {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, "one of tutorId, studentId or code is required");
+            return;
+        }
+
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject();
+            json.name("from").value(from.toString());
+            json.name("to").value(to.toString());
+            json.name("sessions").beginArray();
+            for (TutoringSession session : sessions) {
+                writeSession(json, session);
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>POST</code> method: bookings.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        TutoringSession session = sessionParameter(request, response);
+        if (session == null) {
+            return;
+        }
+        session.setDurationMinutes(intParameter(request, "duration", DEFAULT_DURATION));
+        session.setTopic(request.getParameter("topic"));
+
+        BookingResult result = logic.bookSession(session);
+        if (result == BookingResult.BOOKED) {
+            response.setStatus(HttpServletResponse.SC_CREATED);
+        } else if (result == BookingResult.TUTOR_BUSY) {
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+        } else if (result == BookingResult.ERROR) {
+            error(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "The session could not be booked, please try again");
+            return;
+        } else {
+            response.setStatus(SC_UNPROCESSABLE_ENTITY);
+        }
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject();
+            json.name("result").value(result.name());
+            json.name("session");
+            writeSession(json, session);
+            json.endObject();
+        }
+    }
+
+    /**
+     * Handles the HTTP <code>DELETE</code> method: cancellations.
+     *
+     * @param request servlet request
+     * @param response servlet response
+     * @throws ServletException if a servlet-specific error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        TutoringSession session = sessionParameter(request, response);
+        if (session == null) {
+            return;
+        }
+        if (logic.cancelSession(session)) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+        } else {
+            error(response, HttpServletResponse.SC_NOT_FOUND, "No such session is booked");
+        }
+    }
+
+    /**
+     * Reads the parameters that identify a session, answering 400 when one
+     * is missing or malformed.
+     *
+     * @return the session, or null if an error was sent.
+     */
+    private static TutoringSession sessionParameter(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        int tutorID = intParameter(request, "tutorId", 0);
+        int studentID = intParameter(request, "studentId", 0);
+        String courseCode = request.getParameter("code");
+        String date = request.getParameter("date");
+        String time = request.getParameter("time");
+        if (tutorID <= 0 || studentID <= 0 || courseCode == null || date == null || time == null) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, "tutorId, studentId, code, date and time are required");
+            return null;
+        }
+        TutoringSession session = new TutoringSession();
+        try {
+            session.setDate(LocalDate.parse(date.trim()));
+            session.setTime(LocalTime.parse(time.trim()));
+        } catch (DateTimeParseException ex) {
+            error(response, HttpServletResponse.SC_BAD_REQUEST, "date must look like 2023-09-30 and time like 14:30");
+            return null;
+        }
+        session.setPeerTutorID(tutorID);
+        session.setStudentID(studentID);
+        session.setCourseCode(courseCode.trim());
+        return session;
+    }
+
+    private static void writeSession(JsonWriter json, TutoringSession session) throws IOException {
+        json.beginObject();
+        json.name("date").value(session.getDate().toString());
+        json.name("time").value(session.getTime().toString());
+        json.name("duration").value(session.getDurationMinutes());
+        json.name("tutorId").value(session.getPeerTutorID());
+        json.name("code").value(session.getCourseCode());
+        json.name("studentId").value(session.getStudentID());
+        if (session.getStudentLastName() != null) {
+            json.name("studentLastName").value(session.getStudentLastName());
+        }
+        json.name("status").value(session.getStatus() == null ? null : session.getStatus().name());
+        json.name("topic").value(session.getTopic());
+        json.endObject();
+    }
+
+    private static void error(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(JSON);
+        try (JsonWriter json = new JsonWriter(response.getOutputStream())) {
+            json.beginObject().name("error").value(message).endObject();
+        }
+    }
+
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Returns a short description of the servlet.
+     *
+     * @return a String containing servlet description
+     */
+    @Override
+    public String getServletInfo() {
+        return "JSON API for booking, cancelling and listing tutoring sessions";
+    }
+}
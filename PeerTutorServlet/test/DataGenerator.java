@@ -0,0 +1,335 @@
+import dataaccesslayer.DataSource;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills the peertutor database with synthetic data at sizes where scaling
+ * problems show: Course, Student, PeerTutor, StudentCourse, Grade,
+ * PeerTutorCourse and TutoringSession, 10^6 rows and more.
+ * <p>
+ * The data is skewed the way real data is. Course popularity and the number
+ * of sessions per tutor follow Zipf distributions, and a few hundred
+ * surnames cover most students, so name lookups hit duplicates. Grades lean
+ * towards B, and only A-range grades lead to tutor assignments. Every peer
+ * tutor is also a student with the same name and email, as the eligibility
+ * queries expect.
+ * <p>
+ * Generated rows use their own ID ranges, so the seed data stays intact and
+ * {@code --clean} removes only what an earlier run added. The run is
+ * reproducible for a given {@code --seed}.
+ * <p>
+ * Usage: DataGenerator [--students N] [--tutors N] [--courses N]
+ * [--sessions N] [--seed N] [--clean]
+ * <br>
+ * The database is the one in database.properties; point it elsewhere with
+ * -Dpeertutor.db.url=... The URL should have rewriteBatchedStatements=true.
+ */
+public class DataGenerator {
+
+    static final int FIRST_STUDENT_ID = 30_000_000;
+    static final int FIRST_TUTOR_ID = 2_000_000;
+    static final String COURSE_PREFIX = "GEN";
+
+    private static final String[] GRADES = {"A+", "A", "A-", "B+", "B", "B-", "C+", "C", "D", "F"};
+    private static final double[] GRADE_WEIGHTS = {4, 8, 10, 13, 16, 13, 11, 10, 8, 7};
+    private static final int BATCH_SIZE = 5000;
+
+    public static void main(String[] args) throws SQLException {
+        Map<String, String> options = options(args);
+        int students = Integer.parseInt(options.getOrDefault("students", "1000000"));
+        int tutors = Math.min(students, Integer.parseInt(options.getOrDefault("tutors", "50000")));
+        int courses = Integer.parseInt(options.getOrDefault("courses", "300"));
+        int sessions = Integer.parseInt(options.getOrDefault("sessions", "2000000"));
+        Random random = new Random(Long.parseLong(options.getOrDefault("seed", "42")));
+
+        try (Connection con = new DataSource().createConnection()) {
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            try (Statement stmt = con.createStatement()) {
+                // bulk load: the generator keeps its own keys consistent
+                stmt.execute("SET foreign_key_checks = 0");
+                stmt.execute("SET unique_checks = 0");
+            }
+            con.setAutoCommit(false);
+            if (options.containsKey("clean")) {
+                clean(con);
+            }
+            long start = System.nanoTime();
+            insertCourses(con, courses);
+            int[] surnames = new int[students];
+            short[][] tutorCourses = insertStudents(con, random, students, tutors, courses, surnames);
+            insertSessions(con, random, sessions, tutorCourses, surnames);
+            try (Statement stmt = con.createStatement()) {
+                stmt.execute("SET foreign_key_checks = 1");
+                stmt.execute("SET unique_checks = 1");
+                stmt.execute("ANALYZE TABLE Course, Student, PeerTutor, StudentCourse, Grade, "
+                        + "PeerTutorCourse, TutoringSession");
+            }
+            System.out.printf("done in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        } finally {
+            DataSource.shutdown();
+        }
+    }
+
+    private static void clean(Connection con) throws SQLException {
+        String[] deletes = {
+            "DELETE FROM TutoringSession WHERE PeerTutor_PeerTutorID >= " + FIRST_TUTOR_ID,
+            "DELETE FROM PeerTutorCourse WHERE PeerTutor_PeerTutorID >= " + FIRST_TUTOR_ID,
+            "DELETE FROM PeerTutor WHERE PeerTutorID >= " + FIRST_TUTOR_ID,
+            "DELETE FROM Grade WHERE Student_StudentID >= " + FIRST_STUDENT_ID,
+            "DELETE FROM StudentCourse WHERE Student_StudentID >= " + FIRST_STUDENT_ID,
+            "DELETE FROM Student WHERE StudentID >= " + FIRST_STUDENT_ID,
+            "DELETE FROM Course WHERE CourseCode LIKE '" + COURSE_PREFIX + "%'"
+        };
+        try (Statement stmt = con.createStatement()) {
+            for (String delete : deletes) {
+                System.out.println(delete + ": " + stmt.executeUpdate(delete) + " rows");
+                con.commit();
+            }
+        }
+    }
+
+    static String courseCode(int course) {
+        return String.format("%s%04d", COURSE_PREFIX, course);
+    }
+
+    private static void insertCourses(Connection con, int courses) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement("INSERT IGNORE INTO Course VALUES (?, ?, ?)")) {
+            for (int c = 0; c < courses; c++) {
+                pstmt.setString(1, courseCode(c));
+                pstmt.setString(2, "Generated course " + c);
+                pstmt.setString(3, "Synthetic course for load testing");
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            con.commit();
+        }
+        System.out.println("courses: " + courses);
+    }
+
+    /**
+     * Inserts students with their courses and grades, and the first
+     * {@code tutors} of them again as peer tutors, assigned to a share of the
+     * courses they earned an A-range grade in.
+     *
+     * @param surnames receives the surname rank of each student.
+     * @return for each tutor, the indexes of the courses assigned to it.
+     */
+    private static short[][] insertStudents(Connection con, Random random, int students, int tutors,
+            int courses, int[] surnames) throws SQLException {
+        Zipf coursePopularity = new Zipf(courses, 1.0);
+        Zipf surnameRanks = new Zipf(5000, 1.1);
+        Zipf givenNames = new Zipf(2000, 0.9);
+        short[][] tutorCourses = new short[tutors][];
+        long studentCourses = 0;
+        long assignments = 0;
+
+        try (PreparedStatement student = con.prepareStatement("INSERT INTO Student VALUES (?, ?, ?, ?, ?)");
+                PreparedStatement tutor = con.prepareStatement(
+                        "INSERT INTO PeerTutor VALUES (?, ?, ?, ?, ?, 'CURRENT', 1)");
+                PreparedStatement taken = con.prepareStatement("INSERT INTO StudentCourse VALUES (?, ?)");
+                PreparedStatement grade = con.prepareStatement("INSERT INTO Grade VALUES (?, ?, ?)");
+                PreparedStatement assigned = con.prepareStatement("INSERT INTO PeerTutorCourse VALUES (?, ?)")) {
+            int pending = 0;
+            short[] picked = new short[16];
+            for (int s = 0; s < students; s++) {
+                int studentID = FIRST_STUDENT_ID + s;
+                surnames[s] = surnameRanks.next(random);
+                String lastName = "Sur" + surnames[s];
+                String firstName = "Given" + givenNames.next(random);
+                String email = "s" + s + "@gen.example";
+                student.setInt(1, studentID);
+                student.setString(2, lastName);
+                student.setString(3, firstName);
+                student.setString(4, email);
+                student.setString(5, "613-555-0100");
+                student.addBatch();
+                boolean isTutor = s < tutors;
+                if (isTutor) {
+                    tutor.setInt(1, FIRST_TUTOR_ID + s);
+                    tutor.setString(2, lastName);
+                    tutor.setString(3, firstName);
+                    tutor.setString(4, email);
+                    tutor.setString(5, "613-555-0100");
+                    tutor.addBatch();
+                }
+
+                int count = Math.min(courses, 3 + random.nextInt(6));
+                int assignedCount = 0;
+                for (int k = 0; k < count; k++) {
+                    int course = distinctCourse(random, coursePopularity, picked, k);
+                    picked[k] = (short) course;
+                    taken.setInt(1, studentID);
+                    taken.setString(2, courseCode(course));
+                    taken.addBatch();
+                    studentCourses++;
+                    // a course in progress has no grade yet
+                    if (random.nextInt(10) == 0) {
+                        continue;
+                    }
+                    String gradeCode = GRADES[weighted(random, GRADE_WEIGHTS)];
+                    grade.setInt(1, studentID);
+                    grade.setString(2, courseCode(course));
+                    grade.setString(3, gradeCode);
+                    grade.addBatch();
+                    if (isTutor && gradeCode.startsWith("A") && random.nextInt(10) < 7) {
+                        assigned.setInt(1, FIRST_TUTOR_ID + s);
+                        assigned.setString(2, courseCode(course));
+                        assigned.addBatch();
+                        // keep assigned courses at the front of picked
+                        short swap = picked[assignedCount];
+                        picked[assignedCount++] = picked[k];
+                        picked[k] = swap;
+                        assignments++;
+                    }
+                }
+                if (isTutor) {
+                    tutorCourses[s] = Arrays.copyOf(picked, assignedCount);
+                }
+
+                if (++pending == BATCH_SIZE || s == students - 1) {
+                    student.executeBatch();
+                    tutor.executeBatch();
+                    taken.executeBatch();
+                    grade.executeBatch();
+                    assigned.executeBatch();
+                    con.commit();
+                    pending = 0;
+                    if ((s + 1) % 100_000 < BATCH_SIZE) {
+                        System.out.println("students: " + (s + 1));
+                    }
+                }
+            }
+        }
+        System.out.println("students: " + students + ", peer tutors: " + tutors
+                + ", student courses: " + studentCourses + ", assignments: " + assignments);
+        return tutorCourses;
+    }
+
+    private static int distinctCourse(Random random, Zipf popularity, short[] picked, int count) {
+        while (true) {
+            int course = popularity.next(random);
+            boolean seen = false;
+            for (int i = 0; i < count && !seen; i++) {
+                seen = picked[i] == course;
+            }
+            if (!seen) {
+                return course;
+            }
+        }
+    }
+
+    /**
+     * Books sessions over one semester. Busy tutors get far more sessions
+     * than quiet ones, and sessions crowd into the middle of the day.
+     */
+    private static void insertSessions(Connection con, Random random, int sessions, short[][] tutorCourses,
+            int[] surnames) throws SQLException {
+        int[] bookable = new int[tutorCourses.length];
+        int bookableCount = 0;
+        for (int t = 0; t < tutorCourses.length; t++) {
+            if (tutorCourses[t].length > 0) {
+                bookable[bookableCount++] = t;
+            }
+        }
+        if (bookableCount == 0 || sessions == 0) {
+            System.out.println("sessions: 0");
+            return;
+        }
+        Zipf tutorLoad = new Zipf(bookableCount, 0.8);
+        LocalDate semesterStart = LocalDate.of(2023, 9, 5);
+        long inserted = 0;
+        try (PreparedStatement pstmt = con.prepareStatement(
+                "INSERT IGNORE INTO TutoringSession VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < sessions; i++) {
+                int t = bookable[tutorLoad.next(random)];
+                short[] courses = tutorCourses[t];
+                // tutees are drawn from the students who are not tutors, when there are any
+                int studentIndex = surnames.length > tutorCourses.length
+                        ? tutorCourses.length + random.nextInt(surnames.length - tutorCourses.length)
+                        : random.nextInt(surnames.length);
+                int hour = 9 + (int) Math.min(10, Math.abs(random.nextGaussian() * 2.5 + 4));
+                pstmt.setDate(1, Date.valueOf(semesterStart.plusDays(random.nextInt(105))));
+                pstmt.setTime(2, Time.valueOf(String.format("%02d:%02d:00", hour, random.nextBoolean() ? 0 : 30)));
+                pstmt.setString(3, "Sur" + surnames[studentIndex]);
+                pstmt.setInt(4, random.nextInt(3));
+                pstmt.setString(5, "Generated session");
+                pstmt.setInt(6, FIRST_TUTOR_ID + t);
+                pstmt.setString(7, courseCode(courses[random.nextInt(courses.length)]));
+                pstmt.setInt(8, FIRST_STUDENT_ID + studentIndex);
+                pstmt.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0 || i == sessions - 1) {
+                    for (int count : pstmt.executeBatch()) {
+                        inserted += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+                    }
+                    con.commit();
+                }
+            }
+        }
+        System.out.println("sessions: " + inserted);
+    }
+
+    private static int weighted(Random random, double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            r -= weights[i];
+            if (r < 0) {
+                return i;
+            }
+        }
+        return weights.length - 1;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            String name = args[i].substring(2);
+            boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("--");
+            options.put(name, hasValue ? args[++i] : "true");
+        }
+        return options;
+    }
+
+    /**
+     * Draws ranks 0..n-1 with probability proportional to 1/(rank+1)^s.
+     */
+    static class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double s) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, s);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+    }
+}
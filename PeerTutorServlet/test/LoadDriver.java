@@ -0,0 +1,261 @@
+import dataaccesslayer.DataSource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop HTTP load driver for PeerTutorServlet. Each virtual user sends
+ * a request, waits for the response and immediately sends the next, so the
+ * offered load rises with the number of users. For every concurrency level
+ * of the sweep the driver reports throughput, p50/p99/p99.9 latency and the
+ * error rate. Errors are transport failures and any status other than 200;
+ * an eligibility refusal is a normal 200 page.
+ * <p>
+ * Requests mix form submissions for peer tutors sampled from the database,
+ * a share of unknown names, and roster page reads. Being closed-loop, the
+ * driver waits out slow responses instead of queueing behind them, so the
+ * latency it reports understates what an open stream of users would see
+ * once the server saturates; watch throughput flatten alongside it.
+ * <p>
+ * Usage: LoadDriver --url http://host:8080/PeerTutorServlet/PeerTutorServlet-URL
+ * [--concurrency 1,2,4,8,16,32,64] [--duration 30] [--warmup 5]
+ * [--roster 20] [--unknown 10] [--names 1000]
+ * <br>
+ * Durations are in seconds; --roster and --unknown are percentages. Names
+ * are read through database.properties, so run it against the same database
+ * as the server, e.g. one filled by DataGenerator.
+ */
+public class LoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+        String url = options.get("url");
+        if (url == null) {
+            System.out.println("Usage: LoadDriver --url <servlet url> [--concurrency 1,2,4,...] [--duration s] "
+                    + "[--warmup s] [--roster %] [--unknown %] [--names n]");
+            return;
+        }
+        int[] levels = Arrays.stream(options.getOrDefault("concurrency", "1,2,4,8,16,32,64").split(","))
+                .mapToInt(level -> Integer.parseInt(level.trim())).toArray();
+        long durationNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30"))).toNanos();
+        long warmupNanos = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5"))).toNanos();
+        int rosterPercent = Integer.parseInt(options.getOrDefault("roster", "20"));
+        int unknownPercent = Integer.parseInt(options.getOrDefault("unknown", "10"));
+
+        List<String[]> names;
+        List<String> courses;
+        try {
+            names = sampleNames(Integer.parseInt(options.getOrDefault("names", "1000")));
+            courses = courses();
+        } finally {
+            DataSource.shutdown();
+        }
+        if (names.isEmpty() || courses.isEmpty()) {
+            System.out.println("No peer tutors or courses found in the database");
+            return;
+        }
+        System.out.printf("%d peer tutors, %d courses, %d%% roster reads, %d%% unknown names%n",
+                names.size(), courses.size(), rosterPercent, unknownPercent);
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Workload workload = new Workload(url, names, courses, rosterPercent, unknownPercent);
+
+        System.out.printf("%6s %10s %10s %10s %10s %10s %8s%n",
+                "users", "requests", "req/s", "p50 ms", "p99 ms", "p999 ms", "errors");
+        for (int users : levels) {
+            run(client, workload, users, warmupNanos, durationNanos);
+        }
+    }
+
+    /**
+     * Runs one concurrency level: warm-up first, then the measured window.
+     */
+    private static void run(HttpClient client, Workload workload, int users, long warmupNanos,
+            long durationNanos) throws InterruptedException {
+        long measureFrom = System.nanoTime() + warmupNanos;
+        long measureUntil = measureFrom + durationNanos;
+        VirtualUser[] virtualUsers = new VirtualUser[users];
+        Thread[] threads = new Thread[users];
+        for (int i = 0; i < users; i++) {
+            virtualUsers[i] = new VirtualUser(client, workload, measureFrom, measureUntil);
+            threads[i] = new Thread(virtualUsers[i], "load-user-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] all = new long[0];
+        long errors = 0;
+        for (VirtualUser user : virtualUsers) {
+            long[] samples = Arrays.copyOf(user.latencies, user.count);
+            long[] merged = Arrays.copyOf(all, all.length + samples.length);
+            System.arraycopy(samples, 0, merged, all.length, samples.length);
+            all = merged;
+            errors += user.errors;
+        }
+        Arrays.sort(all);
+        long requests = all.length;
+        System.out.printf("%6d %10d %10.1f %10.2f %10.2f %10.2f %7.2f%%%n", users, requests,
+                requests / (durationNanos / 1e9), percentile(all, 0.50), percentile(all, 0.99),
+                percentile(all, 0.999), requests == 0 ? 0.0 : 100.0 * errors / requests);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(sorted.length * p) - 1)] / 1e6;
+    }
+
+    private static List<String[]> sampleNames(int count) throws SQLException {
+        List<String[]> names = new ArrayList<>();
+        try (Connection con = new DataSource().createConnection();
+                PreparedStatement pstmt = con.prepareStatement(
+                        "SELECT LastName, FirstName FROM PeerTutor ORDER BY RAND() LIMIT ?")) {
+            pstmt.setInt(1, count);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    names.add(new String[]{rs.getString("LastName"), rs.getString("FirstName")});
+                }
+            }
+        }
+        return names;
+    }
+
+    private static List<String> courses() throws SQLException {
+        List<String> courses = new ArrayList<>();
+        try (Connection con = new DataSource().createConnection();
+                PreparedStatement pstmt = con.prepareStatement("SELECT CourseCode FROM Course");
+                ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                courses.add(rs.getString("CourseCode"));
+            }
+        }
+        return courses;
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Builds random requests in the configured mix.
+     */
+    private static class Workload {
+
+        private final String url;
+        private final List<String[]> names;
+        private final List<String> courses;
+        private final int rosterPercent;
+        private final int unknownPercent;
+
+        Workload(String url, List<String[]> names, List<String> courses, int rosterPercent, int unknownPercent) {
+            this.url = url;
+            this.names = names;
+            this.courses = courses;
+            this.rosterPercent = rosterPercent;
+            this.unknownPercent = unknownPercent;
+        }
+
+        HttpRequest next() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String course = courses.get(random.nextInt(courses.size()));
+            String query;
+            if (random.nextInt(100) < rosterPercent) {
+                query = "code=" + encode(course) + "&after=" + Integer.MIN_VALUE + "&page=50";
+            } else {
+                String[] name = names.get(random.nextInt(names.size()));
+                String lastName = random.nextInt(100) < unknownPercent ? "Unknown" + random.nextInt(1000) : name[0];
+                query = "lastname=" + encode(lastName) + "&firstname=" + encode(name[1]) + "&code=" + encode(course);
+            }
+            return HttpRequest.newBuilder(URI.create(url + "?" + query))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+        }
+
+        private static String encode(String value) {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * One closed-loop user. Latencies are recorded in nanoseconds, only for
+     * requests sent inside the measured window.
+     */
+    private static class VirtualUser implements Runnable {
+
+        private final HttpClient client;
+        private final Workload workload;
+        private final long measureFrom;
+        private final long measureUntil;
+        long[] latencies = new long[4096];
+        int count;
+        long errors;
+
+        VirtualUser(HttpClient client, Workload workload, long measureFrom, long measureUntil) {
+            this.client = client;
+            this.workload = workload;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                long start = System.nanoTime();
+                if (start >= measureUntil) {
+                    return;
+                }
+                boolean failed;
+                try {
+                    HttpResponse<Void> response = client.send(workload.next(),
+                            HttpResponse.BodyHandlers.discarding());
+                    failed = response.statusCode() != 200;
+                } catch (IOException ex) {
+                    failed = true;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long latency = System.nanoTime() - start;
+                if (start >= measureFrom) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = latency;
+                    if (failed) {
+                        errors++;
+                    }
+                }
+            }
+        }
+    }
+}
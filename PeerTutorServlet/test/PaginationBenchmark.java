@@ -0,0 +1,125 @@
+import dataaccesslayer.DataSource;
+import dataaccesslayer.PeerTutorDAOImpl;
+import dataaccesslayer.PeerTutorSql;
+import transferobject.PeerTutor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Walks the whole roster of one course page by page and reports page latency
+ * by depth, for the keyset pagination used by PeerTutorDAOImpl and, for
+ * comparison, for LIMIT/OFFSET paging of the same query. Keyset latency
+ * should stay flat from the first page to the last; OFFSET latency grows
+ * with depth.
+ * <p>
+ * Usage: PaginationBenchmark courseCode [pageSize] [rounds]
+ * Run it against a scaled-up database with a large roster for the course.
+ */
+public class PaginationBenchmark {
+
+    private static final int DEPTH_BUCKETS = 10;
+
+    private static final String OFFSET_PAGE
+            = "SELECT PeerTutor.PeerTutorID, PeerTutor.LastName, PeerTutor.FirstName FROM PeerTutorCourse "
+            + "JOIN PeerTutor ON PeerTutor.PeerTutorID = PeerTutorCourse.PeerTutor_PeerTutorID "
+            + "WHERE PeerTutorCourse.Course_CourseCode = ? "
+            + "ORDER BY PeerTutorCourse.PeerTutor_PeerTutorID LIMIT ? OFFSET ?";
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 1) {
+            System.out.println("Usage: PaginationBenchmark courseCode [pageSize] [rounds]");
+            return;
+        }
+        String courseCode = args[0];
+        int pageSize = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        PeerTutorDAOImpl dao = new PeerTutorDAOImpl();
+
+        try {
+            // warm-up round fills the pool, the buffer pool and the JIT
+            keysetWalk(dao, courseCode, pageSize);
+            List<Long> keyset = new ArrayList<>();
+            List<Long> offset = new ArrayList<>();
+            for (int round = 0; round < rounds; round++) {
+                keyset.addAll(keysetWalk(dao, courseCode, pageSize));
+                offset.addAll(offsetWalk(courseCode, pageSize));
+            }
+            System.out.printf("course %s, page size %d, %d pages per walk, %d rounds%n",
+                    courseCode, pageSize, keyset.size() / rounds, rounds);
+            System.out.println(PeerTutorSql.PEER_TUTORS_FOR_COURSE);
+            report("keyset", keyset, rounds);
+            report("offset", offset, rounds);
+        } finally {
+            DataSource.shutdown();
+        }
+    }
+
+    private static List<Long> keysetWalk(PeerTutorDAOImpl dao, String courseCode, int pageSize) {
+        List<Long> pageNanos = new ArrayList<>();
+        int after = Integer.MIN_VALUE;
+        while (true) {
+            long start = System.nanoTime();
+            List<PeerTutor> page = dao.getPeerTutorsForCourse(courseCode, after, pageSize);
+            pageNanos.add(System.nanoTime() - start);
+            if (page.size() < pageSize) {
+                return pageNanos;
+            }
+            after = page.get(page.size() - 1).getPeerTutorID();
+        }
+    }
+
+    private static List<Long> offsetWalk(String courseCode, int pageSize) throws SQLException {
+        List<Long> pageNanos = new ArrayList<>();
+        try (Connection con = new DataSource().createConnection();
+                PreparedStatement pstmt = con.prepareStatement(OFFSET_PAGE)) {
+            for (int offset = 0;; offset += pageSize) {
+                long start = System.nanoTime();
+                pstmt.setString(1, courseCode);
+                pstmt.setInt(2, pageSize);
+                pstmt.setInt(3, offset);
+                int rows = 0;
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows++;
+                    }
+                }
+                pageNanos.add(System.nanoTime() - start);
+                if (rows < pageSize) {
+                    return pageNanos;
+                }
+            }
+        }
+    }
+
+    /**
+     * Prints median and 99th percentile page latency for each tenth of the
+     * roster, first pages first.
+     */
+    private static void report(String name, List<Long> pageNanos, int rounds) {
+        int pagesPerWalk = pageNanos.size() / rounds;
+        System.out.println(name);
+        for (int bucket = 0; bucket < DEPTH_BUCKETS; bucket++) {
+            int from = bucket * pagesPerWalk / DEPTH_BUCKETS;
+            int to = (bucket + 1) * pagesPerWalk / DEPTH_BUCKETS;
+            if (from == to) {
+                continue;
+            }
+            long[] samples = new long[(to - from) * rounds];
+            int n = 0;
+            for (int round = 0; round < rounds; round++) {
+                for (int page = from; page < to; page++) {
+                    samples[n++] = pageNanos.get(round * pagesPerWalk + page);
+                }
+            }
+            Arrays.sort(samples);
+            System.out.printf("  pages %6d-%-6d p50 %8.3f ms  p99 %8.3f ms%n", from, to - 1,
+                    samples[samples.length / 2] / 1e6, samples[(int) (samples.length * 0.99)] / 1e6);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+import dataaccesslayer.DataSource;
+import dataaccesslayer.PeerTutorSql;
+import dataaccesslayer.ReportSql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs EXPLAIN on every hot query of PeerTutorDAOImpl and fails if any of
+ * them reads a whole table ("ALL") or a whole index ("index").
+ * <p>
+ * The optimizer happily scans tables of a few rows, so run this against a
+ * database scaled to production size (around 1M students) rather than the
+ * seed data alone. Migrations V002 to V006 must be applied.
+ */
+public class QueryPlanTester {
+
+    /* tables small enough that a scan is the right plan at any scale */
+    private static final String[] SMALL_TABLES = {"Course", "Experience"};
+
+    public static void main(String[] args) {
+        Connection con = null;
+        int failures = 0;
+        try {
+            DataSource ds = new DataSource();
+            con = ds.createConnection();
+            if (con == null) {
+                throw new SQLException("Could not establish database connection");
+            }
+            String[] sample = sampleTutorAndCourse(con);
+            System.out.printf("Students: %d, sample tutor: %s %s, course: %s%n",
+                    count(con, "Student"), sample[1], sample[0], sample[2]);
+
+            String last = sample[0];
+            String first = sample[1];
+            String course = sample[2];
+            int tutorID = Integer.parseInt(sample[3]);
+            String email = sample[4];
+            // the student ID only picks index lookups, any value will do
+            int studentID = 1;
+            Map<String, Object[]> queries = new LinkedHashMap<>();
+            queries.put(PeerTutorSql.IS_COURSE_VALID, new Object[]{course});
+            queries.put(PeerTutorSql.PEER_TUTORS_FOR_COURSE, new Object[]{course, 0, 50});
+            queries.put(PeerTutorSql.ELIGIBLE_TUTORS_FOR_COURSE, new Object[]{course, 50});
+            queries.put(PeerTutorSql.ELIGIBLE_UNASSIGNED_TUTORS_FOR_COURSE, new Object[]{course,
+                Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE, 50});
+            queries.put(PeerTutorSql.ROSTER_VERSION, new Object[]{course});
+            queries.put(PeerTutorSql.INSERT_PEER_TUTOR_COURSE, new Object[]{1, course});
+            queries.put(PeerTutorSql.ELIGIBILITY_VERDICT_BY_ID, new Object[]{course, studentID, course, studentID,
+                course, tutorID, course, tutorID, course});
+            queries.put(PeerTutorSql.ASSIGN_COURSE_TO_PEER_TUTOR_BY_ID, new Object[]{tutorID, course});
+            queries.put(PeerTutorSql.IS_COURSE_ASSIGNED_TO_PEER_TUTOR_BY_ID, new Object[]{tutorID, course});
+            queries.put(PeerTutorSql.PEER_TUTOR_IDENTITIES_BY_NAME, new Object[]{last, first});
+            queries.put(PeerTutorSql.PEER_TUTOR_IDENTITIES_BY_EMAIL, new Object[]{email});
+            queries.put(PeerTutorSql.PEER_TUTOR_IDENTITY_BY_ID, new Object[]{tutorID});
+            String today = java.time.LocalDate.now().toString();
+            String nextWeek = java.time.LocalDate.now().plusDays(7).toString();
+            queries.put(PeerTutorSql.LOCK_PEER_TUTOR, new Object[]{tutorID});
+            queries.put(PeerTutorSql.TUTOR_SESSION_OVERLAPS, new Object[]{tutorID, today, nextWeek,
+                nextWeek + " 00:00:00", today + " 00:00:00"});
+            queries.put(PeerTutorSql.CANCEL_TUTORING_SESSION, new Object[]{today, "10:00:00", tutorID, course,
+                studentID});
+            queries.put(PeerTutorSql.SESSIONS_FOR_TUTOR, new Object[]{tutorID, today, nextWeek, 100});
+            queries.put(PeerTutorSql.SESSIONS_FOR_COURSE, new Object[]{course, today, nextWeek, 100});
+            queries.put(PeerTutorSql.SESSIONS_FOR_STUDENT, new Object[]{studentID, today, nextWeek, 100});
+            queries.put(PeerTutorSql.BOOKED_SESSIONS_BETWEEN, new Object[]{today, nextWeek});
+            queries.put(PeerTutorSql.eligibilityVerdicts(2), new Object[]{0, tutorID, studentID, course,
+                1, tutorID, studentID, course});
+            queries.put(ReportSql.TUTOR_WORKLOAD, new Object[]{0, 100});
+            queries.put(ReportSql.GRADE_DISTRIBUTION_FOR_COURSE, new Object[]{course});
+            queries.put(ReportSql.JOURNAL_HEAD, new Object[]{5000});
+            queries.put(ReportSql.DELETE_JOURNAL_RUN, new Object[]{1, 5000});
+
+            for (Map.Entry<String, Object[]> query : queries.entrySet()) {
+                failures += explain(con, query.getKey(), query.getValue());
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            failures++;
+        } finally {
+            try {
+                if (con != null) {
+                    con.close();
+                }
+            } catch (SQLException ex) {
+                System.out.println(ex.getMessage());
+            }
+            DataSource.shutdown();
+        }
+        System.out.println(failures == 0 ? "PASS: no full scans" : "FAIL: " + failures + " full scan(s)");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    /**
+     * Explains one statement with the given parameters and prints every step
+     * of the plan.
+     *
+     * @return the number of plan steps that scan a large table or index.
+     */
+    private static int explain(Connection con, String sql, Object[] parameters) throws SQLException {
+        int failures = 0;
+        try (PreparedStatement pstmt = con.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                pstmt.setObject(i + 1, parameters[i]);
+            }
+            System.out.println(sql);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String table = rs.getString("table");
+                    String type = rs.getString("type");
+                    boolean scan = ("ALL".equals(type) || "index".equals(type)) && !isSmallTable(table);
+                    System.out.printf("  %-5s %-18s %-8s key=%-28s rows=%s%n", scan ? "SCAN" : "ok",
+                            table, type, rs.getString("key"), rs.getString("rows"));
+                    if (scan) {
+                        failures++;
+                    }
+                }
+            }
+        }
+        return failures;
+    }
+
+    private static boolean isSmallTable(String table) {
+        if (table == null || table.startsWith("<")) {
+            return true;
+        }
+        for (String small : SMALL_TABLES) {
+            if (small.equalsIgnoreCase(table)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] sampleTutorAndCourse(Connection con) throws SQLException {
+        String[] sample = {"", "", "", "0", ""};
+        try (PreparedStatement pstmt = con.prepareStatement(
+                "SELECT PeerTutor.LastName, PeerTutor.FirstName, PeerTutorCourse.Course_CourseCode, "
+                + "PeerTutor.PeerTutorID, PeerTutor.Email FROM PeerTutor "
+                + "JOIN PeerTutorCourse ON PeerTutorCourse.PeerTutor_PeerTutorID = PeerTutor.PeerTutorID LIMIT 1");
+                ResultSet rs = pstmt.executeQuery()) {
+            if (rs.next()) {
+                sample[0] = rs.getString(1);
+                sample[1] = rs.getString(2);
+                sample[2] = rs.getString(3);
+                sample[3] = rs.getString(4);
+                sample[4] = rs.getString(5);
+            }
+        }
+        return sample;
+    }
+
+    private static long count(Connection con, String table) throws SQLException {
+        try (PreparedStatement pstmt = con.prepareStatement("SELECT COUNT(*) FROM " + table);
+                ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}